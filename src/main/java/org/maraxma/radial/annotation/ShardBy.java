@@ -0,0 +1,35 @@
+package org.maraxma.radial.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * {@code @ShardBy}注解标注在方法的参数上，代表这个参数是分片键：方法执行时会根据参数的值选择一个分片组（radial.sharding.xxx）中的数据源。
+ * <p>它可以用在Service实现类的方法上，也可以用在Mapper接口的抽象方法上，例如：</p>
+ * <pre>
+ * List&lt;Order&gt; findOrders(&#64;ShardBy("order") long userId);
+ * </pre>
+ * <p>方法执行期间使用选中的数据源，方法退出（包括抛出异常）时恢复为进入方法之前的数据源。同一个方法上同时标注了{@code @UseDataSource}时，以{@code @ShardBy}为准。</p>
+ * <p>此注解仅在使用可切换数据源（{@code @EnableSwitchableDataSource}）时有效。</p>
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ShardBy {
+
+    /**
+     * 分片组名称，即radial.sharding下配置的名称。
+     */
+    String value();
+
+    /**
+     * 方法中的操作是否是只读的，默认为“false”，含义与{@link UseDataSource#readOnly()}相同。
+     */
+    boolean readOnly() default false;
+}
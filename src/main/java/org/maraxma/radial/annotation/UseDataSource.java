@@ -47,6 +47,9 @@ import java.lang.annotation.Target;
  * </pre>
  * </p>
  * 当你使用可切换数据源时，在有数据操作的方法上而没有使用@UseDataSource时，那么会使用你在配置文件中指定的第一个数据源。两个标有{@code @UseDataSource}的方法互相调用将使用待用发起方的{@code @UseDataSource}。在Controller上调用两个标有不同{@code @UseDataSource}的方法将使用各自的DataSource。
+ <p>从1.4.0开始，{@code @UseDataSource}是有作用域的：方法退出（包括抛出异常）时，数据源会恢复为进入方法之前的值，因此它不会再影响这个方法返回之后的其他调用。
+ * 通过Spring代理调用另一个Bean上标有{@code @UseDataSource}的方法时，被调用的方法在执行期间使用它自己的数据源，返回后恢复为调用方的数据源。
+ * 在方法体中使用{@code DataSourceContextHolder.setDataSourceName()}做的切换同样只在该方法退出之前有效。</p>
  * <li>当使用多数据源（{@code @EnableMultiDataSource}）时：该注解只能用在成员变量上，在这种情况下它等同于{@code @Resource(name = "XX")}。在成员变量上使用{@code @UseDataSource("XX")}来指定你的数据源，在方法上使用它将没有任何效果。</li>
  * <li>在1.1.7以后，{@code @UseDataSource}可以标注在Mapper接口的抽象方法上了。但是前提是你在入口类上标注了{@link EnableSwitchableDataSourceOnMapper}。关于这种用法的注意事项也请参见{@link EnableSwitchableDataSourceOnMapper}这个类。</li>
  * </ul>
@@ -72,4 +75,14 @@ public @interface UseDataSource {
      */
     boolean required() default true;
 
+    /**
+     * 方法中的操作是否是只读的，默认为“false”。
+     * <p>若为true，并且所使用的数据源配置了只读副本（replicas），那么方法中的查询将会被分摊到只读副本上执行。
+     * 处于事务中时以事务的只读标记（{@code @Transactional(readOnly = true)}）为准，读写事务中的所有操作都会在主数据源上执行。</p>
+     * <p>此属性仅在使用可切换数据源（{@code @EnableSwitchableDataSource}）时有效。</p>
+     *
+     * @since 1.4.0
+     */
+    boolean readOnly() default false;
+
 }
@@ -0,0 +1,53 @@
+package org.maraxma.radial.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * {@code @UseDataSources}注解标注在返回{@link java.util.List}的方法上，代表这个方法需要在多个数据源上各执行一次（分散-聚集），
+ * 各个数据源上的执行是并行的，最终的结果是所有数据源上返回的列表的合并。
+ * <p>它可以用在Service实现类的方法上，也可以用在Mapper接口的抽象方法上，例如：</p>
+ * <pre>
+ * &#64;UseDataSources(value = {"dataSource_DS1", "dataSource_DS2"}, orderBy = "createTime", descending = true, limit = 100)
+ * List&lt;Order&gt; findLatestOrders();
+ * </pre>
+ * <p>每个数据源上的调用运行在一个有界的线程池中，它们各自使用自己的数据源，并且不参与调用方的事务。
+ * 任意一个数据源上的调用失败时，整个方法抛出这个异常（其他数据源上的异常作为被抑制的异常附加在上面）。</p>
+ * <p>此注解仅在使用可切换数据源（{@code @EnableSwitchableDataSource}）时有效，不要与{@code @UseDataSource}或者{@code @ShardBy}同时使用。</p>
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface UseDataSources {
+
+    /**
+     * 数据源名称，为空时代表所有可用的数据源（不包括租户数据源）。
+     */
+    String[] value() default {};
+
+    /**
+     * 方法中的操作是否是只读的，默认为“false”，含义与{@link UseDataSource#readOnly()}相同。
+     */
+    boolean readOnly() default false;
+
+    /**
+     * 合并之后用于排序的属性名称（支持Map的键和JavaBean的属性，属性值必须是{@link Comparable}的），默认为空，代表不排序（结果按照数据源的顺序拼接）。
+     */
+    String orderBy() default "";
+
+    /**
+     * 是否降序排序，默认为“false”。
+     */
+    boolean descending() default false;
+
+    /**
+     * 合并（和排序）之后最多保留的元素数量，默认为-1，代表不限制。
+     */
+    int limit() default -1;
+}
@@ -0,0 +1,130 @@
+package org.maraxma.radial.aop;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+
+/**
+ * 数据源路由决策缓存。
+ * <p>切面在每次方法调用时都需要知道这个方法应该使用哪个数据源，这原本需要通过反射查找方法和注解（甚至反射读取MyBatis代理的内部字段）。
+ * 这个缓存以“目标类+方法”为键保存解析出来的{@link RoutingDecision}（包括否定结果），使得除第一次之外的调用只需要查一次表。</p>
+ * <p>缓存被分为若干个表（{@link Table}），每个切面使用自己的表，因为同一个方法在不同的切面中的含义可能不同。
+ * 每个表先通过{@link ClassValue}定位到目标类对应的Map（不产生任何对象），再以方法为键查找决策。</p>
+ * <p>在Bean处理阶段（{@link org.maraxma.radial.auto.AnnotationPostProcessor}等）可以预先向表中填充决策，使得运行时连第一次解析都可以省去。</p>
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+public class DataSourceRoutingCache implements DataSourceRoutingCacheMXBean {
+
+    private final ConcurrentMap<String, Table> tables = new ConcurrentHashMap<>();
+
+    /**
+     * 获得（若不存在则创建）一个缓存表。
+     *
+     * @param name 表名称
+     * @return 缓存表
+     */
+    public Table table(String name) {
+        return tables.computeIfAbsent(name, k -> new Table());
+    }
+
+    @Override
+    public long getHitCount() {
+        return tables.values().stream().mapToLong(t -> t.hits.sum()).sum();
+    }
+
+    @Override
+    public long getMissCount() {
+        return tables.values().stream().mapToLong(t -> t.misses.sum()).sum();
+    }
+
+    @Override
+    public long getSize() {
+        return tables.values().stream().mapToLong(t -> t.size.sum()).sum();
+    }
+
+    @Override
+    public Map<String, RoutingCacheStatistics> getStatistics() {
+        Map<String, RoutingCacheStatistics> statistics = new TreeMap<>();
+        tables.forEach((name, table) -> statistics.put(name, new RoutingCacheStatistics(table.hits.sum(), table.misses.sum(), table.size.sum())));
+        return statistics;
+    }
+
+    /**
+     * 路由决策缓存表。
+     */
+    public static class Table {
+
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder size = new LongAdder();
+
+        private final ClassValue<ConcurrentMap<Method, RoutingDecision>> decisions = new ClassValue<ConcurrentMap<Method, RoutingDecision>>() {
+            @Override
+            protected ConcurrentMap<Method, RoutingDecision> computeValue(Class<?> type) {
+                return new ConcurrentHashMap<>();
+            }
+        };
+
+        Table() {
+        }
+
+        /**
+         * 获得缓存的路由决策。
+         *
+         * @param targetClass 目标类
+         * @param method      方法
+         * @return 路由决策，若缓存中没有则返回null（此时调用者应该解析决策并调用{@link #put(Class, Method, RoutingDecision)}）
+         */
+        public RoutingDecision get(Class<?> targetClass, Method method) {
+            RoutingDecision decision = decisions.get(targetClass).get(method);
+            if (decision != null) {
+                hits.increment();
+            } else {
+                misses.increment();
+            }
+            return decision;
+        }
+
+        /**
+         * 缓存路由决策。若并发地解析了同一个方法，那么只有第一个被缓存的决策生效。
+         *
+         * @param targetClass 目标类
+         * @param method      方法
+         * @param decision    路由决策，为null时视为{@link RoutingDecision#NONE}
+         * @return 最终被缓存的路由决策
+         */
+        public RoutingDecision put(Class<?> targetClass, Method method, RoutingDecision decision) {
+            return putIfAbsent(decisions.get(targetClass), method, decision == null ? RoutingDecision.NONE : decision);
+        }
+
+        /**
+         * 预先解析并缓存路由决策（不计入命中和未命中次数）。
+         *
+         * @param targetClass 目标类
+         * @param method      方法
+         * @param resolver    解析器
+         */
+        public void preload(Class<?> targetClass, Method method, BiFunction<Class<?>, Method, RoutingDecision> resolver) {
+            ConcurrentMap<Method, RoutingDecision> map = decisions.get(targetClass);
+            if (!map.containsKey(method)) {
+                RoutingDecision decision = resolver.apply(targetClass, method);
+                putIfAbsent(map, method, decision == null ? RoutingDecision.NONE : decision);
+            }
+        }
+
+        private RoutingDecision putIfAbsent(ConcurrentMap<Method, RoutingDecision> map, Method method, RoutingDecision decision) {
+            RoutingDecision existing = map.putIfAbsent(method, decision);
+            if (existing != null) {
+                return existing;
+            }
+            size.increment();
+            return decision;
+        }
+    }
+}
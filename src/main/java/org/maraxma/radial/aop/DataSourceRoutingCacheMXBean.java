@@ -0,0 +1,41 @@
+package org.maraxma.radial.aop;
+
+import java.util.Map;
+
+/**
+ * 数据源路由决策缓存MXBean。
+ * <p>可以通过JMX查看各个切面的路由决策缓存的命中情况。</p>
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+public interface DataSourceRoutingCacheMXBean {
+
+    /**
+     * 获得所有缓存表的命中次数之和。
+     *
+     * @return 命中次数
+     */
+    long getHitCount();
+
+    /**
+     * 获得所有缓存表的未命中次数之和（未命中时会解析并缓存路由决策）。
+     *
+     * @return 未命中次数
+     */
+    long getMissCount();
+
+    /**
+     * 获得所有缓存表中缓存的决策数量之和。
+     *
+     * @return 决策数量
+     */
+    long getSize();
+
+    /**
+     * 获得每个缓存表的统计信息。
+     *
+     * @return 缓存表名称与统计信息的映射，不会为null
+     */
+    Map<String, RoutingCacheStatistics> getStatistics();
+}
@@ -0,0 +1,36 @@
+package org.maraxma.radial.aop;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * 路由决策缓存表的统计信息。
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+public class RoutingCacheStatistics {
+    private final long hitCount;
+    private final long missCount;
+    private final long size;
+
+    @ConstructorProperties({"hitCount", "missCount", "size"})
+    public RoutingCacheStatistics(long hitCount, long missCount, long size) {
+        super();
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.size = size;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+}
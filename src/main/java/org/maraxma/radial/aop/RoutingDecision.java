@@ -0,0 +1,131 @@
+package org.maraxma.radial.aop;
+
+/**
+ * 路由决策，代表一个方法在执行时应该使用的数据源。
+ * <p>路由决策由切面在第一次执行某个方法时解析得到（或者在Bean处理阶段预先解析），之后缓存在{@link DataSourceRoutingCache}中，
+ * 同一个方法再次执行时只需要一次查表即可得到结果。{@link #NONE}代表这个方法不需要切换数据源（否定结果同样会被缓存）。</p>
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+public final class RoutingDecision {
+
+    /**
+     * 不需要切换数据源的决策。
+     */
+    public static final RoutingDecision NONE = new RoutingDecision(null, false, null, -1);
+
+    private final String dataSourceName;
+    private final boolean readOnly;
+    private final String shardGroup;
+    private final int shardParameterIndex;
+
+    private RoutingDecision(String dataSourceName, boolean readOnly, String shardGroup, int shardParameterIndex) {
+        this.dataSourceName = dataSourceName;
+        this.readOnly = readOnly;
+        this.shardGroup = shardGroup;
+        this.shardParameterIndex = shardParameterIndex;
+    }
+
+    /**
+     * 创建一个切换到指定数据源的决策。
+     *
+     * @param dataSourceName 数据源名称，为null时返回{@link #NONE}
+     * @return 路由决策
+     */
+    public static RoutingDecision of(String dataSourceName) {
+        return of(dataSourceName, false);
+    }
+
+    /**
+     * 创建一个切换到指定数据源的决策，并指定方法中的操作是否是只读的。
+     *
+     * @param dataSourceName 数据源名称，为null时返回{@link #NONE}
+     * @param readOnly       是否只读
+     * @return 路由决策
+     */
+    public static RoutingDecision of(String dataSourceName, boolean readOnly) {
+        return dataSourceName == null ? NONE : new RoutingDecision(dataSourceName, readOnly, null, -1);
+    }
+
+    /**
+     * 创建一个分片决策，数据源需要在每次调用时根据分片键参数计算。
+     *
+     * @param shardGroup          分片组名称
+     * @param shardParameterIndex 分片键参数的下标
+     * @param readOnly            是否只读
+     * @return 路由决策
+     * @since 1.4.0
+     */
+    public static RoutingDecision shard(String shardGroup, int shardParameterIndex, boolean readOnly) {
+        return new RoutingDecision(null, readOnly, shardGroup, shardParameterIndex);
+    }
+
+    /**
+     * 获得需要切换到的数据源名称。
+     *
+     * @return 数据源名称，若不需要切换则返回null
+     */
+    public String getDataSourceName() {
+        return dataSourceName;
+    }
+
+    /**
+     * 是否需要切换数据源。
+     *
+     * @return 需要则返回true，否则返回false
+     */
+    public boolean isSwitching() {
+        return dataSourceName != null;
+    }
+
+    /**
+     * 是否需要根据分片键选择数据源。
+     *
+     * @return 需要则返回true
+     * @since 1.4.0
+     */
+    public boolean isSharded() {
+        return shardGroup != null;
+    }
+
+    /**
+     * 获得分片组名称。
+     *
+     * @return 分片组名称，若不是分片决策则返回null
+     * @since 1.4.0
+     */
+    public String getShardGroup() {
+        return shardGroup;
+    }
+
+    /**
+     * 获得分片键参数的下标。
+     *
+     * @return 下标，若不是分片决策则返回-1
+     * @since 1.4.0
+     */
+    public int getShardParameterIndex() {
+        return shardParameterIndex;
+    }
+
+    /**
+     * 方法中的操作是否是只读的。
+     *
+     * @return 只读则返回true
+     */
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    @Override
+    public String toString() {
+        if (this == NONE) {
+            return "RoutingDecision[NONE]";
+        }
+        if (isSharded()) {
+            return "RoutingDecision[shard " + shardGroup + " by arg" + shardParameterIndex + (readOnly ? ", readOnly" : "") + "]";
+        }
+        return "RoutingDecision[" + dataSourceName + (readOnly ? ", readOnly" : "") + "]";
+    }
+}
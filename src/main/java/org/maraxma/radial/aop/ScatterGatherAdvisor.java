@@ -0,0 +1,219 @@
+package org.maraxma.radial.aop;
+
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.maraxma.radial.annotation.UseDataSources;
+import org.maraxma.radial.datasource.SwitchableDataSource;
+import org.maraxma.radial.shard.ScatterGatherExecutor;
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.aop.support.StaticMethodMatcherPointcutAdvisor;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * 分散-聚集通知器，它处理标注了{@link UseDataSources}的方法：方法在每个数据源上各执行一次，然后合并结果。
+ * <p>每个数据源上的执行都是原调用的一个独立副本（{@link ProxyMethodInvocation#invocableClone()}），由{@link ScatterGatherExecutor}并行执行，
+ * 因此后续的通知器（例如事务、MyBatis的切面）在每个数据源上都会各自生效。</p>
+ * <p>它的顺序在{@link SwitchableDataSourceAspect}之外。</p>
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+public class ScatterGatherAdvisor extends StaticMethodMatcherPointcutAdvisor implements MethodInterceptor {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Log LOG = LogFactory.getLog(ScatterGatherAdvisor.class);
+
+    private final transient ScatterGatherExecutor executor;
+
+    private final transient ObjectProvider<SwitchableDataSource> dataSourceProvider;
+
+    private final transient ConcurrentMap<Method, ScatterGatherSpec> specs = new ConcurrentHashMap<>();
+
+    /**
+     * 创建一个分散-聚集通知器。
+     * <p>通知器在Bean后处理阶段就会被创建，因此数据源通过{@link ObjectProvider}延迟获取，避免数据源被过早地初始化。</p>
+     *
+     * @param executor           分散-聚集执行器
+     * @param dataSourceProvider 可切换数据源，仅在注解中没有指定数据源时用于获取所有可用的数据源
+     */
+    public ScatterGatherAdvisor(ScatterGatherExecutor executor, ObjectProvider<SwitchableDataSource> dataSourceProvider) {
+        this.executor = executor;
+        this.dataSourceProvider = dataSourceProvider;
+        setAdvice(this);
+        setOrder(-2);
+    }
+
+    @Override
+    public boolean matches(Method method, Class<?> targetClass) {
+        UseDataSources annotation = findAnnotation(method, targetClass);
+        if (annotation == null) {
+            return false;
+        }
+        if (!Collection.class.isAssignableFrom(method.getReturnType()) || !method.getReturnType().isAssignableFrom(List.class)) {
+            LOG.warn("!!! @UseDataSources can only be used on a method which returns java.util.List, it is ignored on method: " + method);
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Method method = invocation.getMethod();
+        Object target = invocation.getThis();
+        ScatterGatherSpec spec = specs.computeIfAbsent(method, m -> ScatterGatherSpec.of(findAnnotation(m, target == null ? null : target.getClass())));
+        if (spec == null || !(invocation instanceof ProxyMethodInvocation)) {
+            return invocation.proceed();
+        }
+        ProxyMethodInvocation proxyInvocation = (ProxyMethodInvocation) invocation;
+        Collection<String> names = spec.dataSourceNames.isEmpty() ? allDataSourceNames() : spec.dataSourceNames;
+        try {
+            return executor.<Object>execute(names, spec.readOnly, name -> {
+                try {
+                    return (Collection<?>) proxyInvocation.invocableClone().proceed();
+                } catch (RuntimeException | Error e) {
+                    throw e;
+                } catch (Throwable e) {
+                    throw new InvocationFailure(e);
+                }
+            }, spec.comparator, spec.limit);
+        } catch (InvocationFailure e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * 获得注解中没有指定数据源时所使用的数据源，租户数据源是按需创建的，不包含在其中。
+     */
+    private Collection<String> allDataSourceNames() {
+        SwitchableDataSource dataSource = dataSourceProvider.getObject();
+        Set<String> names = new LinkedHashSet<>(dataSource.getAvailableDataSourceNames());
+        names.removeAll(dataSource.getTenantDataSourceNames());
+        return names;
+    }
+
+    private static UseDataSources findAnnotation(Method method, Class<?> targetClass) {
+        UseDataSources annotation = method.getAnnotation(UseDataSources.class);
+        if (annotation != null || targetClass == null) {
+            return annotation;
+        }
+        Method specificMethod = AopUtils.getMostSpecificMethod(method, targetClass);
+        if (specificMethod != method && (annotation = specificMethod.getAnnotation(UseDataSources.class)) != null) {
+            return annotation;
+        }
+        if (Proxy.isProxyClass(targetClass)) {
+            // Mapper是JDK代理，注解在它实现的接口上
+            for (Class<?> itf : targetClass.getInterfaces()) {
+                try {
+                    annotation = itf.getMethod(method.getName(), method.getParameterTypes()).getAnnotation(UseDataSources.class);
+                    if (annotation != null) {
+                        return annotation;
+                    }
+                } catch (NoSuchMethodException e) {
+                    // 这个接口中没有这个方法，继续查找下一个接口
+                }
+            }
+        }
+        return null;
+    }
+
+    private static final class ScatterGatherSpec {
+
+        private final List<String> dataSourceNames;
+        private final boolean readOnly;
+        private final Comparator<Object> comparator;
+        private final int limit;
+
+        private ScatterGatherSpec(UseDataSources annotation) {
+            this.dataSourceNames = new ArrayList<>(Arrays.asList(annotation.value()));
+            this.readOnly = annotation.readOnly();
+            this.limit = annotation.limit();
+            if (annotation.orderBy().isEmpty()) {
+                this.comparator = null;
+            } else {
+                Comparator<Object> byProperty = new PropertyComparator(annotation.orderBy());
+                this.comparator = annotation.descending() ? byProperty.reversed() : byProperty;
+            }
+        }
+
+        static ScatterGatherSpec of(UseDataSources annotation) {
+            return annotation == null ? null : new ScatterGatherSpec(annotation);
+        }
+    }
+
+    /**
+     * 按照属性排序，null排在最后（降序时排在最前）。
+     */
+    private static final class PropertyComparator implements Comparator<Object> {
+
+        private final String property;
+
+        // 每个元素类型的读方法只查找一次，排序时不再为每次比较创建BeanWrapper
+        private final ClassValue<Method> readMethods = new ClassValue<Method>() {
+            @Override
+            protected Method computeValue(Class<?> type) {
+                PropertyDescriptor descriptor = BeanUtils.getPropertyDescriptor(type, property);
+                if (descriptor == null || descriptor.getReadMethod() == null) {
+                    throw new IllegalArgumentException("Cannot find readable property [" + property + "] in " + type.getName() + " for @UseDataSources(orderBy)");
+                }
+                return descriptor.getReadMethod();
+            }
+        };
+
+        PropertyComparator(String property) {
+            this.property = property;
+        }
+
+        @Override
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        public int compare(Object o1, Object o2) {
+            Object v1 = valueOf(o1);
+            Object v2 = valueOf(o2);
+            if (v1 == null || v2 == null) {
+                return v1 == null ? (v2 == null ? 0 : 1) : -1;
+            }
+            return ((Comparable) v1).compareTo(v2);
+        }
+
+        private Object valueOf(Object element) {
+            if (element == null) {
+                return null;
+            }
+            if (element instanceof Map) {
+                return ((Map<?, ?>) element).get(property);
+            }
+            try {
+                return readMethods.get(element.getClass()).invoke(element);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Cannot read property [" + property + "] of " + element.getClass().getName(), e);
+            }
+        }
+    }
+
+    private static final class InvocationFailure extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        InvocationFailure(Throwable cause) {
+            super(cause);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package org.maraxma.radial.aop;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.maraxma.radial.annotation.ShardBy;
+import org.maraxma.radial.datasource.DataSourceContextHolder;
+import org.maraxma.radial.shard.ShardingRouter;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.aop.support.StaticMethodMatcherPointcutAdvisor;
+
+/**
+ * 分片路由通知器，它处理参数上标注了{@link ShardBy}的方法。
+ * <p>方法是否需要分片以及分片键参数的下标在第一次调用时解析并缓存在{@link DataSourceRoutingCache}中，
+ * 之后的调用只需要一次查表、一次分片计算和一次路由帧压栈。</p>
+ * <p>它的顺序在{@link SwitchableDataSourceAspect}之内，因此同时标注了{@code @UseDataSource}时以分片的结果为准。</p>
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+public class ShardingAdvisor extends StaticMethodMatcherPointcutAdvisor implements MethodInterceptor {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 路由决策缓存表的名称（分片路由）。
+     */
+    public static final String ROUTING_TABLE = "shardBy";
+
+    private final transient ShardingRouter router;
+
+    private final transient DataSourceRoutingCache.Table routingTable;
+
+    public ShardingAdvisor(ShardingRouter router, DataSourceRoutingCache routingCache) {
+        this.router = router;
+        this.routingTable = routingCache.table(ROUTING_TABLE);
+        setAdvice(this);
+        setOrder(0);
+    }
+
+    @Override
+    public boolean matches(Method method, Class<?> targetClass) {
+        return resolveRoutingDecision(targetClass, method).isSharded();
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Method method = invocation.getMethod();
+        Object target = invocation.getThis();
+        Class<?> clazz = target == null ? method.getDeclaringClass() : target.getClass();
+        RoutingDecision decision = routingTable.get(clazz, method);
+        if (decision == null) {
+            decision = routingTable.put(clazz, method, resolveRoutingDecision(clazz, method));
+        }
+        if (!decision.isSharded()) {
+            return invocation.proceed();
+        }
+        String dataSourceName = router.route(decision.getShardGroup(), invocation.getArguments()[decision.getShardParameterIndex()]);
+        int depth = DataSourceContextHolder.pushDataSourceName(dataSourceName, decision.isReadOnly());
+        try {
+            return invocation.proceed();
+        } finally {
+            DataSourceContextHolder.popDataSourceName(depth);
+        }
+    }
+
+    /**
+     * 解析方法的分片决策，依次查找方法本身、目标类上最具体的方法以及JDK代理（例如Mapper）实现的接口上的方法。
+     *
+     * @param clazz  目标类
+     * @param method 方法
+     * @return 路由决策，没有分片键参数时返回{@link RoutingDecision#NONE}
+     */
+    public static RoutingDecision resolveRoutingDecision(Class<?> clazz, Method method) {
+        RoutingDecision decision = resolveShardBy(method);
+        if (decision.isSharded() || clazz == null) {
+            return decision;
+        }
+        Method specificMethod = AopUtils.getMostSpecificMethod(method, clazz);
+        if (specificMethod != method) {
+            decision = resolveShardBy(specificMethod);
+            if (decision.isSharded()) {
+                return decision;
+            }
+        }
+        if (Proxy.isProxyClass(clazz)) {
+            for (Class<?> itf : clazz.getInterfaces()) {
+                try {
+                    decision = resolveShardBy(itf.getMethod(method.getName(), method.getParameterTypes()));
+                    if (decision.isSharded()) {
+                        return decision;
+                    }
+                } catch (NoSuchMethodException e) {
+                    // 这个接口中没有这个方法，继续查找下一个接口
+                }
+            }
+        }
+        return RoutingDecision.NONE;
+    }
+
+    private static RoutingDecision resolveShardBy(Method method) {
+        Annotation[][] parameterAnnotations = method.getParameterAnnotations();
+        for (int i = 0; i < parameterAnnotations.length; i++) {
+            for (Annotation annotation : parameterAnnotations[i]) {
+                if (annotation instanceof ShardBy) {
+                    ShardBy shardBy = (ShardBy) annotation;
+                    return RoutingDecision.shard(shardBy.value(), i, shardBy.readOnly());
+                }
+            }
+        }
+        return RoutingDecision.NONE;
+    }
+}
@@ -3,10 +3,13 @@ package org.maraxma.radial.aop;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
+import java.util.Arrays;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Before;
 import org.aspectj.lang.reflect.MethodSignature;
@@ -29,76 +32,131 @@ public class SwitchableDataSourceAspect {
 
     private static final Log LOG = LogFactory.getLog(SwitchableDataSourceAspect.class);
 
+    /**
+     * 路由决策缓存表的名称（切换数据源的切面）。
+     */
+    public static final String ROUTING_TABLE = "useDataSource";
+
+    /**
+     * 路由决策缓存表的名称（检查Mapper方法是否标注了数据源的切面）。
+     */
+    public static final String MAPPER_CHECKING_TABLE = "mapperChecking";
+
     @Autowired(required = false)
     private SwitchableDataSourceOnMapperSymbol symbol;
     
     @Autowired(required = false)
     private SwitchableDataSource dataSource;
 
-    @Before("execution(@org.maraxma.radial.annotation.UseDataSource * *(..)))")
-    public void beforeChanging(JoinPoint point) {
+    private DataSourceRoutingCache.Table routingTable;
+
+    private DataSourceRoutingCache.Table mapperCheckingTable;
+
+    @Autowired
+    public void setRoutingCache(DataSourceRoutingCache routingCache) {
+        this.routingTable = routingCache.table(ROUTING_TABLE);
+        this.mapperCheckingTable = routingCache.table(MAPPER_CHECKING_TABLE);
+    }
+
+    @Around("execution(@org.maraxma.radial.annotation.UseDataSource * *(..)))")
+    public Object aroundChanging(ProceedingJoinPoint point) throws Throwable {
+        Class<?> clazz = point.getTarget().getClass();
+        Method method = ((MethodSignature) point.getSignature()).getMethod();
+        // 先查缓存，只有第一次执行这个方法的时候才需要反射查找方法和注解
+        RoutingDecision decision = routingTable.get(clazz, method);
+        if (decision == null) {
+            decision = routingTable.put(clazz, method, resolveRoutingDecision(clazz, method));
+        }
+        if (!decision.isSwitching()) {
+            return point.proceed();
+        }
+        // 切换数据源，并在方法退出（包括抛出异常）时恢复为进入方法之前的数据源
+        int depth = DataSourceContextHolder.pushDataSourceName(decision.getDataSourceName(), decision.isReadOnly());
+        try {
+            return point.proceed();
+        } finally {
+            DataSourceContextHolder.popDataSourceName(depth);
+        }
+    }
+    
+    @Before("within(@org.apache.ibatis.annotations.Mapper *)")
+    public void beforeMapperMethodExecuting(JoinPoint point) {
         Class<?> clazz = point.getTarget().getClass();
+        Method method = ((MethodSignature) point.getSignature()).getMethod();
+        // 检查的结果也会被缓存，因此下面的警告对每个方法只会打印一次
+        if (mapperCheckingTable.get(clazz, method) == null) {
+            mapperCheckingTable.put(clazz, method, checkMapperMethod(clazz, method));
+        }
+    }
+
+    /**
+     * 解析一个被{@code @UseDataSource}标注的方法的路由决策。
+     *
+     * @param clazz  目标类
+     * @param method 切点上的方法
+     * @return 路由决策
+     */
+    private RoutingDecision resolveRoutingDecision(Class<?> clazz, Method method) {
         if (Proxy.isProxyClass(clazz)) {
-            try {
-                if (symbol == null) {
-                    LOG.warn("!!! It sames you are putting @UseDataSource on a abstract method or a interface method and the method's class is proxied by JDK dynamic proxy, if you really want to do, please use @EnableSwitchableDataSourceOnMapper. the original class proxied is: " + getJdkProxyTarget(point.getTarget()));
-                }
-            } catch (Exception e) {
-                throw new IllegalStateException(e);
+            if (symbol == null) {
+                LOG.warn("!!! It sames you are putting @UseDataSource on a abstract method or a interface method and the method's class is proxied by JDK dynamic proxy, if you really want to do, please use @EnableSwitchableDataSourceOnMapper. the proxied interface(s) is: " + Arrays.toString(clazz.getInterfaces()));
             }
-            return;
+            return RoutingDecision.NONE;
         }
         if (clazz.isInterface()) {
             LOG.warn("It sames you are putting @UseDataSource on an abstract method or a interface method, if you really want to do, please use @EnableSwitchableDataSourceOnMapper");
-            return;
+            return RoutingDecision.NONE;
         }
-        String methodName = point.getSignature().getName();
-        Class<?>[] argClass = ((MethodSignature) point.getSignature()).getParameterTypes();
-        String dataSourceName;
+        return resolveUseDataSource(clazz, method);
+    }
+
+    /**
+     * 解析普通类（非JDK代理类）上被{@code @UseDataSource}标注的方法的路由决策。
+     * <p>这个方法也被用于在Bean处理阶段预先填充路由决策缓存。</p>
+     *
+     * @param clazz  目标类
+     * @param method 方法
+     * @return 路由决策
+     */
+    public static RoutingDecision resolveUseDataSource(Class<?> clazz, Method method) {
         try {
             // 得到访问的方法对象
-            Method method = clazz.getMethod(methodName, argClass);
-            UseDataSource annotation = method.getAnnotation(UseDataSource.class);
+            Method targetMethod = clazz.getMethod(method.getName(), method.getParameterTypes());
+            UseDataSource annotation = targetMethod.getAnnotation(UseDataSource.class);
             if (annotation == null) {
-                throw new IllegalStateException("Unexpected exception, cannot find @UseDataSource on method: " + method + " or on its class");
-            } else {
-                // 取出注解中的数据源名
-                dataSourceName = annotation.value();
+                throw new IllegalStateException("Unexpected exception, cannot find @UseDataSource on method: " + targetMethod + " or on its class");
             }
-            // 切换数据源
-            DataSourceContextHolder.setDataSourceName(dataSourceName);
+            // 取出注解中的数据源名
+            return RoutingDecision.of(annotation.value(), annotation.readOnly());
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
     }
-    
-    @Before("within(@org.apache.ibatis.annotations.Mapper *)")
-    public void beforeMapperMethodExecuting(JoinPoint point) {
-    	Class<?> clazz = point.getTarget().getClass();
-    	String methodName = point.getSignature().getName();
-        Class<?>[] argClass = ((MethodSignature) point.getSignature()).getParameterTypes();
+
+    private RoutingDecision checkMapperMethod(Class<?> clazz, Method method) {
         try {
-        	// Bug fix：误报It sames you are executing mybatis mapper method without annotation `@UseDataSource`
-        	// 原因，clazz是个代理类，要获得Method必须从原Mapper接口上去获取，这样获取到的Method上才可能标注有UseDataSource
-        	Method method = null;
-        	if (Proxy.isProxyClass(clazz)) {
-        		Class<?>[] interfaces = clazz.getInterfaces();
-        		if (interfaces.length > 0) {
-        			method = interfaces[0].getMethod(methodName, argClass);
-        		}
-        	}
-        	if (method != null && !method.isAnnotationPresent(UseDataSource.class)) {
-        		String currentDataSourceName;
-        		if (dataSource != null) {
-        			currentDataSourceName = DataSourceContextHolder.getDataSourceName() == null ? dataSource.getDefaultDataSourceName() : DataSourceContextHolder.getDataSourceName();
-        		} else {
-        			currentDataSourceName = DataSourceContextHolder.getDataSourceName();
-        		}
-        		LOG.warn("It sames you are executing mybatis mapper method without annotation `@UseDataSource`, the datasource will be used is the previous datasource `" + currentDataSourceName + "`, the method is `" + method + "`");
-        	}
+            // Bug fix：误报It sames you are executing mybatis mapper method without annotation `@UseDataSource`
+            // 原因，clazz是个代理类，要获得Method必须从原Mapper接口上去获取，这样获取到的Method上才可能标注有UseDataSource
+            Method mapperMethod = null;
+            if (Proxy.isProxyClass(clazz)) {
+                Class<?>[] interfaces = clazz.getInterfaces();
+                if (interfaces.length > 0) {
+                    mapperMethod = interfaces[0].getMethod(method.getName(), method.getParameterTypes());
+                }
+            }
+            if (mapperMethod != null && !mapperMethod.isAnnotationPresent(UseDataSource.class)) {
+                String currentDataSourceName;
+                if (dataSource != null) {
+                    currentDataSourceName = dataSource.getCurrentDataSourceName();
+                } else {
+                    currentDataSourceName = DataSourceContextHolder.getDataSourceName();
+                }
+                LOG.warn("It sames you are executing mybatis mapper method without annotation `@UseDataSource`, the datasource of the enclosing scope will be used (currently `" + currentDataSourceName + "`), the method is `" + mapperMethod + "`");
+            }
+            return RoutingDecision.NONE;
         } catch (Exception e) {
-			throw new RuntimeException(e);
-		}
+            throw new RuntimeException(e);
+        }
     }
 
     public static Object getJdkProxyTarget(Object proxyObject) throws NoSuchFieldException, SecurityException, IllegalArgumentException, IllegalAccessException {
@@ -1,5 +1,7 @@
 package org.maraxma.radial.auto;
 
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
 import java.util.ArrayList;
 
 import javax.sql.DataSource;
@@ -7,6 +9,8 @@ import javax.sql.DataSource;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.maraxma.radial.annotation.UseDataSource;
+import org.maraxma.radial.aop.DataSourceRoutingCache;
+import org.maraxma.radial.aop.SwitchableDataSourceAspect;
 import org.maraxma.radial.datasource.AbstractSwitchableDataSource;
 import org.maraxma.radial.exception.DataSourceNotFoundException;
 import org.springframework.beans.BeansException;
@@ -77,6 +81,7 @@ public class AnnotationPostProcessor implements BeanPostProcessor, BeanFactoryAw
     }
 
     private void checkMethodDataSourcePresent(Object bean) {
+        DataSourceRoutingCache routingCache = beanFactory.getBeanProvider(DataSourceRoutingCache.class).getIfAvailable();
         ReflectionUtils.doWithMethods(bean.getClass(), method -> {
             UseDataSource annotation = method.getAnnotation(UseDataSource.class);
             DataSource dataSource = ((AutowireCapableBeanFactory) beanFactory).resolveNamedBean(DataSource.class).getBeanInstance();
@@ -85,6 +90,15 @@ public class AnnotationPostProcessor implements BeanPostProcessor, BeanFactoryAw
                 if (!abstractSwitchableDataSource.containsDataSource(annotation.value())) {
                     throw new DataSourceNotFoundException("The datasource is not found: " + annotation.value() + "(at [" + method + "], available datasource(s): " + abstractSwitchableDataSource.getAvailableDataSourceNames() + ")");
                 }
+                if (routingCache != null && !Proxy.isProxyClass(bean.getClass()) && Modifier.isPublic(method.getModifiers())) {
+                    // 预先解析路由决策，运行时切面只需要查表
+                    try {
+                        routingCache.table(SwitchableDataSourceAspect.ROUTING_TABLE).preload(bean.getClass(), method, SwitchableDataSourceAspect::resolveUseDataSource);
+                    } catch (RuntimeException e) {
+                        // 例如子类覆盖了这个方法但没有标注@UseDataSource，这种方法不会被切面拦截，无需预先解析
+                        LOG.debug("Skip preloading routing decision for method: " + method, e);
+                    }
+                }
             } else {
                 LOG.info("Current datasource is not SwitchableDataSource, the @UseDataSource tagged on method is no effect, so that no need to check datasource name on method");
             }
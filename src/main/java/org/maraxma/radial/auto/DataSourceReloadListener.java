@@ -0,0 +1,68 @@
+package org.maraxma.radial.auto;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.maraxma.radial.datasource.SwitchableDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * 环境变更监听器，在Spring Cloud的环境变更事件（EnvironmentChangeEvent，例如配置中心推送或者/actuator/refresh）
+ * 中包含radial.datasources下的配置时重新加载可切换数据源。
+ * <p>本项目并不依赖Spring Cloud，因此这里按照类名识别事件，并通过反射读取变更的配置项。</p>
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+public class DataSourceReloadListener implements ApplicationListener<ApplicationEvent> {
+
+    static final String ENVIRONMENT_CHANGE_EVENT_CLASS_NAME = "org.springframework.cloud.context.environment.EnvironmentChangeEvent";
+
+    private static final String DATASOURCES_PREFIX = "radial.datasources";
+
+    private static final Log LOG = LogFactory.getLog(DataSourceReloadListener.class);
+
+    private final ObjectProvider<SwitchableDataSource> switchableDataSource;
+
+    public DataSourceReloadListener(ObjectProvider<SwitchableDataSource> switchableDataSource) {
+        this.switchableDataSource = switchableDataSource;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationEvent event) {
+        if (!ENVIRONMENT_CHANGE_EVENT_CLASS_NAME.equals(event.getClass().getName()) || !containsDataSourceKey(event)) {
+            return;
+        }
+        SwitchableDataSource dataSource = switchableDataSource.getIfAvailable();
+        if (dataSource == null) {
+            return;
+        }
+        try {
+            dataSource.reloadDataSources();
+        } catch (RuntimeException e) {
+            // 重新加载失败时数据源保持不变，不能让异常影响其他的监听器
+            LOG.error("!!! Failed to reload switchable datasource on environment change, the previous datasources are kept", e);
+        }
+    }
+
+    private boolean containsDataSourceKey(ApplicationEvent event) {
+        Method getKeys = ReflectionUtils.findMethod(event.getClass(), "getKeys");
+        if (getKeys == null) {
+            return false;
+        }
+        Object keys = ReflectionUtils.invokeMethod(getKeys, event);
+        if (keys instanceof Collection) {
+            for (Object key : (Collection<?>) keys) {
+                if (key != null && key.toString().startsWith(DATASOURCES_PREFIX)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -1,26 +1,53 @@
 package org.maraxma.radial.auto;
 
+import java.beans.PropertyDescriptor;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.time.Duration;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import javax.sql.DataSource;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.maraxma.radial.balancer.DataSourceBalancerFactory;
 import org.maraxma.radial.datasource.DataSourceFactoryBean;
+import org.maraxma.radial.datasource.DataSourceHealthChecker;
+import org.maraxma.radial.datasource.DataSourceShutdownCoordinator;
+import org.maraxma.radial.datasource.DataSourceWarmer;
+import org.maraxma.radial.datasource.IdleDataSourceEvictor;
+import org.maraxma.radial.datasource.LazyDataSource;
 import org.maraxma.radial.datasource.SwitchableDataSource;
+import org.maraxma.radial.datasource.TenantResolver;
+import org.maraxma.radial.property.BulkheadProperties;
+import org.maraxma.radial.property.CircuitBreakerProperties;
+import org.maraxma.radial.property.HealthCheckProperties;
 import org.maraxma.radial.property.MultiDataSourceProperties;
 import org.maraxma.radial.property.RadialDataSourceProperties;
+import org.maraxma.radial.property.ShardingProperties;
+import org.maraxma.radial.property.TenantProperties;
+import org.maraxma.radial.property.WarmUpProperties;
+import org.maraxma.radial.resilience.BulkheadConfig;
+import org.maraxma.radial.resilience.CircuitBreakerConfig;
+import org.maraxma.radial.shard.ScatterGatherExecutor;
+import org.maraxma.radial.shard.ShardingRouter;
 import org.maraxma.radial.strategy.DataSourceNamingStrategy;
 import org.maraxma.radial.strategy.DefaultDataSourceNamingStrategy;
+import org.springframework.beans.BeanWrapper;
 import org.springframework.beans.BeansException;
+import org.springframework.beans.PropertyAccessorFactory;
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.context.properties.bind.Binder;
 import org.springframework.context.EnvironmentAware;
@@ -28,9 +55,14 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.EnableAspectJAutoProxy;
 import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Role;
+import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.core.env.Environment;
 
 import com.alibaba.druid.pool.DruidDataSource;
+import org.maraxma.radial.aop.DataSourceRoutingCache;
+import org.maraxma.radial.aop.ScatterGatherAdvisor;
+import org.maraxma.radial.aop.ShardingAdvisor;
 import org.maraxma.radial.aop.SwitchableDataSourceAspect;
 import com.zaxxer.hikari.HikariDataSource;
 
@@ -54,7 +86,6 @@ public class SwitchableDataSourceAutoConfiguration implements BeanFactoryAware,
     /* 如下的成员变量可能会用到，暂且保留在这儿吧 */
     @SuppressWarnings("unused")
     private Environment environment;
-    @SuppressWarnings("unused")
     private Binder binder;
 
     private static final Log LOG = LogFactory.getLog(SwitchableDataSourceAutoConfiguration.class);
@@ -65,6 +96,15 @@ public class SwitchableDataSourceAutoConfiguration implements BeanFactoryAware,
     @Autowired
     private DataSourceNamingStrategy dataSourceBeanNamingStrategy;
 
+    @Autowired(required = false)
+    private DataSourceBalancerFactory dataSourceBalancerFactory;
+
+    @Autowired(required = false)
+    private TenantResolver tenantResolver;
+
+    /* 上一次构建时创建的数据源（包括只读副本）与它们的配置指纹，重新加载时配置没有变化的数据源会被复用 */
+    private volatile Map<String, BuiltDataSource> builtDataSources = Collections.emptyMap();
+
     private static final String HIKARI_DATASOURCE_CLASS_NAME = "com.zaxxer.hikari.HikariDataSource";
     private static final String DRUID_DATASOURCE_CLASS_NAME = "com.alibaba.druid.pool.DruidDataSource";
 
@@ -72,13 +112,79 @@ public class SwitchableDataSourceAutoConfiguration implements BeanFactoryAware,
     @ConditionalOnMissingBean(SwitchableDataSource.class)
     @ConditionalOnClass(HikariDataSource.class)
     public SwitchableDataSource switchableDataSource() {
+        SwitchableDataSource switchableDataSource = new SwitchableDataSource();
+        if (dataSourceBalancerFactory != null) {
+            LOG.info("Customer's DataSourceBalancerFactory was detected, using " + dataSourceBalancerFactory.getClass().getName());
+            switchableDataSource.setBalancerFactory(dataSourceBalancerFactory);
+        }
+        Map<String, BuiltDataSource> built = new HashMap<>();
+        configure(switchableDataSource, dataSourceProperties, built, true);
+        builtDataSources = built;
+        switchableDataSource.setDrainTimeout(dataSourceProperties.getReload().getDrainTimeout().toMillis());
+        switchableDataSource.setShutdownCoordinator(new DataSourceShutdownCoordinator(dataSourceProperties.getShutdown().getTimeout().toMillis()));
+        switchableDataSource.setReloadHandler(() -> reloadDataSources(switchableDataSource));
+        return switchableDataSource;
+    }
+
+    /**
+     * 从当前的Spring环境中重新读取radial配置，并重新加载可切换数据源。
+     * <p>配置没有变化的数据源（包括它的只读副本）会被原样保留，新增的和配置发生了变化的数据源会被重新创建，
+     * 被移除的和被替换的数据源由可切换数据源负责排空和关闭（见{@link SwitchableDataSource#refresh()}）。
+     * 重新加载失败时可切换数据源保持不变，这次新创建的数据源会被关闭。</p>
+     *
+     * @param switchableDataSource 可切换数据源
+     */
+    private synchronized void reloadDataSources(SwitchableDataSource switchableDataSource) {
+        MultiDataSourceProperties properties = binder.bind("radial", MultiDataSourceProperties.class).orElseGet(MultiDataSourceProperties::new);
+        LOG.info("Reloading switchable datasource from the current environment");
+        Map<String, BuiltDataSource> built = new HashMap<>();
+        try {
+            configure(switchableDataSource, properties, built, false);
+        } catch (RuntimeException e) {
+            built.forEach((name, b) -> {
+                BuiltDataSource previous = builtDataSources.get(name);
+                if ((previous == null || previous.dataSource != b.dataSource) && b.dataSource instanceof AutoCloseable) {
+                    try {
+                        ((AutoCloseable) b.dataSource).close();
+                    } catch (Exception ex) {
+                        e.addSuppressed(ex);
+                    }
+                }
+            });
+            throw e;
+        }
+        switchableDataSource.setDrainTimeout(properties.getReload().getDrainTimeout().toMillis());
+        switchableDataSource.refresh();
+        builtDataSources = built;
+    }
+
+    /**
+     * 根据配置为可切换数据源创建并设定所有的数据源以及它们的路由配置。
+     *
+     * @param switchableDataSource 可切换数据源
+     * @param dataSourceProperties 配置
+     * @param built                用于收集这一次构建出来的数据源
+     * @param initial              是否是第一次构建，重新加载时不会重建健康检查器和已有的预热器
+     */
+    private void configure(SwitchableDataSource switchableDataSource, MultiDataSourceProperties dataSourceProperties, Map<String, BuiltDataSource> built, boolean initial) {
         if (dataSourceProperties.getDatasources() == null || dataSourceProperties.getDatasources().size() < 1) {
             throw new IllegalArgumentException("Cannot find prop \"radial.datasources\", if you want to configure switchable-datasource, please set it to the spring properties file");
         }
         LOG.info("Processing " + dataSourceProperties.getDatasources().size() + " datasource(s): " + dataSourceProperties.getDatasources().entrySet().stream().collect(ArrayList::new, (l, r) -> l.add(r.getKey()), ArrayList::addAll));
         DataSource firstDataSource = null;
         Map<Object, Object> dataSourceMap = new HashMap<>();
-        SwitchableDataSource switchableDataSource = new SwitchableDataSource();
+        Map<Object, List<Object>> replicaDataSourceMap = new HashMap<>();
+        Map<Object, DataSourceBalancerFactory> replicaBalancerMap = new HashMap<>();
+        Map<Object, int[]> replicaWeightMap = new HashMap<>();
+        Map<Object, Object> fallbackMap = new HashMap<>();
+        Map<Object, CircuitBreakerConfig> circuitBreakerMap = new HashMap<>();
+        Map<Object, BulkheadConfig> bulkheadMap = new HashMap<>();
+        Map<Object, Integer> cursorFetchSizeMap = new HashMap<>();
+        List<LazyDataSource> tenantDataSources = new ArrayList<>();
+        Map<String, String> tenantNameMap = new HashMap<>();
+        Map<LazyDataSource, Long> hibernatingDataSources = new LinkedHashMap<>();
+        Map<String, List<String>> warmUpStatementMap = new HashMap<>();
+        Map<String, List<String>> warmUpMapperMap = new HashMap<>();
         for (Map.Entry<String, RadialDataSourceProperties> e : dataSourceProperties.getDatasources().entrySet()) {
             String dsName = e.getKey();
             Boolean active = e.getValue().getActive();
@@ -86,37 +192,29 @@ public class SwitchableDataSourceAutoConfiguration implements BeanFactoryAware,
                 LOG.info("!!! This datasource is ignored because it prop \"active\" is set to false: " + dsName);
             } else {
                 RadialDataSourceProperties dsProperties = e.getValue();
-                if (dsProperties.getType() == null) {
-                    // 在没有设置Type的情况下，从下面的配置名称中判定使用的是那种数据源实现
-                    if (dsProperties.getHikari() != null) {
-                        // 若下面的节点是"hikari"，那么认为使用的是hikariCP，这是优先考虑的
-                        LOG.warn("Datasource \"" + e.getKey() + "\", its type is undefined, but property node \"hikari\" is found, treat it as HikariDataSource");
-                        dsProperties.setType(HikariDataSource.class);
-                    } else if (dsProperties.getDruid() != null) {
-                        LOG.warn("Datasource \"" + e.getKey() + "\", its type is undefined, but property node \"druid\" is found, treat it as DruidDataSource");
-                        dsProperties.setType(DruidDataSource.class);
-                    } else {
-                        LOG.warn("Datasource \"" + e.getKey() + "\", its type is undefined, no property node is found, treat it as HikariDataSource");
-                        dsProperties.setType(HikariDataSource.class);
-                    }
-                }
-                String className = dsProperties.getType().getName();
-                Map<String, Object> detailsProp;
-                if (HIKARI_DATASOURCE_CLASS_NAME.equalsIgnoreCase(className)) {
-                    detailsProp = dsProperties.getHikari();
-                } else if (DRUID_DATASOURCE_CLASS_NAME.equals(className)) {
-                    detailsProp = dsProperties.getDruid();
-                } else {
-                    LOG.warn("Unsupported datasoucre type: " + dsProperties.getType().getName() + ", and this datasource is ignored: " + e.getKey());
-                    continue;
-                }
                 String beanName = dataSourceBeanNamingStrategy.getName(e.getKey(), dsProperties);
-                DataSourceFactoryBean dataSourceFactoryBean = new DataSourceFactoryBean(dsProperties, detailsProp);
+                // 指纹需要在配置被修改（补全type、继承主数据源的配置）之前计算
+                String fingerprint = fingerprint(dsProperties);
                 DataSource reslovedDataSource;
-                try {
-                    reslovedDataSource = dataSourceFactoryBean.getObject();
-                } catch (Exception e1) {
-                    throw new RuntimeException(e1);
+                if (Boolean.TRUE.equals(dsProperties.getTenant())) {
+                    // 租户数据源只保存工厂，连接池在第一次被使用时才创建
+                    LazyDataSource lazyDataSource = (LazyDataSource) reuse(beanName, fingerprint);
+                    if (lazyDataSource == null) {
+                        DataSourceFactoryBean factory = createDataSourceFactory(dsName, dsProperties);
+                        if (factory == null) {
+                            continue;
+                        }
+                        lazyDataSource = new LazyDataSource(beanName, factory::getObject);
+                    }
+                    built.put(beanName, new BuiltDataSource(fingerprint, lazyDataSource));
+                    tenantDataSources.add(lazyDataSource);
+                    tenantNameMap.put(dsName, beanName);
+                    reslovedDataSource = lazyDataSource;
+                } else {
+                    reslovedDataSource = createHibernatableDataSource(dsName, beanName, fingerprint, dsProperties, hibernatingDataSources, built);
+                    if (reslovedDataSource == null) {
+                        continue;
+                    }
                 }
                 LOG.info("Registered datasource bean: " + beanName);
                 if (firstDataSource == null) {
@@ -125,10 +223,315 @@ public class SwitchableDataSourceAutoConfiguration implements BeanFactoryAware,
                     LOG.info("The default datasource is: " + beanName);
                 }
                 dataSourceMap.put(beanName, reslovedDataSource); // 默认DataSource也要放进备选集合
+                CircuitBreakerProperties circuitBreaker = dsProperties.getCircuitBreaker();
+                if (circuitBreaker != null && circuitBreaker.isEnabled()) {
+                    circuitBreakerMap.put(beanName, new CircuitBreakerConfig(circuitBreaker.getFailureRateThreshold(), circuitBreaker.getSlowCallRateThreshold(),
+                            circuitBreaker.getSlowCallDuration().toMillis(), circuitBreaker.getWindowSize(),
+                            circuitBreaker.getWaitDurationInOpenState().toMillis(), circuitBreaker.getPermittedCallsInHalfOpenState()));
+                }
+                BulkheadProperties bulkhead = dsProperties.getBulkhead();
+                if (bulkhead != null && bulkhead.isEnabled()) {
+                    bulkheadMap.put(beanName, new BulkheadConfig(bulkhead.getMaxConcurrentCalls(), bulkhead.getMaxWaitingCalls(),
+                            bulkhead.getMaxWaitDuration().toMillis(), bulkhead.isFailFast()));
+                }
+                if (dsProperties.getWarmUpStatements() != null && !dsProperties.getWarmUpStatements().isEmpty()) {
+                    warmUpStatementMap.put(beanName, dsProperties.getWarmUpStatements());
+                }
+                if (dsProperties.getWarmUpMappers() != null && !dsProperties.getWarmUpMappers().isEmpty()) {
+                    warmUpMapperMap.put(beanName, dsProperties.getWarmUpMappers());
+                }
+                if (dsProperties.getCursorFetchSize() != null) {
+                    cursorFetchSizeMap.put(beanName, dsProperties.getCursorFetchSize());
+                }
+                if (dsProperties.getFallback() != null) {
+                    RadialDataSourceProperties fallbackProperties = dataSourceProperties.getDatasources().get(dsProperties.getFallback());
+                    if (fallbackProperties == null) {
+                        throw new IllegalArgumentException("Cannot find the fallback datasource \"" + dsProperties.getFallback() + "\" of datasource \"" + dsName + "\"");
+                    }
+                    fallbackMap.put(beanName, dataSourceBeanNamingStrategy.getName(dsProperties.getFallback(), fallbackProperties));
+                }
+                if (dsProperties.getReplicas() != null && !dsProperties.getReplicas().isEmpty()) {
+                    List<Object> replicas = new ArrayList<>(dsProperties.getReplicas().size());
+                    List<Integer> weights = new ArrayList<>(dsProperties.getReplicas().size());
+                    for (int i = 0; i < dsProperties.getReplicas().size(); i++) {
+                        RadialDataSourceProperties replicaProperties = dsProperties.getReplicas().get(i);
+                        replicaProperties.inheritFrom(dsProperties);
+                        DataSource replica = createHibernatableDataSource(dsName + "[replica-" + (i + 1) + "]", beanName + "#replica-" + (i + 1), fingerprint,
+                                replicaProperties, hibernatingDataSources, built);
+                        if (replica != null) {
+                            replicas.add(replica);
+                            weights.add(replicaProperties.getWeight() == null ? 1 : replicaProperties.getWeight());
+                        }
+                    }
+                    LOG.info("Registered " + replicas.size() + " read-only replica(s) for datasource: " + beanName);
+                    replicaDataSourceMap.put(beanName, replicas);
+                    if (dsProperties.getBalancer() != null) {
+                        replicaBalancerMap.put(beanName, dsProperties.getBalancer());
+                    }
+                    replicaWeightMap.put(beanName, weights.stream().mapToInt(Integer::intValue).toArray());
+                }
             }
         }
         switchableDataSource.setTargetDataSources(dataSourceMap);
-        return switchableDataSource;
+        switchableDataSource.setReplicaDataSources(replicaDataSourceMap);
+        switchableDataSource.setReplicaBalancerFactories(replicaBalancerMap);
+        switchableDataSource.setReplicaWeights(replicaWeightMap);
+        switchableDataSource.setFallbackDataSources(fallbackMap);
+        switchableDataSource.setCircuitBreakerConfigs(circuitBreakerMap);
+        switchableDataSource.setBulkheadConfigs(bulkheadMap);
+        switchableDataSource.setCursorFetchSizes(cursorFetchSizeMap);
+        if (!tenantDataSources.isEmpty() || !hibernatingDataSources.isEmpty()) {
+            TenantProperties tenant = dataSourceProperties.getTenant();
+            // 租户回收和休眠共用一个回收器，检查间隔取配置的间隔和最短休眠时间中较小的一个
+            long interval = tenant.getEvictionInterval().toMillis();
+            for (long hibernateAfter : hibernatingDataSources.values()) {
+                interval = Math.min(interval, Math.max(1000L, hibernateAfter));
+            }
+            IdleDataSourceEvictor evictor = new IdleDataSourceEvictor(interval, tenant.getMaxOpenPools());
+            tenantDataSources.forEach(ds -> evictor.register(ds, tenant.getIdleTimeout().toMillis(), true));
+            hibernatingDataSources.forEach((ds, hibernateAfter) -> evictor.register(ds, hibernateAfter, false));
+            switchableDataSource.setIdleEvictor(evictor);
+        } else if (!initial) {
+            switchableDataSource.setIdleEvictor(null);
+        }
+        if (!tenantDataSources.isEmpty()) {
+            LOG.info("Registered " + tenantDataSources.size() + " tenant datasource(s), their pools are created on first use");
+            if (tenantResolver != null) {
+                LOG.info("Customer's TenantResolver was detected, using " + tenantResolver.getClass().getName());
+                switchableDataSource.setTenantResolver(tenantResolver, tenantNameMap);
+            } else {
+                LOG.warn("!!! Tenant datasource(s) are configured but no TenantResolver bean is found, they can only be used by @UseDataSource or DataSourceContextHolder");
+                // 没有租户解析器时仍然需要登记租户数据源，以便@UseDataSources在没有指定数据源时排除它们
+                switchableDataSource.setTenantResolver(null, tenantNameMap);
+            }
+        } else if (!initial) {
+            switchableDataSource.setTenantResolver(null, null);
+        }
+        WarmUpProperties warmUp = dataSourceProperties.getWarmUp();
+        // 配置了预热语句时，即便没有开启预热也需要预热器来执行它们
+        if (!initial && switchableDataSource.getWarmer() != null) {
+            // 保留已有的预热器和它记录的启动信息，只更新预热语句
+            switchableDataSource.getWarmer().setStatements(warmUpStatementMap, warmUpMapperMap, warmUp == null ? 1 : warmUp.getIterations());
+        } else if (warmUp != null && (warmUp.isEnabled() || !warmUpStatementMap.isEmpty() || !warmUpMapperMap.isEmpty())) {
+            DataSourceWarmer warmer = new DataSourceWarmer(warmUp.getParallelism(), warmUp.isAwaitMinimumIdle(), warmUp.getTimeout().toMillis());
+            warmer.setStatements(warmUpStatementMap, warmUpMapperMap, warmUp.getIterations());
+            switchableDataSource.setWarmer(warmer);
+        }
+        HealthCheckProperties healthCheck = dataSourceProperties.getHealthCheck();
+        if (initial && healthCheck != null && healthCheck.isEnabled()) {
+            switchableDataSource.setHealthChecker(new DataSourceHealthChecker(healthCheck.getInterval().toMillis(), healthCheck.getValidationTimeout().toMillis(),
+                    healthCheck.getUnhealthyThreshold(), healthCheck.getHealthyThreshold()));
+        }
+    }
+
+    /**
+     * 根据配置创建一个数据源。
+     *
+     * @param title        配置中的数据源标题，仅用于日志
+     * @param dsProperties 数据源配置
+     * @return 数据源，若配置的数据源类型不受支持则返回null
+     */
+    private DataSource createDataSource(String title, RadialDataSourceProperties dsProperties) {
+        DataSourceFactoryBean dataSourceFactoryBean = createDataSourceFactory(title, dsProperties);
+        if (dataSourceFactoryBean == null) {
+            return null;
+        }
+        try {
+            return dataSourceFactoryBean.getObject();
+        } catch (Exception e1) {
+            throw new RuntimeException(e1);
+        }
+    }
+
+    /**
+     * 根据配置创建一个数据源，若配置了休眠时间（hibernate-after），则创建一个可以休眠的延迟创建的数据源。
+     *
+     * <p>若上一次构建时同名的数据源的配置指纹与这一次的相同，则直接复用上一次创建的数据源。</p>
+     *
+     * @param title                  配置中的数据源标题，仅用于日志
+     * @param name                   数据源名称
+     * @param fingerprint            数据源（所属的主数据源）的配置指纹
+     * @param dsProperties           数据源配置
+     * @param hibernatingDataSources 可以休眠的数据源与它的休眠时间（毫秒）
+     * @param built                  用于收集这一次构建出来的数据源
+     * @return 数据源，若配置的数据源类型不受支持则返回null
+     */
+    private DataSource createHibernatableDataSource(String title, String name, String fingerprint, RadialDataSourceProperties dsProperties,
+                                                    Map<LazyDataSource, Long> hibernatingDataSources, Map<String, BuiltDataSource> built) {
+        Duration hibernateAfter = dsProperties.getHibernateAfter();
+        boolean hibernatable = hibernateAfter != null && !hibernateAfter.isZero() && !hibernateAfter.isNegative();
+        DataSource dataSource = reuse(name, fingerprint);
+        if (dataSource == null) {
+            if (!hibernatable) {
+                dataSource = createDataSource(title, dsProperties);
+            } else {
+                DataSourceFactoryBean factory = createDataSourceFactory(title, dsProperties);
+                dataSource = factory == null ? null : new LazyDataSource(name, factory::getObject);
+                if (dataSource != null) {
+                    LOG.info("Datasource \"" + title + "\" hibernates after " + hibernateAfter + " without use, its pool is created on first use");
+                }
+            }
+            if (dataSource == null) {
+                return null;
+            }
+        }
+        if (hibernatable) {
+            hibernatingDataSources.put((LazyDataSource) dataSource, hibernateAfter.toMillis());
+        }
+        built.put(name, new BuiltDataSource(fingerprint, dataSource));
+        return dataSource;
+    }
+
+    /**
+     * 查找上一次构建时创建的、配置没有变化的数据源。
+     *
+     * @param name        数据源名称
+     * @param fingerprint 这一次的配置指纹
+     * @return 可以复用的数据源，没有时返回null
+     */
+    private DataSource reuse(String name, String fingerprint) {
+        BuiltDataSource previous = builtDataSources.get(name);
+        if (previous != null && previous.fingerprint.equals(fingerprint)) {
+            LOG.info("Configuration of datasource " + name + " is unchanged, reusing it");
+            return previous.dataSource;
+        }
+        return null;
+    }
+
+    /**
+     * 计算配置的指纹，它由配置中所有可读的属性组成（嵌套的配置对象和列表会被展开），两个指纹相同说明配置没有变化。
+     *
+     * @param properties 配置
+     * @return 指纹
+     */
+    private static String fingerprint(Object properties) {
+        StringBuilder sb = new StringBuilder(properties.getClass().getName()).append('{');
+        BeanWrapper wrapper = PropertyAccessorFactory.forBeanPropertyAccess(properties);
+        for (PropertyDescriptor descriptor : wrapper.getPropertyDescriptors()) {
+            if (descriptor.getReadMethod() == null || "class".equals(descriptor.getName())) {
+                continue;
+            }
+            Object value = wrapper.getPropertyValue(descriptor.getName());
+            if (value instanceof ClassLoader) {
+                continue;
+            }
+            sb.append(descriptor.getName()).append('=');
+            if (value instanceof Collection) {
+                sb.append('[');
+                ((Collection<?>) value).forEach(item -> sb.append(fingerprintValue(item)).append(','));
+                sb.append(']');
+            } else {
+                sb.append(fingerprintValue(value));
+            }
+            sb.append(';');
+        }
+        return sb.append('}').toString();
+    }
+
+    private static String fingerprintValue(Object value) {
+        if (value == null) {
+            return "null";
+        }
+        if (value instanceof Class) {
+            return ((Class<?>) value).getName();
+        }
+        String className = value.getClass().getName();
+        // 只展开本项目和Spring Boot中的配置对象，其余的值（包括Map）直接使用它们的字符串形式
+        if (!value.getClass().isEnum() && (className.startsWith("org.maraxma.radial.property.") || className.startsWith("org.springframework.boot.autoconfigure.jdbc."))) {
+            return fingerprint(value);
+        }
+        return String.valueOf(value);
+    }
+
+    /**
+     * 根据配置创建一个数据源工厂，它每次被调用时都会创建一个新的数据源。
+     *
+     * @param title        配置中的数据源标题，仅用于日志
+     * @param dsProperties 数据源配置
+     * @return 数据源工厂，若配置的数据源类型不受支持则返回null
+     */
+    private DataSourceFactoryBean createDataSourceFactory(String title, RadialDataSourceProperties dsProperties) {
+        if (dsProperties.getType() == null) {
+            // 在没有设置Type的情况下，从下面的配置名称中判定使用的是那种数据源实现
+            if (dsProperties.getHikari() != null) {
+                // 若下面的节点是"hikari"，那么认为使用的是hikariCP，这是优先考虑的
+                LOG.warn("Datasource \"" + title + "\", its type is undefined, but property node \"hikari\" is found, treat it as HikariDataSource");
+                dsProperties.setType(HikariDataSource.class);
+            } else if (dsProperties.getDruid() != null) {
+                LOG.warn("Datasource \"" + title + "\", its type is undefined, but property node \"druid\" is found, treat it as DruidDataSource");
+                dsProperties.setType(DruidDataSource.class);
+            } else {
+                LOG.warn("Datasource \"" + title + "\", its type is undefined, no property node is found, treat it as HikariDataSource");
+                dsProperties.setType(HikariDataSource.class);
+            }
+        }
+        String className = dsProperties.getType().getName();
+        Map<String, Object> detailsProp;
+        if (HIKARI_DATASOURCE_CLASS_NAME.equalsIgnoreCase(className)) {
+            detailsProp = dsProperties.getHikari();
+        } else if (DRUID_DATASOURCE_CLASS_NAME.equals(className)) {
+            detailsProp = dsProperties.getDruid();
+        } else {
+            LOG.warn("Unsupported datasoucre type: " + dsProperties.getType().getName() + ", and this datasource is ignored: " + title);
+            return null;
+        }
+        return new DataSourceFactoryBean(dsProperties, detailsProp);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(DataSourceRoutingCache.class)
+    public DataSourceRoutingCache dataSourceRoutingCache() {
+        return new DataSourceRoutingCache();
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(ShardingRouter.class)
+    public ShardingRouter shardingRouter() {
+        ShardingRouter router = new ShardingRouter();
+        if (dataSourceProperties.getSharding() == null) {
+            return router;
+        }
+        for (Map.Entry<String, ShardingProperties> e : dataSourceProperties.getSharding().entrySet()) {
+            ShardingProperties shardingProperties = e.getValue();
+            if (shardingProperties.getDatasources() == null || shardingProperties.getDatasources().isEmpty()) {
+                throw new IllegalArgumentException("Prop \"radial.sharding." + e.getKey() + ".datasources\" cannot be empty");
+            }
+            // 分片组中配置的是数据源标题，路由时使用的是数据源Bean名称，不在radial.datasources中的名称原样使用
+            List<String> names = new ArrayList<>();
+            for (String title : shardingProperties.getDatasources()) {
+                RadialDataSourceProperties dsProperties = dataSourceProperties.getDatasources() == null ? null : dataSourceProperties.getDatasources().get(title);
+                names.add(dsProperties == null ? title : dataSourceBeanNamingStrategy.getName(title, dsProperties));
+            }
+            long[] bounds = shardingProperties.getRanges() == null ? new long[0] : shardingProperties.getRanges().stream().mapToLong(Long::longValue).toArray();
+            router.register(e.getKey(), names, shardingProperties.getFunction().create(e.getKey(), names.toArray(new String[0]), bounds, shardingProperties.getVirtualNodes()));
+            LOG.info("Registered shard group \"" + e.getKey() + "\" with " + shardingProperties.getFunction() + ": " + names);
+        }
+        return router;
+    }
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public ShardingAdvisor shardingAdvisor(ShardingRouter shardingRouter, DataSourceRoutingCache dataSourceRoutingCache) {
+        return new ShardingAdvisor(shardingRouter, dataSourceRoutingCache);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(ScatterGatherExecutor.class)
+    public ScatterGatherExecutor scatterGatherExecutor() {
+        return new ScatterGatherExecutor(dataSourceProperties.getScatterGather().getThreads(), dataSourceProperties.getScatterGather().getTimeout());
+    }
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public ScatterGatherAdvisor scatterGatherAdvisor(ScatterGatherExecutor scatterGatherExecutor, ObjectProvider<SwitchableDataSource> switchableDataSource) {
+        return new ScatterGatherAdvisor(scatterGatherExecutor, switchableDataSource);
+    }
+
+    @Bean
+    @ConditionalOnClass(name = DataSourceReloadListener.ENVIRONMENT_CHANGE_EVENT_CLASS_NAME)
+    @ConditionalOnProperty(prefix = "radial.reload", name = "on-environment-change", havingValue = "true", matchIfMissing = true)
+    public DataSourceReloadListener dataSourceReloadListener(ObjectProvider<SwitchableDataSource> switchableDataSource) {
+        return new DataSourceReloadListener(switchableDataSource);
     }
 
     @Bean
@@ -157,4 +560,18 @@ public class SwitchableDataSourceAutoConfiguration implements BeanFactoryAware,
         this.environment = environment;
         binder = Binder.get(environment);
     }
+
+    /**
+     * 构建出来的数据源与它的配置指纹。
+     */
+    private static final class BuiltDataSource {
+
+        private final String fingerprint;
+        private final DataSource dataSource;
+
+        BuiltDataSource(String fingerprint, DataSource dataSource) {
+            this.fingerprint = fingerprint;
+            this.dataSource = dataSource;
+        }
+    }
 }
@@ -0,0 +1,52 @@
+package org.maraxma.radial.balancer;
+
+import javax.sql.DataSource;
+
+/**
+ * 内置的数据源均衡策略。
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+public enum BalancerType implements DataSourceBalancerFactory {
+
+    /**
+     * 轮询，忽略权重。
+     */
+    ROUND_ROBIN {
+        @Override
+        public DataSourceBalancer create(String groupName, DataSource[] members, int[] weights) {
+            return new RoundRobinBalancer();
+        }
+    },
+
+    /**
+     * 按权重平滑轮询。
+     */
+    WEIGHTED {
+        @Override
+        public DataSourceBalancer create(String groupName, DataSource[] members, int[] weights) {
+            return new WeightedRoundRobinBalancer(weights);
+        }
+    },
+
+    /**
+     * 选择活动连接数最少的数据源，活动连接数直接读取自HikariCP或者Druid连接池。
+     */
+    LEAST_OUTSTANDING {
+        @Override
+        public DataSourceBalancer create(String groupName, DataSource[] members, int[] weights) {
+            return new LeastOutstandingBalancer();
+        }
+    },
+
+    /**
+     * 选择获取连接延迟的指数加权移动平均值（EWMA）较低的数据源。
+     */
+    EWMA {
+        @Override
+        public DataSourceBalancer create(String groupName, DataSource[] members, int[] weights) {
+            return new EwmaBalancer(members.length);
+        }
+    }
+}
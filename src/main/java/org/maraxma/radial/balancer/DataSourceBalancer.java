@@ -0,0 +1,40 @@
+package org.maraxma.radial.balancer;
+
+import javax.sql.DataSource;
+
+/**
+ * 数据源均衡器，用于在一组可以互相替代的数据源（如同一个主数据源的多个只读副本）中选出本次要使用的那一个。
+ * <p>每一组数据源拥有一个独立的均衡器实例，均衡器会在每次获取连接时被调用，因此它的实现必须是线程安全的，并且不应该使用锁。</p>
+ *
+ * @author mm92
+ * @see BalancerType
+ * @since 1.4.0 2026-10-18
+ */
+public interface DataSourceBalancer {
+
+    /**
+     * 选择一个数据源。
+     *
+     * @param members 这一组中的所有数据源（请不要修改这个数组），数量至少为1
+     * @return 被选中的数据源在members中的下标
+     */
+    int select(DataSource[] members);
+
+    /**
+     * 从数据源中成功获取到连接后被调用。
+     *
+     * @param member       数据源在这一组中的下标
+     * @param elapsedNanos 获取连接所花费的时间（纳秒）
+     */
+    default void onAcquired(int member, long elapsedNanos) {
+    }
+
+    /**
+     * 从数据源中获取连接失败后被调用。
+     *
+     * @param member       数据源在这一组中的下标
+     * @param elapsedNanos 失败之前所花费的时间（纳秒）
+     */
+    default void onFailed(int member, long elapsedNanos) {
+    }
+}
@@ -0,0 +1,23 @@
+package org.maraxma.radial.balancer;
+
+import javax.sql.DataSource;
+
+/**
+ * 数据源均衡器工厂。可切换数据源在初始化时为每一组数据源调用一次工厂以创建它们的均衡器。
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+@FunctionalInterface
+public interface DataSourceBalancerFactory {
+
+    /**
+     * 创建均衡器。
+     *
+     * @param groupName 组名称（一般是主数据源的名称）
+     * @param members   这一组中的所有数据源
+     * @param weights   每个数据源的权重，与members一一对应，均大于0
+     * @return 均衡器
+     */
+    DataSourceBalancer create(String groupName, DataSource[] members, int[] weights);
+}
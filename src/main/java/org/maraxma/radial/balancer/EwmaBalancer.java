@@ -0,0 +1,66 @@
+package org.maraxma.radial.balancer;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.sql.DataSource;
+
+/**
+ * 基于获取连接延迟的指数加权移动平均值（EWMA）的均衡器。
+ * <p>每次选择时随机取两个数据源，选择其中EWMA较低的那个（Power of Two Choices），这样既能避开慢的数据源，又不会让所有请求在同一时刻涌向同一个最快的数据源。
+ * 还没有样本的数据源会被优先选择。EWMA使用CAS更新，不需要任何锁。</p>
+ * <p>获取连接失败时会以一个惩罚值（至少1秒）作为样本，使得出错的数据源在一段时间内很少被选中。</p>
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+final class EwmaBalancer implements DataSourceBalancer {
+
+    /**
+     * 衰减因子为1/8，即每个新样本占8分之1的权重。
+     */
+    private static final int DECAY_SHIFT = 3;
+
+    private static final long FAILURE_PENALTY_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final AtomicLongArray ewma;
+
+    EwmaBalancer(int size) {
+        this.ewma = new AtomicLongArray(size);
+    }
+
+    @Override
+    public int select(DataSource[] members) {
+        int length = members.length;
+        if (length == 1) {
+            return 0;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int a = random.nextInt(length);
+        int b = random.nextInt(length - 1);
+        if (b >= a) {
+            b++;
+        }
+        return ewma.get(a) <= ewma.get(b) ? a : b;
+    }
+
+    @Override
+    public void onAcquired(int member, long elapsedNanos) {
+        record(member, Math.max(elapsedNanos, 1L));
+    }
+
+    @Override
+    public void onFailed(int member, long elapsedNanos) {
+        record(member, Math.max(elapsedNanos, FAILURE_PENALTY_NANOS));
+    }
+
+    private void record(int member, long sample) {
+        long previous;
+        long next;
+        do {
+            previous = ewma.get(member);
+            next = previous == 0 ? sample : previous + ((sample - previous) >> DECAY_SHIFT);
+        } while (!ewma.compareAndSet(member, previous, next));
+    }
+}
@@ -0,0 +1,40 @@
+package org.maraxma.radial.balancer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.maraxma.radial.util.DataSourcePoolUtils;
+
+/**
+ * 最少活动连接均衡器。
+ * <p>每次选择时读取每个连接池当前的活动连接数，选择活动连接数最少的那个。扫描的起点是轮转的，因此活动连接数相同时请求会被均匀地分摊。
+ * 无法读取活动连接数的数据源（非HikariCP/Druid或者连接池尚未启动）被视为没有活动连接。</p>
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+final class LeastOutstandingBalancer implements DataSourceBalancer {
+
+    private final AtomicInteger cursor = new AtomicInteger();
+
+    @Override
+    public int select(DataSource[] members) {
+        int length = members.length;
+        int start = (cursor.getAndIncrement() & Integer.MAX_VALUE) % length;
+        int best = start;
+        int bestActive = Integer.MAX_VALUE;
+        for (int i = 0; i < length; i++) {
+            int member = (start + i) % length;
+            int active = Math.max(DataSourcePoolUtils.getActiveConnections(members[member]), 0);
+            if (active < bestActive) {
+                best = member;
+                bestActive = active;
+                if (active == 0) {
+                    break;
+                }
+            }
+        }
+        return best;
+    }
+}
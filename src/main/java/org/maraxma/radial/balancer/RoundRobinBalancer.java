@@ -0,0 +1,21 @@
+package org.maraxma.radial.balancer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+/**
+ * 轮询均衡器。
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+final class RoundRobinBalancer implements DataSourceBalancer {
+
+    private final AtomicInteger cursor = new AtomicInteger();
+
+    @Override
+    public int select(DataSource[] members) {
+        return (cursor.getAndIncrement() & Integer.MAX_VALUE) % members.length;
+    }
+}
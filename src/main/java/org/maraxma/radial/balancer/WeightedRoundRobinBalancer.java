@@ -0,0 +1,51 @@
+package org.maraxma.radial.balancer;
+
+import java.math.BigInteger;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+/**
+ * 平滑加权轮询均衡器。
+ * <p>选择顺序在创建时就按照平滑加权轮询算法（与Nginx相同）预先计算成一张调度表，运行时只需要一次原子自增和一次数组访问。
+ * 例如权重为{5, 1, 1}时调度表为{0, 0, 1, 0, 2, 0, 0}，不会连续地把请求都打到权重最高的数据源上。</p>
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+final class WeightedRoundRobinBalancer implements DataSourceBalancer {
+
+    private final int[] schedule;
+    private final AtomicInteger cursor = new AtomicInteger();
+
+    WeightedRoundRobinBalancer(int[] weights) {
+        int gcd = 0;
+        for (int weight : weights) {
+            gcd = BigInteger.valueOf(gcd).gcd(BigInteger.valueOf(weight)).intValue();
+        }
+        int[] reduced = new int[weights.length];
+        int total = 0;
+        for (int i = 0; i < weights.length; i++) {
+            reduced[i] = weights[i] / gcd;
+            total += reduced[i];
+        }
+        this.schedule = new int[total];
+        int[] current = new int[weights.length];
+        for (int n = 0; n < total; n++) {
+            int best = 0;
+            for (int i = 0; i < reduced.length; i++) {
+                current[i] += reduced[i];
+                if (current[i] > current[best]) {
+                    best = i;
+                }
+            }
+            current[best] -= total;
+            schedule[n] = best;
+        }
+    }
+
+    @Override
+    public int select(DataSource[] members) {
+        return schedule[(cursor.getAndIncrement() & Integer.MAX_VALUE) % schedule.length];
+    }
+}
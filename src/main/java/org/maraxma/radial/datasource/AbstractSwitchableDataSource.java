@@ -2,15 +2,24 @@ package org.maraxma.radial.datasource;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.UnaryOperator;
 
 import javax.sql.DataSource;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.aop.support.AopUtils;
 import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.jdbc.datasource.AbstractDataSource;
@@ -21,7 +30,20 @@ import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
 
 import com.alibaba.druid.pool.DruidDataSource;
+import org.maraxma.radial.balancer.BalancerType;
+import org.maraxma.radial.balancer.DataSourceBalancer;
+import org.maraxma.radial.balancer.DataSourceBalancerFactory;
 import org.maraxma.radial.exception.DataSourceNotFoundException;
+import org.maraxma.radial.exception.DataSourceUnavailableException;
+import org.maraxma.radial.metrics.DataSourceMetrics;
+import org.maraxma.radial.metrics.LatencyStatistics;
+import org.maraxma.radial.metrics.LatencyType;
+import org.maraxma.radial.resilience.Bulkhead;
+import org.maraxma.radial.resilience.BulkheadConfig;
+import org.maraxma.radial.resilience.BulkheadInfo;
+import org.maraxma.radial.resilience.CircuitBreaker;
+import org.maraxma.radial.resilience.CircuitBreakerConfig;
+import org.maraxma.radial.resilience.CircuitBreakerInfo;
 import org.maraxma.radial.util.AopTargetUtils;
 import com.zaxxer.hikari.HikariDataSource;
 
@@ -36,20 +58,83 @@ import com.zaxxer.hikari.HikariDataSource;
  */
 public abstract class AbstractSwitchableDataSource extends AbstractDataSource implements GettableDataSource, SwitchableDataSourceMXBean, InitializingBean, DisposableBean {
 
+    private static final Log LOG = LogFactory.getLog(AbstractSwitchableDataSource.class);
+
     @Nullable
     private Map<Object, Object> targetDataSources;
 
     @Nullable
     private Object defaultTargetDataSource;
 
+    @Nullable
+    private Map<Object, List<Object>> replicaDataSources;
+
+    private DataSourceBalancerFactory balancerFactory = BalancerType.ROUND_ROBIN;
+
+    @Nullable
+    private Map<Object, DataSourceBalancerFactory> replicaBalancerFactories;
+
+    @Nullable
+    private Map<Object, int[]> replicaWeights;
+
+    @Nullable
+    private Map<Object, Object> fallbackDataSources;
+
+    @Nullable
+    private DataSourceHealthChecker healthChecker;
+
+    @Nullable
+    private IdleDataSourceEvictor idleEvictor;
+
+    @Nullable
+    private DataSourceWarmer warmer;
+
+    @Nullable
+    private Map<Object, CircuitBreakerConfig> circuitBreakerConfigs;
+
+    @Nullable
+    private Map<Object, BulkheadConfig> bulkheadConfigs;
+
+    @Nullable
+    private Map<Object, Integer> cursorFetchSizes;
+
+    private Map<Object, Integer> resolvedCursorFetchSizes = Collections.emptyMap();
+
     private DataSourceLookup dataSourceLookup = new JndiDataSourceLookup();
 
+    private final DataSourceMetrics metrics = new DataSourceMetrics();
+
     @Nullable
     private Map<Object, DataSource> resolvedDataSources;
 
     @Nullable
     private DataSource resolvedDefaultDataSource;
 
+    private Map<Object, List<DataSource>> resolvedReplicaDataSources = Collections.emptyMap();
+
+    @Nullable
+    private volatile DataSourceRegistry registry;
+
+    @Nullable
+    private IdleDataSourceEvictor startedEvictor;
+
+    private final DataSourceDrainer drainer = new DataSourceDrainer();
+
+    private long drainTimeoutMillis = 30000L;
+
+    @Nullable
+    private Runnable reloadHandler;
+
+    @Nullable
+    private UnaryOperator<DataSource> dataSourceDecorator;
+
+    private Map<Object, ReplicaGroup> replicaGroups = Collections.emptyMap();
+
+    private DataSourceShutdownCoordinator shutdownCoordinator = new DataSourceShutdownCoordinator(30000L);
+
+    @Nullable
+    private InFlightTransactionTracker inFlightTracker;
+
 
     /**
      * 设置可切换数据源备选项
@@ -69,6 +154,184 @@ public abstract class AbstractSwitchableDataSource extends AbstractDataSource im
         this.defaultTargetDataSource = defaultTargetDataSource;
     }
 
+    /**
+     * 设置主数据源的只读副本（可选）。
+     * <p>键与{@link #setTargetDataSources(Map)}中的键相同，只读事务和只读的{@code @UseDataSource}方法会被路由到对应主数据源的只读副本上。</p>
+     *
+     * @param replicaDataSources 主数据源名称与只读副本列表的映射
+     */
+    public void setReplicaDataSources(Map<Object, List<Object>> replicaDataSources) {
+        this.replicaDataSources = replicaDataSources;
+    }
+
+    /**
+     * 设置只读副本默认使用的均衡策略，默认为{@link BalancerType#ROUND_ROBIN}。
+     *
+     * @param balancerFactory 均衡器工厂，可以是{@link BalancerType}中的某一个，也可以是自定义的实现
+     */
+    public void setBalancerFactory(DataSourceBalancerFactory balancerFactory) {
+        Assert.notNull(balancerFactory, "BalancerFactory must not be null");
+        this.balancerFactory = balancerFactory;
+    }
+
+    /**
+     * 为某些主数据源的只读副本单独设置均衡策略（可选），没有单独设置的使用{@link #setBalancerFactory(DataSourceBalancerFactory)}所设置的策略。
+     *
+     * @param replicaBalancerFactories 主数据源名称与均衡器工厂的映射
+     */
+    public void setReplicaBalancerFactories(Map<Object, DataSourceBalancerFactory> replicaBalancerFactories) {
+        this.replicaBalancerFactories = replicaBalancerFactories;
+    }
+
+    /**
+     * 设置只读副本的权重（可选），数组中的权重与{@link #setReplicaDataSources(Map)}中的只读副本一一对应，没有设置时每个副本的权重都是1。
+     *
+     * @param replicaWeights 主数据源名称与只读副本权重的映射
+     */
+    public void setReplicaWeights(Map<Object, int[]> replicaWeights) {
+        this.replicaWeights = replicaWeights;
+    }
+
+    /**
+     * 设置主数据源的后备数据源（可选）。主数据源被健康检查剔除后，发往它的请求会转移到后备数据源上。
+     *
+     * @param fallbackDataSources 主数据源名称与后备数据源名称的映射
+     */
+    public void setFallbackDataSources(Map<Object, Object> fallbackDataSources) {
+        this.fallbackDataSources = fallbackDataSources;
+    }
+
+    /**
+     * 设置健康检查器（可选），没有设置时不进行健康检查，也不会剔除任何数据源。
+     *
+     * @param healthChecker 健康检查器
+     */
+    public void setHealthChecker(DataSourceHealthChecker healthChecker) {
+        this.healthChecker = healthChecker;
+    }
+
+    /**
+     * 设置空闲连接池回收器（可选），它负责关闭延迟创建的数据源（{@link LazyDataSource}）中长时间没有使用的连接池。
+     *
+     * @param idleEvictor 空闲连接池回收器
+     * @since 1.4.0
+     */
+    public void setIdleEvictor(IdleDataSourceEvictor idleEvictor) {
+        this.idleEvictor = idleEvictor;
+    }
+
+    /**
+     * 设置数据源预热器（可选），它会在初始化时并行地预热所有的连接池，初始化会等到预热完成或者到达预热的截止时间。
+     *
+     * @param warmer 数据源预热器
+     * @since 1.4.0
+     */
+    public void setWarmer(DataSourceWarmer warmer) {
+        this.warmer = warmer;
+    }
+
+    /**
+     * 设置重新加载后被替换或者被移除的连接池的排空超时时间，默认30秒。
+     *
+     * @param drainTimeoutMillis 排空超时时间（毫秒），超时后无论是否还有借出的连接都会关闭连接池
+     * @since 1.4.0
+     */
+    public void setDrainTimeout(long drainTimeoutMillis) {
+        this.drainTimeoutMillis = drainTimeoutMillis;
+    }
+
+    /**
+     * 设置重新加载处理器（可选），它负责重新读取配置、调用各个setter并最终调用{@link #refresh()}。
+     * <p>通过JMX调用{@link #reloadDataSources()}时会执行它。</p>
+     *
+     * @param reloadHandler 重新加载处理器
+     * @since 1.4.0
+     */
+    public void setReloadHandler(Runnable reloadHandler) {
+        this.reloadHandler = reloadHandler;
+    }
+
+    /**
+     * 设置数据源装饰器（可选），重新加载时新加入的数据源（包括只读副本）在被路由之前会经过它的装饰，例如被代理以记录追踪信息。
+     * <p>已经被AOP代理过的数据源不会被再次装饰。</p>
+     *
+     * @param dataSourceDecorator 数据源装饰器
+     * @since 1.4.0
+     */
+    public void setDataSourceDecorator(UnaryOperator<DataSource> dataSourceDecorator) {
+        this.dataSourceDecorator = dataSourceDecorator;
+    }
+
+    /**
+     * 设置关闭协调器，默认的协调器在关闭时最多等待30秒。
+     *
+     * @param shutdownCoordinator 关闭协调器
+     * @since 1.4.0
+     */
+    public void setShutdownCoordinator(DataSourceShutdownCoordinator shutdownCoordinator) {
+        Assert.notNull(shutdownCoordinator, "Shutdown coordinator cannot be null");
+        this.shutdownCoordinator = shutdownCoordinator;
+    }
+
+    /**
+     * 设置在途事务跟踪器（可选），关闭时会等待它跟踪的事务结束，并且允许事务中的线程在关闭期间继续获取连接。
+     *
+     * @param inFlightTracker 在途事务跟踪器
+     * @since 1.4.0
+     */
+    public void setInFlightTracker(InFlightTransactionTracker inFlightTracker) {
+        this.inFlightTracker = inFlightTracker;
+    }
+
+    /**
+     * 为主数据源设置熔断器（可选），主数据源的每个只读副本也会拥有一个使用相同配置的独立熔断器。
+     * <p>熔断器包裹在获取连接的外面，打开时获取连接的请求会被立即拒绝（抛出{@link DataSourceUnavailableException}），而不会等待连接池超时。</p>
+     *
+     * @param circuitBreakerConfigs 主数据源名称与熔断器配置的映射
+     */
+    public void setCircuitBreakerConfigs(Map<Object, CircuitBreakerConfig> circuitBreakerConfigs) {
+        this.circuitBreakerConfigs = circuitBreakerConfigs;
+    }
+
+    /**
+     * 为主数据源设置隔离舱（可选），主数据源的每个只读副本也会拥有一个使用相同配置的独立隔离舱。
+     * <p>隔离舱限制同时从一个数据源中借出的连接数（许可持有到连接被关闭为止），超出限制的请求会排队或者被拒绝（抛出{@link DataSourceUnavailableException}）。</p>
+     *
+     * @param bulkheadConfigs 主数据源名称与隔离舱配置的映射
+     */
+    public void setBulkheadConfigs(Map<Object, BulkheadConfig> bulkheadConfigs) {
+        this.bulkheadConfigs = bulkheadConfigs;
+    }
+
+    /**
+     * 为主数据源设置MyBatis游标查询所使用的fetch size（可选），主数据源的只读副本使用相同的配置。
+     *
+     * @param cursorFetchSizes 主数据源名称与fetch size的映射
+     * @since 1.4.0
+     */
+    public void setCursorFetchSizes(Map<Object, Integer> cursorFetchSizes) {
+        this.cursorFetchSizes = cursorFetchSizes;
+    }
+
+    /**
+     * 获得数据源上的游标查询所使用的fetch size。
+     *
+     * @param dataSourceName 数据源名称，为null时代表默认数据源
+     * @return fetch size，没有配置时返回null
+     * @since 1.4.0
+     */
+    @Nullable
+    public Integer getCursorFetchSize(@Nullable Object dataSourceName) {
+        if (dataSourceName == null) {
+            DataSourceRegistry registry = this.registry;
+            if (registry == null || registry.defaultIndex() == DataSourceRegistry.NOT_FOUND) {
+                return null;
+            }
+            dataSourceName = registry.keyOf(registry.defaultIndex());
+        }
+        return this.resolvedCursorFetchSizes.get(dataSourceName);
+    }
+
     /**
      * Set the DataSourceLookup implementation to use for resolving data source
      * name Strings in the {@link #setTargetDataSources targetDataSources} map.
@@ -80,19 +343,238 @@ public abstract class AbstractSwitchableDataSource extends AbstractDataSource im
     }
 
 
+    /**
+     * 初始化可切换数据源：构建注册表，预热所有的连接池，然后启动健康检查器和空闲连接池回收器。
+     * <p>预热只在第一次初始化时进行，已经初始化过之后再次调用等同于调用{@link #refresh()}，只预热新加入的数据源。</p>
+     */
+    @Override
+    public synchronized void afterPropertiesSet() {
+        if (this.registry != null) {
+            refresh();
+            return;
+        }
+        DataSourceRegistry registry = buildRegistry(null);
+        if (this.warmer != null) {
+            this.warmer.warmUp(registry.allMembers());
+        }
+        this.registry = registry;
+        if (this.healthChecker != null) {
+            this.healthChecker.start(this);
+        }
+        startIdleEvictor();
+    }
+
+    /**
+     * 按照各个setter设定的最新配置重建路由表，并以原子的方式发布它（写时复制），正在进行的路由不受影响。
+     * <p>新增的数据源会在发布之前被装饰（{@link #setDataSourceDecorator(UnaryOperator)}）和预热（若启用了预热）；
+     * 被移除的数据源，以及被替换掉的（同名但解开代理之后不是同一个对象的）数据源不会再被路由到，
+     * 它们会在所有借出的连接都被归还，或者到达排空超时时间（{@link #setDrainTimeout(long)}）之后被关闭。
+     * 新旧路由表中的同一个数据源（解开代理之后是同一个对象）会被保留，它的连接池、代理、剔除状态、熔断器、隔离舱以及只读副本的均衡器都不会受到影响。</p>
+     * <p>正在事务中的线程会继续使用它已经获取的连接直到事务结束。</p>
+     *
+     * @since 1.4.0
+     */
+    public synchronized void refresh() {
+        DataSourceRegistry previous = this.registry;
+        if (previous == null) {
+            afterPropertiesSet();
+            return;
+        }
+        DataSourceRegistry registry = buildRegistry(previous);
+        registry.inheritStateFrom(previous);
+        // 以解开代理之后的对象判定新旧成员，同一个连接池的代理对象和原始对象视为同一个成员
+        Map<Object, Boolean> previousMembers = new IdentityHashMap<>();
+        previous.allMembers().values().forEach(ds -> previousMembers.put(AopTargetUtils.getTarget(ds), Boolean.TRUE));
+        Map<Object, Boolean> currentMembers = new IdentityHashMap<>();
+        Map<String, DataSource> added = new LinkedHashMap<>();
+        registry.allMembers().forEach((name, ds) -> {
+            Object target = AopTargetUtils.getTarget(ds);
+            currentMembers.put(target, Boolean.TRUE);
+            if (!previousMembers.containsKey(target)) {
+                added.put(name, ds);
+            }
+        });
+        Map<String, DataSource> retired = new LinkedHashMap<>();
+        previous.allMembers().forEach((name, ds) -> {
+            if (!currentMembers.containsKey(AopTargetUtils.getTarget(ds))) {
+                retired.put(name, ds);
+            }
+        });
+        if (this.warmer != null && !added.isEmpty()) {
+            this.warmer.warmUp(added);
+        }
+        this.registry = registry;
+        if (this.healthChecker != null) {
+            // 被替换的数据源重新开始计算健康状态
+            this.healthChecker.forget(added.keySet());
+            this.healthChecker.forget(retired.keySet());
+        }
+        startIdleEvictor();
+        retired.forEach((name, ds) -> drainer.drain(name, ds, drainTimeoutMillis));
+        LOG.info("Switchable datasource refreshed, " + added.size() + " datasource(s) added or replaced" + (added.isEmpty() ? "" : " " + added.keySet())
+                + ", " + retired.size() + " datasource(s) draining" + (retired.isEmpty() ? "" : " " + retired.keySet()));
+    }
+
     @Override
-    public void afterPropertiesSet() {
+    public void reloadDataSources() {
+        Runnable handler = this.reloadHandler;
+        if (handler == null) {
+            throw new UnsupportedOperationException("No reload handler is set to this switchable datasource");
+        }
+        handler.run();
+    }
+
+    private void startIdleEvictor() {
+        if (this.startedEvictor != this.idleEvictor) {
+            // 重新加载时回收器会随着数据源一起被重建
+            if (this.startedEvictor != null) {
+                this.startedEvictor.stop();
+            }
+            if (this.idleEvictor != null) {
+                this.idleEvictor.start();
+            }
+            this.startedEvictor = this.idleEvictor;
+        }
+    }
+
+    /**
+     * 解析配置并构建注册表。
+     *
+     * @param previous 旧的注册表，重新加载时传入，仍然存在的成员会沿用旧注册表中的实例（它们可能被代理过）
+     * @return 新的注册表
+     */
+    private DataSourceRegistry buildRegistry(@Nullable DataSourceRegistry previous) {
         if (this.targetDataSources == null) {
             throw new IllegalArgumentException("Property 'targetDataSources' is required");
         }
-        this.resolvedDataSources = new HashMap<>(this.targetDataSources.size());
+        // 先在局部变量中解析，重新加载时正在读取这些成员变量的线程不会看到解析了一半的结果
+        Map<Object, DataSource> dataSources = new HashMap<>(this.targetDataSources.size());
         this.targetDataSources.forEach((key, value) -> {
             Object lookupKey = resolveSpecifiedLookupKey(key);
-            DataSource dataSource = resolveSpecifiedDataSource(value);
-            this.resolvedDataSources.put(lookupKey, dataSource);
+            DataSource dataSource = adopt(resolveSpecifiedDataSource(value), previous);
+            dataSources.put(lookupKey, dataSource);
         });
-        if (this.defaultTargetDataSource != null) {
-            this.resolvedDefaultDataSource = resolveSpecifiedDataSource(this.defaultTargetDataSource);
+        Map<Object, List<DataSource>> replicas = new HashMap<>();
+        if (this.replicaDataSources != null) {
+            this.replicaDataSources.forEach((key, value) -> {
+                Object lookupKey = resolveSpecifiedLookupKey(key);
+                if (!dataSources.containsKey(lookupKey)) {
+                    throw new IllegalArgumentException("Cannot find primary DataSource named [" + lookupKey + "] for its replica(s)");
+                }
+                List<DataSource> resolved = new ArrayList<>(value.size());
+                value.forEach(replica -> resolved.add(adopt(resolveSpecifiedDataSource(replica), previous)));
+                replicas.put(lookupKey, Collections.unmodifiableList(resolved));
+            });
+        }
+        this.resolvedDataSources = dataSources;
+        this.resolvedDefaultDataSource = this.defaultTargetDataSource == null ? null : adopt(resolveSpecifiedDataSource(this.defaultTargetDataSource), previous);
+        this.resolvedReplicaDataSources = replicas;
+        // 一次性构建注册表，运行时的路由、名称查询、包含判定都只查询注册表
+        Map<Object, Object> fallbacks = new HashMap<>();
+        if (this.fallbackDataSources != null) {
+            this.fallbackDataSources.forEach((key, value) -> fallbacks.put(resolveSpecifiedLookupKey(key), resolveSpecifiedLookupKey(value)));
+        }
+        Map<Object, CircuitBreakerConfig> breakerConfigs = new HashMap<>();
+        if (this.circuitBreakerConfigs != null) {
+            this.circuitBreakerConfigs.forEach((key, value) -> breakerConfigs.put(resolveSpecifiedLookupKey(key), value));
+        }
+        Map<Object, BulkheadConfig> bulkheads = new HashMap<>();
+        if (this.bulkheadConfigs != null) {
+            this.bulkheadConfigs.forEach((key, value) -> bulkheads.put(resolveSpecifiedLookupKey(key), value));
+        }
+        Map<Object, Integer> fetchSizes = new HashMap<>();
+        if (this.cursorFetchSizes != null) {
+            this.cursorFetchSizes.forEach((key, value) -> fetchSizes.put(resolveSpecifiedLookupKey(key), value));
+        }
+        this.resolvedCursorFetchSizes = fetchSizes;
+        return new DataSourceRegistry(this.resolvedDataSources, this.resolvedReplicaDataSources, createReplicaBalancers(), fallbacks,
+                breakerConfigs, bulkheads, this.resolvedDefaultDataSource);
+    }
+
+    /**
+     * 重新加载时确定一个数据源在新注册表中使用的实例：已经被代理过的直接使用；旧注册表中已有的（无论是代理对象还是原始对象）沿用旧注册表中的实例；
+     * 其余的（新创建的）经过数据源装饰器的装饰。
+     */
+    private DataSource adopt(DataSource dataSource, @Nullable DataSourceRegistry previous) {
+        if (previous == null || AopUtils.isAopProxy(dataSource)) {
+            return dataSource;
+        }
+        int index = previous.indexOfDataSource(dataSource);
+        if (index != DataSourceRegistry.NOT_FOUND) {
+            return previous.get(index);
+        }
+        UnaryOperator<DataSource> decorator = this.dataSourceDecorator;
+        return decorator == null ? dataSource : decorator.apply(dataSource);
+    }
+
+    @Nullable
+    DataSourceRegistry registry() {
+        return registry;
+    }
+
+    private Map<Object, DataSourceBalancer> createReplicaBalancers() {
+        Map<Object, DataSourceBalancerFactory> factories = new HashMap<>();
+        if (this.replicaBalancerFactories != null) {
+            this.replicaBalancerFactories.forEach((key, value) -> factories.put(resolveSpecifiedLookupKey(key), value));
+        }
+        Map<Object, int[]> weights = new HashMap<>();
+        if (this.replicaWeights != null) {
+            this.replicaWeights.forEach((key, value) -> weights.put(resolveSpecifiedLookupKey(key), value));
+        }
+        Map<Object, DataSourceBalancer> balancers = new HashMap<>();
+        Map<Object, ReplicaGroup> groups = new HashMap<>();
+        this.resolvedReplicaDataSources.forEach((key, value) -> {
+            int[] groupWeights = weights.get(key);
+            if (groupWeights == null) {
+                groupWeights = new int[value.size()];
+                Arrays.fill(groupWeights, 1);
+            } else if (groupWeights.length != value.size()) {
+                throw new IllegalArgumentException("The count of replica weights of DataSource [" + key + "] is " + groupWeights.length + ", but it has " + value.size() + " replica(s)");
+            }
+            for (int weight : groupWeights) {
+                if (weight <= 0) {
+                    throw new IllegalArgumentException("The replica weights of DataSource [" + key + "] must be positive: " + Arrays.toString(groupWeights));
+                }
+            }
+            DataSourceBalancerFactory factory = factories.getOrDefault(key, this.balancerFactory);
+            ReplicaGroup group = new ReplicaGroup(factory, groupWeights.clone(), value);
+            ReplicaGroup previous = this.replicaGroups.get(key);
+            // 副本组没有变化时沿用旧的均衡器，保留它的轮询位置和延迟统计
+            group.balancer = previous != null && previous.sameAs(group) ? previous.balancer
+                    : factory.create(String.valueOf(key), value.toArray(new DataSource[0]), groupWeights.clone());
+            balancers.put(key, group.balancer);
+            groups.put(key, group);
+        });
+        this.replicaGroups = groups;
+        return balancers;
+    }
+
+    /**
+     * 只读副本组的均衡配置以及为它创建的均衡器。
+     */
+    private static final class ReplicaGroup {
+
+        private final DataSourceBalancerFactory factory;
+        private final int[] weights;
+        private final Object[] targets;
+        private DataSourceBalancer balancer;
+
+        ReplicaGroup(DataSourceBalancerFactory factory, int[] weights, List<DataSource> replicas) {
+            this.factory = factory;
+            this.weights = weights;
+            this.targets = replicas.stream().map(AopTargetUtils::getTarget).toArray();
+        }
+
+        boolean sameAs(ReplicaGroup other) {
+            if (!factory.equals(other.factory) || !Arrays.equals(weights, other.weights) || targets.length != other.targets.length) {
+                return false;
+            }
+            for (int i = 0; i < targets.length; i++) {
+                if (targets[i] != other.targets[i]) {
+                    return false;
+                }
+            }
+            return true;
         }
     }
 
@@ -134,29 +616,98 @@ public abstract class AbstractSwitchableDataSource extends AbstractDataSource im
 
     @Override
     public Connection getConnection() throws SQLException {
+        DataSourceRegistry registry = this.registry;
+        Assert.notNull(registry, "DataSource router not initialized");
+        if (shutdownCoordinator.isClosing()) {
+            InFlightTransactionTracker tracker = this.inFlightTracker;
+            // 关闭期间只为在途事务提供连接，让它们能够正常结束
+            if (tracker == null || !tracker.isInFlight()) {
+                throw new DataSourceUnavailableException("Switchable datasource is shutting down, the request is rejected");
+            }
+        }
+        int index = DataSourceRegistry.NOT_FOUND;
+        CircuitBreaker circuitBreaker = null;
+        Bulkhead bulkhead = null;
+        boolean acquiring = false;
+        long start = 0L;
         try {
-            return determineTargetDataSource().getConnection();
+            index = determineTargetIndex(registry);
+            DataSource dataSource = index == DataSourceRegistry.NOT_FOUND ? registry.defaultDataSource() : registry.get(index);
+            circuitBreaker = registry.circuitBreakerOf(index);
+            if (circuitBreaker != null && !circuitBreaker.tryAcquirePermission()) {
+                // 熔断中的数据源在路由时已经尽量避开了，走到这里说明没有可以转移的目标，直接快速失败
+                throw new DataSourceUnavailableException("Circuit breaker of DataSource [" + registry.nameOf(index) + "] is " + circuitBreaker.getState() + ", the request is rejected");
+            }
+            bulkhead = registry.bulkheadOf(index);
+            if (bulkhead != null && !bulkhead.tryAcquire()) {
+                bulkhead = null;
+                if (circuitBreaker != null) {
+                    circuitBreaker.releasePermission();
+                }
+                throw new DataSourceUnavailableException("Bulkhead of DataSource [" + registry.nameOf(index) + "] is full, the request is rejected");
+            }
+            acquiring = true;
+            start = System.nanoTime();
+            Connection connection = dataSource.getConnection();
+            long elapsed = System.nanoTime() - start;
+            registry.onAcquired(index, elapsed);
+            if (index != DataSourceRegistry.NOT_FOUND) {
+                metrics.record(registry.nameOf(index), LatencyType.ACQUIRE, elapsed);
+            }
+            if (circuitBreaker != null) {
+                circuitBreaker.onSuccess(elapsed);
+            }
+            if (bulkhead != null) {
+                // 许可一直持有到连接被关闭为止
+                connection = bulkhead.bind(connection);
+                bulkhead = null;
+            }
+            return connection;
+        } catch (DataSourceUnavailableException e) {
+            // 快速失败的拒绝原样抛出，调用方据此与连接池本身的故障区分开
+            throw e;
         } catch (Exception e) {
+            if (acquiring) {
+                long elapsed = System.nanoTime() - start;
+                registry.onFailed(index, elapsed);
+                if (circuitBreaker != null) {
+                    circuitBreaker.onError(elapsed);
+                }
+            }
             throw new SQLException("Cannot initialize connection from current pointed datasource [" + determineCurrentLookupKey() + "]", e);
+        } finally {
+            // 获取失败时离开隔离舱
+            if (bulkhead != null) {
+                bulkhead.release();
+            }
         }
     }
 
     @Override
     public Map<String, PooledDataSourceInfo> getPooledDataSourceInfo() {
-        Map<String, DataSource> dataSources = getAllDataSources();
+        DataSourceRegistry registry = this.registry;
+        Map<String, DataSource> dataSources = registry == null ? Collections.emptyMap() : registry.allMembers();
         // 目前仅支持Druid和HikariCP的判定
         final boolean hikariLoaded = ClassUtils.isPresent("com.zaxxer.hikari.HikariDataSource", Thread.currentThread().getContextClassLoader());
         final boolean druidLoaded = ClassUtils.isPresent("com.alibaba.druid.pool.DruidDataSource", Thread.currentThread().getContextClassLoader());
         return dataSources.entrySet().stream().collect(HashMap::new, (l, r) -> {
             String dataSourceName = r.getKey();
             DataSource ds = r.getValue();
+            if (ds instanceof LazyDataSource) {
+                // 延迟创建的数据源展示它当前的连接池，尚未创建（或者已经关闭）时展示为未运行
+                ds = ((LazyDataSource) ds).getTarget();
+                if (ds == null) {
+                    l.put(dataSourceName, new PooledDataSourceInfo(LazyDataSource.class.getName(), false, 0, 0));
+                    return;
+                }
+            }
             if (hikariLoaded && ds instanceof HikariDataSource) {
                 l.put(dataSourceName, new PooledDataSourceInfo(
                         ds.getClass().getName(),
                         ((HikariDataSource) ds).isRunning(),
                         ((HikariDataSource) ds).getHikariPoolMXBean() == null ? -1 : ((HikariDataSource) ds).getHikariPoolMXBean().getActiveConnections(),
                         ((HikariDataSource) ds).getHikariPoolMXBean() == null ? -1 : ((HikariDataSource) ds).getHikariPoolMXBean().getTotalConnections()));
-            } else if (druidLoaded && r.getValue() instanceof DruidDataSource) {
+            } else if (druidLoaded && ds instanceof DruidDataSource) {
                 l.put(dataSourceName, new PooledDataSourceInfo(
                         ds.getClass().getName(),
                         !((DruidDataSource) ds).isClosed(),
@@ -166,6 +717,86 @@ public abstract class AbstractSwitchableDataSource extends AbstractDataSource im
         }, HashMap::putAll);
     }
 
+    @Override
+    public Map<String, DataSourceStartupInfo> getStartupInfo() {
+        return warmer == null ? Collections.emptyMap() : warmer.getStartupInfo();
+    }
+
+    @Override
+    public Map<String, Map<String, WarmUpStatementInfo>> getWarmUpStatementInfo() {
+        return warmer == null ? Collections.emptyMap() : warmer.getStatementInfo();
+    }
+
+    /**
+     * 获得数据源预热器。
+     *
+     * @return 数据源预热器，未启用预热时返回null
+     * @since 1.4.0
+     */
+    @Nullable
+    public DataSourceWarmer getWarmer() {
+        return warmer;
+    }
+
+    @Override
+    public Map<String, DataSourceHealthInfo> getHealthInfo() {
+        return healthChecker == null ? Collections.emptyMap() : healthChecker.getHealthInfo();
+    }
+
+    @Override
+    public List<String> getHealthEvents() {
+        return healthChecker == null ? Collections.emptyList() : healthChecker.getRecentEvents();
+    }
+
+    @Override
+    public Map<String, CircuitBreakerInfo> getCircuitBreakerInfo() {
+        DataSourceRegistry registry = this.registry;
+        Map<String, CircuitBreakerInfo> info = new TreeMap<>();
+        if (registry != null) {
+            for (int i = 0; i < registry.size(); i++) {
+                CircuitBreaker circuitBreaker = registry.circuitBreakerOf(i);
+                if (circuitBreaker != null) {
+                    info.put(registry.nameOf(i), circuitBreaker.getInfo());
+                }
+            }
+        }
+        return info;
+    }
+
+    @Override
+    public Map<String, BulkheadInfo> getBulkheadInfo() {
+        DataSourceRegistry registry = this.registry;
+        Map<String, BulkheadInfo> info = new TreeMap<>();
+        if (registry != null) {
+            for (int i = 0; i < registry.size(); i++) {
+                Bulkhead bulkhead = registry.bulkheadOf(i);
+                if (bulkhead != null) {
+                    info.put(registry.nameOf(i), bulkhead.getInfo());
+                }
+            }
+        }
+        return info;
+    }
+
+    @Override
+    public Map<String, Map<String, LatencyStatistics>> getLatencyStatistics() {
+        return metrics.getStatistics();
+    }
+
+    @Override
+    public void resetLatencyStatistics() {
+        metrics.reset();
+    }
+
+    /**
+     * 获得内置的数据源指标，事务管理器等组件通过它记录提交、回滚等延迟。
+     *
+     * @return 数据源指标
+     */
+    public DataSourceMetrics getMetrics() {
+        return metrics;
+    }
+
     @Override
     public Connection getConnection(String username, String password) throws SQLException {
         return determineTargetDataSource().getConnection(username, password);
@@ -195,26 +826,46 @@ public abstract class AbstractSwitchableDataSource extends AbstractDataSource im
      * @see #determineCurrentLookupKey()
      */
     protected DataSource determineTargetDataSource() {
-        Assert.notNull(this.resolvedDataSources, "DataSource router not initialized");
+        DataSourceRegistry registry = this.registry;
+        Assert.notNull(registry, "DataSource router not initialized");
+        int index = determineTargetIndex(registry);
+        return index == DataSourceRegistry.NOT_FOUND ? registry.defaultDataSource() : registry.get(index);
+    }
+
+    /**
+     * 决定当前要使用的成员编号。
+     *
+     * @param registry 注册表
+     * @return 成员编号，若应该使用一个不在备选集合中的默认数据源则返回{@link DataSourceRegistry#NOT_FOUND}
+     */
+    private int determineTargetIndex(DataSourceRegistry registry) {
         Object lookupKey = determineCurrentLookupKey();
-        DataSource dataSource;
+        int index;
         if (lookupKey == null || (lookupKey instanceof String && "".equals(((String) lookupKey).trim()))) {
-            dataSource = this.resolvedDefaultDataSource;
+            index = registry.defaultIndex();
+            if (index == DataSourceRegistry.NOT_FOUND) {
+                return DataSourceRegistry.NOT_FOUND;
+            }
         } else {
-            dataSource = this.resolvedDataSources.get(lookupKey);
-            if (dataSource == null) {
+            index = registry.indexOf(lookupKey);
+            if (index == DataSourceRegistry.NOT_FOUND) {
                 throw new IllegalStateException("Cannot find DataSource named [" + lookupKey + "], please check your codes or configuration files");
             }
         }
-        return dataSource;
+        // 只读的操作若主数据源配置了只读副本，则路由到只读副本上
+        if (registry.replicasOf(index).length > 0 && determineCurrentReadOnly()) {
+            return registry.nextReplica(index);
+        }
+        return registry.isAvailable(index) ? index : registry.failover(index);
     }
 
     @Override
     public DataSource getDataSource(Object dataSourceName) {
-        if (resolvedDataSources != null) {
-            DataSource ds = resolvedDataSources.get(dataSourceName);
-            if (ds != null) {
-                return ds;
+        DataSourceRegistry registry = this.registry;
+        if (registry != null) {
+            int index = registry.indexOf(dataSourceName);
+            if (index != DataSourceRegistry.NOT_FOUND) {
+                return registry.get(index);
             }
         }
         throw new DataSourceNotFoundException("Cannot find datasource: " + dataSourceName + ", current available datasources are " + getAvailableDataSourceNames());
@@ -230,28 +881,37 @@ public abstract class AbstractSwitchableDataSource extends AbstractDataSource im
 
     @Override
     public String getCurrentDataSourceName() {
+        // 查找键包含了租户解析的结果，未指定数据源时回退到默认数据源，与实际路由的结果保持一致
         Object name = determineCurrentLookupKey();
-        if (name == null) {
-            throw new DataSourceNotFoundException("Cannot find current datasource and it's name");
+        if (name == null || (name instanceof String && "".equals(((String) name).trim()))) {
+            return getDefaultDataSourceName();
         }
         return String.valueOf(name);
     }
 
     @Override
     public String getDataSourceName(DataSource dataSource) {
-        for (Map.Entry<Object, DataSource> en : Objects.requireNonNull(resolvedDataSources).entrySet()) {
-            if (en.getValue().equals(dataSource) || AopTargetUtils.getTarget(en.getValue()).equals(dataSource)) {
-                return String.valueOf(en.getKey());
-            }
-        }
-        return null;
+        DataSourceRegistry registry = Objects.requireNonNull(this.registry);
+        // 注册表中同时登记了代理对象和原始对象，因此这里不再需要遍历并反射解开代理
+        int index = registry.indexOfDataSource(dataSource);
+        return index == DataSourceRegistry.NOT_FOUND ? null : registry.nameOf(index);
     }
 
     @Override
     public Map<String, DataSource> getAllDataSources() {
-        return Collections.unmodifiableMap(resolvedDataSources == null
-                ? new HashMap<>()
-                : resolvedDataSources.entrySet().stream().collect(HashMap::new, (l, r) -> l.put(String.valueOf(r.getKey()), r.getValue()), HashMap::putAll));
+        DataSourceRegistry registry = this.registry;
+        return registry == null ? Collections.emptyMap() : registry.allDataSources();
+    }
+
+    /**
+     * 获得所有主数据源的只读副本。
+     *
+     * @return 主数据源名称与只读副本列表的映射（不可变），没有配置只读副本的主数据源不在其中
+     */
+    public Map<String, List<DataSource>> getReplicaDataSources() {
+        Map<String, List<DataSource>> replicas = new LinkedHashMap<>();
+        resolvedReplicaDataSources.forEach((key, value) -> replicas.put(String.valueOf(key), value));
+        return Collections.unmodifiableMap(replicas);
     }
 
     @Override
@@ -264,36 +924,55 @@ public abstract class AbstractSwitchableDataSource extends AbstractDataSource im
 
     @Override
     public String getDefaultDataSourceName() {
-        return getDataSourceName(getDefaultDataSource());
+        DataSourceRegistry registry = this.registry;
+        if (registry == null || registry.defaultDataSource() == null) {
+            throw new DataSourceNotFoundException("Cannot find default datasource and its name");
+        }
+        // 默认数据源的名称在构建注册表时就已经确定，这个方法会在每次没有指定数据源的连接请求中被调用
+        return registry.defaultName();
     }
 
     @Override
     public Set<String> getAvailableDataSourceNames() {
-        if (resolvedDataSources == null) {
-            return new HashSet<>();
-        }
-        return resolvedDataSources
-                .entrySet().stream()
-                .collect(HashSet::new, (l, r) -> l.add(String.valueOf(r.getKey())), HashSet::addAll);
+        DataSourceRegistry registry = this.registry;
+        return registry == null ? Collections.emptySet() : registry.allNames();
     }
 
     @Override
     public boolean containsDataSource(String dataSourceName) {
-        return getAllDataSources().containsKey(dataSourceName);
+        DataSourceRegistry registry = this.registry;
+        return registry != null && registry.indexOf(dataSourceName) != DataSourceRegistry.NOT_FOUND;
     }
 
+    /**
+     * 关闭可切换数据源：停止路由新的借用，等待在途事务结束，然后并行地关闭所有的连接池（包括只读副本），详见{@link DataSourceShutdownCoordinator}。
+     */
     @Override
     public void destroy() throws Exception {
-        closeDataSource(resolvedDefaultDataSource);
-        for (Map.Entry<Object, DataSource> en : Objects.requireNonNull(resolvedDataSources).entrySet()) {
-            closeDataSource(en.getValue());
+        if (healthChecker != null) {
+            healthChecker.stop();
         }
-    }
-
-    private void closeDataSource(DataSource dataSource) throws Exception {
-        if (dataSource instanceof AutoCloseable) {
-            ((AutoCloseable) dataSource).close();
+        if (startedEvictor != null) {
+            startedEvictor.stop();
+        }
+        DataSourceRegistry registry = this.registry;
+        Map<String, DataSource> members = new LinkedHashMap<>();
+        if (registry != null) {
+            // 默认数据源通常也在成员中（可能以代理对象的形式），按照解开代理之后的对象去重，保证每个连接池只被关闭一次
+            Map<Object, Boolean> targets = new IdentityHashMap<>();
+            registry.allMembers().forEach((name, ds) -> {
+                if (targets.put(AopTargetUtils.getTarget(ds), Boolean.TRUE) == null) {
+                    members.put(name, ds);
+                }
+            });
+            DataSource defaultDataSource = registry.defaultDataSource();
+            if (defaultDataSource != null && targets.put(AopTargetUtils.getTarget(defaultDataSource), Boolean.TRUE) == null) {
+                members.put("default", defaultDataSource);
+            }
         }
+        shutdownCoordinator.shutdown(members, inFlightTracker);
+        // 重新加载后还在排空的连接池此时立即关闭
+        drainer.shutdown();
     }
 
     /**
@@ -304,6 +983,16 @@ public abstract class AbstractSwitchableDataSource extends AbstractDataSource im
     @Nullable
     protected abstract Object determineCurrentLookupKey();
 
+    /**
+     * 判定当前的操作是否是只读的。只读的操作会被路由到主数据源的只读副本上（若有）。
+     * <p>默认实现总是返回false，即所有的操作都路由到主数据源。</p>
+     *
+     * @return 只读则返回true
+     */
+    protected boolean determineCurrentReadOnly() {
+        return false;
+    }
+
     public Map<Object, DataSource> getResolvedDataSources() {
         return resolvedDataSources;
     }
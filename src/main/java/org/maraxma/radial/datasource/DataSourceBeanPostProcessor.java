@@ -1,6 +1,8 @@
 package org.maraxma.radial.datasource;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import javax.annotation.PostConstruct;
@@ -41,8 +43,18 @@ public class DataSourceBeanPostProcessor extends AbstractAdvisingBeanPostProcess
             Map<String, DataSource> existingDataSources = abstractSwitchableDataSource.getAllDataSources();
             Map<Object, Object> proxiedDataSources = existingDataSources.entrySet().stream().collect(HashMap::new, (l, r) -> l.put(r.getKey(), applyProxy(r.getValue(), "")), HashMap::putAll);
             abstractSwitchableDataSource.setTargetDataSources(proxiedDataSources);
-            // 重新初始化
-            abstractSwitchableDataSource.afterPropertiesSet();
+            // 只读副本也需要代理
+            Map<Object, List<Object>> proxiedReplicaDataSources = new HashMap<>();
+            abstractSwitchableDataSource.getReplicaDataSources().forEach((key, replicas) -> {
+                List<Object> proxiedReplicas = new ArrayList<>(replicas.size());
+                replicas.forEach(replica -> proxiedReplicas.add(applyProxy(replica, "")));
+                proxiedReplicaDataSources.put(key, proxiedReplicas);
+            });
+            abstractSwitchableDataSource.setReplicaDataSources(proxiedReplicaDataSources);
+            // 重新加载时新创建的数据源同样需要代理
+            abstractSwitchableDataSource.setDataSourceDecorator(dataSource -> (DataSource) applyProxy(dataSource, ""));
+            // 重新发布注册表，代理对象与原始对象是同一个连接池，不会被重复预热，也不会丢失运行时状态
+            abstractSwitchableDataSource.refresh();
         } else if (bean instanceof DataSource) {
             // 如果是普通数据源，直接代理
             return applyProxy(bean, beanName);
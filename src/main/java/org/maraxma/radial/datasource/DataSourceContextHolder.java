@@ -1,31 +1,36 @@
 package org.maraxma.radial.datasource;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
 /**
  * 数据源上下文保持器。它内部保持的dataSource决定了当前后文使用的数据源，若你在@UseDataSource无法控制的地方需要切换数据源，
  * 请使用它的setDataSourceName()静态方法，他可以帮助你使用硬编码灵活切换数据源。
  * <p>这个数据源上下文保持器仅在使用可切换数据源（@EnableSwitchableDataSource）时有用。</p>
+ * <p>保持器中的状态完全是线程私有的，切换和读取都不需要任何全局锁，因此不会在多线程下互相阻塞。</p>
+ * <p>从1.4.0开始，保持器为每个线程维护一个预先分配的路由帧栈，{@code @UseDataSource}切面在进入方法时使用{@link #pushDataSourceName(String)}压入一帧，
+ * 在方法退出（包括抛出异常）时使用{@link #popDataSourceName(int)}恢复进入方法前的数据源。压栈和出栈都不会产生新的对象。</p>
  *
  * @author mm92
  * @since 1.0.0 2018-11-09
  */
 public class DataSourceContextHolder {
 
-    private static final ThreadLocal<String> CONTEXT_HOLDER = new ThreadLocal<>();
+    private static final Log LOG = LogFactory.getLog(DataSourceContextHolder.class);
+
+    private static final ThreadLocal<RoutingContext> CONTEXT_HOLDER = ThreadLocal.withInitial(RoutingContext::new);
 
     /**
      * 改变当前线程所使用的数据源名称。
      * <p>注意：必须设定正确的数据源名称（你所配置的），错误的数据源名称会导致程序抛错。</p>
+     * <p>若当前处于某个{@code @UseDataSource}方法中，那么这个修改只在该方法退出之前有效。</p>
      *
      * @param dataSourceName 数据源名称，不能将其设置为null或者空字符串，否则会抛错
      */
     public static void setDataSourceName(String dataSourceName) {
-        // 这里需要同步，否则某些情况下切换会有风险
-        synchronized (DataSourceContextHolder.class) {
-            if (dataSourceName == null || "".equals(dataSourceName.trim())) {
-                throw new IllegalArgumentException("Cannot set DataSource name as null or empty string");
-            }
-            CONTEXT_HOLDER.set(dataSourceName);
-        }
+        // ThreadLocal本身就是线程私有的，不需要加锁
+        checkDataSourceName(dataSourceName);
+        CONTEXT_HOLDER.get().current = dataSourceName;
     }
 
     /**
@@ -34,13 +39,136 @@ public class DataSourceContextHolder {
      * @return 数据源名称，当返回的数据源名称为null或者空字符串时代表正在使用默认数据源（你在配置中的第一个数据源）
      */
     public static String getDataSourceName() {
-        return CONTEXT_HOLDER.get();
+        return CONTEXT_HOLDER.get().current;
     }
 
     /**
      * 将当前数据源置为默认值，一般来说默认的数据源是你在配置中所配置的第一个数据源。
      */
     public static void setDataSourceToDefault() {
-        CONTEXT_HOLDER.remove();
+        CONTEXT_HOLDER.get().current = null;
+    }
+
+    /**
+     * 当前线程中的操作是否是只读的。
+     * <p>只读的操作会被路由到数据源的只读副本上（若配置了只读副本，且当前不在一个读写事务中）。</p>
+     *
+     * @return 只读则返回true
+     */
+    public static boolean isReadOnly() {
+        return CONTEXT_HOLDER.get().readOnly;
+    }
+
+    /**
+     * 设定当前线程中的操作是否是只读的。
+     * <p>若当前处于某个{@code @UseDataSource}方法中，那么这个修改只在该方法退出之前有效。</p>
+     *
+     * @param readOnly 是否只读
+     */
+    public static void setReadOnly(boolean readOnly) {
+        CONTEXT_HOLDER.get().readOnly = readOnly;
+    }
+
+    /**
+     * 进入一个新的路由作用域并切换到指定的数据源。
+     * <p>必须与{@link #popDataSourceName(int)}成对使用，推荐的写法是：</p>
+     * <pre>
+     * int depth = DataSourceContextHolder.pushDataSourceName("dataSource_DS1");
+     * try {
+     *     // 业务逻辑
+     * } finally {
+     *     DataSourceContextHolder.popDataSourceName(depth);
+     * }
+     * </pre>
+     *
+     * @param dataSourceName 数据源名称，不能为null或者空字符串
+     * @return 压栈之前的栈深度，需要在出栈时传入
+     */
+    public static int pushDataSourceName(String dataSourceName) {
+        return pushDataSourceName(dataSourceName, false);
+    }
+
+    /**
+     * 进入一个新的路由作用域并切换到指定的数据源，同时指定这个作用域中的操作是否是只读的。
+     *
+     * @param dataSourceName 数据源名称，不能为null或者空字符串
+     * @param readOnly       是否只读
+     * @return 压栈之前的栈深度，需要在出栈时传入
+     * @see #pushDataSourceName(String)
+     */
+    public static int pushDataSourceName(String dataSourceName, boolean readOnly) {
+        checkDataSourceName(dataSourceName);
+        return CONTEXT_HOLDER.get().push(dataSourceName, readOnly);
+    }
+
+    /**
+     * 退出路由作用域，将数据源恢复为对应的{@link #pushDataSourceName(String)}调用之前的值。
+     * <p>若中间有未正确退出的作用域，它们也会被一并退出。若对应的作用域已经被退出，那么只记录一条警告日志，不会抛出异常。</p>
+     *
+     * @param depth {@link #pushDataSourceName(String)}的返回值
+     */
+    public static void popDataSourceName(int depth) {
+        CONTEXT_HOLDER.get().pop(depth);
+    }
+
+    /**
+     * 获得当前线程的路由作用域深度。
+     *
+     * @return 深度，0代表当前不在任何{@code @UseDataSource}方法中
+     */
+    public static int getDepth() {
+        return CONTEXT_HOLDER.get().depth;
+    }
+
+    private static void checkDataSourceName(String dataSourceName) {
+        if (dataSourceName == null || "".equals(dataSourceName.trim())) {
+            throw new IllegalArgumentException("Cannot set DataSource name as null or empty string");
+        }
+    }
+
+    /**
+     * 线程私有的路由上下文，它只会在每个线程中创建一次。
+     */
+    private static final class RoutingContext {
+
+        private static final int INITIAL_CAPACITY = 16;
+
+        private String current;
+        private boolean readOnly;
+        private String[] frames = new String[INITIAL_CAPACITY];
+        private boolean[] readOnlyFrames = new boolean[INITIAL_CAPACITY];
+        private int depth;
+
+        int push(String dataSourceName, boolean readOnly) {
+            int previousDepth = depth;
+            if (depth == frames.length) {
+                // 嵌套极深时才会扩容，正常情况下不会走到这里
+                String[] expanded = new String[frames.length << 1];
+                System.arraycopy(frames, 0, expanded, 0, frames.length);
+                frames = expanded;
+                boolean[] expandedReadOnly = new boolean[readOnlyFrames.length << 1];
+                System.arraycopy(readOnlyFrames, 0, expandedReadOnly, 0, readOnlyFrames.length);
+                readOnlyFrames = expandedReadOnly;
+            }
+            readOnlyFrames[depth] = this.readOnly;
+            frames[depth++] = current;
+            current = dataSourceName;
+            this.readOnly = readOnly;
+            return previousDepth;
+        }
+
+        void pop(int targetDepth) {
+            // 出栈发生在切面的finally块中，这里抛出异常会掩盖业务方法本身的异常，因此只记录日志
+            if (targetDepth < 0 || targetDepth >= depth) {
+                // 对应的作用域已经被退出（例如被外层作用域一并退出），没有可以恢复的帧，保持当前状态
+                LOG.warn("!!! Unbalanced datasource routing scope, current depth is " + depth + " but trying to restore to " + targetDepth + ", ignored");
+                return;
+            }
+            current = frames[targetDepth];
+            readOnly = readOnlyFrames[targetDepth];
+            while (depth > targetDepth) {
+                frames[--depth] = null;
+            }
+        }
     }
 }
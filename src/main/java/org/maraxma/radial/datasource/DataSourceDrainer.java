@@ -0,0 +1,83 @@
+package org.maraxma.radial.datasource;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.maraxma.radial.util.DataSourcePoolUtils;
+
+/**
+ * 数据源排空器，负责关闭已经不再被路由到的连接池。
+ * <p>被排空的连接池不会立即关闭，排空器在后台周期性地检查它的活动连接数（已经被借出的连接数），
+ * 直到所有借出的连接都被归还，或者到达排空的截止时间时才关闭它，这样正在进行中的查询和事务不会被打断。</p>
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+public class DataSourceDrainer {
+
+    private static final Log LOG = LogFactory.getLog(DataSourceDrainer.class);
+
+    private static final long POLL_INTERVAL_MILLIS = 100L;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "radial-datasource-drainer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 排空并关闭一个数据源。
+     *
+     * @param name          数据源名称，仅用于日志
+     * @param dataSource    数据源，不是{@link AutoCloseable}的数据源只会被等待而不会被关闭
+     * @param timeoutMillis 排空的超时时间（毫秒），超时后无论是否还有借出的连接都会关闭连接池，小于1时立即关闭
+     * @return 在连接池被关闭后完成的Future
+     */
+    public CompletableFuture<Void> drain(String name, DataSource dataSource, long timeoutMillis) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0L, timeoutMillis));
+        if (scheduler.isShutdown()) {
+            poll(name, dataSource, deadline, future);
+        } else {
+            scheduler.execute(() -> poll(name, dataSource, deadline, future));
+        }
+        return future;
+    }
+
+    private void poll(String name, DataSource dataSource, long deadline, CompletableFuture<Void> future) {
+        int active = DataSourcePoolUtils.getActiveConnections(dataSource);
+        // 排空器停止后不再等待，直接关闭
+        if (active > 0 && deadline - System.nanoTime() > 0 && !scheduler.isShutdown()) {
+            scheduler.schedule(() -> poll(name, dataSource, deadline, future), POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+            return;
+        }
+        if (active > 0) {
+            LOG.warn("!!! Drain timeout of datasource [" + name + "] is reached, closing it with " + active + " connection(s) still in use");
+        }
+        try {
+            if (dataSource instanceof AutoCloseable) {
+                ((AutoCloseable) dataSource).close();
+            }
+            LOG.info("Drained and closed datasource: " + name);
+            future.complete(null);
+        } catch (Exception e) {
+            LOG.warn("!!! Failed to close drained datasource [" + name + "]", e);
+            future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * 停止排空器，尚未关闭的连接池会被立即关闭。
+     */
+    void shutdown() {
+        for (Runnable pending : scheduler.shutdownNow()) {
+            pending.run();
+        }
+    }
+}
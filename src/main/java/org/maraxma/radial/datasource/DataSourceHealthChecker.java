@@ -0,0 +1,239 @@
+package org.maraxma.radial.datasource;
+
+import java.sql.Connection;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * 数据源健康检查器。
+ * <p>检查器在后台周期性地从每个数据源（包括只读副本）中获取一个连接并校验它，连续失败达到阈值的数据源会被剔除出路由，
+ * 发往它的请求会被转移到它的其他只读副本、它的主数据源或者为它配置的后备数据源上，直到它连续通过检查达到阈值后再重新加入路由。
+ * 这样一个已经宕机的数据库就不会让每个请求都阻塞到连接池的connection-timeout。</p>
+ * <p>每个数据源的检查在独立的线程中执行，一个数据源的检查被阻塞不会影响其他数据源的检查；上一次检查还没有结束时不会开始新的检查。
+ * 若一个数据源没有任何可以转移的目标，那么即便它被剔除，请求仍然会发往它。</p>
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+public class DataSourceHealthChecker {
+
+    private static final Log LOG = LogFactory.getLog(DataSourceHealthChecker.class);
+
+    private static final int MAX_EVENTS = 64;
+
+    private final long intervalMillis;
+    private final int validationTimeoutSeconds;
+    private final int unhealthyThreshold;
+    private final int healthyThreshold;
+
+    private final ConcurrentMap<String, MemberStatus> statuses = new ConcurrentHashMap<>();
+    private final AtomicReferenceArray<String> events = new AtomicReferenceArray<>(MAX_EVENTS);
+    private final AtomicLong eventSequence = new AtomicLong();
+    private final AtomicBoolean started = new AtomicBoolean();
+
+    private volatile ScheduledExecutorService scheduler;
+    private volatile ExecutorService workers;
+
+    /**
+     * 创建健康检查器。
+     *
+     * @param intervalMillis          两次检查之间的间隔（毫秒）
+     * @param validationTimeoutMillis 校验连接的超时时间（毫秒），会被向上取整到秒
+     * @param unhealthyThreshold      连续失败多少次后剔除
+     * @param healthyThreshold        被剔除后连续成功多少次后恢复
+     */
+    public DataSourceHealthChecker(long intervalMillis, long validationTimeoutMillis, int unhealthyThreshold, int healthyThreshold) {
+        if (intervalMillis <= 0 || unhealthyThreshold <= 0 || healthyThreshold <= 0) {
+            throw new IllegalArgumentException("Health check interval and thresholds must be positive");
+        }
+        this.intervalMillis = intervalMillis;
+        this.validationTimeoutSeconds = (int) Math.max(1L, TimeUnit.MILLISECONDS.toSeconds(validationTimeoutMillis + 999L));
+        this.unhealthyThreshold = unhealthyThreshold;
+        this.healthyThreshold = healthyThreshold;
+    }
+
+    /**
+     * 开始检查。重复调用不会产生任何效果。
+     *
+     * @param owner 所属的可切换数据源，每次检查时都会读取它最新的注册表
+     */
+    void start(AbstractSwitchableDataSource owner) {
+        if (!started.compareAndSet(false, true)) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(daemonThreadFactory("radial-health-scheduler"));
+        workers = Executors.newCachedThreadPool(daemonThreadFactory("radial-health-check"));
+        scheduler.scheduleWithFixedDelay(() -> checkAll(owner), intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        LOG.info("DataSource health checker started, interval: " + intervalMillis + "ms, unhealthy threshold: " + unhealthyThreshold + ", healthy threshold: " + healthyThreshold);
+    }
+
+    /**
+     * 停止检查。
+     */
+    void stop() {
+        if (!started.compareAndSet(true, false)) {
+            return;
+        }
+        scheduler.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    /**
+     * 丢弃指定数据源的健康状态，它们会在下一次检查时重新开始计算。
+     *
+     * @param names 数据源名称
+     */
+    void forget(Collection<String> names) {
+        names.forEach(statuses::remove);
+    }
+
+    private void checkAll(AbstractSwitchableDataSource owner) {
+        DataSourceRegistry registry = owner.registry();
+        if (registry == null) {
+            return;
+        }
+        for (int i = 0; i < registry.size(); i++) {
+            MemberStatus status = statuses.computeIfAbsent(registry.nameOf(i), k -> new MemberStatus());
+            if (status.checking.compareAndSet(false, true)) {
+                int index = i;
+                try {
+                    workers.execute(() -> check(registry, index, status));
+                } catch (RuntimeException e) {
+                    status.checking.set(false);
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private void check(DataSourceRegistry registry, int index, MemberStatus status) {
+        String name = registry.nameOf(index);
+        DataSource dataSource = registry.get(index);
+        LazyDataSource lazy = dataSource instanceof LazyDataSource ? (LazyDataSource) dataSource : null;
+        if (lazy != null) {
+            // 不为了检查而创建延迟创建的连接池，也不让检查刷新它的最近使用时间
+            dataSource = lazy.getTarget();
+            if (dataSource == null) {
+                status.checking.set(false);
+                return;
+            }
+        }
+        long start = System.nanoTime();
+        String error = null;
+        try (Connection connection = dataSource.getConnection()) {
+            if (!connection.isValid(validationTimeoutSeconds)) {
+                error = "Connection is not valid";
+            }
+        } catch (Throwable e) {
+            error = e.getClass().getName() + ": " + e.getMessage();
+        }
+        if (error != null && lazy != null && lazy.getTarget() != dataSource) {
+            // 连接池在检查期间因为空闲被关闭了，这次失败不代表数据库不健康
+            status.checking.set(false);
+            return;
+        }
+        try {
+            status.lastCheckTime = System.currentTimeMillis();
+            status.lastCheckCostsMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            status.lastError = error;
+            if (error == null) {
+                status.consecutiveFailures = 0;
+                status.consecutiveSuccesses++;
+                if (status.ejected && status.consecutiveSuccesses >= healthyThreshold) {
+                    status.ejected = false;
+                    event(name, "RECOVERED", null);
+                    LOG.info("DataSource [" + name + "] is healthy again and has been added back to routing");
+                }
+            } else {
+                status.consecutiveSuccesses = 0;
+                status.consecutiveFailures++;
+                if (!status.ejected && status.consecutiveFailures >= unhealthyThreshold) {
+                    status.ejected = true;
+                    status.ejectionCount.incrementAndGet();
+                    event(name, "EJECTED", error);
+                    LOG.warn("DataSource [" + name + "] failed " + status.consecutiveFailures + " consecutive health check(s) and has been ejected from routing: " + error);
+                }
+            }
+            // 注册表可能已经被重建过，每次检查都同步一次剔除状态
+            registry.setEjected(index, status.ejected);
+        } finally {
+            status.checking.set(false);
+        }
+    }
+
+    private void event(String name, String type, String detail) {
+        String time = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS").format(new Date());
+        String event = time + " " + type + " " + name + (detail == null ? "" : " (" + detail + ")");
+        events.set((int) (eventSequence.getAndIncrement() % MAX_EVENTS), event);
+    }
+
+    /**
+     * 获得每个数据源的健康状态。
+     *
+     * @return 名称与健康状态的映射
+     */
+    public Map<String, DataSourceHealthInfo> getHealthInfo() {
+        Map<String, DataSourceHealthInfo> info = new TreeMap<>();
+        statuses.forEach((name, status) -> info.put(name, new DataSourceHealthInfo(!status.ejected, status.consecutiveFailures,
+                status.ejectionCount.get(), status.lastCheckTime, status.lastCheckCostsMillis, status.lastError)));
+        return info;
+    }
+
+    /**
+     * 获得最近的剔除和恢复事件（最多64条），按时间先后排列。
+     *
+     * @return 事件列表
+     */
+    public List<String> getRecentEvents() {
+        long end = eventSequence.get();
+        List<String> result = new ArrayList<>(MAX_EVENTS);
+        for (long sequence = Math.max(0L, end - MAX_EVENTS); sequence < end; sequence++) {
+            String event = events.get((int) (sequence % MAX_EVENTS));
+            if (event != null) {
+                result.add(event);
+            }
+        }
+        return result;
+    }
+
+    private static ThreadFactory daemonThreadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static final class MemberStatus {
+        private final AtomicBoolean checking = new AtomicBoolean();
+        private final AtomicLong ejectionCount = new AtomicLong();
+        private volatile boolean ejected;
+        private volatile int consecutiveFailures;
+        private volatile int consecutiveSuccesses;
+        private volatile long lastCheckTime;
+        private volatile long lastCheckCostsMillis;
+        private volatile String lastError;
+    }
+}
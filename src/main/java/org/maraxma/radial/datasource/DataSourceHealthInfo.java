@@ -0,0 +1,54 @@
+package org.maraxma.radial.datasource;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * 数据源健康状态信息。
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+public class DataSourceHealthInfo {
+    private final boolean healthy;
+    private final int consecutiveFailures;
+    private final long ejectionCount;
+    private final long lastCheckTime;
+    private final long lastCheckCostsMillis;
+    private final String lastError;
+
+    @ConstructorProperties({"healthy", "consecutiveFailures", "ejectionCount", "lastCheckTime", "lastCheckCostsMillis", "lastError"})
+    public DataSourceHealthInfo(boolean healthy, int consecutiveFailures, long ejectionCount, long lastCheckTime, long lastCheckCostsMillis, String lastError) {
+        super();
+        this.healthy = healthy;
+        this.consecutiveFailures = consecutiveFailures;
+        this.ejectionCount = ejectionCount;
+        this.lastCheckTime = lastCheckTime;
+        this.lastCheckCostsMillis = lastCheckCostsMillis;
+        this.lastError = lastError;
+    }
+
+    public boolean isHealthy() {
+        return healthy;
+    }
+
+    public int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    public long getEjectionCount() {
+        return ejectionCount;
+    }
+
+    public long getLastCheckTime() {
+        return lastCheckTime;
+    }
+
+    public long getLastCheckCostsMillis() {
+        return lastCheckCostsMillis;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+}
@@ -0,0 +1,394 @@
+package org.maraxma.radial.datasource;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import javax.sql.DataSource;
+
+import org.maraxma.radial.balancer.DataSourceBalancer;
+import org.maraxma.radial.resilience.Bulkhead;
+import org.maraxma.radial.resilience.BulkheadConfig;
+import org.maraxma.radial.resilience.CircuitBreaker;
+import org.maraxma.radial.resilience.CircuitBreakerConfig;
+import org.maraxma.radial.util.AopTargetUtils;
+
+/**
+ * 数据源注册表（除只读副本的均衡器、成员的剔除状态、熔断器和隔离舱外不可变）。
+ * <p>注册表在{@link AbstractSwitchableDataSource#afterPropertiesSet()}中一次性构建，它为每个数据源分配一个从0开始的连续编号，
+ * 并使用数组保存编号到数据源、编号到名称的映射，使用HashMap和IdentityHashMap保存名称到编号、实例到编号的映射。
+ * 构建完成后的所有查询都是常数时间的，并且不会产生任何新的对象。</p>
+ * <p>数据源实例到编号的映射会同时登记数据源本身和它被AOP代理时的原始对象，因此无论传入的是代理对象还是原始对象都能找到对应的编号，
+ * 不再需要在每次查询时通过反射去解开代理。</p>
+ * <p>注册表中的成员分为两类：可以通过名称路由的主数据源（编号为0到{@link #primaryCount()} - 1），以及挂在主数据源下面的只读副本（编号排在所有主数据源之后）。
+ * 只读副本不能直接通过名称路由，它们的名称形如"dataSource_DS1#replica-1"，仅用于监控和日志。
+ * 每个主数据源的只读副本组拥有一个{@link DataSourceBalancer}，由它决定只读的操作使用哪一个副本。</p>
+ * <p>被{@link DataSourceHealthChecker}剔除的成员和熔断器处于打开状态的成员不会被路由到，发往它的请求会通过{@link #failover(int)}转移到其他成员上。</p>
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+final class DataSourceRegistry {
+
+    static final int NOT_FOUND = -1;
+
+    /**
+     * 只读副本名称中主数据源名称和副本序号之间的分隔符。
+     */
+    static final String REPLICA_SEPARATOR = "#replica-";
+
+    private static final int[] NO_REPLICAS = new int[0];
+
+    private final int primaryCount;
+    private final Object[] keys;
+    private final String[] names;
+    private final DataSource[] dataSources;
+    private final int[] primaryIndexes;
+    private final int[][] replicaIndexes;
+    private final DataSource[][] replicaMembers;
+    private final DataSourceBalancer[] balancers;
+    private final int[] groupPositions;
+    private final int[] fallbackIndexes;
+    private final AtomicIntegerArray ejected;
+    private final CircuitBreaker[] circuitBreakers;
+    private final Bulkhead[] bulkheads;
+    private final Map<Object, Integer> keyIndexes;
+    private final Map<Object, Integer> identityIndexes;
+    private final int defaultIndex;
+    private final DataSource defaultDataSource;
+    private final Map<String, DataSource> allDataSources;
+    private final Map<String, DataSource> allMembers;
+    private final Set<String> allNames;
+
+    DataSourceRegistry(Map<Object, DataSource> resolvedDataSources, Map<Object, List<DataSource>> resolvedReplicaDataSources,
+                       Map<Object, DataSourceBalancer> replicaBalancers, Map<Object, Object> fallbacks,
+                       Map<Object, CircuitBreakerConfig> circuitBreakerConfigs, Map<Object, BulkheadConfig> bulkheadConfigs,
+                       DataSource defaultDataSource) {
+        this.primaryCount = resolvedDataSources.size();
+        int size = primaryCount;
+        for (Map.Entry<Object, DataSource> en : resolvedDataSources.entrySet()) {
+            List<DataSource> replicas = resolvedReplicaDataSources.get(en.getKey());
+            size += replicas == null ? 0 : replicas.size();
+        }
+        this.keys = new Object[size];
+        this.names = new String[size];
+        this.dataSources = new DataSource[size];
+        this.primaryIndexes = new int[size];
+        this.replicaIndexes = new int[primaryCount][];
+        this.replicaMembers = new DataSource[primaryCount][];
+        this.balancers = new DataSourceBalancer[primaryCount];
+        this.groupPositions = new int[size];
+        this.keyIndexes = new HashMap<>(primaryCount * 2);
+        this.identityIndexes = new IdentityHashMap<>(size * 2);
+        Map<String, DataSource> all = new LinkedHashMap<>(primaryCount * 2);
+        Map<String, DataSource> members = new LinkedHashMap<>(size * 2);
+        int index = 0;
+        for (Map.Entry<Object, DataSource> en : resolvedDataSources.entrySet()) {
+            String name = String.valueOf(en.getKey());
+            register(index, en.getKey(), name, en.getValue(), index);
+            keyIndexes.put(en.getKey(), index);
+            keyIndexes.putIfAbsent(name, index);
+            all.put(name, en.getValue());
+            members.put(name, en.getValue());
+            index++;
+        }
+        int replicaIndex = primaryCount;
+        for (int primary = 0; primary < primaryCount; primary++) {
+            List<DataSource> replicas = resolvedReplicaDataSources.get(keys[primary]);
+            if (replicas == null || replicas.isEmpty()) {
+                replicaIndexes[primary] = NO_REPLICAS;
+                replicaMembers[primary] = new DataSource[0];
+                continue;
+            }
+            int[] group = new int[replicas.size()];
+            for (int i = 0; i < replicas.size(); i++) {
+                String name = names[primary] + REPLICA_SEPARATOR + (i + 1);
+                register(replicaIndex, name, name, replicas.get(i), primary);
+                groupPositions[replicaIndex] = i;
+                members.put(name, replicas.get(i));
+                group[i] = replicaIndex++;
+            }
+            replicaIndexes[primary] = group;
+            replicaMembers[primary] = replicas.toArray(new DataSource[0]);
+            balancers[primary] = replicaBalancers.get(keys[primary]);
+            if (balancers[primary] == null) {
+                throw new IllegalArgumentException("No balancer is provided for the replicas of DataSource [" + names[primary] + "]");
+            }
+        }
+        this.fallbackIndexes = new int[primaryCount];
+        for (int primary = 0; primary < primaryCount; primary++) {
+            Object fallbackKey = fallbacks.get(keys[primary]);
+            fallbackIndexes[primary] = fallbackKey == null ? NOT_FOUND : indexOf(fallbackKey);
+            if (fallbackKey != null && (fallbackIndexes[primary] == NOT_FOUND || fallbackIndexes[primary] == primary)) {
+                throw new IllegalArgumentException("Illegal fallback DataSource [" + fallbackKey + "] for DataSource [" + names[primary] + "]");
+            }
+        }
+        this.ejected = new AtomicIntegerArray(size);
+        // 只读副本使用主数据源的熔断器和隔离舱配置，但是每个成员拥有自己独立的熔断器和隔离舱
+        this.circuitBreakers = new CircuitBreaker[size];
+        this.bulkheads = new Bulkhead[size];
+        for (int i = 0; i < size; i++) {
+            CircuitBreakerConfig circuitBreakerConfig = circuitBreakerConfigs.get(keys[primaryIndexes[i]]);
+            circuitBreakers[i] = circuitBreakerConfig == null ? null : new CircuitBreaker(names[i], circuitBreakerConfig);
+            BulkheadConfig bulkheadConfig = bulkheadConfigs.get(keys[primaryIndexes[i]]);
+            bulkheads[i] = bulkheadConfig == null ? null : new Bulkhead(names[i], bulkheadConfig);
+        }
+        this.allDataSources = Collections.unmodifiableMap(all);
+        this.allMembers = Collections.unmodifiableMap(members);
+        this.allNames = Collections.unmodifiableSet(new LinkedHashSet<>(all.keySet()));
+        this.defaultIndex = defaultDataSource == null ? NOT_FOUND : primaryIndexOf(indexOfDataSource(defaultDataSource));
+        // 默认数据源若也在备选集合中，则统一使用备选集合中的那个实例（它可能被代理过）
+        this.defaultDataSource = defaultIndex == NOT_FOUND ? defaultDataSource : dataSources[defaultIndex];
+    }
+
+    /**
+     * 从旧的注册表中继承仍然存在的成员的运行时状态，重新加载时在发布新的注册表之前调用。
+     * <p>同一个成员指的是名称相同、并且解开代理之后是同一个数据源对象的成员。它的剔除状态总是被继承；
+     * 熔断器和隔离舱在配置没有变化时沿用旧的实例（包括打开的熔断器和正在占用的许可）。</p>
+     *
+     * @param previous 旧的注册表
+     */
+    void inheritStateFrom(DataSourceRegistry previous) {
+        for (int i = 0; i < dataSources.length; i++) {
+            int index = previous.indexOfDataSource(AopTargetUtils.getTarget(dataSources[i]));
+            if (index == NOT_FOUND || !names[i].equals(previous.names[index])) {
+                continue;
+            }
+            ejected.set(i, previous.ejected.get(index));
+            CircuitBreaker circuitBreaker = previous.circuitBreakers[index];
+            if (circuitBreakers[i] != null && circuitBreaker != null && circuitBreakers[i].getConfig().equals(circuitBreaker.getConfig())) {
+                circuitBreakers[i] = circuitBreaker;
+            }
+            Bulkhead bulkhead = previous.bulkheads[index];
+            if (bulkheads[i] != null && bulkhead != null && bulkheads[i].getConfig().equals(bulkhead.getConfig())) {
+                bulkheads[i] = bulkhead;
+            }
+        }
+    }
+
+    private void register(int index, Object key, String name, DataSource dataSource, int primaryIndex) {
+        keys[index] = key;
+        names[index] = name;
+        dataSources[index] = dataSource;
+        primaryIndexes[index] = primaryIndex;
+        identityIndexes.putIfAbsent(dataSource, index);
+        identityIndexes.putIfAbsent(AopTargetUtils.getTarget(dataSource), index);
+    }
+
+    private int primaryIndexOf(int index) {
+        return index == NOT_FOUND ? NOT_FOUND : primaryIndexes[index];
+    }
+
+    /**
+     * 所有成员（主数据源和只读副本）的数量。
+     *
+     * @return 数量
+     */
+    int size() {
+        return dataSources.length;
+    }
+
+    /**
+     * 主数据源的数量。
+     *
+     * @return 数量
+     */
+    int primaryCount() {
+        return primaryCount;
+    }
+
+    /**
+     * 根据查找键获得主数据源编号。
+     *
+     * @param key 查找键（一般是数据源名称）
+     * @return 编号，若找不到则返回{@link #NOT_FOUND}
+     */
+    int indexOf(Object key) {
+        Integer index = keyIndexes.get(key);
+        return index == null ? NOT_FOUND : index;
+    }
+
+    /**
+     * 根据数据源实例（代理对象或者原始对象）获得成员编号。
+     *
+     * @param dataSource 数据源
+     * @return 编号，若找不到则返回{@link #NOT_FOUND}
+     */
+    int indexOfDataSource(Object dataSource) {
+        Integer index = identityIndexes.get(dataSource);
+        return index == null ? NOT_FOUND : index;
+    }
+
+    DataSource get(int index) {
+        return dataSources[index];
+    }
+
+    String nameOf(int index) {
+        return names[index];
+    }
+
+    Object keyOf(int index) {
+        return keys[index];
+    }
+
+    /**
+     * 获得成员所属的主数据源编号，主数据源返回它自己的编号。
+     *
+     * @param index 成员编号
+     * @return 主数据源编号
+     */
+    int primaryOf(int index) {
+        return primaryIndexes[index];
+    }
+
+    /**
+     * 获得主数据源的只读副本编号。
+     *
+     * @param primaryIndex 主数据源编号
+     * @return 只读副本编号数组，没有只读副本时返回空数组（请不要修改它）
+     */
+    int[] replicasOf(int primaryIndex) {
+        return replicaIndexes[primaryIndex];
+    }
+
+    /**
+     * 通过均衡器选择主数据源的一个只读副本。
+     *
+     * @param primaryIndex 主数据源编号，它必须拥有至少一个只读副本
+     * @return 只读副本的成员编号
+     */
+    int nextReplica(int primaryIndex) {
+        int index = replicaIndexes[primaryIndex][balancers[primaryIndex].select(replicaMembers[primaryIndex])];
+        return isAvailable(index) ? index : failover(index);
+    }
+
+    /**
+     * 成员是否可以被路由（没有被剔除）。
+     *
+     * @param index 成员编号，可以为{@link #NOT_FOUND}
+     * @return 可以被路由则返回true
+     */
+    boolean isAvailable(int index) {
+        return index == NOT_FOUND || (ejected.get(index) == 0 && (circuitBreakers[index] == null || !circuitBreakers[index].isRejecting()));
+    }
+
+    /**
+     * 获得成员的熔断器。
+     *
+     * @param index 成员编号，可以为{@link #NOT_FOUND}
+     * @return 熔断器，没有配置熔断器时返回null
+     */
+    CircuitBreaker circuitBreakerOf(int index) {
+        return index == NOT_FOUND ? null : circuitBreakers[index];
+    }
+
+    /**
+     * 获得成员的隔离舱。
+     *
+     * @param index 成员编号，可以为{@link #NOT_FOUND}
+     * @return 隔离舱，没有配置隔离舱时返回null
+     */
+    Bulkhead bulkheadOf(int index) {
+        return index == NOT_FOUND ? null : bulkheads[index];
+    }
+
+    void setEjected(int index, boolean ejected) {
+        this.ejected.set(index, ejected ? 1 : 0);
+    }
+
+    /**
+     * 为一个被剔除的成员寻找替代者。
+     * <p>只读副本依次尝试同组的其他只读副本和它的主数据源；主数据源尝试为它配置的后备数据源。</p>
+     *
+     * @param index 被剔除的成员编号
+     * @return 替代者的编号，若找不到可用的替代者则返回原编号
+     */
+    int failover(int index) {
+        int primary = primaryIndexes[index];
+        if (index != primary) {
+            for (int replica : replicaIndexes[primary]) {
+                if (replica != index && isAvailable(replica)) {
+                    return replica;
+                }
+            }
+            if (isAvailable(primary)) {
+                return primary;
+            }
+            return index;
+        }
+        int fallback = fallbackIndexes[primary];
+        if (fallback != NOT_FOUND && isAvailable(fallback)) {
+            return fallback;
+        }
+        return index;
+    }
+
+    /**
+     * 记录一次成功的连接获取，只读副本的均衡器可能会以此调整后续的选择。
+     *
+     * @param index        成员编号，可以为{@link #NOT_FOUND}
+     * @param elapsedNanos 获取连接所花费的时间（纳秒）
+     */
+    void onAcquired(int index, long elapsedNanos) {
+        if (index >= primaryCount) {
+            balancers[primaryIndexes[index]].onAcquired(groupPositions[index], elapsedNanos);
+        }
+    }
+
+    /**
+     * 记录一次失败的连接获取。
+     *
+     * @param index        成员编号，可以为{@link #NOT_FOUND}
+     * @param elapsedNanos 失败之前所花费的时间（纳秒）
+     */
+    void onFailed(int index, long elapsedNanos) {
+        if (index >= primaryCount) {
+            balancers[primaryIndexes[index]].onFailed(groupPositions[index], elapsedNanos);
+        }
+    }
+
+    /**
+     * 获得默认数据源的编号。
+     *
+     * @return 编号，若默认数据源不在备选集合中或者没有设置默认数据源则返回{@link #NOT_FOUND}
+     */
+    int defaultIndex() {
+        return defaultIndex;
+    }
+
+    DataSource defaultDataSource() {
+        return defaultDataSource;
+    }
+
+    String defaultName() {
+        return defaultIndex == NOT_FOUND ? null : names[defaultIndex];
+    }
+
+    /**
+     * 获得所有可以路由的主数据源。
+     *
+     * @return 名称与数据源的映射（不可变）
+     */
+    Map<String, DataSource> allDataSources() {
+        return allDataSources;
+    }
+
+    /**
+     * 获得所有的成员（包括只读副本）。
+     *
+     * @return 名称与数据源的映射（不可变）
+     */
+    Map<String, DataSource> allMembers() {
+        return allMembers;
+    }
+
+    Set<String> allNames() {
+        return allNames;
+    }
+}
@@ -0,0 +1,154 @@
+package org.maraxma.radial.datasource;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.maraxma.radial.util.AopTargetUtils;
+import org.maraxma.radial.util.DataSourcePoolUtils;
+
+/**
+ * 数据源关闭协调器，负责在应用关闭时优雅地关闭所有的连接池。
+ * <p>关闭分为三步：</p>
+ * <ol>
+ * <li>停止路由新的借用：不在事务中的线程获取连接时会被立即拒绝（抛出{@link org.maraxma.radial.exception.DataSourceUnavailableException}），
+ * 事务中的线程（包括事务被挂起的线程）仍然可以获取连接，以便完成它们的事务；</li>
+ * <li>等待所有的在途事务（{@link InFlightTransactionTracker}）结束；</li>
+ * <li>并行地关闭所有的连接池，每个连接池在它借出的连接全部归还之后立即关闭。</li>
+ * </ol>
+ * <p>整个过程共用一个截止时间，到达截止时间后无论是否还有在途事务或者借出的连接，所有的连接池都会被关闭。
+ * 因此关闭耗时取决于最慢的事务和连接池，而不是所有连接池的关闭耗时之和。</p>
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+public class DataSourceShutdownCoordinator {
+
+    private static final Log LOG = LogFactory.getLog(DataSourceShutdownCoordinator.class);
+
+    private static final long POLL_INTERVAL_MILLIS = 50L;
+
+    private static final int MAX_THREADS = 64;
+
+    private final long timeoutMillis;
+
+    private volatile boolean closing;
+
+    /**
+     * 创建数据源关闭协调器。
+     *
+     * @param timeoutMillis 关闭的截止时间（毫秒），小于1时不等待在途事务和借出的连接
+     */
+    public DataSourceShutdownCoordinator(long timeoutMillis) {
+        this.timeoutMillis = Math.max(0L, timeoutMillis);
+    }
+
+    /**
+     * 是否已经开始关闭。
+     *
+     * @return 已经开始关闭则返回true
+     */
+    public boolean isClosing() {
+        return closing;
+    }
+
+    /**
+     * 关闭所有的数据源，直到全部关闭或者到达截止时间。
+     *
+     * @param members 数据源名称与数据源的映射，同一个连接池（解开代理之后是同一个对象）只会被关闭一次
+     * @param tracker 在途事务跟踪器，为null时不等待事务
+     */
+    void shutdown(Map<String, DataSource> members, InFlightTransactionTracker tracker) {
+        closing = true;
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        if (tracker != null) {
+            int inFlight = tracker.getInFlightCount();
+            if (inFlight > 0) {
+                LOG.info("Waiting for " + inFlight + " in-flight transaction(s) to complete before closing datasources");
+            }
+            while ((inFlight = tracker.getInFlightCount()) > 0 && deadline - System.nanoTime() > 0) {
+                if (!sleep()) {
+                    break;
+                }
+            }
+            if (inFlight > 0) {
+                LOG.warn("!!! Shutdown timeout is reached, closing datasources with " + inFlight + " in-flight transaction(s)");
+            }
+        }
+        // 同一个连接池可能以多个名称或者以代理对象和原始对象两种形式出现（例如默认数据源），只关闭一次
+        Map<Object, Boolean> targets = new IdentityHashMap<>();
+        Map<DataSource, String> distinct = new IdentityHashMap<>();
+        members.forEach((name, dataSource) -> {
+            if (targets.put(AopTargetUtils.getTarget(dataSource), Boolean.TRUE) == null) {
+                distinct.put(dataSource, name);
+            }
+        });
+        if (distinct.isEmpty()) {
+            return;
+        }
+        AtomicInteger threadIndex = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(distinct.size(), MAX_THREADS), r -> {
+            Thread thread = new Thread(r, "radial-shutdown-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<CompletableFuture<Void>> futures = new ArrayList<>(distinct.size());
+            distinct.forEach((dataSource, name) -> futures.add(CompletableFuture.runAsync(() -> close(name, dataSource, deadline), executor)));
+            try {
+                // 截止时间之后的关闭本身也需要一点时间，这里额外多等一个轮询间隔
+                long remaining = Math.max(0L, deadline - System.nanoTime()) + TimeUnit.MILLISECONDS.toNanos(POLL_INTERVAL_MILLIS);
+                CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(remaining, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException | TimeoutException e) {
+                LOG.warn("!!! Not all datasources are closed in time: " + e.getMessage());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        LOG.info("Closed " + distinct.size() + " datasource(s) in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms");
+    }
+
+    private void close(String name, DataSource dataSource, long deadline) {
+        int active;
+        while ((active = DataSourcePoolUtils.getActiveConnections(dataSource)) > 0 && deadline - System.nanoTime() > 0) {
+            if (!sleep()) {
+                break;
+            }
+        }
+        if (active > 0) {
+            LOG.warn("!!! Closing datasource [" + name + "] with " + active + " connection(s) still in use");
+        }
+        if (dataSource instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) dataSource).close();
+            } catch (Exception e) {
+                LOG.warn("!!! Failed to close datasource [" + name + "]", e);
+            }
+        }
+    }
+
+    private static boolean sleep() {
+        try {
+            Thread.sleep(POLL_INTERVAL_MILLIS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.maraxma.radial.datasource;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * 数据源启动信息。
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+public class DataSourceStartupInfo {
+    private final long warmUpMillis;
+    private final long readyMillis;
+    private final boolean ready;
+    private final int connections;
+    private final String error;
+
+    @ConstructorProperties({"warmUpMillis", "readyMillis", "ready", "connections", "error"})
+    public DataSourceStartupInfo(long warmUpMillis, long readyMillis, boolean ready, int connections, String error) {
+        this.warmUpMillis = warmUpMillis;
+        this.readyMillis = readyMillis;
+        this.ready = ready;
+        this.connections = connections;
+        this.error = error;
+    }
+
+    /**
+     * 获得预热（获取到第一个连接）的耗时。
+     *
+     * @return 耗时（毫秒），预热失败或者没有完成时返回-1
+     */
+    public long getWarmUpMillis() {
+        return warmUpMillis;
+    }
+
+    /**
+     * 获得连接池达到minimum-idle的耗时。
+     *
+     * @return 耗时（毫秒），没有等待或者没有达到时返回-1
+     */
+    public long getReadyMillis() {
+        return readyMillis;
+    }
+
+    /**
+     * 启动完成时数据源是否已经就绪。
+     *
+     * @return 就绪则返回true
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 获得启动完成时连接池中的连接数。
+     *
+     * @return 连接数，不是受支持的连接池时返回-1
+     */
+    public int getConnections() {
+        return connections;
+    }
+
+    /**
+     * 获得预热失败的原因。
+     *
+     * @return 原因，成功时返回null
+     */
+    public String getError() {
+        return error;
+    }
+}
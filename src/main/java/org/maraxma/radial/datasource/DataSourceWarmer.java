@@ -0,0 +1,365 @@
+package org.maraxma.radial.datasource;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.maraxma.radial.util.AopTargetUtils;
+import org.maraxma.radial.util.DataSourcePoolUtils;
+
+/**
+ * 数据源预热器，它在启动时并行地预热所有的连接池。
+ * <p>HikariCP和Druid的连接池都是在第一次获取连接时才启动的，预热器在启动阶段就为每个数据源（包括只读副本）获取一次连接，
+ * 让连接池提前建立连接；多个数据源的预热是并行的（最大并发数可以配置），启动耗时取决于最慢的数据源而不是所有数据源的耗时之和。</p>
+ * <p>开启就绪门（awaitMinimumIdle）时，预热器还会等待每个连接池中的连接数达到minimum-idle。所有的等待都受同一个截止时间的限制，
+ * 超过截止时间没有就绪的数据源只会打印警告，不会阻止启动。延迟创建的数据源（{@link LazyDataSource}）不会被预热。</p>
+ * <p>每个数据源的预热耗时和就绪耗时会被打印到日志中，并且可以通过{@link SwitchableDataSourceMXBean#getStartupInfo()}查看。</p>
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+public class DataSourceWarmer {
+
+    private static final Log LOG = LogFactory.getLog(DataSourceWarmer.class);
+
+    private static final long READY_POLL_MILLIS = 50L;
+
+    private final int parallelism;
+    private final boolean awaitMinimumIdle;
+    private final long timeoutMillis;
+
+    private final ConcurrentMap<String, DataSourceStartupInfo> startupInfo = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Map<String, WarmUpStatementInfo>> statementInfo = new ConcurrentHashMap<>();
+    /* 已经执行过预热语句的连接池（解开代理之后的对象），同一个连接池的预热语句只执行一次 */
+    private final Map<Object, Boolean> statementsRun = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private Map<String, List<String>> statements = Collections.emptyMap();
+    private Map<String, List<String>> mapperStatements = Collections.emptyMap();
+    private int iterations = 1;
+
+    /**
+     * 创建数据源预热器。
+     *
+     * @param parallelism      最大并发数
+     * @param awaitMinimumIdle 是否等待连接池中的连接数达到minimum-idle
+     * @param timeoutMillis    预热（以及等待就绪）的截止时间（毫秒）
+     */
+    public DataSourceWarmer(int parallelism, boolean awaitMinimumIdle, long timeoutMillis) {
+        if (parallelism < 1 || timeoutMillis <= 0) {
+            throw new IllegalArgumentException("Warm-up parallelism and timeout must be positive");
+        }
+        this.parallelism = parallelism;
+        this.awaitMinimumIdle = awaitMinimumIdle;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * 设定预热语句。
+     * <p>SQL语句在连接池预热完成之后立即执行，每条语句执行{@code iterations}次，轮流使用连接池中的多个连接（最多minimum-idle个），
+     * 这样JIT、驱动的语句缓存以及数据库的执行计划缓存都能在接收流量之前被预热。只读副本执行它的主数据源的预热语句。
+     * Mapper语句需要在MyBatis初始化完成之后通过{@link #warmUpMappers(BiConsumer)}执行。预热语句应当是只读的。</p>
+     *
+     * @param statements       数据源名称与SQL语句的映射
+     * @param mapperStatements 数据源名称与Mapper语句ID的映射
+     * @param iterations       每条语句的执行次数
+     * @since 1.4.0
+     */
+    public void setStatements(Map<String, List<String>> statements, Map<String, List<String>> mapperStatements, int iterations) {
+        this.statements = statements == null ? Collections.emptyMap() : statements;
+        this.mapperStatements = mapperStatements == null ? Collections.emptyMap() : mapperStatements;
+        this.iterations = Math.max(1, iterations);
+    }
+
+    /**
+     * 是否配置了Mapper预热语句。
+     *
+     * @return 配置了则返回true
+     * @since 1.4.0
+     */
+    public boolean hasMapperStatements() {
+        return !mapperStatements.isEmpty();
+    }
+
+    /**
+     * 执行Mapper预热语句，多个数据源之间是并行的，直到全部完成或者到达截止时间。
+     *
+     * @param runner 执行器，参数为数据源名称和Mapper语句ID，它需要在指定的数据源上执行一次这条语句
+     * @since 1.4.0
+     */
+    public void warmUpMappers(BiConsumer<String, String> runner) {
+        if (mapperStatements.isEmpty()) {
+            return;
+        }
+        List<String> names = new ArrayList<>(mapperStatements.keySet());
+        runParallel(names, "radial-mapper-warm-up-", (name, deadline) -> {
+            for (String statement : mapperStatements.get(name)) {
+                StatementRun run = new StatementRun(statement);
+                for (int i = 0; i < iterations && System.nanoTime() - deadline < 0; i++) {
+                    long start = System.nanoTime();
+                    try {
+                        runner.accept(name, statement);
+                        run.record(System.nanoTime() - start, null);
+                    } catch (RuntimeException e) {
+                        run.record(System.nanoTime() - start, e);
+                    }
+                }
+                record(name, run);
+            }
+        });
+    }
+
+    /**
+     * 预热所有的数据源，直到全部完成或者到达截止时间。
+     *
+     * @param members 数据源名称与数据源的映射
+     */
+    void warmUp(Map<String, DataSource> members) {
+        List<String> names = new ArrayList<>();
+        List<DataSource> dataSources = new ArrayList<>();
+        members.forEach((name, dataSource) -> {
+            if (!(dataSource instanceof LazyDataSource)) {
+                names.add(name);
+                dataSources.add(dataSource);
+            }
+        });
+        if (names.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        Map<String, DataSource> byName = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            byName.put(names.get(i), dataSources.get(i));
+        }
+        runParallel(names, "radial-warm-up-", (name, deadline) -> warmUp(name, byName.get(name), deadline));
+        LOG.info("Warmed up " + names.size() + " datasource(s) in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms with parallelism " + parallelism);
+    }
+
+    private void warmUp(String name, DataSource dataSource, long deadline) {
+        long start = System.nanoTime();
+        try (Connection ignored = dataSource.getConnection()) {
+            // 获取一次连接就会启动连接池
+        } catch (Exception e) {
+            String error = e.getClass().getName() + ": " + e.getMessage();
+            startupInfo.put(name, new DataSourceStartupInfo(-1L, -1L, false, DataSourcePoolUtils.getTotalConnections(dataSource), error));
+            LOG.warn("Failed to warm up DataSource [" + name + "]: " + error);
+            return;
+        }
+        long warmUpMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        long readyMillis = -1L;
+        boolean ready = true;
+        if (awaitMinimumIdle) {
+            int minimumIdle = DataSourcePoolUtils.getMinimumIdle(dataSource);
+            ready = awaitConnections(dataSource, minimumIdle, deadline);
+            if (ready) {
+                readyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            } else {
+                LOG.warn("DataSource [" + name + "] did not reach minimum-idle (" + minimumIdle + ") before the deadline, current connections: "
+                        + DataSourcePoolUtils.getTotalConnections(dataSource));
+            }
+        }
+        int connections = DataSourcePoolUtils.getTotalConnections(dataSource);
+        startupInfo.put(name, new DataSourceStartupInfo(warmUpMillis, readyMillis, ready, connections, null));
+        LOG.info("DataSource [" + name + "] is warmed up in " + warmUpMillis + "ms" + (readyMillis >= 0 ? ", ready in " + readyMillis + "ms" : "")
+                + (connections >= 0 ? ", connections: " + connections : ""));
+        int separator = name.indexOf(DataSourceRegistry.REPLICA_SEPARATOR);
+        List<String> sqls = statements.get(separator < 0 ? name : name.substring(0, separator));
+        if (sqls != null && !sqls.isEmpty() && statementsRun.put(AopTargetUtils.getTarget(dataSource), Boolean.TRUE) == null) {
+            runStatements(name, dataSource, sqls, deadline);
+        }
+    }
+
+    private void runStatements(String name, DataSource dataSource, List<String> sqls, long deadline) {
+        // 同时借出多个连接并轮流使用，让每个连接上的语句缓存都被预热
+        int width = Math.max(1, Math.min(iterations, DataSourcePoolUtils.getMinimumIdle(dataSource)));
+        List<Connection> connections = new ArrayList<>(width);
+        try {
+            for (int i = 0; i < width; i++) {
+                try {
+                    connections.add(dataSource.getConnection());
+                } catch (SQLException e) {
+                    if (connections.isEmpty()) {
+                        LOG.warn("Cannot run warm-up statements on DataSource [" + name + "]: " + e.getMessage());
+                        return;
+                    }
+                    break;
+                }
+            }
+            for (String sql : sqls) {
+                StatementRun run = new StatementRun(sql);
+                for (int i = 0; i < iterations && System.nanoTime() - deadline < 0; i++) {
+                    long start = System.nanoTime();
+                    try {
+                        execute(connections.get(i % connections.size()), sql);
+                        run.record(System.nanoTime() - start, null);
+                    } catch (SQLException e) {
+                        run.record(System.nanoTime() - start, e);
+                    }
+                }
+                record(name, run);
+            }
+        } finally {
+            for (Connection connection : connections) {
+                try {
+                    connection.close();
+                } catch (SQLException e) {
+                    LOG.warn("Failed to close warm-up connection of DataSource [" + name + "]", e);
+                }
+            }
+        }
+    }
+
+    private static void execute(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            // 读完所有的结果，让驱动的结果解析路径也被预热
+            boolean hasResultSet = statement.execute();
+            while (hasResultSet || statement.getUpdateCount() != -1) {
+                if (hasResultSet) {
+                    try (ResultSet resultSet = statement.getResultSet()) {
+                        while (resultSet.next()) {
+                            // 只需要读取
+                        }
+                    }
+                }
+                hasResultSet = statement.getMoreResults();
+            }
+        }
+    }
+
+    private void record(String name, StatementRun run) {
+        if (run.executions == 0) {
+            return;
+        }
+        statementInfo.computeIfAbsent(name, k -> new ConcurrentHashMap<>()).put(run.statement, run.toInfo());
+        LOG.info("Warm-up statement on DataSource [" + name + "] executed " + run.executions + " time(s)" + (run.failures > 0 ? " with " + run.failures + " failure(s)" : "")
+                + ", first: " + TimeUnit.NANOSECONDS.toMillis(run.firstNanos) + "ms, last: " + TimeUnit.NANOSECONDS.toMillis(run.lastNanos) + "ms: " + run.statement);
+    }
+
+    private void runParallel(List<String> names, String threadPrefix, BiConsumer<String, Long> task) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        AtomicInteger counter = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, names.size()), r -> {
+            Thread thread = new Thread(r, threadPrefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> futures = new ArrayList<>(names.size());
+            for (String name : names) {
+                futures.add(executor.submit(() -> task.accept(name, deadline)));
+            }
+            boolean interrupted = false;
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    futures.get(i).get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    startupInfo.putIfAbsent(names.get(i), new DataSourceStartupInfo(-1L, -1L, false, -1, "Timed out after " + timeoutMillis + "ms"));
+                    LOG.warn("DataSource [" + names.get(i) + "] is not warmed up in " + timeoutMillis + "ms, startup continues without waiting for it");
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    break;
+                } catch (Exception e) {
+                    LOG.warn("Failed to warm up DataSource [" + names.get(i) + "]", e);
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        } finally {
+            // 超时的预热任务仍然在后台继续，连接池会自己完成启动
+            executor.shutdown();
+        }
+    }
+
+    private static boolean awaitConnections(DataSource dataSource, int minimumIdle, long deadline) {
+        if (minimumIdle <= 0) {
+            return true;
+        }
+        while (DataSourcePoolUtils.getTotalConnections(dataSource) < minimumIdle) {
+            if (System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            try {
+                Thread.sleep(READY_POLL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 获得每个数据源的启动信息。
+     *
+     * @return 名称与启动信息的映射
+     */
+    public Map<String, DataSourceStartupInfo> getStartupInfo() {
+        return Collections.unmodifiableMap(new TreeMap<>(startupInfo));
+    }
+
+    /**
+     * 获得每个数据源上预热语句的执行结果。
+     *
+     * @return 数据源名称 -> 语句 -> 执行结果
+     * @since 1.4.0
+     */
+    public Map<String, Map<String, WarmUpStatementInfo>> getStatementInfo() {
+        Map<String, Map<String, WarmUpStatementInfo>> info = new TreeMap<>();
+        statementInfo.forEach((name, runs) -> info.put(name, Collections.unmodifiableMap(new TreeMap<>(runs))));
+        return Collections.unmodifiableMap(info);
+    }
+
+    private static final class StatementRun {
+
+        private final String statement;
+        private int executions;
+        private int failures;
+        private long totalNanos;
+        private long firstNanos;
+        private long lastNanos;
+        private String error;
+
+        StatementRun(String statement) {
+            this.statement = statement;
+        }
+
+        void record(long elapsedNanos, Exception failure) {
+            if (executions == 0) {
+                firstNanos = elapsedNanos;
+            }
+            executions++;
+            totalNanos += elapsedNanos;
+            lastNanos = elapsedNanos;
+            if (failure != null) {
+                failures++;
+                error = failure.getClass().getName() + ": " + failure.getMessage();
+            }
+        }
+
+        WarmUpStatementInfo toInfo() {
+            return new WarmUpStatementInfo(statement, executions, failures, TimeUnit.NANOSECONDS.toMillis(totalNanos),
+                    TimeUnit.NANOSECONDS.toMillis(firstNanos), TimeUnit.NANOSECONDS.toMillis(lastNanos), error);
+        }
+    }
+}
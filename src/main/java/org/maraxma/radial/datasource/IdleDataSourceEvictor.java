@@ -0,0 +1,181 @@
+package org.maraxma.radial.datasource;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * 空闲连接池回收器，它负责关闭{@link LazyDataSource}中长时间没有使用的连接池。
+ * <p>回收器在后台周期性地检查每个登记的数据源，空闲超过它的空闲超时时间的连接池会被关闭；
+ * 对于受数量限制的数据源（例如租户数据源），同时打开的连接池超过上限时，按照最近最少使用（LRU）的顺序关闭空闲的连接池。
+ * 仍有借出的连接或者正在获取连接的连接池不会被关闭。</p>
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+public class IdleDataSourceEvictor {
+
+    private static final Log LOG = LogFactory.getLog(IdleDataSourceEvictor.class);
+
+    private final long intervalMillis;
+    private final int maxOpenPools;
+    private final List<Member> members = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean started = new AtomicBoolean();
+    private final AtomicBoolean boundCheckScheduled = new AtomicBoolean();
+
+    private volatile ScheduledExecutorService scheduler;
+
+    /**
+     * 创建空闲连接池回收器。
+     *
+     * @param intervalMillis 两次检查之间的间隔（毫秒）
+     * @param maxOpenPools   受数量限制的数据源最多同时打开的连接池数量，小于1时不限制
+     */
+    public IdleDataSourceEvictor(long intervalMillis, int maxOpenPools) {
+        if (intervalMillis <= 0) {
+            throw new IllegalArgumentException("Idle eviction interval must be positive");
+        }
+        this.intervalMillis = intervalMillis;
+        this.maxOpenPools = maxOpenPools;
+    }
+
+    /**
+     * 登记一个数据源。
+     *
+     * @param dataSource        数据源
+     * @param idleTimeoutMillis 空闲超时时间（毫秒），小于1时不因空闲而关闭
+     * @param bounded           是否受{@code maxOpenPools}的限制
+     */
+    public void register(LazyDataSource dataSource, long idleTimeoutMillis, boolean bounded) {
+        members.add(new Member(dataSource, idleTimeoutMillis, bounded));
+        if (bounded && maxOpenPools > 0) {
+            dataSource.setOpenListener(ds -> scheduleBoundCheck());
+        }
+    }
+
+    /**
+     * 开始检查。重复调用不会产生任何效果。
+     */
+    void start() {
+        if (!started.compareAndSet(false, true)) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "radial-idle-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::evictIdle, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        LOG.info("Idle datasource evictor started, interval: " + intervalMillis + "ms, " + members.size() + " datasource(s) registered"
+                + (maxOpenPools > 0 ? ", max open pools: " + maxOpenPools : ""));
+    }
+
+    /**
+     * 停止检查。
+     */
+    void stop() {
+        if (!started.compareAndSet(true, false)) {
+            return;
+        }
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * 获得当前打开的受数量限制的连接池数量。
+     *
+     * @return 数量
+     */
+    public int getOpenBoundedPools() {
+        int count = 0;
+        for (Member member : members) {
+            if (member.bounded && member.dataSource.isOpen()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void scheduleBoundCheck() {
+        ScheduledExecutorService scheduler = this.scheduler;
+        // 连接池在获取连接的线程上被创建，超出上限时的回收交给后台线程，不拖慢这次请求
+        if (scheduler != null && boundCheckScheduled.compareAndSet(false, true)) {
+            try {
+                scheduler.execute(() -> {
+                    boundCheckScheduled.set(false);
+                    evictBeyondBound();
+                });
+            } catch (RejectedExecutionException e) {
+                boundCheckScheduled.set(false);
+            }
+        }
+    }
+
+    private void evictIdle() {
+        try {
+            for (Member member : members) {
+                if (member.idleTimeoutMillis > 0 && member.dataSource.isOpen() && member.dataSource.getIdleMillis() >= member.idleTimeoutMillis
+                        && member.dataSource.closeIfIdle()) {
+                    LOG.info("DataSource [" + member.dataSource.getName() + "] has been idle for more than " + member.idleTimeoutMillis + "ms, its pool is closed");
+                }
+            }
+            evictBeyondBound();
+        } catch (RuntimeException e) {
+            // 不能让异常终止周期任务
+            LOG.warn("Failed to evict idle datasources", e);
+        }
+    }
+
+    private void evictBeyondBound() {
+        if (maxOpenPools < 1) {
+            return;
+        }
+        List<LazyDataSource> open = new ArrayList<>();
+        for (Member member : members) {
+            if (member.bounded && member.dataSource.isOpen()) {
+                open.add(member.dataSource);
+            }
+        }
+        int excess = open.size() - maxOpenPools;
+        if (excess <= 0) {
+            return;
+        }
+        // 先给最近使用时间拍快照再排序，排序期间连接池仍然可能被使用
+        long now = System.nanoTime();
+        Map<LazyDataSource, Long> idleNanos = new IdentityHashMap<>();
+        open.forEach(ds -> idleNanos.put(ds, now - ds.getLastUsedNanos()));
+        open.sort(Comparator.comparingLong((LazyDataSource ds) -> idleNanos.get(ds)).reversed());
+        for (LazyDataSource dataSource : open) {
+            if (excess <= 0) {
+                break;
+            }
+            if (dataSource.closeIfIdle()) {
+                excess--;
+                LOG.info("Too many open pools (max " + maxOpenPools + "), the least recently used DataSource [" + dataSource.getName() + "] is closed");
+            }
+        }
+    }
+
+    private static final class Member {
+
+        private final LazyDataSource dataSource;
+        private final long idleTimeoutMillis;
+        private final boolean bounded;
+
+        Member(LazyDataSource dataSource, long idleTimeoutMillis, boolean bounded) {
+            this.dataSource = dataSource;
+            this.idleTimeoutMillis = idleTimeoutMillis;
+            this.bounded = bounded;
+        }
+    }
+}
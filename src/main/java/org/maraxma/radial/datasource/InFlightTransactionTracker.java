@@ -0,0 +1,25 @@
+package org.maraxma.radial.datasource;
+
+/**
+ * 在途事务跟踪器，可切换数据源在关闭时通过它等待正在进行中的事务结束。
+ * <p>使用本项目的事务管理器时，它由{@code SwitchableDataSourceConnectionContextHolder}提供。</p>
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+public interface InFlightTransactionTracker {
+
+    /**
+     * 获得所有线程中尚未结束的事务数量（包括被挂起的事务）。
+     *
+     * @return 事务数量
+     */
+    int getInFlightCount();
+
+    /**
+     * 当前线程是否处于一个尚未结束的事务中（包括当前的事务被挂起的情况）。
+     *
+     * @return 是则返回true
+     */
+    boolean isInFlight();
+}
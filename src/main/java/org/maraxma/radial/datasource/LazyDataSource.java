@@ -0,0 +1,232 @@
+package org.maraxma.radial.datasource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.maraxma.radial.util.DataSourcePoolUtils;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+/**
+ * 延迟创建的数据源。
+ * <p>它只保存创建连接池所需的配置（一个工厂），连接池在第一次获取连接时才被创建；连接池可以在空闲时被关闭，之后再次获取连接时会重新创建。
+ * 创建是单飞（single-flight）的：并发的第一次获取只会创建一个连接池，其余的调用等待它创建完成后直接使用。</p>
+ * <p>已经创建的连接池上的获取连接不需要任何锁。</p>
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+public class LazyDataSource extends AbstractDataSource implements AutoCloseable {
+
+    private static final Log LOG = LogFactory.getLog(LazyDataSource.class);
+
+    private final String name;
+    private final Supplier<DataSource> factory;
+    private final Object lock = new Object();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong openCount = new AtomicLong();
+
+    private volatile DataSource target;
+    private volatile long lastUsedNanos = System.nanoTime();
+    private volatile Consumer<LazyDataSource> openListener;
+
+    /**
+     * 创建一个延迟创建的数据源。
+     *
+     * @param name    数据源名称，仅用于日志和监控
+     * @param factory 连接池工厂，每次调用都必须创建一个新的连接池
+     */
+    public LazyDataSource(String name, Supplier<DataSource> factory) {
+        this.name = name;
+        this.factory = factory;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        // 先登记再读取连接池，关闭连接池时先摘下连接池再检查登记数，两者之间不会漏掉正在获取连接的调用
+        inFlight.incrementAndGet();
+        try {
+            lastUsedNanos = System.nanoTime();
+            DataSource dataSource = target;
+            if (dataSource == null) {
+                dataSource = open();
+            }
+            return dataSource.getConnection();
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        inFlight.incrementAndGet();
+        try {
+            lastUsedNanos = System.nanoTime();
+            DataSource dataSource = target;
+            if (dataSource == null) {
+                dataSource = open();
+            }
+            return dataSource.getConnection(username, password);
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private DataSource open() {
+        DataSource dataSource;
+        synchronized (lock) {
+            dataSource = target;
+            if (dataSource != null) {
+                return dataSource;
+            }
+            long start = System.nanoTime();
+            dataSource = factory.get();
+            if (dataSource == null) {
+                throw new IllegalStateException("The factory of DataSource [" + name + "] returned null");
+            }
+            target = dataSource;
+            openCount.incrementAndGet();
+            LOG.info("DataSource [" + name + "] is opened in " + (System.nanoTime() - start) / 1_000_000L + "ms");
+        }
+        Consumer<LazyDataSource> listener = openListener;
+        if (listener != null) {
+            listener.accept(this);
+        }
+        return dataSource;
+    }
+
+    /**
+     * 若连接池空闲（没有被借出的连接，也没有正在获取连接的调用），则关闭它，之后再次获取连接时会重新创建。
+     *
+     * @return 关闭了连接池则返回true，连接池未创建或者不空闲时返回false
+     */
+    public boolean closeIfIdle() {
+        DataSource closing;
+        synchronized (lock) {
+            closing = target;
+            if (closing == null) {
+                return false;
+            }
+            target = null;
+            if (inFlight.get() > 0 || DataSourcePoolUtils.getActiveConnections(closing) > 0) {
+                target = closing;
+                return false;
+            }
+        }
+        closeQuietly(closing);
+        return true;
+    }
+
+    /**
+     * 关闭连接池（无论是否空闲）。
+     */
+    @Override
+    public void close() {
+        DataSource closing;
+        synchronized (lock) {
+            closing = target;
+            target = null;
+        }
+        if (closing != null) {
+            closeQuietly(closing);
+        }
+    }
+
+    private void closeQuietly(DataSource dataSource) {
+        if (dataSource instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) dataSource).close();
+                LOG.info("DataSource [" + name + "] is closed");
+            } catch (Exception e) {
+                LOG.warn("Failed to close DataSource [" + name + "]", e);
+            }
+        }
+    }
+
+    /**
+     * 获得数据源名称。
+     *
+     * @return 名称
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 连接池当前是否已经创建。
+     *
+     * @return 已经创建则返回true
+     */
+    public boolean isOpen() {
+        return target != null;
+    }
+
+    /**
+     * 获得连接池被创建的次数。
+     *
+     * @return 次数
+     */
+    public long getOpenCount() {
+        return openCount.get();
+    }
+
+    /**
+     * 获得距离上一次获取连接的时间（毫秒）。
+     *
+     * @return 空闲时间
+     */
+    public long getIdleMillis() {
+        return (System.nanoTime() - lastUsedNanos) / 1_000_000L;
+    }
+
+    long getLastUsedNanos() {
+        return lastUsedNanos;
+    }
+
+    /**
+     * 获得当前的连接池，不会触发创建，也不会刷新最近使用时间。
+     *
+     * @return 连接池，尚未创建时返回null
+     */
+    public DataSource getTarget() {
+        return target;
+    }
+
+    void setOpenListener(Consumer<LazyDataSource> openListener) {
+        this.openListener = openListener;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return (T) this;
+        }
+        DataSource dataSource = target;
+        if (dataSource != null) {
+            return dataSource.unwrap(iface);
+        }
+        throw new SQLException("DataSource [" + name + "] is not opened yet and cannot be unwrapped as [" + iface.getName() + "]");
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return true;
+        }
+        DataSource dataSource = target;
+        return dataSource != null && dataSource.isWrapperFor(iface);
+    }
+
+    @Override
+    public String toString() {
+        return "LazyDataSource[" + name + (isOpen() ? ", open" : ", closed") + "]";
+    }
+}
@@ -1,5 +1,15 @@
 package org.maraxma.radial.datasource;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.maraxma.radial.exception.DataSourceNotFoundException;
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
 /**
  * 可切换数据源，请保证整个BeanFactory里面只含有一个数据源，这样对于其他依赖于单一数据源的自动装配框架才不会抛出错误。
  *
@@ -8,9 +18,59 @@ package org.maraxma.radial.datasource;
  */
 public class SwitchableDataSource extends AbstractSwitchableDataSource {
 
+    @Nullable
+    private volatile TenantResolver tenantResolver;
+
+    private volatile Map<String, String> tenantDataSourceNames = Collections.emptyMap();
+
+    /**
+     * 设定租户解析器以及租户到数据源名称的映射。
+     * <p>当前线程没有指定数据源时，使用解析出来的租户所对应的数据源；解析不出租户时使用默认数据源。</p>
+     *
+     * @param tenantResolver        租户解析器
+     * @param tenantDataSourceNames 租户标识与数据源名称的映射
+     * @since 1.4.0
+     */
+    public void setTenantResolver(@Nullable TenantResolver tenantResolver, Map<String, String> tenantDataSourceNames) {
+        this.tenantResolver = tenantResolver;
+        this.tenantDataSourceNames = tenantDataSourceNames == null ? Collections.emptyMap() : new HashMap<>(tenantDataSourceNames);
+    }
+
+    /**
+     * 获得所有租户数据源的名称。
+     *
+     * @return 租户数据源的名称
+     * @since 1.4.0
+     */
+    public Set<String> getTenantDataSourceNames() {
+        return new HashSet<>(tenantDataSourceNames.values());
+    }
+
     @Override
     protected Object determineCurrentLookupKey() {
-        return DataSourceContextHolder.getDataSourceName();
+        String dataSourceName = DataSourceContextHolder.getDataSourceName();
+        TenantResolver resolver = this.tenantResolver;
+        if (dataSourceName != null || resolver == null) {
+            return dataSourceName;
+        }
+        String tenant = resolver.resolveTenant();
+        if (tenant == null) {
+            return null;
+        }
+        String tenantDataSourceName = tenantDataSourceNames.get(tenant);
+        if (tenantDataSourceName == null) {
+            throw new DataSourceNotFoundException("Cannot find datasource of tenant [" + tenant + "], current tenants are " + tenantDataSourceNames.keySet());
+        }
+        return tenantDataSourceName;
+    }
+
+    @Override
+    protected boolean determineCurrentReadOnly() {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            // 在事务中时以事务的只读标记为准，读写事务中的读操作必须在主数据源上执行，否则可能读不到本事务中刚写入的数据
+            return TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        }
+        return DataSourceContextHolder.isReadOnly();
     }
 
 }
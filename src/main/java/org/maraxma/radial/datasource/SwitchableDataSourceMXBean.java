@@ -1,8 +1,13 @@
 package org.maraxma.radial.datasource;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import org.maraxma.radial.metrics.LatencyStatistics;
+import org.maraxma.radial.resilience.BulkheadInfo;
+import org.maraxma.radial.resilience.CircuitBreakerInfo;
+
 /**
  * 可切换数据源MXBean。
  * <p>这个MXBean可以帮助你在运行时观看一些参数或者执行一些函数。</p>
@@ -35,6 +40,7 @@ public interface SwitchableDataSourceMXBean {
 
     /**
      * 获得当前的数据源名称（这个名称可能会一直变化）。
+     * <p>依次取数据源上下文中指定的名称、租户解析器解析出的租户数据源名称，都没有时返回默认数据源名称。</p>
      *
      * @return 当前数据源名称
      */
@@ -46,4 +52,75 @@ public interface SwitchableDataSourceMXBean {
      * @return 池化数据源信息表，若全部都不是池化数据源，请返回空列表
      */
     Map<String, PooledDataSourceInfo> getPooledDataSourceInfo();
+
+    /**
+     * 获得每个数据源（包括只读副本）启动时的预热耗时、就绪耗时和连接数。
+     *
+     * @return 启动信息表，未启用预热时返回空表
+     * @since 1.4.0
+     */
+    Map<String, DataSourceStartupInfo> getStartupInfo();
+
+    /**
+     * 获得每个数据源上预热语句（SQL和Mapper语句）的执行次数、失败次数以及首次和末次的耗时。
+     *
+     * @return 数据源名称 -> 语句 -> 执行结果，没有配置预热语句时返回空表
+     * @since 1.4.0
+     */
+    Map<String, Map<String, WarmUpStatementInfo>> getWarmUpStatementInfo();
+
+    /**
+     * 获得每个数据源（包括只读副本）的健康状态。
+     *
+     * @return 健康状态表，未启用健康检查时返回空表
+     * @since 1.4.0
+     */
+    Map<String, DataSourceHealthInfo> getHealthInfo();
+
+    /**
+     * 获得最近的数据源剔除和恢复事件。
+     *
+     * @return 事件列表，按时间先后排列，未启用健康检查时返回空列表
+     * @since 1.4.0
+     */
+    List<String> getHealthEvents();
+
+    /**
+     * 获得每个数据源（包括只读副本）的熔断器状态。
+     *
+     * @return 熔断器状态表，没有配置熔断器的数据源不在其中
+     * @since 1.4.0
+     */
+    Map<String, CircuitBreakerInfo> getCircuitBreakerInfo();
+
+    /**
+     * 获得每个数据源（包括只读副本）的隔离舱状态，包括当前并发数、排队数以及被拒绝的次数。
+     *
+     * @return 隔离舱状态表，没有配置隔离舱的数据源不在其中
+     * @since 1.4.0
+     */
+    Map<String, BulkheadInfo> getBulkheadInfo();
+
+    /**
+     * 获得每个数据源的延迟统计，包括获取连接（ACQUIRE）、持有连接（HOLD）、提交（COMMIT）、回滚（ROLLBACK）以及所参与事务（TRANSACTION）的耗时百分位数。
+     *
+     * @return 数据源名称 -> 延迟类型 -> 统计信息（毫秒）
+     * @since 1.4.0
+     */
+    Map<String, Map<String, LatencyStatistics>> getLatencyStatistics();
+
+    /**
+     * 清空所有的延迟统计。
+     *
+     * @since 1.4.0
+     */
+    void resetLatencyStatistics();
+
+    /**
+     * 重新加载数据源配置（radial.datasources），新增、移除或者替换配置发生了变化的数据源。
+     * <p>路由表会被原子地替换，被移除或被替换的连接池在借出的连接全部归还（或者到达排空超时时间）之后才会被关闭。</p>
+     *
+     * @since 1.4.0
+     */
+    void reloadDataSources();
 }
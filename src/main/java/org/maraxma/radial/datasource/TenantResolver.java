@@ -0,0 +1,23 @@
+package org.maraxma.radial.datasource;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * 租户解析器，它决定当前的请求属于哪一个租户。
+ * <p>当前线程没有通过{@code @UseDataSource}或者{@link DataSourceContextHolder}指定数据源时，可切换数据源会使用解析出来的租户所对应的数据源。
+ * 解析器在每次获取连接时都会被调用，它的实现应当足够快（例如从请求上下文的ThreadLocal中读取）。</p>
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+@FunctionalInterface
+public interface TenantResolver {
+
+    /**
+     * 解析当前的租户。
+     *
+     * @return 租户标识，即radial.datasources中租户数据源的标题；返回null时使用默认数据源
+     */
+    @Nullable
+    String resolveTenant();
+}
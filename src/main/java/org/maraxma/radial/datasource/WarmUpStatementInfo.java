@@ -0,0 +1,93 @@
+package org.maraxma.radial.datasource;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * 预热语句的执行结果。
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+public class WarmUpStatementInfo {
+    private final String statement;
+    private final int executions;
+    private final int failures;
+    private final long totalMillis;
+    private final long firstMillis;
+    private final long lastMillis;
+    private final String error;
+
+    @ConstructorProperties({"statement", "executions", "failures", "totalMillis", "firstMillis", "lastMillis", "error"})
+    public WarmUpStatementInfo(String statement, int executions, int failures, long totalMillis, long firstMillis, long lastMillis, String error) {
+        this.statement = statement;
+        this.executions = executions;
+        this.failures = failures;
+        this.totalMillis = totalMillis;
+        this.firstMillis = firstMillis;
+        this.lastMillis = lastMillis;
+        this.error = error;
+    }
+
+    /**
+     * 获得预热语句（SQL或者Mapper语句ID）。
+     *
+     * @return 语句
+     */
+    public String getStatement() {
+        return statement;
+    }
+
+    /**
+     * 获得执行次数。
+     *
+     * @return 次数
+     */
+    public int getExecutions() {
+        return executions;
+    }
+
+    /**
+     * 获得失败次数。
+     *
+     * @return 次数
+     */
+    public int getFailures() {
+        return failures;
+    }
+
+    /**
+     * 获得所有执行的总耗时。
+     *
+     * @return 耗时（毫秒）
+     */
+    public long getTotalMillis() {
+        return totalMillis;
+    }
+
+    /**
+     * 获得第一次执行的耗时，与{@link #getLastMillis()}对比可以看出预热的效果。
+     *
+     * @return 耗时（毫秒）
+     */
+    public long getFirstMillis() {
+        return firstMillis;
+    }
+
+    /**
+     * 获得最后一次执行的耗时。
+     *
+     * @return 耗时（毫秒）
+     */
+    public long getLastMillis() {
+        return lastMillis;
+    }
+
+    /**
+     * 获得最近一次失败的原因。
+     *
+     * @return 原因，没有失败时返回null
+     */
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,16 @@
+package org.maraxma.radial.exception;
+
+/**
+ * 代表一个数据源暂时不可用（如熔断器处于打开状态），请求被快速拒绝而没有真正地访问连接池。
+ * <p>这个异常总是原样抛给调用方，不会被包装成{@link java.sql.SQLException}，调用方可以据此区分快速失败的拒绝与连接池本身的故障。</p>
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+public class DataSourceUnavailableException extends RuntimeException {
+    private static final long serialVersionUID = 3190655217035880321L;
+
+    public DataSourceUnavailableException(String msg) {
+        super(msg);
+    }
+}
@@ -0,0 +1,88 @@
+package org.maraxma.radial.metrics;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 数据源的内置指标，为每个数据源的每种{@link LatencyType}维护一个{@link LatencyHistogram}。
+ * <p>它不依赖任何指标框架，记录的开销只有一次哈希查找和一次直方图记录。</p>
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+public class DataSourceMetrics {
+
+    private static final LatencyType[] TYPES = LatencyType.values();
+
+    private final ConcurrentMap<String, LatencyHistogram[]> histograms = new ConcurrentHashMap<>();
+
+    /**
+     * 记录一次延迟。
+     *
+     * @param dataSourceName 数据源名称
+     * @param type           延迟类型
+     * @param nanos          延迟（纳秒）
+     */
+    public void record(String dataSourceName, LatencyType type, long nanos) {
+        LatencyHistogram[] group = histograms.get(dataSourceName);
+        if (group == null) {
+            group = histograms.computeIfAbsent(dataSourceName, k -> {
+                LatencyHistogram[] created = new LatencyHistogram[TYPES.length];
+                for (int i = 0; i < created.length; i++) {
+                    created[i] = new LatencyHistogram();
+                }
+                return created;
+            });
+        }
+        group[type.ordinal()].record(nanos);
+    }
+
+    /**
+     * 获得所有数据源的延迟统计。
+     *
+     * @return 数据源名称 -> 延迟类型名称 -> 统计信息
+     */
+    public Map<String, Map<String, LatencyStatistics>> getStatistics() {
+        Map<String, Map<String, LatencyStatistics>> statistics = new TreeMap<>();
+        histograms.forEach((name, group) -> {
+            Map<String, LatencyStatistics> byType = new LinkedHashMap<>();
+            for (LatencyType type : TYPES) {
+                byType.put(type.name(), group[type.ordinal()].snapshot());
+            }
+            statistics.put(name, byType);
+        });
+        return statistics;
+    }
+
+    /**
+     * 获得某个数据源的延迟统计。
+     *
+     * @param dataSourceName 数据源名称
+     * @return 延迟类型与统计信息的映射，若这个数据源还没有任何记录则返回空表
+     */
+    public Map<LatencyType, LatencyStatistics> getStatistics(String dataSourceName) {
+        Map<LatencyType, LatencyStatistics> byType = new EnumMap<>(LatencyType.class);
+        LatencyHistogram[] group = histograms.get(dataSourceName);
+        if (group != null) {
+            for (LatencyType type : TYPES) {
+                byType.put(type, group[type.ordinal()].snapshot());
+            }
+        }
+        return byType;
+    }
+
+    /**
+     * 清空所有的统计。
+     */
+    public void reset() {
+        histograms.values().forEach(group -> {
+            for (LatencyHistogram histogram : group) {
+                histogram.reset();
+            }
+        });
+    }
+}
@@ -0,0 +1,110 @@
+package org.maraxma.radial.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 无锁的延迟直方图。
+ * <p>桶是对数线性分布的：每个2的幂区间被再等分为8个子桶，因此任意一个记录值的误差不超过12.5%，
+ * 总共352个桶可以覆盖从1纳秒到约19小时的范围（超出的值计入最后一个桶）。</p>
+ * <p>记录一个值只需要几次位运算和一次原子自增，不需要任何锁，也不会产生任何对象；计算百分位数时才需要扫描所有的桶。</p>
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_BITS = 46;
+    private static final long MAX_VALUE = (1L << MAX_BITS) - 1;
+    private static final int BUCKETS = (MAX_BITS - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * 记录一个值。
+     *
+     * @param nanos 延迟（纳秒），负数视为0
+     */
+    public void record(long nanos) {
+        long value = nanos < 0 ? 0 : Math.min(nanos, MAX_VALUE);
+        counts.incrementAndGet(bucketOf(value));
+        sum.add(value);
+        long currentMax = max.get();
+        while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+            currentMax = max.get();
+        }
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return ((shift + 1) << SUB_BUCKET_BITS) + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    static long lowerBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket >>> SUB_BUCKET_BITS) - 1;
+        return ((long) (SUB_BUCKETS + (bucket & (SUB_BUCKETS - 1)))) << shift;
+    }
+
+    static long upperBoundOf(int bucket) {
+        return bucket == BUCKETS - 1 ? MAX_VALUE : lowerBoundOf(bucket + 1) - 1;
+    }
+
+    /**
+     * 清空直方图。与并发的记录之间没有原子性保证，仅用于人为地开始一个新的观察周期。
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0L);
+        }
+        sum.reset();
+        max.set(0L);
+    }
+
+    /**
+     * 获得直方图的统计快照。
+     *
+     * @return 统计快照
+     */
+    public LatencyStatistics snapshot() {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return new LatencyStatistics(0, 0, 0, 0, 0, 0, 0);
+        }
+        return new LatencyStatistics(total, toMillis(sum.sum() / (double) total),
+                toMillis(percentile(snapshot, total, 0.5)), toMillis(percentile(snapshot, total, 0.9)),
+                toMillis(percentile(snapshot, total, 0.99)), toMillis(percentile(snapshot, total, 0.999)), toMillis(max.get()));
+    }
+
+    private static double percentile(long[] snapshot, long total, double percentile) {
+        long rank = (long) Math.ceil(percentile * total);
+        long seen = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                // 取桶的中点作为估计值
+                return (lowerBoundOf(i) + upperBoundOf(i)) / 2.0;
+            }
+        }
+        return MAX_VALUE;
+    }
+
+    private static double toMillis(double nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+}
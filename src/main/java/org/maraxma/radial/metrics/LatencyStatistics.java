@@ -0,0 +1,60 @@
+package org.maraxma.radial.metrics;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * 延迟统计信息，所有的时间单位均为毫秒（精确到微秒）。
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+public class LatencyStatistics {
+    private final long count;
+    private final double mean;
+    private final double p50;
+    private final double p90;
+    private final double p99;
+    private final double p999;
+    private final double max;
+
+    @ConstructorProperties({"count", "mean", "p50", "p90", "p99", "p999", "max"})
+    public LatencyStatistics(long count, double mean, double p50, double p90, double p99, double p999, double max) {
+        super();
+        this.count = count;
+        this.mean = mean;
+        this.p50 = p50;
+        this.p90 = p90;
+        this.p99 = p99;
+        this.p999 = p999;
+        this.max = max;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    public double getP50() {
+        return p50;
+    }
+
+    public double getP90() {
+        return p90;
+    }
+
+    public double getP99() {
+        return p99;
+    }
+
+    public double getP999() {
+        return p999;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+}
@@ -0,0 +1,35 @@
+package org.maraxma.radial.metrics;
+
+/**
+ * 被统计的延迟类型。
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+public enum LatencyType {
+
+    /**
+     * 从连接池中获取连接所花费的时间。
+     */
+    ACQUIRE,
+
+    /**
+     * 连接从被获取到被释放的时间。
+     */
+    HOLD,
+
+    /**
+     * 提交所花费的时间。
+     */
+    COMMIT,
+
+    /**
+     * 回滚所花费的时间。
+     */
+    ROLLBACK,
+
+    /**
+     * 数据源所参与的事务从开始到结束的时间。
+     */
+    TRANSACTION
+}
@@ -0,0 +1,48 @@
+package org.maraxma.radial.mybatis;
+
+import java.util.List;
+
+/**
+ * 键集分页（seek分页）的一页结果。
+ *
+ * @param <T> 元素类型
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+public class KeysetPage<T> {
+
+    private final List<T> rows;
+    private final String nextToken;
+
+    KeysetPage(List<T> rows, String nextToken) {
+        this.rows = rows;
+        this.nextToken = nextToken;
+    }
+
+    /**
+     * 获得这一页的数据。
+     *
+     * @return 数据
+     */
+    public List<T> getRows() {
+        return rows;
+    }
+
+    /**
+     * 获得下一页的令牌，查询下一页时原样传入即可。
+     *
+     * @return 令牌，若已经没有下一页则返回null
+     */
+    public String getNextToken() {
+        return nextToken;
+    }
+
+    /**
+     * 是否还有下一页。
+     *
+     * @return 有则返回true
+     */
+    public boolean hasNext() {
+        return nextToken != null;
+    }
+}
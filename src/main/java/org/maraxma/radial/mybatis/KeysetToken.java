@@ -0,0 +1,117 @@
+package org.maraxma.radial.mybatis;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 键集分页令牌的编解码器。
+ * <p>令牌中保存的是上一页最后一行的排序键的值。令牌通常会交给客户端，因此这里不使用Java序列化，
+ * 只支持常见的排序键类型（整数、浮点数、BigDecimal、字符串、日期时间），每个值编码为“类型+长度+值”，整体再进行URL安全的Base64编码。</p>
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+final class KeysetToken {
+
+    private KeysetToken() {
+    }
+
+    static String encode(Object[] values) {
+        StringBuilder builder = new StringBuilder();
+        for (Object value : values) {
+            char type;
+            String text;
+            if (value == null) {
+                type = 'N';
+                text = "";
+            } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                type = 'L';
+                text = value.toString();
+            } else if (value instanceof Double || value instanceof Float) {
+                type = 'F';
+                text = value.toString();
+            } else if (value instanceof BigDecimal) {
+                type = 'B';
+                text = value.toString();
+            } else if (value instanceof String) {
+                type = 'S';
+                text = (String) value;
+            } else if (value instanceof Timestamp) {
+                type = 'P';
+                text = ((Timestamp) value).toLocalDateTime().toString();
+            } else if (value instanceof Date) {
+                type = 'D';
+                text = Long.toString(((Date) value).getTime());
+            } else if (value instanceof LocalDateTime) {
+                type = 'T';
+                text = value.toString();
+            } else if (value instanceof LocalDate) {
+                type = 'A';
+                text = value.toString();
+            } else {
+                throw new IllegalArgumentException("Unsupported keyset value type: " + value.getClass().getName());
+            }
+            builder.append(type).append(text.length()).append(':').append(text);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(builder.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Object[] decode(String token, int expectedLength) {
+        String text;
+        try {
+            text = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid keyset token: " + token, e);
+        }
+        List<Object> values = new ArrayList<>(expectedLength);
+        int position = 0;
+        try {
+            while (position < text.length()) {
+                char type = text.charAt(position++);
+                int colon = text.indexOf(':', position);
+                int length = Integer.parseInt(text.substring(position, colon));
+                String value = text.substring(colon + 1, colon + 1 + length);
+                position = colon + 1 + length;
+                values.add(parse(type, value));
+            }
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid keyset token: " + token, e);
+        }
+        if (values.size() != expectedLength) {
+            throw new IllegalArgumentException("Invalid keyset token: " + token + ", expect " + expectedLength + " key(s) but got " + values.size());
+        }
+        return values.toArray();
+    }
+
+    private static Object parse(char type, String value) {
+        switch (type) {
+            case 'N':
+                return null;
+            case 'L':
+                return Long.valueOf(value);
+            case 'F':
+                return Double.valueOf(value);
+            case 'B':
+                return new BigDecimal(value);
+            case 'S':
+                return value;
+            case 'P':
+                return Timestamp.valueOf(LocalDateTime.parse(value));
+            case 'D':
+                return new Date(Long.parseLong(value));
+            case 'T':
+                return LocalDateTime.parse(value);
+            case 'A':
+                return LocalDate.parse(value);
+            default:
+                throw new IllegalArgumentException("Unknown keyset value type: " + type);
+        }
+    }
+}
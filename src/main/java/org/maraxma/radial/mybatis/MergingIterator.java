@@ -0,0 +1,64 @@
+package org.maraxma.radial.mybatis;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * k路归并迭代器，把多个已经有序的迭代器合并为一个有序的迭代器。
+ * <p>每个来源只预读一个元素，堆中最多只有k个元素；只有在某个来源的元素被取走之后才会从这个来源读取下一个元素，
+ * 因此停止迭代时每个来源都只被读取了必要的行数。相等的元素按照来源的顺序输出。</p>
+ *
+ * @param <T> 元素类型
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+class MergingIterator<T> implements Iterator<T> {
+
+    private final PriorityQueue<Head<T>> heads;
+
+    MergingIterator(List<? extends Iterator<? extends T>> sources, Comparator<? super T> comparator) {
+        Comparator<Head<T>> byValue = (a, b) -> comparator.compare(a.value, b.value);
+        this.heads = new PriorityQueue<>(Math.max(1, sources.size()), byValue.thenComparingInt(h -> h.source));
+        for (int i = 0; i < sources.size(); i++) {
+            Iterator<? extends T> source = sources.get(i);
+            if (source.hasNext()) {
+                heads.add(new Head<>(i, source, source.next()));
+            }
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return !heads.isEmpty();
+    }
+
+    @Override
+    public T next() {
+        Head<T> head = heads.poll();
+        if (head == null) {
+            throw new NoSuchElementException();
+        }
+        T value = head.value;
+        if (head.iterator.hasNext()) {
+            head.value = head.iterator.next();
+            heads.add(head);
+        }
+        return value;
+    }
+
+    private static final class Head<T> {
+
+        private final int source;
+        private final Iterator<? extends T> iterator;
+        private T value;
+
+        Head(int source, Iterator<? extends T> iterator, T value) {
+            this.source = source;
+            this.iterator = iterator;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package org.maraxma.radial.mybatis;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.SystemMetaObject;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.maraxma.radial.datasource.DataSourceContextHolder;
+
+/**
+ * 跨数据源的分页查询器，它在多个数据源上以游标的方式执行同一条有序的查询，然后用k路归并得到全局有序的一页数据。
+ * <p>每个数据源上的游标都是惰性读取的，归并时堆中只保留每个数据源的一行，一页读满之后立即关闭所有游标，
+ * 因此内存占用只与页大小和数据源数量有关，而不是“数据源数量×(offset+limit)”。游标的fetchSize可以通过数据源的cursor-fetch-size配置。</p>
+ * <p>每个数据源上的SQL需要自己带上与归并顺序一致的ORDER BY（以及LIMIT offset+limit，避免数据库为整张表排序）。
+ * 对于深度分页，推荐使用键集分页{@link #seek(String, Map, Collection, String[], boolean, String, int)}，它在每个数据源上都只需要读取一页的数据。</p>
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+public class ShardedPaginator {
+
+    private static final Log LOG = LogFactory.getLog(ShardedPaginator.class);
+
+    /**
+     * 键集分页时，上一页最后一行的排序键在查询参数中的名称。
+     */
+    public static final String AFTER_PARAMETER = "after";
+
+    private final SqlSessionFactory sqlSessionFactory;
+
+    public ShardedPaginator(SqlSessionFactory sqlSessionFactory) {
+        this.sqlSessionFactory = sqlSessionFactory;
+    }
+
+    /**
+     * 偏移分页：在多个数据源上执行同一条有序的查询，返回全局有序结果中[offset, offset+limit)的部分。
+     *
+     * @param statement       MyBatis语句ID
+     * @param parameter       查询参数
+     * @param dataSourceNames 数据源名称
+     * @param comparator      与每个数据源上的ORDER BY一致的排序器
+     * @param offset          偏移量
+     * @param limit           页大小
+     * @param <T>             元素类型
+     * @return 这一页的数据
+     */
+    public <T> List<T> page(String statement, Object parameter, Collection<String> dataSourceNames, Comparator<? super T> comparator, int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("The offset and limit cannot be negative, offset: " + offset + ", limit: " + limit);
+        }
+        return this.<T>merge(statement, parameter, dataSourceNames, comparator, offset, limit);
+    }
+
+    /**
+     * 键集分页：在多个数据源上执行同一条有序的查询，返回令牌之后的一页数据以及下一页的令牌。
+     * <p>查询参数中会加入名为{@value #AFTER_PARAMETER}的Map，它的键是排序键的属性名，值是上一页最后一行的排序键的值（第一页时它为null），
+     * SQL应当据此只查询之后的行，例如：</p>
+     * <pre>
+     * select * from t_order
+     * &lt;where&gt;
+     *     &lt;if test="after != null"&gt;(create_time, id) &lt; (#{after.createTime}, #{after.id})&lt;/if&gt;
+     * &lt;/where&gt;
+     * order by create_time desc, id desc limit #{limit}
+     * </pre>
+     * <p>排序键必须能唯一确定一行（例如在时间之后加上主键），否则相等的行可能会在翻页时被跳过。</p>
+     *
+     * @param statement       MyBatis语句ID
+     * @param parameter       查询参数，可以为null
+     * @param dataSourceNames 数据源名称
+     * @param keyProperties   排序键的属性名（Map的键或者JavaBean的属性），值必须是{@link Comparable}的
+     * @param descending      是否降序
+     * @param token           上一页返回的令牌，查询第一页时为null
+     * @param limit           页大小
+     * @param <T>             元素类型
+     * @return 这一页的数据以及下一页的令牌
+     */
+    public <T> KeysetPage<T> seek(String statement, Map<String, Object> parameter, Collection<String> dataSourceNames, String[] keyProperties,
+                                  boolean descending, String token, int limit) {
+        if (keyProperties == null || keyProperties.length == 0) {
+            throw new IllegalArgumentException("The key properties of keyset pagination cannot be empty");
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("The limit of keyset pagination must be positive: " + limit);
+        }
+        Map<String, Object> actualParameter = parameter == null ? new HashMap<>() : new HashMap<>(parameter);
+        Map<String, Object> after = null;
+        if (token != null) {
+            Object[] values = KeysetToken.decode(token, keyProperties.length);
+            after = new LinkedHashMap<>();
+            for (int i = 0; i < keyProperties.length; i++) {
+                after.put(keyProperties[i], values[i]);
+            }
+        }
+        actualParameter.put(AFTER_PARAMETER, after);
+        Comparator<Object> comparator = new KeyComparator(keyProperties);
+        List<T> rows = merge(statement, actualParameter, dataSourceNames, descending ? comparator.reversed() : comparator, 0, limit);
+        String nextToken = null;
+        if (rows.size() == limit) {
+            MetaObject last = SystemMetaObject.forObject(rows.get(rows.size() - 1));
+            Object[] values = new Object[keyProperties.length];
+            for (int i = 0; i < keyProperties.length; i++) {
+                values[i] = last.getValue(keyProperties[i]);
+            }
+            nextToken = KeysetToken.encode(values);
+        }
+        return new KeysetPage<>(rows, nextToken);
+    }
+
+    private <T> List<T> merge(String statement, Object parameter, Collection<String> dataSourceNames, Comparator<? super T> comparator, int offset, int limit) {
+        List<T> rows = new ArrayList<>(Math.min(limit, 1024));
+        if (limit == 0 || dataSourceNames.isEmpty()) {
+            return rows;
+        }
+        List<Cursor<T>> cursors = new ArrayList<>(dataSourceNames.size());
+        try (SqlSession session = sqlSessionFactory.openSession()) {
+            try {
+                // 游标在打开时就绑定了各自数据源的连接，之后在归并中读取时不再需要路由
+                List<Iterator<T>> iterators = new ArrayList<>(dataSourceNames.size());
+                for (String dataSourceName : dataSourceNames) {
+                    int depth = DataSourceContextHolder.pushDataSourceName(dataSourceName, true);
+                    try {
+                        Cursor<T> cursor = session.selectCursor(statement, parameter);
+                        cursors.add(cursor);
+                        iterators.add(cursor.iterator());
+                    } finally {
+                        DataSourceContextHolder.popDataSourceName(depth);
+                    }
+                }
+                MergingIterator<T> merged = new MergingIterator<>(iterators, comparator);
+                for (int skipped = 0; skipped < offset && merged.hasNext(); skipped++) {
+                    merged.next();
+                }
+                while (rows.size() < limit && merged.hasNext()) {
+                    rows.add(merged.next());
+                }
+            } finally {
+                // 一页已经读满，关闭游标以停止各个数据源上剩余的读取
+                for (Cursor<T> cursor : cursors) {
+                    try {
+                        cursor.close();
+                    } catch (IOException | RuntimeException e) {
+                        LOG.warn("Failed to close cursor of statement: " + statement, e);
+                    }
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * 按照多个排序键依次比较，null排在最前。
+     */
+    private static final class KeyComparator implements Comparator<Object> {
+
+        private final String[] keyProperties;
+
+        KeyComparator(String[] keyProperties) {
+            this.keyProperties = keyProperties;
+        }
+
+        @Override
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        public int compare(Object o1, Object o2) {
+            MetaObject m1 = SystemMetaObject.forObject(o1);
+            MetaObject m2 = SystemMetaObject.forObject(o2);
+            for (String property : keyProperties) {
+                Object v1 = m1.getValue(property);
+                Object v2 = m2.getValue(property);
+                int result;
+                if (v1 == null || v2 == null) {
+                    result = v1 == null ? (v2 == null ? 0 : -1) : 1;
+                } else {
+                    result = ((Comparable) v1).compareTo(v2);
+                }
+                if (result != 0) {
+                    return result;
+                }
+            }
+            return 0;
+        }
+    }
+}
@@ -5,12 +5,15 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 
 import org.apache.ibatis.binding.MapperProxy;
-import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
-import org.aspectj.lang.annotation.Before;
 import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Autowired;
 
 import org.maraxma.radial.annotation.UseDataSource;
+import org.maraxma.radial.aop.DataSourceRoutingCache;
+import org.maraxma.radial.aop.RoutingDecision;
 import org.maraxma.radial.datasource.DataSourceContextHolder;
 
 /**
@@ -22,25 +25,61 @@ import org.maraxma.radial.datasource.DataSourceContextHolder;
 @Aspect
 public class SwitchableDataSourceMyBatisAspect {
 
-    @Before("execution(@org.maraxma.radial.annotation.UseDataSource * *(..)))")
-    public void beforeChanging(JoinPoint point) {
+    /**
+     * 路由决策缓存表的名称。
+     */
+    public static final String ROUTING_TABLE = "mapperUseDataSource";
+
+    private DataSourceRoutingCache.Table routingTable;
+
+    @Autowired
+    public void setRoutingCache(DataSourceRoutingCache routingCache) {
+        this.routingTable = routingCache.table(ROUTING_TABLE);
+    }
+
+    @Around("execution(@org.maraxma.radial.annotation.UseDataSource * *(..)))")
+    public Object aroundChanging(ProceedingJoinPoint point) throws Throwable {
+        Object target = point.getTarget();
+        Method method = ((MethodSignature) point.getSignature()).getMethod();
+        // 先查缓存，只有第一次执行这个方法的时候才需要反射读取MapperProxy的内部字段
+        RoutingDecision decision = routingTable.get(target.getClass(), method);
+        if (decision == null) {
+            decision = routingTable.put(target.getClass(), method, resolveRoutingDecision(target, method));
+        }
+        if (!decision.isSwitching()) {
+            return point.proceed();
+        }
+        // 切换数据源，并在方法退出（包括抛出异常）时恢复为进入方法之前的数据源
+        int depth = DataSourceContextHolder.pushDataSourceName(decision.getDataSourceName(), decision.isReadOnly());
+        try {
+            return point.proceed();
+        } finally {
+            DataSourceContextHolder.popDataSourceName(depth);
+        }
+    }
+
+    /**
+     * 解析Mapper方法上的路由决策。
+     * <p>对于同一个Mapper代理类，这个方法的结果是不变的，因此它也被用于在Bean处理阶段预先填充路由决策缓存。</p>
+     *
+     * @param target 切点的目标对象（Mapper代理）
+     * @param method 切点上的方法
+     * @return 路由决策
+     */
+    static RoutingDecision resolveRoutingDecision(Object target, Method method) {
         try {
-            Object target = point.getTarget();
             if (target instanceof Proxy) {
                 target = getJdkProxyTarget(target);
                 if (target instanceof MapperProxy) {
                     Class<?> mapperClass = getMapperClass((MapperProxy<?>) target);
-                    String methodName = point.getSignature().getName();
-                    Class<?>[] argClass = ((MethodSignature) point.getSignature()).getParameterTypes();
                     // 得到访问的方法对象
-                    Method method = mapperClass.getMethod(methodName, argClass);
-                    UseDataSource annotation = method.getAnnotation(UseDataSource.class);
+                    Method mapperMethod = mapperClass.getMethod(method.getName(), method.getParameterTypes());
+                    UseDataSource annotation = mapperMethod.getAnnotation(UseDataSource.class);
                     // 取出注解中的数据源名
-                    String dataSourceName = annotation.value();
-                    // 切换数据源
-                    DataSourceContextHolder.setDataSourceName(dataSourceName);
+                    return RoutingDecision.of(annotation.value(), annotation.readOnly());
                 }
             }
+            return RoutingDecision.NONE;
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -8,9 +8,12 @@ import javax.sql.DataSource;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.ibatis.binding.MapperProxy;
 import org.maraxma.radial.annotation.UseDataSource;
+import org.maraxma.radial.aop.DataSourceRoutingCache;
 import org.maraxma.radial.datasource.AbstractSwitchableDataSource;
 import org.maraxma.radial.exception.DataSourceNotFoundException;
+import org.maraxma.radial.util.AopTargetUtils;
 import org.mybatis.spring.mapper.MapperFactoryBean;
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.BeanFactory;
@@ -66,6 +69,24 @@ public class SwitchableDataSourceOnMapperProcessor implements BeanPostProcessor,
         return bean;
     }
 
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+        // Mapper代理对象（FactoryBean的产品）创建好之后，预先解析它的方法上的路由决策并放入缓存，这样运行时就不需要再反射读取代理的内部字段
+        Object target = AopTargetUtils.getTarget(bean);
+        if (beanFactory != null && Proxy.isProxyClass(target.getClass()) && Proxy.getInvocationHandler(target) instanceof MapperProxy) {
+            DataSourceRoutingCache routingCache = beanFactory.getBeanProvider(DataSourceRoutingCache.class).getIfAvailable();
+            if (routingCache != null) {
+                DataSourceRoutingCache.Table routingTable = routingCache.table(SwitchableDataSourceMyBatisAspect.ROUTING_TABLE);
+                for (Class<?> mapperClass : target.getClass().getInterfaces()) {
+                    ReflectionUtils.doWithMethods(mapperClass,
+                            method -> routingTable.preload(target.getClass(), method, (c, m) -> SwitchableDataSourceMyBatisAspect.resolveRoutingDecision(target, m)),
+                            method -> method.isAnnotationPresent(UseDataSource.class));
+                }
+            }
+        }
+        return bean;
+    }
+
     static class MapperFactoryBeanInvocationHandler<T> implements InvocationHandler {
 
         private final Class<T> targetInterface;
@@ -0,0 +1,59 @@
+package org.maraxma.radial.property;
+
+import java.time.Duration;
+
+/**
+ * 数据源隔离舱配置承载器。
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+public class BulkheadProperties {
+
+    private boolean enabled = false;
+    private int maxConcurrentCalls = 10;
+    private int maxWaitingCalls = 100;
+    private Duration maxWaitDuration = Duration.ofSeconds(1);
+    private boolean failFast = false;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getMaxConcurrentCalls() {
+        return maxConcurrentCalls;
+    }
+
+    public void setMaxConcurrentCalls(int maxConcurrentCalls) {
+        this.maxConcurrentCalls = maxConcurrentCalls;
+    }
+
+    public int getMaxWaitingCalls() {
+        return maxWaitingCalls;
+    }
+
+    public void setMaxWaitingCalls(int maxWaitingCalls) {
+        this.maxWaitingCalls = maxWaitingCalls;
+    }
+
+    public Duration getMaxWaitDuration() {
+        return maxWaitDuration;
+    }
+
+    public void setMaxWaitDuration(Duration maxWaitDuration) {
+        this.maxWaitDuration = maxWaitDuration;
+    }
+
+    public boolean isFailFast() {
+        return failFast;
+    }
+
+    public void setFailFast(boolean failFast) {
+        this.failFast = failFast;
+    }
+
+}
@@ -0,0 +1,59 @@
+package org.maraxma.radial.property;
+
+import java.time.Duration;
+
+/**
+ * 数据源健康检查配置承载器。
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+public class HealthCheckProperties {
+
+    private boolean enabled = false;
+    private Duration interval = Duration.ofSeconds(10);
+    private Duration validationTimeout = Duration.ofSeconds(3);
+    private int unhealthyThreshold = 2;
+    private int healthyThreshold = 1;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Duration getInterval() {
+        return interval;
+    }
+
+    public void setInterval(Duration interval) {
+        this.interval = interval;
+    }
+
+    public Duration getValidationTimeout() {
+        return validationTimeout;
+    }
+
+    public void setValidationTimeout(Duration validationTimeout) {
+        this.validationTimeout = validationTimeout;
+    }
+
+    public int getUnhealthyThreshold() {
+        return unhealthyThreshold;
+    }
+
+    public void setUnhealthyThreshold(int unhealthyThreshold) {
+        this.unhealthyThreshold = unhealthyThreshold;
+    }
+
+    public int getHealthyThreshold() {
+        return healthyThreshold;
+    }
+
+    public void setHealthyThreshold(int healthyThreshold) {
+        this.healthyThreshold = healthyThreshold;
+    }
+
+}
@@ -14,6 +14,14 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 public class MultiDataSourceProperties {
 
     private Map<String, RadialDataSourceProperties> datasources;
+    private HealthCheckProperties healthCheck = new HealthCheckProperties();
+    private TransactionProperties transaction = new TransactionProperties();
+    private Map<String, ShardingProperties> sharding;
+    private ScatterGatherProperties scatterGather = new ScatterGatherProperties();
+    private TenantProperties tenant = new TenantProperties();
+    private WarmUpProperties warmUp = new WarmUpProperties();
+    private ReloadProperties reload = new ReloadProperties();
+    private ShutdownProperties shutdown = new ShutdownProperties();
 
     public Map<String, RadialDataSourceProperties> getDatasources() {
         return datasources;
@@ -23,4 +31,68 @@ public class MultiDataSourceProperties {
         this.datasources = datasources;
     }
 
+    public HealthCheckProperties getHealthCheck() {
+        return healthCheck;
+    }
+
+    public void setHealthCheck(HealthCheckProperties healthCheck) {
+        this.healthCheck = healthCheck;
+    }
+
+    public TransactionProperties getTransaction() {
+        return transaction;
+    }
+
+    public void setTransaction(TransactionProperties transaction) {
+        this.transaction = transaction;
+    }
+
+    public Map<String, ShardingProperties> getSharding() {
+        return sharding;
+    }
+
+    public void setSharding(Map<String, ShardingProperties> sharding) {
+        this.sharding = sharding;
+    }
+
+    public ScatterGatherProperties getScatterGather() {
+        return scatterGather;
+    }
+
+    public void setScatterGather(ScatterGatherProperties scatterGather) {
+        this.scatterGather = scatterGather;
+    }
+
+    public TenantProperties getTenant() {
+        return tenant;
+    }
+
+    public void setTenant(TenantProperties tenant) {
+        this.tenant = tenant;
+    }
+
+    public WarmUpProperties getWarmUp() {
+        return warmUp;
+    }
+
+    public void setWarmUp(WarmUpProperties warmUp) {
+        this.warmUp = warmUp;
+    }
+
+    public ReloadProperties getReload() {
+        return reload;
+    }
+
+    public void setReload(ReloadProperties reload) {
+        this.reload = reload;
+    }
+
+    public ShutdownProperties getShutdown() {
+        return shutdown;
+    }
+
+    public void setShutdown(ShutdownProperties shutdown) {
+        this.shutdown = shutdown;
+    }
+
 }
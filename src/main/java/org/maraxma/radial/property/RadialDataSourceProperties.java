@@ -1,7 +1,10 @@
 package org.maraxma.radial.property;
 
+import java.time.Duration;
+import java.util.List;
 import java.util.Map;
 
+import org.maraxma.radial.balancer.BalancerType;
 import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
 
 /**
@@ -15,6 +18,17 @@ public class RadialDataSourceProperties extends DataSourceProperties {
     private Boolean active;
     private Map<String, Object> hikari;
     private Map<String, Object> druid;
+    private List<RadialDataSourceProperties> replicas;
+    private BalancerType balancer;
+    private Integer weight;
+    private String fallback;
+    private CircuitBreakerProperties circuitBreaker;
+    private BulkheadProperties bulkhead;
+    private Integer cursorFetchSize;
+    private Boolean tenant;
+    private Duration hibernateAfter;
+    private List<String> warmUpStatements;
+    private List<String> warmUpMappers;
 
     public Boolean getActive() {
         return active;
@@ -40,4 +54,197 @@ public class RadialDataSourceProperties extends DataSourceProperties {
         this.druid = druid;
     }
 
+    /**
+     * 获得只读副本的配置。
+     * <p>只读副本中没有配置的type、driver-class-name、username、password以及hikari和druid节点会沿用主数据源的配置，
+     * 因此一般只需要给每个只读副本配置url即可。</p>
+     *
+     * @return 只读副本配置，没有配置时返回null
+     * @since 1.4.0
+     */
+    public List<RadialDataSourceProperties> getReplicas() {
+        return replicas;
+    }
+
+    public void setReplicas(List<RadialDataSourceProperties> replicas) {
+        this.replicas = replicas;
+    }
+
+    /**
+     * 获得只读副本之间的均衡策略（仅对主数据源有效）。
+     *
+     * @return 均衡策略，没有配置时返回null（此时使用默认的均衡策略，即轮询）
+     * @since 1.4.0
+     */
+    public BalancerType getBalancer() {
+        return balancer;
+    }
+
+    public void setBalancer(BalancerType balancer) {
+        this.balancer = balancer;
+    }
+
+    /**
+     * 获得只读副本的权重（仅对只读副本有效，且只在均衡策略为{@link BalancerType#WEIGHTED}时生效）。
+     *
+     * @return 权重，没有配置时返回null（此时视为1）
+     * @since 1.4.0
+     */
+    public Integer getWeight() {
+        return weight;
+    }
+
+    public void setWeight(Integer weight) {
+        this.weight = weight;
+    }
+
+    /**
+     * 获得后备数据源（仅对主数据源有效）。
+     * <p>开启健康检查后，若这个数据源被剔除，发往它的请求会被转移到后备数据源上。</p>
+     *
+     * @return 后备数据源在配置中的名称（如"DS2"），没有配置时返回null
+     * @since 1.4.0
+     */
+    public String getFallback() {
+        return fallback;
+    }
+
+    public void setFallback(String fallback) {
+        this.fallback = fallback;
+    }
+
+    /**
+     * 获得熔断器配置（仅对主数据源有效，它的只读副本使用相同的配置）。
+     *
+     * @return 熔断器配置，没有配置时返回null
+     * @since 1.4.0
+     */
+    public CircuitBreakerProperties getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public void setCircuitBreaker(CircuitBreakerProperties circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    /**
+     * 获得隔离舱配置（仅对主数据源有效，它的只读副本使用相同的配置）。
+     *
+     * @return 隔离舱配置，没有配置时返回null
+     * @since 1.4.0
+     */
+    public BulkheadProperties getBulkhead() {
+        return bulkhead;
+    }
+
+    public void setBulkhead(BulkheadProperties bulkhead) {
+        this.bulkhead = bulkhead;
+    }
+
+    /**
+     * 获得MyBatis游标（{@link org.apache.ibatis.cursor.Cursor}）查询所使用的fetch size（仅对主数据源有效，它的只读副本使用相同的配置）。
+     * <p>Mapper语句上配置的fetchSize优先于这个配置。对于MySQL，需要将其配置为{@link Integer#MIN_VALUE}才能开启流式读取。</p>
+     *
+     * @return fetch size，没有配置时返回null
+     * @since 1.4.0
+     */
+    public Integer getCursorFetchSize() {
+        return cursorFetchSize;
+    }
+
+    public void setCursorFetchSize(Integer cursorFetchSize) {
+        this.cursorFetchSize = cursorFetchSize;
+    }
+
+    /**
+     * 是否是租户数据源。
+     * <p>租户数据源的连接池在第一次被使用时才创建，空闲超时或者打开的连接池超过radial.tenant.max-open-pools时会被关闭，
+     * 之后再次使用时重新创建。它的标题就是{@link org.maraxma.radial.datasource.TenantResolver}解析出的租户标识。</p>
+     *
+     * @return 是租户数据源则返回true，没有配置时返回null
+     * @since 1.4.0
+     */
+    public Boolean getTenant() {
+        return tenant;
+    }
+
+    public void setTenant(Boolean tenant) {
+        this.tenant = tenant;
+    }
+
+    /**
+     * 获得连接池的休眠时间：连接池超过这个时间没有被使用时会被关闭（配置会被保留），下一次被路由到时重新创建。
+     * <p>适用于只在某些时段（例如夜间任务）才使用的数据源，它们的连接池不必整天保持着minimum-idle个连接。
+     * 开启休眠的数据源的连接池在第一次被使用时才创建。只读副本沿用主数据源的配置。</p>
+     *
+     * @return 休眠时间，没有配置时返回null，代表不休眠
+     * @since 1.4.0
+     */
+    public Duration getHibernateAfter() {
+        return hibernateAfter;
+    }
+
+    public void setHibernateAfter(Duration hibernateAfter) {
+        this.hibernateAfter = hibernateAfter;
+    }
+
+    /**
+     * 获得启动时执行的预热SQL语句（应当是只读的），它们在连接池预热之后、应用就绪之前执行radial.warm-up.iterations次。
+     * <p>只读副本执行主数据源的预热语句。</p>
+     *
+     * @return 预热语句，没有配置时返回null
+     * @since 1.4.0
+     */
+    public List<String> getWarmUpStatements() {
+        return warmUpStatements;
+    }
+
+    public void setWarmUpStatements(List<String> warmUpStatements) {
+        this.warmUpStatements = warmUpStatements;
+    }
+
+    /**
+     * 获得启动时执行的预热Mapper语句ID（只会执行select语句，不带参数），它们在MyBatis初始化之后、应用就绪之前执行radial.warm-up.iterations次。
+     *
+     * @return Mapper语句ID，没有配置时返回null
+     * @since 1.4.0
+     */
+    public List<String> getWarmUpMappers() {
+        return warmUpMappers;
+    }
+
+    public void setWarmUpMappers(List<String> warmUpMappers) {
+        this.warmUpMappers = warmUpMappers;
+    }
+
+    /**
+     * 让只读副本沿用主数据源中它自己没有配置的属性。
+     *
+     * @param primary 主数据源配置
+     * @since 1.4.0
+     */
+    public void inheritFrom(RadialDataSourceProperties primary) {
+        if (getType() == null) {
+            setType(primary.getType());
+        }
+        if (getDriverClassName() == null) {
+            setDriverClassName(primary.getDriverClassName());
+        }
+        if (getUsername() == null) {
+            setUsername(primary.getUsername());
+        }
+        if (getPassword() == null) {
+            setPassword(primary.getPassword());
+        }
+        if (hikari == null) {
+            hikari = primary.getHikari();
+        }
+        if (druid == null) {
+            druid = primary.getDruid();
+        }
+        if (hibernateAfter == null) {
+            hibernateAfter = primary.getHibernateAfter();
+        }
+    }
+
 }
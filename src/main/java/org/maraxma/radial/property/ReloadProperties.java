@@ -0,0 +1,41 @@
+package org.maraxma.radial.property;
+
+import java.time.Duration;
+
+/**
+ * 数据源重新加载配置承载器。
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+public class ReloadProperties {
+
+    private boolean onEnvironmentChange = true;
+    private Duration drainTimeout = Duration.ofSeconds(30);
+
+    /**
+     * 是否在Spring Cloud的环境变更事件（EnvironmentChangeEvent）中包含radial.datasources下的配置时自动重新加载数据源（默认为true）。
+     *
+     * @return 自动重新加载则返回true
+     */
+    public boolean isOnEnvironmentChange() {
+        return onEnvironmentChange;
+    }
+
+    public void setOnEnvironmentChange(boolean onEnvironmentChange) {
+        this.onEnvironmentChange = onEnvironmentChange;
+    }
+
+    /**
+     * 获得被替换或被移除的连接池的排空超时时间（默认为30秒），超时后无论是否还有借出的连接都会关闭连接池。
+     *
+     * @return 排空超时时间
+     */
+    public Duration getDrainTimeout() {
+        return drainTimeout;
+    }
+
+    public void setDrainTimeout(Duration drainTimeout) {
+        this.drainTimeout = drainTimeout;
+    }
+}
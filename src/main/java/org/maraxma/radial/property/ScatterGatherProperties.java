@@ -0,0 +1,39 @@
+package org.maraxma.radial.property;
+
+/**
+ * 分散-聚集（{@code @UseDataSources}）配置承载器。
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+public class ScatterGatherProperties {
+
+    private int threads = 16;
+    private long timeout = 0L;
+
+    /**
+     * 获得分散-聚集所使用的最大线程数（默认为16）。
+     *
+     * @return 线程数
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * 获得等待所有数据源返回的最长时间（毫秒，默认为0，代表一直等待）。
+     *
+     * @return 超时时间
+     */
+    public long getTimeout() {
+        return timeout;
+    }
+
+    public void setTimeout(long timeout) {
+        this.timeout = timeout;
+    }
+}
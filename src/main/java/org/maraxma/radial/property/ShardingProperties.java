@@ -0,0 +1,71 @@
+package org.maraxma.radial.property;
+
+import java.util.List;
+
+import org.maraxma.radial.shard.ShardFunctionType;
+
+/**
+ * 分片组配置承载器。
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+public class ShardingProperties {
+
+    private List<String> datasources;
+    private ShardFunctionType function = ShardFunctionType.MODULO;
+    private List<Long> ranges;
+    private int virtualNodes = 160;
+
+    /**
+     * 获得分片组中的数据源（radial.datasources中的数据源标题），它们的顺序就是分片编号。
+     *
+     * @return 数据源标题
+     */
+    public List<String> getDatasources() {
+        return datasources;
+    }
+
+    public void setDatasources(List<String> datasources) {
+        this.datasources = datasources;
+    }
+
+    /**
+     * 获得分片函数（默认为MODULO）。
+     *
+     * @return 分片函数
+     */
+    public ShardFunctionType getFunction() {
+        return function;
+    }
+
+    public void setFunction(ShardFunctionType function) {
+        this.function = function;
+    }
+
+    /**
+     * 获得范围分片的边界（严格递增），数量比数据源数量少1。
+     *
+     * @return 边界
+     */
+    public List<Long> getRanges() {
+        return ranges;
+    }
+
+    public void setRanges(List<Long> ranges) {
+        this.ranges = ranges;
+    }
+
+    /**
+     * 获得一致性哈希中每个数据源的虚拟节点数（默认为160）。
+     *
+     * @return 虚拟节点数
+     */
+    public int getVirtualNodes() {
+        return virtualNodes;
+    }
+
+    public void setVirtualNodes(int virtualNodes) {
+        this.virtualNodes = virtualNodes;
+    }
+}
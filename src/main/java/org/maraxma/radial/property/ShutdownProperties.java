@@ -0,0 +1,27 @@
+package org.maraxma.radial.property;
+
+import java.time.Duration;
+
+/**
+ * 数据源关闭配置承载器。
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+public class ShutdownProperties {
+
+    private Duration timeout = Duration.ofSeconds(30);
+
+    /**
+     * 获得关闭的截止时间（默认为30秒），关闭时最多等待这么久让在途事务结束、借出的连接归还，之后所有的连接池都会被关闭。
+     *
+     * @return 截止时间
+     */
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public void setTimeout(Duration timeout) {
+        this.timeout = timeout;
+    }
+}
@@ -0,0 +1,55 @@
+package org.maraxma.radial.property;
+
+import java.time.Duration;
+
+/**
+ * 多租户配置承载器。
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+public class TenantProperties {
+
+    private int maxOpenPools = 0;
+    private Duration idleTimeout = Duration.ofMinutes(30);
+    private Duration evictionInterval = Duration.ofMinutes(1);
+
+    /**
+     * 获得租户数据源最多同时打开的连接池数量（默认为0，代表不限制），超出时按照最近最少使用的顺序关闭空闲的连接池。
+     *
+     * @return 数量
+     */
+    public int getMaxOpenPools() {
+        return maxOpenPools;
+    }
+
+    public void setMaxOpenPools(int maxOpenPools) {
+        this.maxOpenPools = maxOpenPools;
+    }
+
+    /**
+     * 获得租户连接池的空闲超时时间（默认为30分钟，为0时代表不因空闲而关闭）。
+     *
+     * @return 空闲超时时间
+     */
+    public Duration getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    public void setIdleTimeout(Duration idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    /**
+     * 获得检查空闲连接池的间隔（默认为1分钟）。
+     *
+     * @return 间隔
+     */
+    public Duration getEvictionInterval() {
+        return evictionInterval;
+    }
+
+    public void setEvictionInterval(Duration evictionInterval) {
+        this.evictionInterval = evictionInterval;
+    }
+}
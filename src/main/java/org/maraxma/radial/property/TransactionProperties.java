@@ -0,0 +1,91 @@
+package org.maraxma.radial.property;
+
+/**
+ * 可切换数据源事务配置承载器。
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+public class TransactionProperties {
+
+    private boolean parallelCompletion = false;
+    private int parallelCompletionThreads = 8;
+    private boolean skipReadOnlyCommit = false;
+    private boolean lazyConnection = false;
+    private int batchFlushSize = 1000;
+
+    /**
+     * 是否并行地提交和回滚一个事务中的多个连接（默认为false）。
+     *
+     * @return 并行则返回true
+     */
+    public boolean isParallelCompletion() {
+        return parallelCompletion;
+    }
+
+    public void setParallelCompletion(boolean parallelCompletion) {
+        this.parallelCompletion = parallelCompletion;
+    }
+
+    /**
+     * 并行提交和回滚时所使用的最大线程数（默认为8）。
+     *
+     * @return 线程数
+     */
+    public int getParallelCompletionThreads() {
+        return parallelCompletionThreads;
+    }
+
+    public void setParallelCompletionThreads(int parallelCompletionThreads) {
+        this.parallelCompletionThreads = parallelCompletionThreads;
+    }
+
+    /**
+     * 是否跳过事务中只读连接的提交（默认为false）。
+     * <p>开启后会向MyBatis注册一个拦截器，事务中的连接在第一次写操作之前才关闭自动提交，只执行过查询的连接在事务提交时直接释放，不再提交。</p>
+     * <p>限制：</p>
+     * <ul>
+     * <li>连接池需要默认开启自动提交，连接池默认关闭自动提交时所有的连接仍然会被提交；</li>
+     * <li>一个数据源上第一次写操作之前的查询以自动提交的方式执行，不受事务隔离级别的约束（例如看不到可重复读的快照）；</li>
+     * <li>绕过MyBatis直接使用会话连接执行的写操作不会被记录，它们在自动提交模式下立即生效，无法随事务回滚。</li>
+     * </ul>
+     *
+     * @return 跳过则返回true
+     */
+    public boolean isSkipReadOnlyCommit() {
+        return skipReadOnlyCommit;
+    }
+
+    public void setSkipReadOnlyCommit(boolean skipReadOnlyCommit) {
+        this.skipReadOnlyCommit = skipReadOnlyCommit;
+    }
+
+    /**
+     * 是否延迟获取物理连接（默认为false）。
+     * <p>开启后，MyBatis获取到的连接只是一个代理，直到第一次真正执行语句时才会从连接池中获取物理连接。</p>
+     *
+     * @return 延迟获取则返回true
+     */
+    public boolean isLazyConnection() {
+        return lazyConnection;
+    }
+
+    public void setLazyConnection(boolean lazyConnection) {
+        this.lazyConnection = lazyConnection;
+    }
+
+    /**
+     * 批量模式（ExecutorType.BATCH）下，同一个数据源上的同一条SQL缓冲到多少条时执行一次（默认为1000）。
+     * <p>小于1时只在查询、提交或者显式调用flushStatements时执行。</p>
+     *
+     * @return 条数
+     */
+    public int getBatchFlushSize() {
+        return batchFlushSize;
+    }
+
+    public void setBatchFlushSize(int batchFlushSize) {
+        this.batchFlushSize = batchFlushSize;
+    }
+
+}
@@ -0,0 +1,83 @@
+package org.maraxma.radial.property;
+
+import java.time.Duration;
+
+/**
+ * 启动预热配置承载器。
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+public class WarmUpProperties {
+
+    private boolean enabled = false;
+    private int parallelism = 8;
+    private boolean awaitMinimumIdle = false;
+    private Duration timeout = Duration.ofSeconds(30);
+    private int iterations = 10;
+
+    /**
+     * 是否在启动时预热所有的连接池（默认为false）。
+     *
+     * @return 预热则返回true
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * 获得预热的最大并发数（默认为8）。
+     *
+     * @return 并发数
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * 是否等待每个连接池中的连接数达到minimum-idle（默认为false）。
+     *
+     * @return 等待则返回true
+     */
+    public boolean isAwaitMinimumIdle() {
+        return awaitMinimumIdle;
+    }
+
+    public void setAwaitMinimumIdle(boolean awaitMinimumIdle) {
+        this.awaitMinimumIdle = awaitMinimumIdle;
+    }
+
+    /**
+     * 获得预热（以及等待就绪）的截止时间（默认为30秒），超过截止时间的数据源不会阻止启动。
+     *
+     * @return 截止时间
+     */
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public void setTimeout(Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    /**
+     * 获得每条预热语句的执行次数（默认为10）。
+     *
+     * @return 执行次数
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    public void setIterations(int iterations) {
+        this.iterations = iterations;
+    }
+}
@@ -0,0 +1,109 @@
+package org.maraxma.radial.resilience;
+
+import java.sql.Connection;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 隔离舱，限制同时从一个数据源中借出的连接数。
+ * <p>一个慢的数据库会让所有访问它的线程都阻塞在它的连接池上，进而耗尽整个应用的请求线程，连累同一个可切换数据源中的其他数据源。
+ * 隔离舱在请求到达连接池之前限制并发数：达到上限后，新的请求在一个有界的队列中最多等待一段时间，队列已满、等待超时或者配置了快速失败时直接拒绝。</p>
+ * <p>许可从获取连接之前一直持有到连接被关闭（归还连接池）为止（见{@link #bind(Connection)}），因此一个数据源上同时执行的工作不会超过上限，
+ * 而不仅仅是同时获取连接的线程数。没有被关闭的泄露连接会一直占用许可。</p>
+ * <p>未达到上限时获取许可只是一次无竞争的CAS。</p>
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+public class Bulkhead {
+
+    private final String name;
+    private final BulkheadConfig config;
+    private final Semaphore permits;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final LongAdder permittedCalls = new LongAdder();
+    private final LongAdder rejectedCalls = new LongAdder();
+
+    public Bulkhead(String name, BulkheadConfig config) {
+        this.name = name;
+        this.config = config;
+        this.permits = new Semaphore(config.getMaxConcurrentCalls());
+    }
+
+    /**
+     * 尝试进入隔离舱，必要时排队等待。进入成功后必须调用{@link #release()}。
+     *
+     * @return 进入成功则返回true，被拒绝则返回false
+     */
+    public boolean tryAcquire() {
+        if (permits.tryAcquire()) {
+            permittedCalls.increment();
+            return true;
+        }
+        if (config.isFailFast() || config.getMaxWaitNanos() == 0L) {
+            rejectedCalls.increment();
+            return false;
+        }
+        if (waiting.incrementAndGet() > config.getMaxWaitingCalls()) {
+            waiting.decrementAndGet();
+            rejectedCalls.increment();
+            return false;
+        }
+        try {
+            if (permits.tryAcquire(config.getMaxWaitNanos(), TimeUnit.NANOSECONDS)) {
+                permittedCalls.increment();
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            waiting.decrementAndGet();
+        }
+        rejectedCalls.increment();
+        return false;
+    }
+
+    /**
+     * 将一个获得许可之后借出的连接与许可绑定：返回的连接被关闭时离开隔离舱，无需再调用{@link #release()}。
+     *
+     * @param connection 借出的连接
+     * @return 持有许可的连接
+     * @since 1.4.0
+     */
+    public Connection bind(Connection connection) {
+        return new BulkheadConnection(this, connection).newProxy();
+    }
+
+    /**
+     * 离开隔离舱。
+     */
+    public void release() {
+        permits.release();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 获得配置。
+     *
+     * @return 配置
+     * @since 1.4.0
+     */
+    public BulkheadConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * 获得隔离舱的状态信息。
+     *
+     * @return 状态信息
+     */
+    public BulkheadInfo getInfo() {
+        return new BulkheadInfo(config.getMaxConcurrentCalls(), config.getMaxConcurrentCalls() - permits.availablePermits(), waiting.get(),
+                permittedCalls.sum(), rejectedCalls.sum());
+    }
+}
@@ -0,0 +1,70 @@
+package org.maraxma.radial.resilience;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 隔离舱配置（不可变）。
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+public final class BulkheadConfig {
+
+    private final int maxConcurrentCalls;
+    private final int maxWaitingCalls;
+    private final long maxWaitNanos;
+    private final boolean failFast;
+
+    /**
+     * 创建隔离舱配置。
+     *
+     * @param maxConcurrentCalls 最多允许多少个线程同时从数据源中获取连接
+     * @param maxWaitingCalls    达到上限后最多允许多少个线程排队等待
+     * @param maxWaitMillis      排队等待的最长时间（毫秒）
+     * @param failFast           达到上限后是否直接拒绝（不排队）
+     */
+    public BulkheadConfig(int maxConcurrentCalls, int maxWaitingCalls, long maxWaitMillis, boolean failFast) {
+        if (maxConcurrentCalls < 1 || maxWaitingCalls < 0 || maxWaitMillis < 0) {
+            throw new IllegalArgumentException("Illegal bulkhead config, max-concurrent-calls must be positive, max-waiting-calls and max-wait-duration must not be negative");
+        }
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.maxWaitingCalls = maxWaitingCalls;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        this.failFast = failFast;
+    }
+
+    public int getMaxConcurrentCalls() {
+        return maxConcurrentCalls;
+    }
+
+    public int getMaxWaitingCalls() {
+        return maxWaitingCalls;
+    }
+
+    public long getMaxWaitNanos() {
+        return maxWaitNanos;
+    }
+
+    public boolean isFailFast() {
+        return failFast;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof BulkheadConfig)) {
+            return false;
+        }
+        BulkheadConfig that = (BulkheadConfig) o;
+        return maxConcurrentCalls == that.maxConcurrentCalls && maxWaitingCalls == that.maxWaitingCalls
+                && maxWaitNanos == that.maxWaitNanos && failFast == that.failFast;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(maxConcurrentCalls, maxWaitingCalls, maxWaitNanos, failFast);
+    }
+}
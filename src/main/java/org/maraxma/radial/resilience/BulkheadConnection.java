@@ -0,0 +1,58 @@
+package org.maraxma.radial.resilience;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.jdbc.datasource.ConnectionProxy;
+
+/**
+ * 持有隔离舱许可的连接代理，连接被关闭（归还连接池）时离开隔离舱。
+ * <p>连接可能在借出它的线程之外被关闭（例如由读取游标的线程关闭），因此许可的归还只依赖于这个代理自身的状态，并且只归还一次。</p>
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+class BulkheadConnection implements InvocationHandler {
+
+    private final Bulkhead bulkhead;
+    private final Connection target;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    BulkheadConnection(Bulkhead bulkhead, Connection target) {
+        this.bulkhead = bulkhead;
+        this.target = target;
+    }
+
+    Connection newProxy() {
+        return (Connection) Proxy.newProxyInstance(ConnectionProxy.class.getClassLoader(), new Class<?>[] {ConnectionProxy.class}, this);
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return "Bulkhead connection proxy for [" + bulkhead.getName() + "]: " + target;
+            case "getTargetConnection":
+                return target;
+            default:
+                break;
+        }
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        } finally {
+            if ("close".equals(method.getName()) && released.compareAndSet(false, true)) {
+                bulkhead.release();
+            }
+        }
+    }
+}
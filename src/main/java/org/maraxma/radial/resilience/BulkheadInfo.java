@@ -0,0 +1,48 @@
+package org.maraxma.radial.resilience;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * 隔离舱状态信息。
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+public class BulkheadInfo {
+    private final int maxConcurrentCalls;
+    private final int concurrentCalls;
+    private final int waitingCalls;
+    private final long permittedCalls;
+    private final long rejectedCalls;
+
+    @ConstructorProperties({"maxConcurrentCalls", "concurrentCalls", "waitingCalls", "permittedCalls", "rejectedCalls"})
+    public BulkheadInfo(int maxConcurrentCalls, int concurrentCalls, int waitingCalls, long permittedCalls, long rejectedCalls) {
+        super();
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.concurrentCalls = concurrentCalls;
+        this.waitingCalls = waitingCalls;
+        this.permittedCalls = permittedCalls;
+        this.rejectedCalls = rejectedCalls;
+    }
+
+    public int getMaxConcurrentCalls() {
+        return maxConcurrentCalls;
+    }
+
+    public int getConcurrentCalls() {
+        return concurrentCalls;
+    }
+
+    public int getWaitingCalls() {
+        return waitingCalls;
+    }
+
+    public long getPermittedCalls() {
+        return permittedCalls;
+    }
+
+    public long getRejectedCalls() {
+        return rejectedCalls;
+    }
+
+}
@@ -0,0 +1,209 @@
+package org.maraxma.radial.resilience;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * 包裹在获取连接外面的熔断器，拥有关闭（CLOSED）、打开（OPEN）、半开（HALF_OPEN）三种状态。
+ * <ul>
+ * <li>关闭：所有调用都可以通过。每{@link CircuitBreakerConfig#getWindowSize()}次调用统计一次失败率和慢调用率，任意一个达到阈值即打开。</li>
+ * <li>打开：所有调用都被立即拒绝，不会访问连接池。持续{@link CircuitBreakerConfig#getWaitDurationInOpenStateNanos()}后进入半开状态。</li>
+ * <li>半开：只允许{@link CircuitBreakerConfig#getPermittedCallsInHalfOpenState()}次试探调用通过，它们全部完成后根据结果关闭或者重新打开。</li>
+ * </ul>
+ * <p>熔断器不使用任何锁：一个窗口中的调用次数、失败次数和慢调用次数被打包在一个long中（各21位），每次调用只需要一次原子加法，
+ * 恰好使调用次数达到窗口大小的那个线程负责统计并通过减去自己看到的快照来开始新的窗口。</p>
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+public class CircuitBreaker {
+
+    private static final Log LOG = LogFactory.getLog(CircuitBreaker.class);
+
+    /**
+     * 熔断器状态。
+     */
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private static final int FIELD_BITS = 21;
+    private static final long FIELD_MASK = (1L << FIELD_BITS) - 1;
+    private static final long ONE_CALL = 1L;
+    private static final long ONE_FAILURE = 1L << FIELD_BITS;
+    private static final long ONE_SLOW_CALL = 1L << (FIELD_BITS * 2);
+
+    private final String name;
+    private final CircuitBreakerConfig config;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicLong window = new AtomicLong();
+    private final AtomicInteger halfOpenPermits = new AtomicInteger();
+    private volatile long openedAtNanos;
+    private volatile long lastTransitionTime = System.currentTimeMillis();
+
+    private final LongAdder successfulCalls = new LongAdder();
+    private final LongAdder failedCalls = new LongAdder();
+    private final LongAdder slowCalls = new LongAdder();
+    private final LongAdder rejectedCalls = new LongAdder();
+
+    public CircuitBreaker(String name, CircuitBreakerConfig config) {
+        this.name = name;
+        this.config = config;
+    }
+
+    /**
+     * 尝试获得一次调用许可。获得许可后必须在调用结束后调用{@link #onSuccess(long)}或者{@link #onError(long)}。
+     *
+     * @return 获得许可则返回true，被拒绝则返回false
+     */
+    public boolean tryAcquirePermission() {
+        State current = state.get();
+        if (current == State.CLOSED) {
+            return true;
+        }
+        if (current == State.OPEN) {
+            if (System.nanoTime() - openedAtNanos < config.getWaitDurationInOpenStateNanos()) {
+                rejectedCalls.increment();
+                return false;
+            }
+            transition(State.OPEN, State.HALF_OPEN);
+            current = state.get();
+            if (current == State.CLOSED) {
+                return true;
+            }
+            if (current == State.OPEN) {
+                rejectedCalls.increment();
+                return false;
+            }
+        }
+        if (halfOpenPermits.getAndDecrement() > 0) {
+            return true;
+        }
+        rejectedCalls.increment();
+        return false;
+    }
+
+    /**
+     * 归还一个已经获得但是最终没有发生的调用许可（例如调用在到达连接池之前就被隔离舱拒绝了）。
+     */
+    public void releasePermission() {
+        if (state.get() == State.HALF_OPEN) {
+            halfOpenPermits.incrementAndGet();
+        }
+    }
+
+    /**
+     * 熔断器当前是否会拒绝调用（不消耗许可）。路由时据此避开熔断中的数据源。
+     *
+     * @return 会拒绝则返回true
+     */
+    public boolean isRejecting() {
+        State current = state.get();
+        if (current == State.OPEN) {
+            return System.nanoTime() - openedAtNanos < config.getWaitDurationInOpenStateNanos();
+        }
+        return current == State.HALF_OPEN && halfOpenPermits.get() <= 0;
+    }
+
+    /**
+     * 记录一次成功的调用。
+     *
+     * @param elapsedNanos 调用花费的时间（纳秒）
+     */
+    public void onSuccess(long elapsedNanos) {
+        successfulCalls.increment();
+        record(elapsedNanos, false);
+    }
+
+    /**
+     * 记录一次失败的调用。
+     *
+     * @param elapsedNanos 调用花费的时间（纳秒）
+     */
+    public void onError(long elapsedNanos) {
+        failedCalls.increment();
+        record(elapsedNanos, true);
+    }
+
+    private void record(long elapsedNanos, boolean failure) {
+        boolean slow = elapsedNanos >= config.getSlowCallDurationNanos();
+        if (slow) {
+            slowCalls.increment();
+        }
+        State current = state.get();
+        if (current == State.OPEN) {
+            // 打开之前就已经获得许可的调用，不再统计
+            return;
+        }
+        long snapshot = window.addAndGet(ONE_CALL | (failure ? ONE_FAILURE : 0L) | (slow ? ONE_SLOW_CALL : 0L));
+        int calls = (int) (snapshot & FIELD_MASK);
+        int windowSize = current == State.CLOSED ? config.getWindowSize() : config.getPermittedCallsInHalfOpenState();
+        if (calls != windowSize) {
+            return;
+        }
+        long failures = (snapshot >>> FIELD_BITS) & FIELD_MASK;
+        long slows = (snapshot >>> (FIELD_BITS * 2)) & FIELD_MASK;
+        boolean trip = failures * 100 >= (long) config.getFailureRateThreshold() * calls
+                || slows * 100 >= (long) config.getSlowCallRateThreshold() * calls;
+        if (current == State.CLOSED) {
+            if (trip) {
+                transition(State.CLOSED, State.OPEN);
+            } else {
+                // 开始新的窗口，保留在统计期间新进入的调用
+                window.addAndGet(-snapshot);
+            }
+        } else {
+            transition(State.HALF_OPEN, trip ? State.OPEN : State.CLOSED);
+        }
+    }
+
+    private void transition(State from, State to) {
+        if (to == State.OPEN) {
+            openedAtNanos = System.nanoTime();
+        } else if (to == State.HALF_OPEN) {
+            halfOpenPermits.set(config.getPermittedCallsInHalfOpenState());
+        }
+        if (state.compareAndSet(from, to)) {
+            window.set(0L);
+            lastTransitionTime = System.currentTimeMillis();
+            if (to == State.OPEN) {
+                LOG.warn("Circuit breaker of DataSource [" + name + "] is OPEN, connection requests will be rejected for " + config.getWaitDurationInOpenStateNanos() / 1_000_000L + "ms");
+            } else {
+                LOG.info("Circuit breaker of DataSource [" + name + "] is " + to);
+            }
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 获得配置。
+     *
+     * @return 配置
+     * @since 1.4.0
+     */
+    public CircuitBreakerConfig getConfig() {
+        return config;
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    /**
+     * 获得熔断器的状态信息。
+     *
+     * @return 状态信息
+     */
+    public CircuitBreakerInfo getInfo() {
+        return new CircuitBreakerInfo(state.get().name(), successfulCalls.sum(), failedCalls.sum(), slowCalls.sum(), rejectedCalls.sum(), lastTransitionTime);
+    }
+}
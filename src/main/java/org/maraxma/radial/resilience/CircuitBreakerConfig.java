@@ -0,0 +1,97 @@
+package org.maraxma.radial.resilience;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 熔断器配置（不可变）。
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+public final class CircuitBreakerConfig {
+
+    /**
+     * 统计窗口的最大调用次数。
+     */
+    static final int MAX_WINDOW_SIZE = (1 << 21) - 1;
+
+    private final int failureRateThreshold;
+    private final int slowCallRateThreshold;
+    private final long slowCallDurationNanos;
+    private final int windowSize;
+    private final long waitDurationInOpenStateNanos;
+    private final int permittedCallsInHalfOpenState;
+
+    /**
+     * 创建熔断器配置。
+     *
+     * @param failureRateThreshold          失败率阈值（百分比，1-100），达到时打开熔断器
+     * @param slowCallRateThreshold         慢调用率阈值（百分比，1-100），达到时打开熔断器
+     * @param slowCallDurationMillis        获取连接的时间达到多少毫秒视为慢调用
+     * @param windowSize                    关闭状态下每多少次调用统计一次
+     * @param waitDurationInOpenStateMillis 打开状态持续多少毫秒后进入半开状态
+     * @param permittedCallsInHalfOpenState 半开状态下允许通过的试探调用次数
+     */
+    public CircuitBreakerConfig(int failureRateThreshold, int slowCallRateThreshold, long slowCallDurationMillis, int windowSize,
+                                long waitDurationInOpenStateMillis, int permittedCallsInHalfOpenState) {
+        if (failureRateThreshold < 1 || failureRateThreshold > 100 || slowCallRateThreshold < 1 || slowCallRateThreshold > 100) {
+            throw new IllegalArgumentException("Rate thresholds of circuit breaker must be between 1 and 100");
+        }
+        if (windowSize < 1 || windowSize > MAX_WINDOW_SIZE || permittedCallsInHalfOpenState < 1 || permittedCallsInHalfOpenState > MAX_WINDOW_SIZE) {
+            throw new IllegalArgumentException("Window size and permitted calls in half-open state of circuit breaker must be between 1 and " + MAX_WINDOW_SIZE);
+        }
+        if (slowCallDurationMillis <= 0 || waitDurationInOpenStateMillis <= 0) {
+            throw new IllegalArgumentException("Durations of circuit breaker must be positive");
+        }
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.slowCallDurationNanos = TimeUnit.MILLISECONDS.toNanos(slowCallDurationMillis);
+        this.windowSize = windowSize;
+        this.waitDurationInOpenStateNanos = TimeUnit.MILLISECONDS.toNanos(waitDurationInOpenStateMillis);
+        this.permittedCallsInHalfOpenState = permittedCallsInHalfOpenState;
+    }
+
+    public int getFailureRateThreshold() {
+        return failureRateThreshold;
+    }
+
+    public int getSlowCallRateThreshold() {
+        return slowCallRateThreshold;
+    }
+
+    public long getSlowCallDurationNanos() {
+        return slowCallDurationNanos;
+    }
+
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    public long getWaitDurationInOpenStateNanos() {
+        return waitDurationInOpenStateNanos;
+    }
+
+    public int getPermittedCallsInHalfOpenState() {
+        return permittedCallsInHalfOpenState;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CircuitBreakerConfig)) {
+            return false;
+        }
+        CircuitBreakerConfig that = (CircuitBreakerConfig) o;
+        return failureRateThreshold == that.failureRateThreshold && slowCallRateThreshold == that.slowCallRateThreshold
+                && slowCallDurationNanos == that.slowCallDurationNanos && windowSize == that.windowSize
+                && waitDurationInOpenStateNanos == that.waitDurationInOpenStateNanos && permittedCallsInHalfOpenState == that.permittedCallsInHalfOpenState;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(failureRateThreshold, slowCallRateThreshold, slowCallDurationNanos, windowSize, waitDurationInOpenStateNanos, permittedCallsInHalfOpenState);
+    }
+}
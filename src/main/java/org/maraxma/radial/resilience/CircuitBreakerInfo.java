@@ -0,0 +1,54 @@
+package org.maraxma.radial.resilience;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * 熔断器状态信息。
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+public class CircuitBreakerInfo {
+    private final String state;
+    private final long successfulCalls;
+    private final long failedCalls;
+    private final long slowCalls;
+    private final long rejectedCalls;
+    private final long lastTransitionTime;
+
+    @ConstructorProperties({"state", "successfulCalls", "failedCalls", "slowCalls", "rejectedCalls", "lastTransitionTime"})
+    public CircuitBreakerInfo(String state, long successfulCalls, long failedCalls, long slowCalls, long rejectedCalls, long lastTransitionTime) {
+        super();
+        this.state = state;
+        this.successfulCalls = successfulCalls;
+        this.failedCalls = failedCalls;
+        this.slowCalls = slowCalls;
+        this.rejectedCalls = rejectedCalls;
+        this.lastTransitionTime = lastTransitionTime;
+    }
+
+    public String getState() {
+        return state;
+    }
+
+    public long getSuccessfulCalls() {
+        return successfulCalls;
+    }
+
+    public long getFailedCalls() {
+        return failedCalls;
+    }
+
+    public long getSlowCalls() {
+        return slowCalls;
+    }
+
+    public long getRejectedCalls() {
+        return rejectedCalls;
+    }
+
+    public long getLastTransitionTime() {
+        return lastTransitionTime;
+    }
+
+}
@@ -0,0 +1,82 @@
+package org.maraxma.radial.shard;
+
+import java.util.Arrays;
+
+/**
+ * 一致性哈希分片。
+ * <p>哈希环被离散为{@value #RING_SIZE}个槽位，每个数据源按照它的名称在环上放置若干个虚拟节点，每个槽位归属于顺时针方向上的第一个虚拟节点。
+ * 槽位到分片的映射表在创建时一次性计算好，运行时只需要一次哈希和一次数组下标访问。
+ * 由于虚拟节点的位置只取决于数据源名称，增加或者移除一个数据源只会影响与它相邻的槽位。</p>
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+class ConsistentHashShardFunction implements ShardFunction {
+
+    static final int RING_SIZE = 1 << 16;
+
+    private final int[] ring = new int[RING_SIZE];
+
+    ConsistentHashShardFunction(String groupName, String[] dataSourceNames, int virtualNodes) {
+        if (dataSourceNames.length == 0) {
+            throw new IllegalArgumentException("The shard group [" + groupName + "] has no datasource");
+        }
+        if (virtualNodes <= 0) {
+            throw new IllegalArgumentException("The virtual nodes of shard group [" + groupName + "] must be positive: " + virtualNodes);
+        }
+        // 虚拟节点所在的槽位，-1代表这个槽位上没有虚拟节点
+        int[] owners = new int[RING_SIZE];
+        Arrays.fill(owners, -1);
+        for (int i = 0; i < dataSourceNames.length; i++) {
+            for (int v = 0; v < virtualNodes; v++) {
+                int slot = slotOf(fnv1a(dataSourceNames[i] + "#" + v));
+                // 槽位冲突时名称较小的数据源优先，保证结果与数据源的配置顺序无关
+                if (owners[slot] == -1 || dataSourceNames[i].compareTo(dataSourceNames[owners[slot]]) < 0) {
+                    owners[slot] = i;
+                }
+            }
+        }
+        // 环尾部（最后一个虚拟节点之后）的槽位绕回归属于环上位置最小的虚拟节点
+        int next = -1;
+        for (int slot = 0; slot < RING_SIZE && next == -1; slot++) {
+            next = owners[slot];
+        }
+        // 从环尾向环首填充：每个槽位归属于它之后（含自身）的第一个虚拟节点
+        for (int slot = RING_SIZE - 1; slot >= 0; slot--) {
+            if (owners[slot] != -1) {
+                next = owners[slot];
+            }
+            ring[slot] = next;
+        }
+    }
+
+    @Override
+    public int shard(Object shardKey) {
+        return ring[slotOf(ShardFunction.hash(shardKey))];
+    }
+
+    private static int slotOf(long hash) {
+        return (int) (mix(hash) >>> 48);
+    }
+
+    /**
+     * MurmurHash3的64位终结函数，让相邻的键均匀分布到整个环上。
+     */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static long fnv1a(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
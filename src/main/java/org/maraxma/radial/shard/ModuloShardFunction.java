@@ -0,0 +1,24 @@
+package org.maraxma.radial.shard;
+
+/**
+ * 取模分片：分片编号为分片键（见{@link ShardFunction#hash(Object)}）对分片数取模的结果（总是非负的）。
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+class ModuloShardFunction implements ShardFunction {
+
+    private final long shardCount;
+
+    ModuloShardFunction(int shardCount) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("The shard count must be positive: " + shardCount);
+        }
+        this.shardCount = shardCount;
+    }
+
+    @Override
+    public int shard(Object shardKey) {
+        return (int) Math.floorMod(ShardFunction.hash(shardKey), shardCount);
+    }
+}
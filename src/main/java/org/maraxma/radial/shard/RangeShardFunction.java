@@ -0,0 +1,34 @@
+package org.maraxma.radial.shard;
+
+import java.util.Arrays;
+
+/**
+ * 范围分片：第i个分片保存[bounds[i-1], bounds[i])范围内的键，最后一个分片保存大于等于最后一个边界的键，第一个分片保存小于第一个边界的键。
+ * <p>边界在创建时被校验为严格递增的，运行时通过一次二分查找定位分片。</p>
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+class RangeShardFunction implements ShardFunction {
+
+    private final long[] bounds;
+
+    RangeShardFunction(String groupName, int shardCount, long[] bounds) {
+        if (bounds == null || bounds.length != shardCount - 1) {
+            throw new IllegalArgumentException("The shard group [" + groupName + "] has " + shardCount + " datasource(s), so it needs exactly " + (shardCount - 1) + " range bound(s), but got " + (bounds == null ? 0 : bounds.length));
+        }
+        for (int i = 1; i < bounds.length; i++) {
+            if (bounds[i] <= bounds[i - 1]) {
+                throw new IllegalArgumentException("The range bounds of shard group [" + groupName + "] must be strictly increasing: " + Arrays.toString(bounds));
+            }
+        }
+        this.bounds = bounds.clone();
+    }
+
+    @Override
+    public int shard(Object shardKey) {
+        int index = Arrays.binarySearch(bounds, ShardFunction.hash(shardKey));
+        // 等于边界的键属于边界右侧的分片；未找到时binarySearch返回-(插入点)-1，插入点就是分片编号
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+}
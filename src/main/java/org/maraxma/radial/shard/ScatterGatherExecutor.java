@@ -0,0 +1,209 @@
+package org.maraxma.radial.shard;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.maraxma.radial.datasource.DataSourceContextHolder;
+import org.springframework.beans.factory.DisposableBean;
+
+/**
+ * 分散-聚集执行器，它把同一个调用并行地在多个数据源上各执行一次，然后合并它们返回的列表。
+ * <p>每个数据源上的调用运行在一个有界的线程池中，执行之前在工作线程上压入对应数据源的路由帧，执行之后恢复，因此工作线程之间、工作线程与调用方之间都不会互相影响。
+ * 线程池满时调用方线程会阻塞等待队列中的空位，总耗时取决于最慢的数据源而不是所有数据源的耗时之和。</p>
+ * <p>所有的调用都运行在工作线程上，不参与调用方的事务（也不继承调用方事务的只读标记），每个数据源上的调用都是独立的。</p>
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+public class ScatterGatherExecutor implements DisposableBean {
+
+    private final ThreadPoolExecutor executor;
+
+    private final long timeoutMillis;
+
+    /**
+     * 创建一个分散-聚集执行器。
+     *
+     * @param threads       最大线程数
+     * @param timeoutMillis 等待所有数据源返回的最长时间（毫秒），小于1时代表一直等待
+     */
+    public ScatterGatherExecutor(int threads, long timeoutMillis) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("The threads of scatter-gather executor must be positive: " + threads);
+        }
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(threads * 64), r -> {
+            Thread thread = new Thread(r, "radial-scatter-gather-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, (task, pool) -> {
+            // 不能由调用方线程执行，否则调用会加入调用方的事务，这里阻塞等待队列中的空位
+            if (pool.isShutdown()) {
+                throw new RejectedExecutionException("The scatter-gather executor has been shut down");
+            }
+            try {
+                pool.getQueue().put(task);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RejectedExecutionException("Interrupted while waiting for the scatter-gather executor", e);
+            }
+            if (pool.isShutdown() && pool.remove(task)) {
+                throw new RejectedExecutionException("The scatter-gather executor has been shut down");
+            }
+        });
+        this.executor.allowCoreThreadTimeOut(true);
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * 在多个数据源上并行执行调用，并按照数据源的顺序拼接结果。
+     *
+     * @param dataSourceNames 数据源名称
+     * @param readOnly        调用中的操作是否是只读的
+     * @param call            调用，参数为当前所使用的数据源名称
+     * @param <T>             元素类型
+     * @return 合并后的结果
+     */
+    public <T> List<T> execute(Collection<String> dataSourceNames, boolean readOnly, Function<String, ? extends Collection<? extends T>> call) {
+        return execute(dataSourceNames, readOnly, call, null, -1);
+    }
+
+    /**
+     * 在多个数据源上并行执行调用，合并结果后排序并截取。
+     *
+     * @param dataSourceNames 数据源名称
+     * @param readOnly        调用中的操作是否是只读的
+     * @param call            调用，参数为当前所使用的数据源名称
+     * @param comparator      排序器，为null时不排序（按照数据源的顺序拼接）
+     * @param limit           最多保留的元素数量，小于0时不限制
+     * @param <T>             元素类型
+     * @return 合并后的结果
+     */
+    public <T> List<T> execute(Collection<String> dataSourceNames, boolean readOnly, Function<String, ? extends Collection<? extends T>> call,
+                               Comparator<? super T> comparator, int limit) {
+        List<Collection<? extends T>> results = scatter(dataSourceNames, readOnly, call);
+        List<T> merged = new ArrayList<>(results.stream().mapToInt(r -> r == null ? 0 : r.size()).sum());
+        for (Collection<? extends T> result : results) {
+            if (result != null) {
+                merged.addAll(result);
+            }
+        }
+        if (comparator != null) {
+            merged.sort(comparator);
+        }
+        if (limit >= 0 && merged.size() > limit) {
+            return new ArrayList<>(merged.subList(0, limit));
+        }
+        return merged;
+    }
+
+    /**
+     * 在多个数据源上并行执行调用，返回每个数据源上的结果（顺序与数据源名称的顺序相同）。
+     * <p>任意一个调用失败时，取消其余尚未完成的调用，并抛出第一个失败的异常（其他异常作为被抑制的异常附加在上面）。</p>
+     *
+     * @param dataSourceNames 数据源名称
+     * @param readOnly        调用中的操作是否是只读的
+     * @param call            调用，参数为当前所使用的数据源名称
+     * @param <R>             结果类型
+     * @return 每个数据源上的结果
+     */
+    public <R> List<R> scatter(Collection<String> dataSourceNames, boolean readOnly, Function<String, ? extends R> call) {
+        if (dataSourceNames.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> names = new ArrayList<>(dataSourceNames);
+        List<Future<R>> futures = new ArrayList<>(names.size());
+        // 所有的数据源都交给工作线程执行，在调用方线程中执行的调用会加入调用方的事务
+        try {
+            for (String name : names) {
+                futures.add(executor.submit(() -> callOn(name, readOnly, call)));
+            }
+        } catch (RejectedExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw e;
+        }
+        List<R> results = new ArrayList<>(names.size());
+        RuntimeException failure = null;
+        long deadline = timeoutMillis > 0 ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis) : 0L;
+        boolean interrupted = false;
+        for (int i = 0; i < futures.size(); i++) {
+            Future<R> future = futures.get(i);
+            if (failure != null) {
+                future.cancel(true);
+            }
+            R result = null;
+            while (true) {
+                try {
+                    result = deadline == 0L ? future.get() : future.get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (CancellationException e) {
+                    break;
+                } catch (ExecutionException e) {
+                    failure = merge(failure, unwrap(names.get(i), e.getCause()));
+                    break;
+                } catch (TimeoutException e) {
+                    future.cancel(true);
+                    failure = merge(failure, new IllegalStateException("Timed out after " + timeoutMillis + "ms waiting for datasource [" + names.get(i) + "]"));
+                    break;
+                }
+            }
+            results.add(result);
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return results;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private static <R> R callOn(String dataSourceName, boolean readOnly, Function<String, ? extends R> call) {
+        int depth = DataSourceContextHolder.pushDataSourceName(dataSourceName, readOnly);
+        try {
+            return call.apply(dataSourceName);
+        } finally {
+            DataSourceContextHolder.popDataSourceName(depth);
+        }
+    }
+
+    private static RuntimeException unwrap(String dataSourceName, Throwable cause) {
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return new IllegalStateException("Something wrong with your DataSource [" + dataSourceName + "]", cause);
+    }
+
+    private static RuntimeException merge(RuntimeException first, RuntimeException next) {
+        if (first == null) {
+            return next;
+        }
+        if (first != next) {
+            first.addSuppressed(next);
+        }
+        return first;
+    }
+}
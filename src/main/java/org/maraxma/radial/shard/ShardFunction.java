@@ -0,0 +1,38 @@
+package org.maraxma.radial.shard;
+
+/**
+ * 分片函数，它把分片键映射为分片组中的一个数据源编号。
+ * <p>分片函数在创建时预先计算好所有的查找表，{@link #shard(Object)}在运行时只做一次哈希和一次数组（或二分）查找，并且必须是线程安全的。</p>
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+@FunctionalInterface
+public interface ShardFunction {
+
+    /**
+     * 计算分片键所在的分片。
+     *
+     * @param shardKey 分片键，不会为null
+     * @return 分片编号，从0开始，必须小于分片组中的数据源数量
+     */
+    int shard(Object shardKey);
+
+    /**
+     * 将分片键转换为一个长整数。
+     * <p>整数类型的键直接使用它的值，字符串使用{@link String#hashCode()}，其他对象使用它的{@link Object#hashCode()}。
+     * 这个转换在不同的JVM之间是稳定的（其他对象取决于它的hashCode实现）。</p>
+     *
+     * @param shardKey 分片键
+     * @return 长整数
+     */
+    static long hash(Object shardKey) {
+        if (shardKey instanceof Number) {
+            return ((Number) shardKey).longValue();
+        }
+        if (shardKey instanceof CharSequence) {
+            return shardKey.toString().hashCode();
+        }
+        return shardKey.hashCode();
+    }
+}
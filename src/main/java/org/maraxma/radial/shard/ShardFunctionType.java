@@ -0,0 +1,45 @@
+package org.maraxma.radial.shard;
+
+/**
+ * 内置的分片函数。
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+public enum ShardFunctionType {
+
+    /**
+     * 取模，分片编号为分片键对数据源数量取模的结果。
+     */
+    MODULO,
+
+    /**
+     * 范围，按照配置的边界（ranges）划分分片键。
+     */
+    RANGE,
+
+    /**
+     * 一致性哈希，增加或者移除数据源时只有少量的键会改变分片。
+     */
+    CONSISTENT_HASH;
+
+    /**
+     * 创建分片函数。
+     *
+     * @param groupName       分片组名称
+     * @param dataSourceNames 分片组中的数据源名称（按分片编号排列）
+     * @param rangeBounds     范围分片的边界（仅{@link #RANGE}使用），数量必须比数据源数量少1
+     * @param virtualNodes    每个数据源的虚拟节点数（仅{@link #CONSISTENT_HASH}使用）
+     * @return 分片函数
+     */
+    public ShardFunction create(String groupName, String[] dataSourceNames, long[] rangeBounds, int virtualNodes) {
+        switch (this) {
+            case RANGE:
+                return new RangeShardFunction(groupName, dataSourceNames.length, rangeBounds);
+            case CONSISTENT_HASH:
+                return new ConsistentHashShardFunction(groupName, dataSourceNames, virtualNodes);
+            default:
+                return new ModuloShardFunction(dataSourceNames.length);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package org.maraxma.radial.shard;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 分片路由器，它根据分片键在一个分片组中选择一个数据源。
+ * <p>分片组在启动时注册，注册时传入的分片函数已经预先计算好了查找表，因此选择一个数据源只需要一次哈希和一次数组访问。
+ * 注册使用写时复制，运行时的路由不需要任何锁。</p>
+ * <p>除了配置文件中的分片组（radial.sharding）之外，也可以通过{@link #register(String, List, ShardFunction)}注册使用自定义分片函数的分片组。</p>
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+public class ShardingRouter {
+
+    private volatile Map<String, ShardGroup> groups = Collections.emptyMap();
+
+    /**
+     * 注册（或者替换）一个分片组。
+     *
+     * @param groupName       分片组名称
+     * @param dataSourceNames 分片组中的数据源名称，按分片编号排列
+     * @param function        分片函数
+     */
+    public synchronized void register(String groupName, List<String> dataSourceNames, ShardFunction function) {
+        if (dataSourceNames == null || dataSourceNames.isEmpty()) {
+            throw new IllegalArgumentException("The shard group [" + groupName + "] has no datasource");
+        }
+        Map<String, ShardGroup> copy = new HashMap<>(groups);
+        copy.put(groupName, new ShardGroup(dataSourceNames.toArray(new String[0]), function));
+        groups = copy;
+    }
+
+    /**
+     * 根据分片键选择数据源。
+     *
+     * @param groupName 分片组名称
+     * @param shardKey  分片键
+     * @return 数据源名称
+     */
+    public String route(String groupName, Object shardKey) {
+        ShardGroup group = groups.get(groupName);
+        if (group == null) {
+            throw new IllegalStateException("Cannot find shard group named [" + groupName + "], available shard group(s): " + groups.keySet());
+        }
+        if (shardKey == null) {
+            throw new IllegalArgumentException("The shard key of shard group [" + groupName + "] cannot be null");
+        }
+        int shard = group.function.shard(shardKey);
+        if (shard < 0 || shard >= group.dataSourceNames.length) {
+            throw new IllegalStateException("The shard function of shard group [" + groupName + "] returned an invalid shard " + shard + " for key: " + shardKey);
+        }
+        return group.dataSourceNames[shard];
+    }
+
+    /**
+     * 获得所有分片组的名称。
+     *
+     * @return 分片组名称
+     */
+    public Set<String> getGroupNames() {
+        return Collections.unmodifiableSet(groups.keySet());
+    }
+
+    /**
+     * 获得分片组中的数据源名称。
+     *
+     * @param groupName 分片组名称
+     * @return 数据源名称（按分片编号排列），分片组不存在时返回空列表
+     */
+    public List<String> getDataSourceNames(String groupName) {
+        ShardGroup group = groups.get(groupName);
+        return group == null ? Collections.emptyList() : Collections.unmodifiableList(Arrays.asList(group.dataSourceNames));
+    }
+
+    private static final class ShardGroup {
+
+        private final String[] dataSourceNames;
+        private final ShardFunction function;
+
+        ShardGroup(String[] dataSourceNames, ShardFunction function) {
+            this.dataSourceNames = dataSourceNames;
+            this.function = function;
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package org.maraxma.radial.transaction;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.BatchExecutor;
+import org.apache.ibatis.executor.BatchExecutorException;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.executor.CachingExecutor;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Plugin;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.reflection.SystemMetaObject;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.transaction.Transaction;
+
+import org.maraxma.radial.datasource.SwitchableDataSource;
+
+/**
+ * 可切换数据源批量模式拦截器。
+ * <p>MyBatis自带的{@link BatchExecutor}只会把连续的、SQL相同的语句合并为一批，并且认为会话背后的连接是不变的，
+ * 因此在可切换数据源下交替访问多个数据源时，语句可能会被加入到另一个数据源的批次中，批次也会被切得很碎。</p>
+ * <p>这个拦截器只作用于批量模式（{@code ExecutorType.BATCH}）的会话，它按照“数据源+SQL”对语句分组，每一组使用一个独立的{@link BatchExecutor}缓冲，
+ * 一组中缓冲的语句达到阈值时单独执行这一组，其余的在查询、提交或者显式调用{@code flushStatements()}时执行。
+ * {@code flushStatements()}返回的结果是{@link SwitchableDataSourceBatchResult}，可以用{@link SwitchableDataSourceBatchResult#countByDataSource(List)}按数据源汇总更新行数。</p>
+ * <p>到达阈值或者查询之前执行的结果会保留到下一次{@code flushStatements()}时一并返回；提交时还没有被取走的结果中如果有执行失败（{@link Statement#EXECUTE_FAILED}）的语句，
+ * 那么会抛出{@link BatchExecutorException}而不会提交。</p>
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+@Intercepts({
+        @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}),
+        @Signature(type = Executor.class, method = "query", args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+        @Signature(type = Executor.class, method = "query", args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class, CacheKey.class, BoundSql.class}),
+        @Signature(type = Executor.class, method = "queryCursor", args = {MappedStatement.class, Object.class, RowBounds.class}),
+        @Signature(type = Executor.class, method = "flushStatements", args = {}),
+        @Signature(type = Executor.class, method = "commit", args = {boolean.class}),
+        @Signature(type = Executor.class, method = "rollback", args = {boolean.class}),
+        @Signature(type = Executor.class, method = "close", args = {boolean.class})
+})
+public class SwitchableDataSourceBatchInterceptor implements Interceptor {
+
+    private final int flushSize;
+    private final Executor executor;
+    private final Map<BatchKey, Batch> batches = new LinkedHashMap<>();
+    private final List<BatchResult> flushedResults = new ArrayList<>();
+
+    /**
+     * 创建批量模式拦截器。
+     *
+     * @param flushSize 一组语句缓冲到多少条时执行这一组，小于1时只在查询、提交或者显式刷新时执行
+     */
+    public SwitchableDataSourceBatchInterceptor(int flushSize) {
+        this(flushSize, null);
+    }
+
+    private SwitchableDataSourceBatchInterceptor(int flushSize, Executor executor) {
+        this.flushSize = flushSize;
+        this.executor = executor;
+    }
+
+    @Override
+    public Object plugin(Object target) {
+        // 每个批量模式的会话使用一个独立的拦截器实例来保存它自己的缓冲，非批量模式的会话不做任何包装
+        if (executor == null && target instanceof Executor && isBatchExecutor(target)) {
+            return Plugin.wrap(target, new SwitchableDataSourceBatchInterceptor(flushSize, (Executor) target));
+        }
+        return target;
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        if (executor == null || !(executor.getTransaction() instanceof SwitchableDataSourceTransaction)) {
+            return invocation.proceed();
+        }
+        switch (invocation.getMethod().getName()) {
+            case "update":
+                return update((MappedStatement) invocation.getArgs()[0], invocation.getArgs()[1]);
+            case "flushStatements":
+                List<BatchResult> results = flushAll(false);
+                @SuppressWarnings("unchecked")
+                List<BatchResult> delegateResults = (List<BatchResult>) invocation.proceed();
+                results.addAll(delegateResults);
+                return results;
+            case "rollback":
+            case "close":
+                // 回滚或者关闭时丢弃还没有执行的语句
+                flushAll(true);
+                return invocation.proceed();
+            case "commit":
+                // 提交之前需要执行所有缓冲的语句，驱动在出错后继续执行了剩余语句时，失败只体现在更新行数中
+                checkResults(flushAll(false));
+                return invocation.proceed();
+            default:
+                // 查询之前需要执行缓冲的语句，保证能读到自己的写入
+                flushedResults.addAll(flushAll(false));
+                return invocation.proceed();
+        }
+    }
+
+    private int update(MappedStatement mappedStatement, Object parameter) throws SQLException {
+        Transaction transaction = executor.getTransaction();
+        String dataSourceName = ((SwitchableDataSource) ((SwitchableDataSourceTransaction) transaction).getDataSource()).getCurrentDataSourceName();
+        // 绕过了外层执行器的update，因此需要自行清理缓存
+        executor.clearLocalCache();
+        if (mappedStatement.getCache() != null && mappedStatement.isFlushCacheRequired()) {
+            mappedStatement.getCache().clear();
+        }
+        String sql = mappedStatement.getBoundSql(parameter).getSql();
+        BatchKey key = new BatchKey(dataSourceName, sql);
+        Batch batch = batches.computeIfAbsent(key, k -> new Batch(new BatchExecutor(mappedStatement.getConfiguration(), new SharedTransaction(transaction))));
+        batch.executor.update(mappedStatement, parameter);
+        if (flushSize > 0 && ++batch.pending >= flushSize) {
+            flush(key, batch, false, flushedResults);
+        }
+        return BatchExecutor.BATCH_UPDATE_RETURN_VALUE;
+    }
+
+    private List<BatchResult> flushAll(boolean isRollback) throws SQLException {
+        List<BatchResult> results = new ArrayList<>(flushedResults);
+        flushedResults.clear();
+        try {
+            for (Iterator<Map.Entry<BatchKey, Batch>> it = batches.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<BatchKey, Batch> entry = it.next();
+                it.remove();
+                try {
+                    flush(entry.getKey(), entry.getValue(), isRollback, results);
+                } finally {
+                    entry.getValue().executor.close(false);
+                }
+            }
+        } finally {
+            if (!batches.isEmpty()) {
+                // 执行出错，剩下的语句全部丢弃
+                for (Batch batch : batches.values()) {
+                    batch.executor.close(false);
+                }
+                batches.clear();
+            }
+        }
+        return results;
+    }
+
+    private static void checkResults(List<BatchResult> results) throws BatchExecutorException {
+        for (int i = 0; i < results.size(); i++) {
+            BatchResult result = results.get(i);
+            for (int updateCount : result.getUpdateCounts()) {
+                if (updateCount == Statement.EXECUTE_FAILED) {
+                    String dataSourceName = result instanceof SwitchableDataSourceBatchResult ? ((SwitchableDataSourceBatchResult) result).getDataSourceName() : null;
+                    String message = result.getMappedStatement().getId() + " (batch index #" + (i + 1) + ") failed on DataSource [" + dataSourceName + "].";
+                    throw new BatchExecutorException(message, new BatchUpdateException(message, result.getUpdateCounts()), results.subList(0, i), result);
+                }
+            }
+        }
+    }
+
+    private static void flush(BatchKey key, Batch batch, boolean isRollback, List<BatchResult> results) throws SQLException {
+        batch.pending = 0;
+        for (BatchResult result : batch.executor.flushStatements(isRollback)) {
+            results.add(new SwitchableDataSourceBatchResult(key.dataSourceName, result));
+        }
+    }
+
+    private static boolean isBatchExecutor(Object target) {
+        if (target instanceof CachingExecutor) {
+            target = SystemMetaObject.forObject(target).getValue("delegate");
+        }
+        return target instanceof BatchExecutor;
+    }
+
+    @Override
+    public void setProperties(Properties properties) {
+
+    }
+
+    /**
+     * 分组执行器使用的会话事务视图，事务的提交、回滚和关闭只由会话自身的执行器负责，分组执行器被关闭时不会影响会话。
+     */
+    private static final class SharedTransaction implements Transaction {
+
+        private final Transaction transaction;
+
+        SharedTransaction(Transaction transaction) {
+            this.transaction = transaction;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return transaction.getConnection();
+        }
+
+        @Override
+        public void commit() {
+
+        }
+
+        @Override
+        public void rollback() {
+
+        }
+
+        @Override
+        public void close() {
+
+        }
+
+        @Override
+        public Integer getTimeout() throws SQLException {
+            return transaction.getTimeout();
+        }
+    }
+
+    private static final class Batch {
+
+        private final BatchExecutor executor;
+        private int pending;
+
+        Batch(BatchExecutor executor) {
+            this.executor = executor;
+        }
+    }
+
+    private static final class BatchKey {
+
+        private final String dataSourceName;
+        private final String sql;
+
+        BatchKey(String dataSourceName, String sql) {
+            this.dataSourceName = dataSourceName;
+            this.sql = sql;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof BatchKey)) {
+                return false;
+            }
+            BatchKey other = (BatchKey) o;
+            return dataSourceName.equals(other.dataSourceName) && sql.equals(other.sql);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(dataSourceName, sql);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.maraxma.radial.transaction;
+
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.mapping.MappedStatement;
+
+/**
+ * 带有数据源名称的批量执行结果。
+ * <p>可切换数据源的批量模式下，{@code SqlSession.flushStatements()}返回的每一个结果都是这个类的实例。</p>
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+public class SwitchableDataSourceBatchResult extends BatchResult {
+
+    private final String dataSourceName;
+
+    public SwitchableDataSourceBatchResult(String dataSourceName, BatchResult result) {
+        super(result.getMappedStatement(), result.getSql());
+        this.dataSourceName = dataSourceName;
+        result.getParameterObjects().forEach(this::addParameterObject);
+        setUpdateCounts(result.getUpdateCounts());
+    }
+
+    public SwitchableDataSourceBatchResult(String dataSourceName, MappedStatement mappedStatement, String sql) {
+        super(mappedStatement, sql);
+        this.dataSourceName = dataSourceName;
+    }
+
+    /**
+     * 获得执行这一批语句的数据源名称。
+     *
+     * @return 数据源名称
+     */
+    public String getDataSourceName() {
+        return dataSourceName;
+    }
+
+    /**
+     * 按数据源汇总批量执行结果中的更新行数。
+     * <p>驱动没有返回具体行数（{@link Statement#SUCCESS_NO_INFO}）或者执行失败（{@link Statement#EXECUTE_FAILED}）的语句不计入。</p>
+     *
+     * @param results {@code SqlSession.flushStatements()}的返回值
+     * @return 数据源名称与更新行数的映射，不是由可切换数据源批量模式产生的结果被汇总在null键下
+     */
+    public static Map<String, Long> countByDataSource(List<BatchResult> results) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (BatchResult result : results) {
+            String dataSourceName = result instanceof SwitchableDataSourceBatchResult ? ((SwitchableDataSourceBatchResult) result).getDataSourceName() : null;
+            long count = 0L;
+            if (result.getUpdateCounts() != null) {
+                for (int updateCount : result.getUpdateCounts()) {
+                    if (updateCount > 0) {
+                        count += updateCount;
+                    }
+                }
+            }
+            counts.merge(dataSourceName, count, Long::sum);
+        }
+        return counts;
+    }
+
+    @Override
+    public String toString() {
+        return "SwitchableDataSourceBatchResult [dataSourceName=" + dataSourceName + ", sql=" + getSql() + "]";
+    }
+}
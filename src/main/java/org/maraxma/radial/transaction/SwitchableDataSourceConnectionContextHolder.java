@@ -1,8 +1,13 @@
 package org.maraxma.radial.transaction;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.maraxma.radial.datasource.InFlightTransactionTracker;
 
 import org.springframework.beans.BeanUtils;
 import org.springframework.transaction.TransactionDefinition;
@@ -20,6 +25,19 @@ public class SwitchableDataSourceConnectionContextHolder {
     private static final ThreadLocal<List<SwitchableDataSourceConnectionHolder>> TRANSACTIONAL_CONNECTION_HOLDER = ThreadLocal.withInitial(ArrayList::new);
     private static final ThreadLocal<Boolean> IS_TRANSACTIONAL = ThreadLocal.withInitial(() -> false);
     private static final ThreadLocal<TransactionDefinition> TRANSACTION_DEFINITION = ThreadLocal.withInitial(() -> null);
+    private static final ThreadLocal<Deque<SuspendedState>> SUSPENDED_STATES = ThreadLocal.withInitial(ArrayDeque::new);
+    private static final AtomicInteger IN_FLIGHT_TRANSACTIONS = new AtomicInteger();
+    private static final InFlightTransactionTracker IN_FLIGHT_TRACKER = new InFlightTransactionTracker() {
+        @Override
+        public int getInFlightCount() {
+            return IN_FLIGHT_TRANSACTIONS.get();
+        }
+
+        @Override
+        public boolean isInFlight() {
+            return isTransactional() || getSuspendedCount() > 0;
+        }
+    };
 
     /**
      * 获得当前上下文中存在的连接信息（内部方法）。
@@ -136,6 +154,89 @@ public class SwitchableDataSourceConnectionContextHolder {
         TRANSACTION_METADATA.set(metaData);
     }
 
+    /**
+     * 挂起当前的事务状态（连接、事务标记、事务定义、事务附加数据），将其压入当前线程的挂起栈中，并将上下文重置为非事务性的。
+     * <p>挂起之后开启的新事务会获取新的连接，与被挂起的事务互不影响。</p>
+     *
+     * @return 被挂起的状态，恢复时需要传入
+     * @since 1.4.0
+     */
+    static Object suspend() {
+        SuspendedState state = new SuspendedState(TRANSACTIONAL_CONNECTION_HOLDER.get(), IS_TRANSACTIONAL.get(), TRANSACTION_DEFINITION.get(), TRANSACTION_METADATA.get());
+        SUSPENDED_STATES.get().push(state);
+        TRANSACTIONAL_CONNECTION_HOLDER.set(new ArrayList<>());
+        IS_TRANSACTIONAL.set(false);
+        TRANSACTION_DEFINITION.set(null);
+        TRANSACTION_METADATA.set(null);
+        return state;
+    }
+
+    /**
+     * 恢复被挂起的事务状态。
+     *
+     * @param suspended {@link #suspend()}的返回值，它必须位于挂起栈的栈顶
+     * @since 1.4.0
+     */
+    static void resume(Object suspended) {
+        Deque<SuspendedState> states = SUSPENDED_STATES.get();
+        if (states.peek() != suspended) {
+            throw new IllegalStateException("Unbalanced transaction suspension, the resuming state is not the last suspended one");
+        }
+        SuspendedState state = states.pop();
+        TRANSACTIONAL_CONNECTION_HOLDER.set(state.connections);
+        IS_TRANSACTIONAL.set(state.transactional);
+        TRANSACTION_DEFINITION.set(state.definition);
+        TRANSACTION_METADATA.set(state.metaData);
+    }
+
+    /**
+     * 获得当前线程中被挂起的事务数量。
+     *
+     * @return 被挂起的事务数量
+     * @since 1.4.0
+     */
+    public static int getSuspendedCount() {
+        return SUSPENDED_STATES.get().size();
+    }
+
+    /**
+     * 记录一个事务的开始（内部方法），必须与{@link #transactionCompleted()}成对调用。
+     *
+     * @since 1.4.0
+     */
+    static void transactionBegun() {
+        IN_FLIGHT_TRANSACTIONS.incrementAndGet();
+    }
+
+    /**
+     * 记录一个事务的结束（内部方法）。
+     *
+     * @since 1.4.0
+     */
+    static void transactionCompleted() {
+        IN_FLIGHT_TRANSACTIONS.decrementAndGet();
+    }
+
+    /**
+     * 获得所有线程中尚未结束的事务数量（包括被挂起的事务）。
+     *
+     * @return 事务数量
+     * @since 1.4.0
+     */
+    public static int getInFlightTransactionCount() {
+        return IN_FLIGHT_TRANSACTIONS.get();
+    }
+
+    /**
+     * 获得在途事务跟踪器，可切换数据源在关闭时通过它等待事务结束。
+     *
+     * @return 在途事务跟踪器
+     * @since 1.4.0
+     */
+    public static InFlightTransactionTracker getInFlightTracker() {
+        return IN_FLIGHT_TRACKER;
+    }
+
     /**
      * 获得可切换数据源事务附加数据（内部使用，获得到的附加数据可修改）。
      *
@@ -144,4 +245,22 @@ public class SwitchableDataSourceConnectionContextHolder {
     static SwitchableDataSourceTransactionMetaData getInternalTransactionMetadata() {
         return TRANSACTION_METADATA.get();
     }
-}
\ No newline at end of file
+
+    /**
+     * 被挂起的事务状态。
+     */
+    private static final class SuspendedState {
+
+        private final List<SwitchableDataSourceConnectionHolder> connections;
+        private final boolean transactional;
+        private final TransactionDefinition definition;
+        private final SwitchableDataSourceTransactionMetaData metaData;
+
+        SuspendedState(List<SwitchableDataSourceConnectionHolder> connections, boolean transactional, TransactionDefinition definition, SwitchableDataSourceTransactionMetaData metaData) {
+            this.connections = connections;
+            this.transactional = transactional;
+            this.definition = definition;
+            this.metaData = metaData;
+        }
+    }
+}
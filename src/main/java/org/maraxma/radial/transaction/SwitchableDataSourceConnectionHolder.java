@@ -1,6 +1,7 @@
 package org.maraxma.radial.transaction;
 
 import java.sql.Connection;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.springframework.jdbc.datasource.ConnectionHandle;
 import org.springframework.jdbc.datasource.ConnectionHolder;
@@ -18,6 +19,11 @@ public class SwitchableDataSourceConnectionHolder extends ConnectionHolder {
     private boolean settingsReady = false;
     private boolean mustRestoreAutoCommit;
     private long acquireConnectionTimeCosts;
+    private final long acquiredAtNanos = System.nanoTime();
+    private volatile boolean written;
+    private volatile boolean released;
+    private final AtomicInteger openCursors = new AtomicInteger();
+    private volatile boolean closeDeferred;
 
     public SwitchableDataSourceConnectionHolder(String dataSourceName, Connection connection, boolean transactionActive) {
         super(connection, transactionActive);
@@ -80,4 +86,73 @@ public class SwitchableDataSourceConnectionHolder extends ConnectionHolder {
         this.acquireConnectionTimeCosts = acquireConnectionTimeCosts;
     }
 
+    /**
+     * 获得这个保持器被创建（即连接被获取到）时的{@link System#nanoTime()}，用于计算连接的持有时间。
+     *
+     * @return 纳秒时间戳
+     */
+    public long getAcquiredAtNanos() {
+        return acquiredAtNanos;
+    }
+
+    /**
+     * 这个连接上是否执行过写操作（INSERT、UPDATE、DELETE或者存储过程）。
+     * <p>只有在开启了只读连接跳过提交（radial.transaction.skip-read-only-commit）时才会被记录，且只记录事务中的连接。</p>
+     *
+     * @return 执行过则返回true
+     * @since 1.4.0
+     */
+    public boolean isWritten() {
+        return written;
+    }
+
+    public void setWritten(boolean written) {
+        this.written = written;
+    }
+
+    /**
+     * 这个连接是否已经在事务结束之前被提前释放回连接池（只读连接会在事务提交时被提前释放）。
+     *
+     * @return 已释放则返回true
+     * @since 1.4.0
+     */
+    public boolean isReleased() {
+        return released;
+    }
+
+    public void setReleased(boolean released) {
+        this.released = released;
+    }
+
+    /**
+     * 获得这个连接上还没有关闭的MyBatis游标数量。有游标打开时连接不会被释放。
+     *
+     * @return 游标数量
+     * @since 1.4.0
+     */
+    public int getOpenCursorCount() {
+        return openCursors.get();
+    }
+
+    void pinCursor() {
+        openCursors.incrementAndGet();
+    }
+
+    /**
+     * 解除一个游标对连接的占用。
+     *
+     * @return 剩余的游标数量
+     */
+    int unpinCursor() {
+        return openCursors.decrementAndGet();
+    }
+
+    boolean isCloseDeferred() {
+        return closeDeferred;
+    }
+
+    void setCloseDeferred(boolean closeDeferred) {
+        this.closeDeferred = closeDeferred;
+    }
+
 }
@@ -0,0 +1,80 @@
+package org.maraxma.radial.transaction;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.ibatis.cursor.Cursor;
+
+/**
+ * 占用连接的MyBatis游标。
+ * <p>游标在被读完或者被关闭之前一直占用着它所使用的连接，在此期间关闭事务（SqlSession）不会释放这个连接，
+ * 连接会在游标被读完或者被关闭时自动释放。</p>
+ *
+ * @param <T> 元素类型
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+class SwitchableDataSourceCursor<T> implements Cursor<T> {
+
+    private final Cursor<T> delegate;
+    private final Runnable onRelease;
+    private final AtomicBoolean released = new AtomicBoolean(false);
+
+    SwitchableDataSourceCursor(Cursor<T> delegate, Runnable onRelease) {
+        this.delegate = delegate;
+        this.onRelease = onRelease;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return delegate.isOpen();
+    }
+
+    @Override
+    public boolean isConsumed() {
+        return delegate.isConsumed();
+    }
+
+    @Override
+    public int getCurrentIndex() {
+        return delegate.getCurrentIndex();
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        Iterator<T> iterator = delegate.iterator();
+        return new Iterator<T>() {
+
+            @Override
+            public boolean hasNext() {
+                boolean hasNext = iterator.hasNext();
+                if (!hasNext) {
+                    // 游标已经读完（MyBatis此时已经关闭了结果集）
+                    release();
+                }
+                return hasNext;
+            }
+
+            @Override
+            public T next() {
+                return iterator.next();
+            }
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            delegate.close();
+        } finally {
+            release();
+        }
+    }
+
+    private void release() {
+        if (released.compareAndSet(false, true)) {
+            onRelease.run();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package org.maraxma.radial.transaction;
+
+import java.sql.Statement;
+import java.util.Properties;
+
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Plugin;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.transaction.Transaction;
+
+import org.maraxma.radial.datasource.AbstractSwitchableDataSource;
+
+/**
+ * 可切换数据源游标拦截器。
+ * <p>这个拦截器让MyBatis游标（{@link Cursor}）查询所使用的连接在游标被读完或者被关闭之前一直保持打开，
+ * 并为游标查询的语句设置所在数据源配置的fetch size（radial.datasources.xxx.cursor-fetch-size）。</p>
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+@Intercepts({
+        @Signature(type = Executor.class, method = "queryCursor", args = {MappedStatement.class, Object.class, RowBounds.class}),
+        @Signature(type = StatementHandler.class, method = "prepare", args = {java.sql.Connection.class, Integer.class})
+})
+public class SwitchableDataSourceCursorInterceptor implements Interceptor {
+
+    /**
+     * 正在执行的游标查询需要设置的fetch size，游标查询在同一个线程中同步地准备语句。
+     */
+    private static final ThreadLocal<Integer> PENDING_FETCH_SIZE = new ThreadLocal<>();
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        if (invocation.getTarget() instanceof StatementHandler) {
+            Object statement = invocation.proceed();
+            Integer fetchSize = PENDING_FETCH_SIZE.get();
+            if (fetchSize != null && statement instanceof Statement) {
+                ((Statement) statement).setFetchSize(fetchSize);
+            }
+            return statement;
+        }
+        Transaction transaction = ((Executor) invocation.getTarget()).getTransaction();
+        if (!(transaction instanceof SwitchableDataSourceTransaction)) {
+            return invocation.proceed();
+        }
+        SwitchableDataSourceTransaction switchableTransaction = (SwitchableDataSourceTransaction) transaction;
+        MappedStatement mappedStatement = (MappedStatement) invocation.getArgs()[0];
+        Integer previous = PENDING_FETCH_SIZE.get();
+        if (mappedStatement.getFetchSize() == null && switchableTransaction.getDataSource() instanceof AbstractSwitchableDataSource) {
+            PENDING_FETCH_SIZE.set(((AbstractSwitchableDataSource) switchableTransaction.getDataSource()).getCursorFetchSize(((AbstractSwitchableDataSource) switchableTransaction.getDataSource()).getCurrentDataSourceName()));
+        } else {
+            PENDING_FETCH_SIZE.remove();
+        }
+        Object cursor;
+        try {
+            cursor = invocation.proceed();
+        } finally {
+            if (previous == null) {
+                PENDING_FETCH_SIZE.remove();
+            } else {
+                PENDING_FETCH_SIZE.set(previous);
+            }
+        }
+        return switchableTransaction.pinCursor((Cursor<?>) cursor);
+    }
+
+    @Override
+    public Object plugin(Object target) {
+        return target instanceof Executor || target instanceof StatementHandler ? Plugin.wrap(target, this) : target;
+    }
+
+    @Override
+    public void setProperties(Properties properties) {
+
+    }
+}
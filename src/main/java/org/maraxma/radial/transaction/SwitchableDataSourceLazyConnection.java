@@ -0,0 +1,183 @@
+package org.maraxma.radial.transaction;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.Callable;
+import java.util.function.LongConsumer;
+
+import org.springframework.jdbc.datasource.ConnectionProxy;
+
+import org.maraxma.radial.exception.DataSourceUnavailableException;
+
+/**
+ * 延迟获取物理连接的连接代理。
+ * <p>代理在被创建时不会从连接池中获取连接，它只会记录自动提交、隔离级别和只读这几项设定，
+ * 直到第一次真正需要物理连接（创建语句、获取元数据等）时才从连接池获取连接，并将记录的设定重放到物理连接上。
+ * 在此之前的提交、回滚和关闭都是空操作，因此一个从未执行过语句的连接不会占用连接池中的连接。</p>
+ * <p>与{@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}不同的是，这个代理不需要预先获取一个连接来读取默认设定，
+ * 在获取物理连接之前读取设定且这项设定没有被设置过时，才会提前获取物理连接。</p>
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+class SwitchableDataSourceLazyConnection implements InvocationHandler {
+
+    private final String dataSourceName;
+    private final Callable<Connection> connectionSupplier;
+    private final Connection proxy;
+    private LongConsumer acquireListener;
+    private Connection target;
+    private Boolean autoCommit;
+    private Integer transactionIsolation;
+    private Boolean readOnly;
+    private boolean closed;
+
+    SwitchableDataSourceLazyConnection(String dataSourceName, Callable<Connection> connectionSupplier) {
+        this.dataSourceName = dataSourceName;
+        this.connectionSupplier = connectionSupplier;
+        this.proxy = (Connection) Proxy.newProxyInstance(ConnectionProxy.class.getClassLoader(), new Class<?>[] {ConnectionProxy.class}, this);
+    }
+
+    Connection getProxy() {
+        return proxy;
+    }
+
+    /**
+     * 设定获取到物理连接时的回调，回调的参数是获取连接所花费的毫秒数。
+     *
+     * @param acquireListener 回调
+     */
+    void setAcquireListener(LongConsumer acquireListener) {
+        this.acquireListener = acquireListener;
+    }
+
+    /**
+     * 判定一个连接是否已经持有物理连接。
+     *
+     * @param connection 连接
+     * @return 若它不是延迟连接代理，或者它已经获取了物理连接，那么返回true
+     */
+    static boolean isPhysicallyConnected(Connection connection) {
+        if (connection != null && Proxy.isProxyClass(connection.getClass())) {
+            InvocationHandler handler = Proxy.getInvocationHandler(connection);
+            if (handler instanceof SwitchableDataSourceLazyConnection) {
+                return ((SwitchableDataSourceLazyConnection) handler).target != null;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return target != null ? "Lazy connection proxy for [" + dataSourceName + "]: " + target : "Lazy connection proxy for [" + dataSourceName + "] (not yet acquired)";
+            case "getTargetConnection":
+                return obtainTarget();
+            default:
+                break;
+        }
+        if (target == null) {
+            switch (method.getName()) {
+                case "setAutoCommit":
+                    autoCommit = (Boolean) args[0];
+                    return null;
+                case "getAutoCommit":
+                    if (autoCommit != null) {
+                        return autoCommit;
+                    }
+                    break;
+                case "setTransactionIsolation":
+                    transactionIsolation = (Integer) args[0];
+                    return null;
+                case "getTransactionIsolation":
+                    if (transactionIsolation != null) {
+                        return transactionIsolation;
+                    }
+                    break;
+                case "setReadOnly":
+                    readOnly = (Boolean) args[0];
+                    return null;
+                case "isReadOnly":
+                    if (readOnly != null) {
+                        return readOnly;
+                    }
+                    break;
+                case "isClosed":
+                    return closed;
+                case "close":
+                    closed = true;
+                    return null;
+                case "commit":
+                case "rollback":
+                case "clearWarnings":
+                    // 还没有执行过任何语句，没有需要提交或回滚的内容
+                    return null;
+                case "getWarnings":
+                    return null;
+                case "isValid":
+                    return !closed;
+                default:
+                    break;
+            }
+        } else if ("close".equals(method.getName())) {
+            closed = true;
+        } else if ("isClosed".equals(method.getName()) && closed) {
+            return true;
+        }
+        try {
+            return method.invoke(obtainTarget(), args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    private Connection obtainTarget() throws SQLException {
+        if (target == null) {
+            if (closed) {
+                throw new SQLException("Connection handle already closed: " + dataSourceName);
+            }
+            long start = System.nanoTime();
+            Connection connection;
+            try {
+                connection = connectionSupplier.call();
+            } catch (SQLException | DataSourceUnavailableException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new SQLException("Cannot acquire connection from datasource [" + dataSourceName + "]", e);
+            }
+            try {
+                // 重放在获取物理连接之前记录的设定
+                if (readOnly != null && connection.isReadOnly() != readOnly) {
+                    connection.setReadOnly(readOnly);
+                }
+                if (transactionIsolation != null && connection.getTransactionIsolation() != transactionIsolation) {
+                    connection.setTransactionIsolation(transactionIsolation);
+                }
+                if (autoCommit != null && connection.getAutoCommit() != autoCommit) {
+                    connection.setAutoCommit(autoCommit);
+                }
+            } catch (SQLException e) {
+                try {
+                    connection.close();
+                } catch (Exception e2) {
+                    // ignore
+                }
+                throw e;
+            }
+            target = connection;
+            if (acquireListener != null) {
+                acquireListener.accept((System.nanoTime() - start) / 1000000L);
+            }
+        }
+        return target;
+    }
+}
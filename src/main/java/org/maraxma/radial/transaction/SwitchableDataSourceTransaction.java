@@ -2,18 +2,23 @@ package org.maraxma.radial.transaction;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import javax.sql.DataSource;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.transaction.Transaction;
 import org.springframework.jdbc.datasource.DataSourceUtils;
 import org.springframework.transaction.TransactionDefinition;
 
 import org.maraxma.radial.datasource.DataSourceContextHolder;
 import org.maraxma.radial.datasource.SwitchableDataSource;
+import org.maraxma.radial.exception.DataSourceUnavailableException;
+import org.maraxma.radial.metrics.LatencyType;
 
 /**
  * 可切换数据源事务。
@@ -28,11 +33,32 @@ public class SwitchableDataSourceTransaction implements Transaction {
     private static final Log LOGGER = LogFactory.getLog(SwitchableDataSourceTransaction.class);
 
     private final DataSource dataSource;
+    private final boolean lazyConnection;
     private volatile SwitchableDataSourceConnectionHolder connectionHolder;
+    /**
+     * 这个事务（会话）使用过的所有连接，一个会话可能在多个数据源上执行语句。
+     */
+    private final List<SwitchableDataSourceConnectionHolder> sessionHolders = new ArrayList<>(2);
+    /**
+     * 正在执行的写操作的数量，会话是单线程使用的，不需要同步。
+     */
+    private int pendingWrites;
 
     public SwitchableDataSourceTransaction(DataSource dataSource) {
+        this(dataSource, false);
+    }
+
+    /**
+     * 创建一个可切换数据源事务。
+     *
+     * @param dataSource     可切换数据源
+     * @param lazyConnection 是否延迟获取物理连接（直到第一次真正执行语句时才从连接池获取连接）
+     * @since 1.4.0
+     */
+    public SwitchableDataSourceTransaction(DataSource dataSource, boolean lazyConnection) {
         if (dataSource instanceof SwitchableDataSource) {
             this.dataSource = dataSource;
+            this.lazyConnection = lazyConnection;
         } else {
             throw new IllegalArgumentException("The datasource is not SwitchableDataSource: " + dataSource);
         }
@@ -43,47 +69,57 @@ public class SwitchableDataSourceTransaction implements Transaction {
         // 每一次获取连接将连接放入保持器中，若一个事务块中有相同的实例连接请求，则合并为一个连接返回，不再重开连接
         String currentDataSourceName = null;
         try {
-            // 这里要同步，在执行下面语句的时候不允许在中途切换数据源
-            synchronized (DataSourceContextHolder.class) {
-                currentDataSourceName = DataSourceContextHolder.getDataSourceName();
-                currentDataSourceName = currentDataSourceName == null ? String.valueOf(((SwitchableDataSource) dataSource).getDefaultDataSourceName()) : currentDataSourceName;
-                // 若在一个事务块里执行的操作均是针对一个数据库实例的包含相同的一行或多行数据操作的，
-                // 位于前面的操作未提交之前，后面的操作会一直等待，这在事务中是无法忍受的
-                // 这个的作用是将相同的操作合并为一个事务防止一个操作未完成导致另一个操作死锁
-                // 合并相同的DataSource下取得的连接，因为他们可以将各个操作合并在一个Connection中提交，这样就由可以使用单一的连接完美实现事务
-                if (SwitchableDataSourceConnectionContextHolder.isTransactional()) {
-                    // 当前上下文是事务性的那么需要对相同目标的连接进行合并
-                    List<SwitchableDataSourceConnectionHolder> conns = SwitchableDataSourceConnectionContextHolder.getTransactionalConnectionsInternal();
-                    
-                    if (!prepareConnection(conns, currentDataSourceName)) {
-                        // 准备连接并判定连接是否存在
-                        // 如果连接不存在
-                        // 将连接保存至上下文
-                        // 稍后会在事务结束的时候挨个提交这批连接
-                        SwitchableDataSourceConnectionContextHolder.addTransactionalConnections(connectionHolder);
-                    } else {
-                        // 如果存在连接则不管，connectionHolder已经在prepareConnection()方法中被赋值了
-                    }
-                    // 添加更多的信息
-                    TransactionDefinition td = SwitchableDataSourceConnectionContextHolder.getTransactionDefinition();
-                    if (td != null) {
-                        if (td.getTimeout() != TransactionDefinition.TIMEOUT_DEFAULT) {
-                            // 当不为默认timeout的时候才设置过期时间
-                            connectionHolder.setTimeoutInSeconds(td.getTimeout());
-                        }
-                        connectionHolder.setSynchronizedWithTransaction(true);
-                    }
+            // 数据源上下文是线程私有的，只有当前线程自己能够切换它，因此这里不需要任何锁也不会在中途被切换
+            // 由可切换数据源解析当前数据源名称（包括租户解析），否则租户的连接会以默认数据源的名称被合并
+            currentDataSourceName = ((SwitchableDataSource) dataSource).getCurrentDataSourceName();
+            // 若在一个事务块里执行的操作均是针对一个数据库实例的包含相同的一行或多行数据操作的，
+            // 位于前面的操作未提交之前，后面的操作会一直等待，这在事务中是无法忍受的
+            // 这个的作用是将相同的操作合并为一个事务防止一个操作未完成导致另一个操作死锁
+            // 合并相同的DataSource下取得的连接，因为他们可以将各个操作合并在一个Connection中提交，这样就由可以使用单一的连接完美实现事务
+            if (SwitchableDataSourceConnectionContextHolder.isTransactional()) {
+                // 当前上下文是事务性的那么需要对相同目标的连接进行合并
+                List<SwitchableDataSourceConnectionHolder> conns = SwitchableDataSourceConnectionContextHolder.getTransactionalConnectionsInternal();
+                
+                if (!prepareConnection(conns, currentDataSourceName)) {
+                    // 准备连接并判定连接是否存在
+                    // 如果连接不存在
+                    // 将连接保存至上下文
+                    // 稍后会在事务结束的时候挨个提交这批连接
+                    SwitchableDataSourceConnectionContextHolder.addTransactionalConnections(connectionHolder);
                 } else {
-                    // 若当前上下文并非事务性的，那么各获取各的连接，各提交各的
-                    // 这时直接返回连接即可，这个连接会被Transaction实例管理，在合适的时机实现提交
-                    // 2019-07-20新的需求需要记录非事务状态下的连接以供hydra使用
-                    // 2020-03-04 Fix: Connection leak when use PageHelper(One session execute 2 or more SQLs)
-                    if (!prepareConnection(SwitchableDataSourceConnectionContextHolder.getNonTransactionalConnectionsInternal(), currentDataSourceName)) {
-                        SwitchableDataSourceConnectionContextHolder.addNonTransactionalConnections(connectionHolder);
+                    // 如果存在连接则不管，connectionHolder已经在prepareConnection()方法中被赋值了
+                }
+                if (pendingWrites > 0) {
+                    connectionHolder.setWritten(true);
+                }
+                // 存在保存点时加入事务的连接需要立即关闭自动提交，否则回滚到保存点时无法撤销它的修改
+                // 写操作之前同样需要，开启跳过只读连接的提交时，只执行查询的连接保持连接池默认的设定
+                SwitchableDataSourceTransactionMetaData metaData = SwitchableDataSourceConnectionContextHolder.getInternalTransactionMetadata();
+                if (metaData != null && !connectionHolder.isSettingsReady() && (connectionHolder.isWritten() || metaData.hasLiveSavepoints())) {
+                    metaData.prepareParticipant(connectionHolder);
+                }
+                // 添加更多的信息
+                TransactionDefinition td = SwitchableDataSourceConnectionContextHolder.getTransactionDefinition();
+                if (td != null) {
+                    if (td.getTimeout() != TransactionDefinition.TIMEOUT_DEFAULT) {
+                        // 当不为默认timeout的时候才设置过期时间
+                        connectionHolder.setTimeoutInSeconds(td.getTimeout());
                     }
+                    connectionHolder.setSynchronizedWithTransaction(true);
                 }
-                return connectionHolder.getConnection();
+            } else {
+                // 若当前上下文并非事务性的，那么各获取各的连接，各提交各的
+                // 这时直接返回连接即可，这个连接会被Transaction实例管理，在合适的时机实现提交
+                // 2019-07-20新的需求需要记录非事务状态下的连接以供hydra使用
+                // 2020-03-04 Fix: Connection leak when use PageHelper(One session execute 2 or more SQLs)
+                if (!prepareConnection(SwitchableDataSourceConnectionContextHolder.getNonTransactionalConnectionsInternal(), currentDataSourceName)) {
+                    SwitchableDataSourceConnectionContextHolder.addNonTransactionalConnections(connectionHolder);
+                }
+            }
+            if (!sessionHolders.contains(connectionHolder)) {
+                sessionHolders.add(connectionHolder);
             }
+            return connectionHolder.getConnection();
         } catch (Exception e) {
             throw new IllegalStateException("Cannot acquire connection from dataSource [" + dataSource + "] with name [" + currentDataSourceName + "]", e);
         }
@@ -91,42 +127,133 @@ public class SwitchableDataSourceTransaction implements Transaction {
 
     @Override
     public void commit() throws SQLException {
-        if (canCommitOrRollback(connectionHolder)) {
-            try {
-                connectionHolder.getConnection().commit();
-            } catch (Exception e) {
-                // 为异常附加当前使用的数据源名称
-                throw new SQLException("Something wrong with your DataSource [" + connectionHolder.getDataSourceName() + "]", e);
+        // 一个会话（例如批量模式）可能在多个数据源上执行了语句，需要提交它用过的每一个连接
+        for (SwitchableDataSourceConnectionHolder holder : sessionHolders) {
+            if (canCommitOrRollback(holder)) {
+                try {
+                    long start = System.nanoTime();
+                    holder.getConnection().commit();
+                    TransactionMetrics.record(dataSource, holder.getDataSourceName(), LatencyType.COMMIT, System.nanoTime() - start);
+                } catch (Exception e) {
+                    // 为异常附加当前使用的数据源名称
+                    throw new SQLException("Something wrong with your DataSource [" + holder.getDataSourceName() + "]", e);
+                }
             }
         }
     }
 
     @Override
     public void rollback() throws SQLException {
-        if (canCommitOrRollback(connectionHolder)) {
-            try {
-                connectionHolder.getConnection().rollback();
-            } catch (Exception e) {
-                // 为异常附加当前使用的数据源名称
-                throw new SQLException("Something wrong with your DataSource [" + connectionHolder.getDataSourceName() + "]", e);
+        SQLException exception = null;
+        for (SwitchableDataSourceConnectionHolder holder : sessionHolders) {
+            if (canCommitOrRollback(holder)) {
+                try {
+                    long start = System.nanoTime();
+                    holder.getConnection().rollback();
+                    TransactionMetrics.record(dataSource, holder.getDataSourceName(), LatencyType.ROLLBACK, System.nanoTime() - start);
+                } catch (Exception e) {
+                    // 为异常附加当前使用的数据源名称，并继续回滚其他连接
+                    SQLException wrapped = new SQLException("Something wrong with your DataSource [" + holder.getDataSourceName() + "]", e);
+                    if (exception == null) {
+                        exception = wrapped;
+                    } else {
+                        exception.addSuppressed(wrapped);
+                    }
+                }
             }
         }
+        if (exception != null) {
+            throw exception;
+        }
     }
 
     @Override
     public void close() throws SQLException {
         // 当当前上下文事务不是事务性的才允许关闭连接，否则关闭连接的操作应该交与事务管理器来处理
-        try {
-            if (connectionHolder != null) { // fix: NPE，有些情况下MyBatis在未解析成功Mapper的时候也会调用close方法来确保连接被关闭
-                if (!SwitchableDataSourceConnectionContextHolder.isTransactional()) {
-                    // 释放连接
-                    DataSourceUtils.doCloseConnection(connectionHolder.getConnection(), dataSource);
-                    // 将连接从列表中移除
-                    SwitchableDataSourceConnectionContextHolder.getNonTransactionalConnectionsInternal().remove(connectionHolder);
+        // fix: NPE，有些情况下MyBatis在未解析成功Mapper的时候也会调用close方法来确保连接被关闭（此时列表是空的）
+        if (SwitchableDataSourceConnectionContextHolder.isTransactional()) {
+            return;
+        }
+        SQLException exception = null;
+        for (SwitchableDataSourceConnectionHolder holder : sessionHolders) {
+            try {
+                // 将连接从列表中移除，之后的操作不会再复用这个连接
+                SwitchableDataSourceConnectionContextHolder.getNonTransactionalConnectionsInternal().remove(holder);
+                if (holder.getOpenCursorCount() > 0) {
+                    // 连接上还有打开的游标，等到游标被读完或者关闭时再释放连接
+                    holder.setCloseDeferred(true);
+                    LOGGER.debug("Connection is still used by open cursor(s), defer closing it: " + holder.getDataSourceName());
+                } else {
+                    releaseConnection(holder);
+                }
+            } catch (Exception e) {
+                SQLException wrapped = new SQLException("Something wrong with your DataSource [" + holder.getDataSourceName() + "]", e);
+                if (exception == null) {
+                    exception = wrapped;
+                } else {
+                    exception.addSuppressed(wrapped);
                 }
             }
-        } catch (Exception e) {
-            throw new SQLException("Something wrong with your DataSource [" + connectionHolder.getDataSourceName() + "]", e);
+        }
+        sessionHolders.clear();
+        if (exception != null) {
+            throw exception;
+        }
+    }
+
+    /**
+     * 通知会话即将执行一个写操作，写操作执行期间获取的连接会被标记为写过的，并且在执行之前就加入事务（关闭自动提交）。
+     * <p>由{@link SwitchableDataSourceWriteTrackingInterceptor}在写操作执行之前调用，必须与{@link #endWrite()}成对使用。</p>
+     */
+    void beginWrite() {
+        pendingWrites++;
+    }
+
+    /**
+     * 通知会话写操作已经执行完成。
+     */
+    void endWrite() {
+        pendingWrites--;
+    }
+
+    DataSource getDataSource() {
+        return dataSource;
+    }
+
+    /**
+     * 让游标占用当前连接，直到游标被读完或者被关闭。
+     *
+     * @param cursor MyBatis游标
+     * @return 包装后的游标
+     */
+    <T> Cursor<T> pinCursor(Cursor<T> cursor) {
+        SwitchableDataSourceConnectionHolder holder = connectionHolder;
+        if (cursor == null || holder == null) {
+            return cursor;
+        }
+        holder.pinCursor();
+        return new SwitchableDataSourceCursor<>(cursor, () -> {
+            if (holder.unpinCursor() == 0 && holder.isCloseDeferred()) {
+                // 事务已经关闭过了，由最后一个游标释放连接（游标可能在其他线程中被读取，因此这里不访问线程上下文）
+                try {
+                    releaseConnection(holder);
+                } catch (Exception e) {
+                    LOGGER.warn("Cannot release the connection after cursor closed: " + holder.getDataSourceName(), e);
+                }
+            }
+        });
+    }
+
+    private void releaseConnection(SwitchableDataSourceConnectionHolder holder) {
+        holder.setCloseDeferred(false);
+        boolean physicallyConnected = SwitchableDataSourceLazyConnection.isPhysicallyConnected(holder.getConnection());
+        try {
+            DataSourceUtils.doCloseConnection(holder.getConnection(), dataSource);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Cannot close the connection of DataSource [" + holder.getDataSourceName() + "]", e);
+        }
+        if (physicallyConnected) {
+            TransactionMetrics.recordHold(dataSource, holder);
         }
     }
 
@@ -150,6 +277,10 @@ public class SwitchableDataSourceTransaction implements Transaction {
         if (switchableDataSourceConnectionHolder == null) {
             return false;
         }
+        if (!SwitchableDataSourceLazyConnection.isPhysicallyConnected(switchableDataSourceConnectionHolder.getConnection())) {
+            // 还没有获取物理连接，没有需要提交或回滚的内容
+            return false;
+        }
         try {
             return switchableDataSourceConnectionHolder.getConnection() != null && // 连接不为null
                     !switchableDataSourceConnectionHolder.getConnection().getAutoCommit() && // 自动提交已关闭
@@ -164,20 +295,52 @@ public class SwitchableDataSourceTransaction implements Transaction {
      * @param dataSourceName 数据源名称
      */
     private SwitchableDataSourceConnectionHolder newConnectionHolder(String dataSourceName) {
-        long getConnectionStartTime = System.currentTimeMillis();
+        if (lazyConnection) {
+            return newLazyConnectionHolder(dataSourceName);
+        }
+        // currentTimeMillis的精度不足以衡量连接池中的获取耗时，获取耗时本身已经由可切换数据源记录在内置指标中
+        long getConnectionStartTime = System.nanoTime();
         Connection connection;
         try {
             connection = dataSource.getConnection();
+        } catch (DataSourceUnavailableException e) {
+            throw e;
         } catch (Exception e) {
             throw new IllegalStateException("Cannot acquire connection from dataSource [" + dataSource + "] with name [" + dataSourceName + "]", e);
         }
-        long timeCosts = System.currentTimeMillis() - getConnectionStartTime;
+        long timeCosts = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - getConnectionStartTime);
         if (LOGGER.isDebugEnabled()) {
             LOGGER.debug(String.format("Acquire connection from datasource '%s' spent %dms", dataSourceName, timeCosts));
         }
         return new SwitchableDataSourceConnectionHolder(dataSourceName, connection, timeCosts);
     }
     
+    /**
+     * 创建一个延迟获取物理连接的保持器。
+     * <p>物理连接被获取时当前线程的数据源上下文可能已经改变了，因此这里记住创建时的数据源名称和只读标记，在获取物理连接时临时切换回来。</p>
+     *
+     * @param dataSourceName 数据源名称
+     */
+    private SwitchableDataSourceConnectionHolder newLazyConnectionHolder(String dataSourceName) {
+        boolean readOnly = DataSourceContextHolder.isReadOnly();
+        SwitchableDataSourceLazyConnection lazyConnection = new SwitchableDataSourceLazyConnection(dataSourceName, () -> {
+            int depth = DataSourceContextHolder.pushDataSourceName(dataSourceName, readOnly);
+            try {
+                return dataSource.getConnection();
+            } finally {
+                DataSourceContextHolder.popDataSourceName(depth);
+            }
+        });
+        SwitchableDataSourceConnectionHolder holder = new SwitchableDataSourceConnectionHolder(dataSourceName, lazyConnection.getProxy(), 0L);
+        lazyConnection.setAcquireListener(timeCosts -> {
+            holder.setAcquireConnectionTimeCosts(timeCosts);
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug(String.format("Acquire connection lazily from datasource '%s' spent %dms", dataSourceName, timeCosts));
+            }
+        });
+        return holder;
+    }
+
     /**
      * 准备连接。这个方法会判定连接是否存在并打算重新使用连接，若连接不存在则新建一个连接。
      * <p>
@@ -1,12 +1,17 @@
 package org.maraxma.radial.transaction;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import javax.sql.DataSource;
 
 import org.apache.ibatis.mapping.DatabaseIdProvider;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
 import org.apache.ibatis.plugin.Interceptor;
 import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
 import org.apache.ibatis.session.SqlSessionFactory;
 import org.apache.ibatis.transaction.Transaction;
 import org.mybatis.spring.SqlSessionFactoryBean;
@@ -14,8 +19,10 @@ import org.mybatis.spring.boot.autoconfigure.ConfigurationCustomizer;
 import org.mybatis.spring.boot.autoconfigure.MybatisProperties;
 import org.mybatis.spring.boot.autoconfigure.SpringBootVFS;
 import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnSingleCandidate;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
@@ -26,7 +33,12 @@ import org.springframework.util.ObjectUtils;
 import org.springframework.util.StringUtils;
 
 import org.maraxma.radial.auto.SwitchableDataSourceAutoConfiguration;
+import org.maraxma.radial.datasource.AbstractSwitchableDataSource;
+import org.maraxma.radial.datasource.DataSourceContextHolder;
+import org.maraxma.radial.datasource.DataSourceWarmer;
 import org.maraxma.radial.datasource.SwitchableDataSource;
+import org.maraxma.radial.mybatis.ShardedPaginator;
+import org.maraxma.radial.property.MultiDataSourceProperties;
 
 /**
  * 可切换数据源事务配置器。
@@ -61,7 +73,7 @@ public class SwitchableDataSourceTransactionConfiguration {
 
     @Bean
     @ConditionalOnSingleCandidate(SwitchableDataSource.class)
-    public SqlSessionFactory sqlSessionFactory(DataSource dataSource) throws Exception {
+    public SqlSessionFactory sqlSessionFactory(DataSource dataSource, ObjectProvider<MultiDataSourceProperties> propertiesProvider) throws Exception {
         SqlSessionFactoryBean factory = new SqlSessionFactoryBean();
         factory.setDataSource(dataSource);
         factory.setVfs(SpringBootVFS.class);
@@ -72,8 +84,21 @@ public class SwitchableDataSourceTransactionConfiguration {
         if (this.properties.getConfigurationProperties() != null) {
             factory.setConfigurationProperties(this.properties.getConfigurationProperties());
         }
+        MultiDataSourceProperties radialProperties = propertiesProvider.getIfAvailable();
+        List<Interceptor> plugins = new ArrayList<>();
+        // 批量模式拦截器必须最先包装执行器，它需要判定被包装的是不是批量执行器
+        plugins.add(new SwitchableDataSourceBatchInterceptor(radialProperties != null && radialProperties.getTransaction() != null ? radialProperties.getTransaction().getBatchFlushSize() : 1000));
         if (!ObjectUtils.isEmpty(this.interceptors)) {
-            factory.setPlugins(this.interceptors);
+            plugins.addAll(Arrays.asList(this.interceptors));
+        }
+        // 游标查询的连接需要在游标读完或者关闭之前保持打开
+        plugins.add(new SwitchableDataSourceCursorInterceptor());
+        if (radialProperties != null && radialProperties.getTransaction() != null && radialProperties.getTransaction().isSkipReadOnlyCommit()) {
+            // 跳过只读连接的提交依赖于对写操作的跟踪
+            plugins.add(new SwitchableDataSourceWriteTrackingInterceptor());
+        }
+        if (!plugins.isEmpty()) {
+            factory.setPlugins(plugins.toArray(new Interceptor[0]));
         }
         if (this.databaseIdProvider != null) {
             factory.setDatabaseIdProvider(this.databaseIdProvider);
@@ -90,15 +115,62 @@ public class SwitchableDataSourceTransactionConfiguration {
         if (!ObjectUtils.isEmpty(this.properties.resolveMapperLocations())) {
             factory.setMapperLocations(this.properties.resolveMapperLocations());
         }
-        factory.setTransactionFactory(new SwitchableDataSourceTransactionFactory());
+        SwitchableDataSourceTransactionFactory transactionFactory = new SwitchableDataSourceTransactionFactory();
+        if (radialProperties != null && radialProperties.getTransaction() != null) {
+            transactionFactory.setLazyConnection(radialProperties.getTransaction().isLazyConnection());
+        }
+        factory.setTransactionFactory(transactionFactory);
 
         return factory.getObject();
     }
 
     @Bean
     @ConditionalOnSingleCandidate(SwitchableDataSource.class)
-    public PlatformTransactionManager platformTransactionManager(DataSource dataSource) {
-        return new SwitchableDataSourceTransactionManager(dataSource);
+    public PlatformTransactionManager platformTransactionManager(DataSource dataSource, ObjectProvider<MultiDataSourceProperties> propertiesProvider) {
+        SwitchableDataSourceTransactionManager transactionManager = new SwitchableDataSourceTransactionManager(dataSource);
+        if (dataSource instanceof AbstractSwitchableDataSource) {
+            // 关闭可切换数据源时等待这个事务管理器开启的事务结束
+            ((AbstractSwitchableDataSource) dataSource).setInFlightTracker(SwitchableDataSourceConnectionContextHolder.getInFlightTracker());
+        }
+        MultiDataSourceProperties radialProperties = propertiesProvider.getIfAvailable();
+        if (radialProperties != null && radialProperties.getTransaction() != null) {
+            if (radialProperties.getTransaction().isParallelCompletion()) {
+                transactionManager.setParallelCompletionThreads(radialProperties.getTransaction().getParallelCompletionThreads());
+            }
+            transactionManager.setSkipReadOnlyCommit(radialProperties.getTransaction().isSkipReadOnlyCommit());
+        }
+        return transactionManager;
+    }
+
+    @Bean
+    @ConditionalOnSingleCandidate(SwitchableDataSource.class)
+    public SmartInitializingSingleton mapperWarmUpRunner(SwitchableDataSource switchableDataSource, ObjectProvider<SqlSessionFactory> sqlSessionFactoryProvider) {
+        // 在所有的单例初始化完成之后（应用就绪之前）执行Mapper预热语句，此时MyBatis已经加载了所有的Mapper
+        return () -> {
+            DataSourceWarmer warmer = switchableDataSource.getWarmer();
+            SqlSessionFactory sqlSessionFactory = sqlSessionFactoryProvider.getIfAvailable();
+            if (warmer == null || !warmer.hasMapperStatements() || sqlSessionFactory == null) {
+                return;
+            }
+            warmer.warmUpMappers((dataSourceName, statement) -> {
+                MappedStatement mappedStatement = sqlSessionFactory.getConfiguration().getMappedStatement(statement);
+                if (mappedStatement.getSqlCommandType() != SqlCommandType.SELECT) {
+                    throw new IllegalArgumentException("Only select statement can be used to warm up, but [" + statement + "] is " + mappedStatement.getSqlCommandType());
+                }
+                int depth = DataSourceContextHolder.pushDataSourceName(dataSourceName);
+                try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+                    sqlSession.selectList(statement);
+                } finally {
+                    DataSourceContextHolder.popDataSourceName(depth);
+                }
+            });
+        };
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(ShardedPaginator.class)
+    public ShardedPaginator shardedPaginator(SqlSessionFactory sqlSessionFactory) {
+        return new ShardedPaginator(sqlSessionFactory);
     }
 
     private void applyConfiguration(SqlSessionFactoryBean factory) {
@@ -17,6 +17,19 @@ import org.mybatis.spring.transaction.SpringManagedTransactionFactory;
  */
 public class SwitchableDataSourceTransactionFactory extends SpringManagedTransactionFactory {
 
+    private boolean lazyConnection = false;
+
+    /**
+     * 设定创建的事务是否延迟获取物理连接。
+     *
+     * @param lazyConnection 是否延迟获取
+     * @see SwitchableDataSourceTransaction#SwitchableDataSourceTransaction(DataSource, boolean)
+     * @since 1.4.0
+     */
+    public void setLazyConnection(boolean lazyConnection) {
+        this.lazyConnection = lazyConnection;
+    }
+
     @Override
     public void setProperties(Properties props) {
 
@@ -29,7 +42,7 @@ public class SwitchableDataSourceTransactionFactory extends SpringManagedTransac
 
     @Override
     public Transaction newTransaction(DataSource dataSource, TransactionIsolationLevel level, boolean autoCommit) {
-        return new SwitchableDataSourceTransaction(dataSource);
+        return new SwitchableDataSourceTransaction(dataSource, lazyConnection);
     }
 
 }
@@ -2,42 +2,109 @@ package org.maraxma.radial.transaction;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.Savepoint;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.sql.DataSource;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.jdbc.datasource.DataSourceTransactionManager;
 import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.SavepointManager;
 import org.springframework.transaction.TransactionDefinition;
-import org.springframework.transaction.TransactionSuspensionNotSupportedException;
+import org.springframework.transaction.TransactionException;
 import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.UnexpectedRollbackException;
 import org.springframework.transaction.support.DefaultTransactionStatus;
 
+import org.maraxma.radial.metrics.LatencyType;
+
 /**
  * 可切换数据源事务管理器。
  *
  * @author mm92
  * @since 1.1.8 2019-03-09
  */
-public class SwitchableDataSourceTransactionManager extends DataSourceTransactionManager {
+public class SwitchableDataSourceTransactionManager extends DataSourceTransactionManager implements DisposableBean {
 
     private static final long serialVersionUID = 2345464149650165126L;
     private static final Log LOGGER = LogFactory.getLog(SwitchableDataSourceTransactionManager.class);
 
+    private transient volatile ExecutorService completionExecutor;
+    private volatile boolean skipReadOnlyCommit = false;
+
     public SwitchableDataSourceTransactionManager(DataSource dataSource) {
         super(dataSource);
         LOGGER.info("Transaction Manager for SwitchableDataSource is initialized");
     }
 
+    /**
+     * 开启并行提交和回滚。
+     * <p>开启后，一个涉及多个数据源的事务会在一个有界的线程池中同时提交（或者回滚）所有的连接，事务的提交耗时从所有数据源提交耗时之和降低为其中的最大值。
+     * 任意一个连接提交失败时仍然会回滚所有的连接，所有的异常都会被收集起来。</p>
+     *
+     * @param threads 线程池的最大线程数，小于1时关闭并行提交和回滚
+     */
+    public void setParallelCompletionThreads(int threads) {
+        ExecutorService previous = this.completionExecutor;
+        if (threads < 1) {
+            this.completionExecutor = null;
+        } else {
+            AtomicInteger counter = new AtomicInteger();
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(threads * 64), r -> {
+                Thread thread = new Thread(r, "radial-tx-completion-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.CallerRunsPolicy());
+            executor.allowCoreThreadTimeOut(true);
+            this.completionExecutor = executor;
+            LOGGER.info("Parallel commit and rollback is enabled, max threads: " + threads);
+        }
+        if (previous != null) {
+            previous.shutdown();
+        }
+    }
+
+    /**
+     * 设定是否跳过事务中只读连接的提交。
+     * <p>开启后，事务中的连接在第一次写操作之前才会被准备（关闭自动提交、设定隔离级别等），只执行过查询的连接在提交时不再提交，而是直接释放回连接池。
+     * 写操作由{@link SwitchableDataSourceWriteTrackingInterceptor}在执行之前通知，必须同时将它注册到MyBatis中。
+     * 这要求连接池默认开启自动提交，连接池默认关闭自动提交时查询本身就开启了事务，这样的连接仍然会被提交。</p>
+     *
+     * @param skipReadOnlyCommit 是否跳过
+     * @since 1.4.0
+     */
+    public void setSkipReadOnlyCommit(boolean skipReadOnlyCommit) {
+        this.skipReadOnlyCommit = skipReadOnlyCommit;
+    }
+
+    @Override
+    public void destroy() {
+        ExecutorService executor = this.completionExecutor;
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
     @Override
     protected Object doGetTransaction() {
-        // 在我们的实现中不使用这个方法，但是这个方法的执行结果会被很多地方引用
-        // 有的地方甚至用这个方法的结果判定是否存在事务，因此这个方法虽然不用，但不能直接返回null
-        return new Object();
+        // 事务的状态都保存在线程上下文中，这个对象只是用来提供保存点（PROPAGATION_NESTED）支持的
+        // 有的地方会用这个方法的结果判定是否存在事务，因此不能直接返回null
+        return new SwitchableDataSourceTransactionObject();
     }
 
     @Override
@@ -50,70 +117,208 @@ public class SwitchableDataSourceTransactionManager extends DataSourceTransactio
         // 在这儿做一些准备工作
         // 与原有实现不相同的是，在这个方法里我们不做获取Connection的操作
         // 否则可能在初始化的时候获取到错误的连接
-        SwitchableDataSourceConnectionContextHolder.setTransactionMetaData(new SwitchableDataSourceTransactionMetaData(System.currentTimeMillis()));
+        SwitchableDataSourceTransactionMetaData metaData = new SwitchableDataSourceTransactionMetaData(System.currentTimeMillis());
+        metaData.setStartNanoTime(System.nanoTime());
+        metaData.setParticipantPreparer(stxObject -> {
+            try {
+                prepareTransaction(stxObject, definition);
+            } catch (SQLException e) {
+                throw new CannotCreateTransactionException("Could not prepare JDBC connection for transaction on DataSource [" + stxObject.getDataSourceName() + "]", e);
+            }
+        });
+        SwitchableDataSourceConnectionContextHolder.setTransactionMetaData(metaData);
         SwitchableDataSourceConnectionContextHolder.setTransactional(true);
         SwitchableDataSourceConnectionContextHolder.setTransactionDefinition(definition);
+        SwitchableDataSourceConnectionContextHolder.transactionBegun();
         // 这儿无法对连接进行预设定因为这里还无法获得连接，获得连接的操作是运行时决定的
         // 连接的一些设定被移到doCommit方法中，因为在那里获得的连接才是整个事务块得到的连接
     }
 
     @Override
     protected Object doSuspend(Object transaction) {
-        throw new TransactionSuspensionNotSupportedException("SwitchableDataSource transaction does not support suspend");
+        // 将当前事务的连接和状态压栈，之后的新事务（PROPAGATION_REQUIRES_NEW）或者非事务操作（PROPAGATION_NOT_SUPPORTED）会使用新的连接
+        LOGGER.debug("Suspending current transaction, number of connection(s): " + SwitchableDataSourceConnectionContextHolder.getTransactionalConnectionsInternal().size());
+        return SwitchableDataSourceConnectionContextHolder.suspend();
     }
 
     @Override
     protected void doResume(Object transaction, Object suspendedResources) {
-        throw new TransactionSuspensionNotSupportedException("SwitchableDataSource transaction does not support resume");
+        SwitchableDataSourceConnectionContextHolder.resume(suspendedResources);
+        LOGGER.debug("Resumed suspended transaction, number of connection(s): " + SwitchableDataSourceConnectionContextHolder.getTransactionalConnectionsInternal().size());
     }
 
     @Override
     protected void doRollback(DefaultTransactionStatus status) {
         List<SwitchableDataSourceConnectionHolder> stxObjects = SwitchableDataSourceConnectionContextHolder.getTransactionalConnectionsInternal();
-        TransactionDefinition transactionDefinition = SwitchableDataSourceConnectionContextHolder.getTransactionDefinition();
-        List<Exception> exceptions = new ArrayList<>();
         LOGGER.debug("Rolling back, number of connection(s): " + stxObjects.size());
-        for (SwitchableDataSourceConnectionHolder stxObject : stxObjects) {
-            try {
-                // Check if the connection is closed
-                if (stxObject.getConnection().isClosed()) {
-                    LOGGER.warn("This connection is closed while SwitchableDataSourceTransactionManager is not rollback yet: " + stxObject.getDataSourceName() + " --> " + stxObject.getConnection());
-                    continue;
-                }
-                prepareTransaction(stxObject, transactionDefinition);
-                stxObject.getConnection().rollback();
-            } catch (Exception e) {
-                LOGGER.error("Cannot rollback one of the connections, will rollback others", e);
-                exceptions.add(e);
-            }
-        }
+        List<Exception> exceptions = complete(stxObjects, false);
         if (!exceptions.isEmpty()) {
-            throw new TransactionSystemException("One or more exception(s) occurred when rolling back: " + exceptions.size(), exceptions.get(0));
+            throw aggregate("One or more exception(s) occurred when rolling back: " + exceptions.size(), exceptions);
         }
-        SwitchableDataSourceConnectionContextHolder.getInternalTransactionMetadata().setEndTime(System.currentTimeMillis());
+        markEnd();
     }
 
     @Override
     protected void doCommit(DefaultTransactionStatus status) {
         List<SwitchableDataSourceConnectionHolder> stxObjects = SwitchableDataSourceConnectionContextHolder.getTransactionalConnectionsInternal();
-        TransactionDefinition transactionDefinition = SwitchableDataSourceConnectionContextHolder.getTransactionDefinition();
         LOGGER.debug("Committing to database, number of connection(s): " + stxObjects.size());
+        List<SwitchableDataSourceConnectionHolder> participants = skipReadOnlyCommit ? releaseReadOnlyParticipants(stxObjects) : stxObjects;
+        List<Exception> exceptions = complete(participants, true);
+        if (!exceptions.isEmpty()) {
+            LOGGER.error("Cannot commit " + exceptions.size() + " of the connections, rollback all", exceptions.get(0));
+            try {
+                doRollback(status);
+            } catch (TransactionSystemException e) {
+                // 回滚也失败了，将提交时的异常一并附加上去
+                exceptions.forEach(e::addSuppressed);
+                throw e;
+            }
+            // 事务已经被回滚，必须抛出异常，否则调用方会误以为事务已经提交；使用UnexpectedRollbackException，事务同步回调会收到STATUS_ROLLED_BACK
+            UnexpectedRollbackException exception = new UnexpectedRollbackException("Transaction rolled back because " + exceptions.size() + " of the connection(s) could not be committed", exceptions.get(0));
+            for (int i = 1; i < exceptions.size(); i++) {
+                exception.addSuppressed(exceptions.get(i));
+            }
+            throw exception;
+        }
+        markEnd();
+    }
+
+    /**
+     * 提前释放事务中的只读连接，它们不需要提交。
+     * <p>开启跳过只读连接的提交时，连接在第一次写操作之前才会被准备（关闭自动提交），因此仍然处于自动提交模式并且从未被准备过的连接上只执行过查询，
+     * 它上面没有需要提交或者回滚的内容，直接释放回连接池即可，省去了关闭自动提交、提交以及恢复自动提交这几次网络往返。
+     * 其余的连接（执行过写操作的、被准备过的、连接池默认关闭了自动提交的）都会被提交。</p>
+     *
+     * @param stxObjects 事务中的所有连接
+     * @return 需要提交的连接
+     */
+    private List<SwitchableDataSourceConnectionHolder> releaseReadOnlyParticipants(List<SwitchableDataSourceConnectionHolder> stxObjects) {
+        List<SwitchableDataSourceConnectionHolder> participants = new ArrayList<>(stxObjects.size());
+        for (SwitchableDataSourceConnectionHolder stxObject : stxObjects) {
+            if (!isUnpreparedReader(stxObject)) {
+                participants.add(stxObject);
+                continue;
+            }
+            LOGGER.debug("Skip committing read-only connection: " + stxObject.getDataSourceName());
+            DataSourceUtils.releaseConnection(stxObject.getConnection(), obtainDataSource());
+            TransactionMetrics.recordHold(obtainDataSource(), stxObject);
+            stxObject.setReleased(true);
+        }
+        return participants;
+    }
+
+    private static boolean isUnpreparedReader(SwitchableDataSourceConnectionHolder stxObject) {
+        if (stxObject.isReleased() || stxObject.isSettingsReady() || stxObject.isWritten() || stxObject.isRollbackOnly()
+                || !SwitchableDataSourceLazyConnection.isPhysicallyConnected(stxObject.getConnection())) {
+            return false;
+        }
         try {
-            for (SwitchableDataSourceConnectionHolder stxObject : stxObjects) {
+            // 连接池默认关闭自动提交时，查询本身就开启了一个事务，释放它同样需要一次回滚，不如直接提交
+            return stxObject.getConnection().getAutoCommit();
+        } catch (SQLException e) {
+            // 无法判定时按照需要提交处理，提交时会暴露连接的问题
+            return false;
+        }
+    }
 
-                // Check if the connection is closed
-                if (stxObject.getConnection().isClosed()) {
-                    LOGGER.warn("This connection is closed while SwitchableDataSourceTransactionManager is not commit yet: " + stxObject.getDataSourceName() + " --> " + stxObject.getConnection());
-                    continue;
+    private void markEnd() {
+        SwitchableDataSourceTransactionMetaData metaData = SwitchableDataSourceConnectionContextHolder.getInternalTransactionMetadata();
+        metaData.setEndTime(System.currentTimeMillis());
+        metaData.setEndNanoTime(System.nanoTime());
+    }
+
+    /**
+     * 提交或者回滚事务中的所有连接。
+     * <p>串行模式下，提交在遇到第一个失败时停止（之后会回滚所有连接），回滚则会尝试所有连接。
+     * 并行模式下所有连接同时提交或者回滚，第一个连接在当前线程中执行，其余的交给线程池，当前线程会等待它们全部结束后再返回。</p>
+     *
+     * @param stxObjects 连接列表
+     * @param commit     true为提交，false为回滚
+     * @return 发生的所有异常，没有异常时返回空列表
+     */
+    private List<Exception> complete(List<SwitchableDataSourceConnectionHolder> stxObjects, boolean commit) {
+        TransactionDefinition transactionDefinition = SwitchableDataSourceConnectionContextHolder.getTransactionDefinition();
+        List<Exception> exceptions = new ArrayList<>();
+        ExecutorService executor = this.completionExecutor;
+        if (executor == null || stxObjects.size() < 2) {
+            for (SwitchableDataSourceConnectionHolder stxObject : stxObjects) {
+                Exception exception = completeOne(stxObject, transactionDefinition, commit);
+                if (exception != null) {
+                    exceptions.add(exception);
+                    if (commit) {
+                        break;
+                    }
                 }
-                prepareTransaction(stxObject, transactionDefinition);
+            }
+            return exceptions;
+        }
+        List<Future<Exception>> futures = new ArrayList<>(stxObjects.size() - 1);
+        for (int i = 1; i < stxObjects.size(); i++) {
+            SwitchableDataSourceConnectionHolder stxObject = stxObjects.get(i);
+            futures.add(executor.submit(() -> completeOne(stxObject, transactionDefinition, commit)));
+        }
+        Exception first = completeOne(stxObjects.get(0), transactionDefinition, commit);
+        if (first != null) {
+            exceptions.add(first);
+        }
+        boolean interrupted = false;
+        for (Future<Exception> future : futures) {
+            // 必须等待所有的连接完成，否则清理阶段可能会释放一个还在使用中的连接
+            while (true) {
+                try {
+                    Exception exception = future.get();
+                    if (exception != null) {
+                        exceptions.add(exception);
+                    }
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    exceptions.add(e.getCause() instanceof Exception ? (Exception) e.getCause() : e);
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        return exceptions;
+    }
+
+    private Exception completeOne(SwitchableDataSourceConnectionHolder stxObject, TransactionDefinition transactionDefinition, boolean commit) {
+        try {
+            if (stxObject.isReleased() || !SwitchableDataSourceLazyConnection.isPhysicallyConnected(stxObject.getConnection())) {
+                // 已经被提前释放，或者从未获取过物理连接（没有执行过任何语句）
+                return null;
+            }
+            // Check if the connection is closed
+            if (stxObject.getConnection().isClosed()) {
+                LOGGER.warn("This connection is closed while SwitchableDataSourceTransactionManager is not " + (commit ? "commit" : "rollback") + " yet: " + stxObject.getDataSourceName() + " --> " + stxObject.getConnection());
+                return null;
+            }
+            prepareTransaction(stxObject, transactionDefinition);
+            long start = System.nanoTime();
+            if (commit) {
                 stxObject.getConnection().commit();
+            } else {
+                stxObject.getConnection().rollback();
             }
+            TransactionMetrics.record(obtainDataSource(), stxObject.getDataSourceName(), commit ? LatencyType.COMMIT : LatencyType.ROLLBACK, System.nanoTime() - start);
+            return null;
         } catch (Exception e) {
-            LOGGER.error("Cannot commit one of the connections, rollback all", e);
-            doRollback(status);
+            if (!commit) {
+                LOGGER.error("Cannot rollback one of the connections, will rollback others", e);
+            }
+            return new SQLException("Something wrong with your DataSource [" + stxObject.getDataSourceName() + "]", e);
         }
-        SwitchableDataSourceConnectionContextHolder.getInternalTransactionMetadata().setEndTime(System.currentTimeMillis());
+    }
+
+    private static TransactionSystemException aggregate(String message, List<Exception> exceptions) {
+        TransactionSystemException exception = new TransactionSystemException(message, exceptions.get(0));
+        for (int i = 1; i < exceptions.size(); i++) {
+            exception.addSuppressed(exceptions.get(i));
+        }
+        return exception;
     }
 
     @Override
@@ -126,19 +331,29 @@ public class SwitchableDataSourceTransactionManager extends DataSourceTransactio
 
     @Override
     protected void doCleanupAfterCompletion(Object transaction) {
+        try {
+            cleanupAfterCompletion();
+        } finally {
+            // 连接已经归还，关闭可切换数据源时不再需要等待这个事务
+            SwitchableDataSourceConnectionContextHolder.transactionCompleted();
+        }
+    }
+
+    private void cleanupAfterCompletion() {
         // 完成后做一些清理工作（清理资源、关闭连接、恢复readOnly标记、恢复Isolation、恢复自动提交设定）
         List<SwitchableDataSourceConnectionHolder> stxObjects = SwitchableDataSourceConnectionContextHolder.getTransactionalConnectionsInternal();
+        SwitchableDataSourceTransactionMetaData metaData = SwitchableDataSourceConnectionContextHolder.getInternalTransactionMetadata();
+        long transactionNanos = -1L;
+        if (metaData != null && metaData.getStartNanoTime() != 0L) {
+            transactionNanos = (metaData.getEndNanoTime() == 0L ? System.nanoTime() : metaData.getEndNanoTime()) - metaData.getStartNanoTime();
+        }
         for (SwitchableDataSourceConnectionHolder stxObject : stxObjects) {
-            Connection conn = stxObject.getConnection();
-            try {
-                if (stxObject.isMustRestoreAutoCommit()) {
-                    conn.setAutoCommit(true);
-                }
-                DataSourceUtils.resetConnectionAfterTransaction(conn, stxObject.getPreviousIsolationLevel(), conn.isReadOnly());
-            } catch (Throwable ex) {
-                logger.debug("Could not reset JDBC Connection after transaction", ex);
+            if (transactionNanos >= 0L) {
+                TransactionMetrics.record(obtainDataSource(), stxObject.getDataSourceName(), LatencyType.TRANSACTION, transactionNanos);
+            }
+            if (!stxObject.isReleased()) {
+                releaseConnection(stxObject);
             }
-            DataSourceUtils.releaseConnection(conn, obtainDataSource());
         }
         LOGGER.debug("Closing connection(s): " + stxObjects.size());
         // 清除已经保存的连接
@@ -151,6 +366,30 @@ public class SwitchableDataSourceTransactionManager extends DataSourceTransactio
         // SwitchableDataSourceConnectionContextHolder.setTransactionMetadata(null);
     }
 
+    /**
+     * 重置连接的事务设定并将其释放回连接池。
+     *
+     * @param stxObject 连接保持器
+     */
+    private void releaseConnection(SwitchableDataSourceConnectionHolder stxObject) {
+        Connection conn = stxObject.getConnection();
+        if (!SwitchableDataSourceLazyConnection.isPhysicallyConnected(conn)) {
+            // 从未获取过物理连接，只需要关闭代理
+            DataSourceUtils.releaseConnection(conn, obtainDataSource());
+            return;
+        }
+        try {
+            if (stxObject.isMustRestoreAutoCommit()) {
+                conn.setAutoCommit(true);
+            }
+            DataSourceUtils.resetConnectionAfterTransaction(conn, stxObject.getPreviousIsolationLevel(), conn.isReadOnly());
+        } catch (Throwable ex) {
+            logger.debug("Could not reset JDBC Connection after transaction", ex);
+        }
+        DataSourceUtils.releaseConnection(conn, obtainDataSource());
+        TransactionMetrics.recordHold(obtainDataSource(), stxObject);
+    }
+
     private void prepareTransaction(SwitchableDataSourceConnectionHolder stxObject, TransactionDefinition transactionDefinition) throws SQLException {
         if (!stxObject.isSettingsReady()) {
             // 准备一系列的设定
@@ -179,6 +418,98 @@ public class SwitchableDataSourceTransactionManager extends DataSourceTransactio
             if (timeout != TransactionDefinition.TIMEOUT_DEFAULT) {
                 stxObject.setTimeoutInSeconds(timeout);
             }
+            // 标记设定已完成，否则重复准备时会用null覆盖掉先前保存的隔离级别
+            stxObject.setSettingsReady(true);
+        }
+    }
+
+    /**
+     * 可切换数据源事务对象。
+     * <p>事务中的连接分布在多个数据源上，一个保存点由每个连接上各自的JDBC保存点组成。
+     * 回滚到保存点时，创建保存点之后才加入事务的连接上的所有操作都发生在保存点之后，因此这些连接会被整体回滚。</p>
+     */
+    private class SwitchableDataSourceTransactionObject implements SavepointManager {
+
+        @Override
+        public Object createSavepoint() throws TransactionException {
+            TransactionDefinition transactionDefinition = SwitchableDataSourceConnectionContextHolder.getTransactionDefinition();
+            SwitchableDataSourceTransactionMetaData metaData = SwitchableDataSourceConnectionContextHolder.getInternalTransactionMetadata();
+            if (metaData == null) {
+                throw new CannotCreateTransactionException("Cannot create savepoint outside of a transaction");
+            }
+            String savepointName = metaData.nextSavepointName();
+            Map<SwitchableDataSourceConnectionHolder, Savepoint> savepoints = new IdentityHashMap<>();
+            for (SwitchableDataSourceConnectionHolder stxObject : SwitchableDataSourceConnectionContextHolder.getTransactionalConnectionsInternal()) {
+                if (stxObject.isReleased() || !SwitchableDataSourceLazyConnection.isPhysicallyConnected(stxObject.getConnection())) {
+                    continue;
+                }
+                try {
+                    // 保存点只能创建在手动提交的连接上
+                    prepareTransaction(stxObject, transactionDefinition);
+                    savepoints.put(stxObject, stxObject.getConnection().setSavepoint(savepointName));
+                } catch (SQLException e) {
+                    // 已经创建的保存点需要释放掉
+                    releaseSavepoint(savepoints);
+                    throw new CannotCreateTransactionException("Could not create JDBC savepoint on DataSource [" + stxObject.getDataSourceName() + "]", e);
+                }
+            }
+            metaData.savepointCreated();
+            LOGGER.debug("Created savepoint " + savepointName + " on " + savepoints.size() + " connection(s)");
+            return savepoints;
+        }
+
+        @Override
+        public void rollbackToSavepoint(Object savepoint) throws TransactionException {
+            Map<SwitchableDataSourceConnectionHolder, Savepoint> savepoints = asSavepoints(savepoint);
+            List<Exception> exceptions = new ArrayList<>();
+            for (SwitchableDataSourceConnectionHolder stxObject : SwitchableDataSourceConnectionContextHolder.getTransactionalConnectionsInternal()) {
+                if (stxObject.isReleased() || !SwitchableDataSourceLazyConnection.isPhysicallyConnected(stxObject.getConnection())) {
+                    continue;
+                }
+                try {
+                    Savepoint jdbcSavepoint = savepoints.get(stxObject);
+                    if (jdbcSavepoint != null) {
+                        stxObject.getConnection().rollback(jdbcSavepoint);
+                    } else if (!stxObject.getConnection().getAutoCommit()) {
+                        // 这个连接是在保存点之后才加入事务的，加入时已经关闭了自动提交
+                        stxObject.getConnection().rollback();
+                    } else {
+                        LOGGER.warn("Connection joined after savepoint is in auto-commit mode, its changes cannot be rolled back: " + stxObject.getDataSourceName());
+                    }
+                    stxObject.resetRollbackOnly();
+                } catch (Exception e) {
+                    LOGGER.error("Cannot rollback one of the connections to savepoint, will rollback others", e);
+                    exceptions.add(new SQLException("Something wrong with your DataSource [" + stxObject.getDataSourceName() + "]", e));
+                }
+            }
+            if (!exceptions.isEmpty()) {
+                throw aggregate("One or more exception(s) occurred when rolling back to savepoint: " + exceptions.size(), exceptions);
+            }
+        }
+
+        @Override
+        public void releaseSavepoint(Object savepoint) throws TransactionException {
+            releaseSavepoint(asSavepoints(savepoint));
+            SwitchableDataSourceTransactionMetaData metaData = SwitchableDataSourceConnectionContextHolder.getInternalTransactionMetadata();
+            if (metaData != null) {
+                metaData.savepointReleased();
+            }
+        }
+
+        private void releaseSavepoint(Map<SwitchableDataSourceConnectionHolder, Savepoint> savepoints) {
+            savepoints.forEach((stxObject, jdbcSavepoint) -> {
+                try {
+                    stxObject.getConnection().releaseSavepoint(jdbcSavepoint);
+                } catch (Throwable ex) {
+                    // 有的驱动不支持释放保存点，保存点会在事务结束时自动释放
+                    logger.debug("Could not explicitly release JDBC savepoint", ex);
+                }
+            });
+        }
+
+        @SuppressWarnings("unchecked")
+        private Map<SwitchableDataSourceConnectionHolder, Savepoint> asSavepoints(Object savepoint) {
+            return (Map<SwitchableDataSourceConnectionHolder, Savepoint>) savepoint;
         }
     }
 }
@@ -1,6 +1,7 @@
 package org.maraxma.radial.transaction;
 
 import java.util.UUID;
+import java.util.function.Consumer;
 
 /**
  * 包裹了一个事务执行时候记录的一些数据。
@@ -13,6 +14,12 @@ public class SwitchableDataSourceTransactionMetaData {
     private String transactionId = UUID.randomUUID().toString().replace("-", "");
     private long startTime;
     private long endTime;
+    private long startNanoTime;
+    private long endNanoTime;
+    // 保存点的编号、尚未释放的保存点数量，以及用于准备事务中的连接的回调，它们随着事务一起被挂起和恢复
+    private int savepointCounter;
+    private int liveSavepoints;
+    private Consumer<SwitchableDataSourceConnectionHolder> participantPreparer;
 
     public SwitchableDataSourceTransactionMetaData(long startTime) {
         this.startTime = startTime;
@@ -42,6 +49,27 @@ public class SwitchableDataSourceTransactionMetaData {
         this.endTime = endTime;
     }
 
+    /**
+     * 获得事务开始时的{@link System#nanoTime()}，用于精确计算事务的持续时间。
+     *
+     * @return 纳秒时间戳
+     */
+    public long getStartNanoTime() {
+        return startNanoTime;
+    }
+
+    public void setStartNanoTime(long startNanoTime) {
+        this.startNanoTime = startNanoTime;
+    }
+
+    public long getEndNanoTime() {
+        return endNanoTime;
+    }
+
+    public void setEndNanoTime(long endNanoTime) {
+        this.endNanoTime = endNanoTime;
+    }
+
     public String getTransactionId() {
         return transactionId;
     }
@@ -50,4 +78,61 @@ public class SwitchableDataSourceTransactionMetaData {
         this.transactionId = transactionId;
     }
 
+    /**
+     * 生成一个在整个物理事务中唯一的保存点名称。
+     * <p>每一层NESTED作用域都会在同一批物理连接上创建保存点，同名的保存点会覆盖先前的保存点（例如MySQL和PostgreSQL），
+     * 因此编号必须跟随事务而不是跟随每次获取事务时创建的事务对象。</p>
+     *
+     * @return 保存点名称
+     */
+    String nextSavepointName() {
+        return "SAVEPOINT_" + (++savepointCounter);
+    }
+
+    /**
+     * 设定用于准备事务中的连接（关闭自动提交、设定隔离级别和只读等）的回调。
+     *
+     * @param participantPreparer 准备回调
+     */
+    void setParticipantPreparer(Consumer<SwitchableDataSourceConnectionHolder> participantPreparer) {
+        this.participantPreparer = participantPreparer;
+    }
+
+    /**
+     * 记录一个新创建的保存点。
+     */
+    void savepointCreated() {
+        liveSavepoints++;
+    }
+
+    /**
+     * 记录一个保存点被释放。
+     */
+    void savepointReleased() {
+        if (liveSavepoints > 0) {
+            liveSavepoints--;
+        }
+    }
+
+    /**
+     * 当前事务中是否存在尚未释放的保存点。
+     * <p>存在保存点时，新加入事务的连接必须立即关闭自动提交，否则回滚到保存点时无法撤销它上面的修改。</p>
+     *
+     * @return 存在则返回true
+     */
+    boolean hasLiveSavepoints() {
+        return liveSavepoints > 0;
+    }
+
+    /**
+     * 立即准备一个事务中的连接，已经准备过的连接不会被重复准备。
+     *
+     * @param holder 连接保持器
+     */
+    void prepareParticipant(SwitchableDataSourceConnectionHolder holder) {
+        if (participantPreparer != null) {
+            participantPreparer.accept(holder);
+        }
+    }
+
 }
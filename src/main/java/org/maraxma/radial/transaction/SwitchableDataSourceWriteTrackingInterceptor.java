@@ -0,0 +1,67 @@
+package org.maraxma.radial.transaction;
+
+import java.util.Properties;
+
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.StatementType;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Plugin;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.transaction.Transaction;
+
+/**
+ * 可切换数据源写操作跟踪拦截器。
+ * <p>这个拦截器在写操作执行之前通知会话，使得执行写操作的连接在执行之前才加入事务（关闭自动提交），
+ * 只执行过查询的连接保持自动提交，{@link SwitchableDataSourceTransactionManager}在提交时可以直接释放它们。</p>
+ * <p>所有的INSERT、UPDATE、DELETE（{@link Executor#update(MappedStatement, Object)}）都被视为写操作；
+ * 由于存储过程可能在内部修改数据，以查询方式调用的存储过程（{@link StatementType#CALLABLE}）也被视为写操作。
+ * 无论语句执行是否成功都会进行标记，宁可多提交一次也不能漏掉一次提交。</p>
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+@Intercepts({
+        @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}),
+        @Signature(type = Executor.class, method = "query", args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+        @Signature(type = Executor.class, method = "query", args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class, CacheKey.class, BoundSql.class})
+})
+public class SwitchableDataSourceWriteTrackingInterceptor implements Interceptor {
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        MappedStatement mappedStatement = (MappedStatement) invocation.getArgs()[0];
+        boolean write = "update".equals(invocation.getMethod().getName()) || mappedStatement.getStatementType() == StatementType.CALLABLE;
+        if (!write) {
+            return invocation.proceed();
+        }
+        Transaction transaction = ((Executor) invocation.getTarget()).getTransaction();
+        if (!(transaction instanceof SwitchableDataSourceTransaction)) {
+            return invocation.proceed();
+        }
+        // 连接是在语句执行过程中才获取的，因此由会话在获取连接时标记并准备它
+        SwitchableDataSourceTransaction switchableTransaction = (SwitchableDataSourceTransaction) transaction;
+        switchableTransaction.beginWrite();
+        try {
+            return invocation.proceed();
+        } finally {
+            switchableTransaction.endWrite();
+        }
+    }
+
+    @Override
+    public Object plugin(Object target) {
+        return target instanceof Executor ? Plugin.wrap(target, this) : target;
+    }
+
+    @Override
+    public void setProperties(Properties properties) {
+
+    }
+}
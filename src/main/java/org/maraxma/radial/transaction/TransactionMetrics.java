@@ -0,0 +1,31 @@
+package org.maraxma.radial.transaction;
+
+import javax.sql.DataSource;
+
+import org.maraxma.radial.datasource.AbstractSwitchableDataSource;
+import org.maraxma.radial.metrics.LatencyType;
+
+/**
+ * 事务相关的延迟记录工具，延迟被记录到可切换数据源的内置指标中。
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+final class TransactionMetrics {
+
+    private TransactionMetrics() {
+    }
+
+    static void record(DataSource dataSource, String dataSourceName, LatencyType type, long nanos) {
+        if (dataSourceName != null && dataSource instanceof AbstractSwitchableDataSource) {
+            ((AbstractSwitchableDataSource) dataSource).getMetrics().record(dataSourceName, type, nanos);
+        }
+    }
+
+    /**
+     * 记录连接的持有时间，在连接被释放时调用。
+     */
+    static void recordHold(DataSource dataSource, SwitchableDataSourceConnectionHolder connectionHolder) {
+        record(dataSource, connectionHolder.getDataSourceName(), LatencyType.HOLD, System.nanoTime() - connectionHolder.getAcquiredAtNanos());
+    }
+}
@@ -0,0 +1,83 @@
+package org.maraxma.radial.util;
+
+import javax.sql.DataSource;
+
+import org.maraxma.radial.datasource.LazyDataSource;
+import org.springframework.util.ClassUtils;
+
+import com.alibaba.druid.pool.DruidDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+/**
+ * 连接池相关的工具，目前仅支持HikariCP和Druid。
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+public class DataSourcePoolUtils {
+
+    private static final boolean HIKARI_PRESENT = ClassUtils.isPresent("com.zaxxer.hikari.HikariDataSource", DataSourcePoolUtils.class.getClassLoader());
+    private static final boolean DRUID_PRESENT = ClassUtils.isPresent("com.alibaba.druid.pool.DruidDataSource", DataSourcePoolUtils.class.getClassLoader());
+
+    /**
+     * 获得连接池当前的活动连接数（已经被借出的连接数）。
+     *
+     * @param dataSource 数据源，可以是被代理的
+     * @return 活动连接数，若不是受支持的连接池或者连接池尚未启动则返回-1
+     */
+    public static int getActiveConnections(DataSource dataSource) {
+        if (dataSource instanceof LazyDataSource) {
+            // 尚未创建（或者已经关闭）的连接池没有任何活动连接
+            DataSource target = ((LazyDataSource) dataSource).getTarget();
+            return target == null ? 0 : getActiveConnections(target);
+        }
+        if (HIKARI_PRESENT && dataSource instanceof HikariDataSource) {
+            HikariPoolMXBean pool = ((HikariDataSource) dataSource).getHikariPoolMXBean();
+            return pool == null ? -1 : pool.getActiveConnections();
+        }
+        if (DRUID_PRESENT && dataSource instanceof DruidDataSource) {
+            return ((DruidDataSource) dataSource).getActiveCount();
+        }
+        return -1;
+    }
+
+    /**
+     * 获得连接池当前的连接总数（空闲的和借出的）。
+     *
+     * @param dataSource 数据源
+     * @return 连接总数，若不是受支持的连接池或者连接池尚未启动则返回-1
+     * @since 1.4.0
+     */
+    public static int getTotalConnections(DataSource dataSource) {
+        if (dataSource instanceof LazyDataSource) {
+            DataSource target = ((LazyDataSource) dataSource).getTarget();
+            return target == null ? 0 : getTotalConnections(target);
+        }
+        if (HIKARI_PRESENT && dataSource instanceof HikariDataSource) {
+            HikariPoolMXBean pool = ((HikariDataSource) dataSource).getHikariPoolMXBean();
+            return pool == null ? -1 : pool.getTotalConnections();
+        }
+        if (DRUID_PRESENT && dataSource instanceof DruidDataSource) {
+            return ((DruidDataSource) dataSource).getPoolingCount() + ((DruidDataSource) dataSource).getActiveCount();
+        }
+        return -1;
+    }
+
+    /**
+     * 获得连接池配置的最小空闲连接数（HikariCP的minimum-idle，Druid的min-idle）。
+     *
+     * @param dataSource 数据源
+     * @return 最小空闲连接数，若不是受支持的连接池则返回-1
+     * @since 1.4.0
+     */
+    public static int getMinimumIdle(DataSource dataSource) {
+        if (HIKARI_PRESENT && dataSource instanceof HikariDataSource) {
+            return ((HikariDataSource) dataSource).getMinimumIdle();
+        }
+        if (DRUID_PRESENT && dataSource instanceof DruidDataSource) {
+            return ((DruidDataSource) dataSource).getMinIdle();
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,110 @@
+package org.maraxma.radial.balancer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+/**
+ * 内置均衡器的分布测试。
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+public class DataSourceBalancerTest {
+
+    private static final DataSource[] THREE_MEMBERS = {new DriverManagerDataSource(), new DriverManagerDataSource(), new DriverManagerDataSource()};
+
+    @Test
+    public void roundRobinDistributesEvenly() {
+        DataSourceBalancer balancer = BalancerType.ROUND_ROBIN.create("DS1", THREE_MEMBERS, new int[] {5, 1, 1});
+        assertArrayEquals(new int[] {300, 300, 300}, distribution(balancer, THREE_MEMBERS, 900));
+    }
+
+    @Test
+    public void weightedFollowsSmoothSchedule() {
+        DataSourceBalancer balancer = BalancerType.WEIGHTED.create("DS1", THREE_MEMBERS, new int[] {5, 1, 1});
+        int[] sequence = new int[7];
+        for (int i = 0; i < sequence.length; i++) {
+            sequence[i] = balancer.select(THREE_MEMBERS);
+        }
+        assertArrayEquals(new int[] {0, 0, 1, 0, 2, 0, 0}, sequence);
+        assertArrayEquals(new int[] {500, 100, 100}, distribution(balancer, THREE_MEMBERS, 700));
+    }
+
+    @Test
+    public void weightedReducesWeightsByTheirGreatestCommonDivisor() {
+        DataSource[] members = {THREE_MEMBERS[0], THREE_MEMBERS[1]};
+        DataSourceBalancer balancer = BalancerType.WEIGHTED.create("DS1", members, new int[] {200, 400});
+        // 调度表被约简为{1, 0, 1}，每3次选择中就有1次选中第一个数据源
+        assertArrayEquals(new int[] {1, 0, 1}, new int[] {balancer.select(members), balancer.select(members), balancer.select(members)});
+        assertArrayEquals(new int[] {100, 200}, distribution(balancer, members, 300));
+    }
+
+    @Test
+    public void leastOutstandingAvoidsBusyPool() throws Exception {
+        try (HikariDataSource busy = hikari("radial_balancer_busy"); HikariDataSource idle = hikari("radial_balancer_idle")) {
+            DataSource[] members = {busy, idle};
+            DataSourceBalancer balancer = BalancerType.LEAST_OUTSTANDING.create("DS1", members, new int[] {1, 1});
+            try (Connection ignored = busy.getConnection()) {
+                assertArrayEquals(new int[] {0, 100}, distribution(balancer, members, 100));
+            }
+            // 活动连接数相同时按照轮转的起点均匀分摊
+            assertArrayEquals(new int[] {50, 50}, distribution(balancer, members, 100));
+        }
+    }
+
+    @Test
+    public void leastOutstandingTreatsUnknownPoolsAsIdle() {
+        DataSourceBalancer balancer = BalancerType.LEAST_OUTSTANDING.create("DS1", THREE_MEMBERS, new int[] {1, 1, 1});
+        assertArrayEquals(new int[] {100, 100, 100}, distribution(balancer, THREE_MEMBERS, 300));
+    }
+
+    @Test
+    public void ewmaPrefersFasterMember() {
+        DataSourceBalancer balancer = BalancerType.EWMA.create("DS1", THREE_MEMBERS, new int[] {1, 1, 1});
+        for (int i = 0; i < 50; i++) {
+            balancer.onAcquired(0, TimeUnit.MILLISECONDS.toNanos(100L));
+            balancer.onAcquired(1, TimeUnit.MILLISECONDS.toNanos(1L));
+            balancer.onAcquired(2, TimeUnit.MILLISECONDS.toNanos(10L));
+        }
+        int[] distribution = distribution(balancer, THREE_MEMBERS, 3000);
+        // 两两比较时最慢的那个永远不会被选中，最快的那个每次被抽到都会被选中（约2/3）
+        assertEquals(0, distribution[0]);
+        assertTrue(distribution[1] > distribution[2]);
+    }
+
+    @Test
+    public void ewmaPenalizesFailedMember() {
+        DataSource[] members = {THREE_MEMBERS[0], THREE_MEMBERS[1]};
+        DataSourceBalancer balancer = BalancerType.EWMA.create("DS1", members, new int[] {1, 1});
+        balancer.onAcquired(0, TimeUnit.MILLISECONDS.toNanos(500L));
+        balancer.onFailed(1, 0L);
+        assertArrayEquals(new int[] {100, 0}, distribution(balancer, members, 100));
+    }
+
+    private static int[] distribution(DataSourceBalancer balancer, DataSource[] members, int selections) {
+        int[] counts = new int[members.length];
+        for (int i = 0; i < selections; i++) {
+            counts[balancer.select(members)]++;
+        }
+        return counts;
+    }
+
+    private static HikariDataSource hikari(String name) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:hsqldb:mem:" + name);
+        dataSource.setUsername("SA");
+        dataSource.setPassword("");
+        dataSource.setMaximumPoolSize(2);
+        return dataSource;
+    }
+}
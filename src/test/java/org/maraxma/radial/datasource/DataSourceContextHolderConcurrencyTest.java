@@ -0,0 +1,106 @@
+package org.maraxma.radial.datasource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * 数据源上下文保持器在多线程下的竞争测试。
+ * <p>切换数据源只修改线程私有的状态，因此多个线程同时切换时既不会互相看到对方的数据源，也不会因为全局锁而排队。</p>
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+public class DataSourceContextHolderConcurrencyTest {
+
+    private static final int THREADS = 8;
+
+    private static final int ITERATIONS = 200_000;
+
+    @Test
+    public void switchingIsIsolatedBetweenThreads() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Integer>> futures = new ArrayList<>(THREADS);
+            for (int i = 0; i < THREADS; i++) {
+                String outer = "dataSource_DS" + i;
+                String inner = outer + "_inner";
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    int mismatches = 0;
+                    for (int j = 0; j < ITERATIONS; j++) {
+                        int depth = DataSourceContextHolder.pushDataSourceName(outer);
+                        try {
+                            int innerDepth = DataSourceContextHolder.pushDataSourceName(inner, true);
+                            try {
+                                if (!inner.equals(DataSourceContextHolder.getDataSourceName()) || !DataSourceContextHolder.isReadOnly()) {
+                                    mismatches++;
+                                }
+                            } finally {
+                                DataSourceContextHolder.popDataSourceName(innerDepth);
+                            }
+                            if (!outer.equals(DataSourceContextHolder.getDataSourceName()) || DataSourceContextHolder.isReadOnly()) {
+                                mismatches++;
+                            }
+                        } finally {
+                            DataSourceContextHolder.popDataSourceName(depth);
+                        }
+                    }
+                    return DataSourceContextHolder.getDataSourceName() == null ? mismatches : mismatches + 1;
+                }));
+            }
+            start.countDown();
+            for (Future<Integer> future : futures) {
+                assertEquals(Integer.valueOf(0), future.get(60, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void switchingDoesNotTakeTheClassMonitor() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>(THREADS);
+            // 占住类锁，若切换数据源仍然需要这把锁，那么工作线程会一直阻塞直到超时
+            synchronized (DataSourceContextHolder.class) {
+                for (int i = 0; i < THREADS; i++) {
+                    String name = "dataSource_DS" + i;
+                    futures.add(executor.submit(() -> {
+                        DataSourceContextHolder.setDataSourceName(name);
+                        int depth = DataSourceContextHolder.pushDataSourceName(name);
+                        DataSourceContextHolder.popDataSourceName(depth);
+                        assertEquals(name, DataSourceContextHolder.getDataSourceName());
+                        DataSourceContextHolder.setDataSourceToDefault();
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get(10, TimeUnit.SECONDS);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void unbalancedPopDoesNotThrow() {
+        int depth = DataSourceContextHolder.pushDataSourceName("dataSource_DS1");
+        DataSourceContextHolder.popDataSourceName(depth);
+        // 作用域已经被退出，再次出栈只会记录日志
+        DataSourceContextHolder.popDataSourceName(depth);
+        assertEquals(0, DataSourceContextHolder.getDepth());
+        assertNull(DataSourceContextHolder.getDataSourceName());
+    }
+}
@@ -0,0 +1,158 @@
+package org.maraxma.radial.datasource;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.junit.Test;
+import org.maraxma.radial.balancer.BalancerType;
+import org.maraxma.radial.balancer.DataSourceBalancer;
+import org.maraxma.radial.resilience.BulkheadConfig;
+import org.maraxma.radial.resilience.CircuitBreakerConfig;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+/**
+ * 数据源注册表的测试，覆盖按查找键、代理对象和原始对象查找编号，只读副本的编号以及故障转移。
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+public class DataSourceRegistryTest {
+
+    private static final String DS1 = "dataSource_DS1";
+    private static final String DS2 = "dataSource_DS2";
+
+    private final DataSource target1 = new DriverManagerDataSource();
+    private final DataSource proxy1 = proxy(target1);
+    private final DataSource dataSource2 = new DriverManagerDataSource();
+    private final DataSource replica1 = new DriverManagerDataSource();
+    private final DataSource replica2 = new DriverManagerDataSource();
+
+    @Test
+    public void looksUpPrimariesByKey() {
+        DataSourceRegistry registry = registry(Collections.emptyMap());
+        assertEquals(2, registry.primaryCount());
+        assertEquals(4, registry.size());
+        assertEquals(0, registry.indexOf(DS1));
+        assertEquals(1, registry.indexOf(DS2));
+        assertEquals(DataSourceRegistry.NOT_FOUND, registry.indexOf("dataSource_DS3"));
+        // 只读副本不能通过名称路由
+        assertEquals(DataSourceRegistry.NOT_FOUND, registry.indexOf(DS1 + DataSourceRegistry.REPLICA_SEPARATOR + "1"));
+        assertSame(proxy1, registry.get(0));
+        assertEquals(DS2, registry.nameOf(1));
+    }
+
+    @Test
+    public void looksUpMembersByProxyAndTarget() {
+        DataSourceRegistry registry = registry(Collections.emptyMap());
+        assertEquals(0, registry.indexOfDataSource(proxy1));
+        assertEquals(0, registry.indexOfDataSource(target1));
+        assertEquals(1, registry.indexOfDataSource(dataSource2));
+        assertEquals(2, registry.indexOfDataSource(replica1));
+        assertEquals(DataSourceRegistry.NOT_FOUND, registry.indexOfDataSource(new DriverManagerDataSource()));
+        // 默认数据源以原始对象的形式给出时，统一使用注册表中的代理对象
+        assertEquals(0, registry.defaultIndex());
+        assertSame(proxy1, registry.defaultDataSource());
+        assertEquals(DS1, registry.defaultName());
+    }
+
+    @Test
+    public void numbersReplicasAfterPrimaries() {
+        DataSourceRegistry registry = registry(Collections.emptyMap());
+        assertArrayEquals(new int[] {2, 3}, registry.replicasOf(0));
+        assertArrayEquals(new int[0], registry.replicasOf(1));
+        assertEquals(0, registry.primaryOf(3));
+        assertEquals(DS1 + DataSourceRegistry.REPLICA_SEPARATOR + "2", registry.nameOf(3));
+        assertEquals(Arrays.asList(DS1, DS2), new ArrayList<>(registry.allNames()));
+        assertEquals(4, registry.allMembers().size());
+        // 轮询均衡器依次选出两个副本
+        assertEquals(2, registry.nextReplica(0));
+        assertEquals(3, registry.nextReplica(0));
+    }
+
+    @Test
+    public void failsOverToOtherReplicasThenPrimaryThenFallback() {
+        Map<Object, Object> fallbacks = new LinkedHashMap<>();
+        fallbacks.put(DS1, DS2);
+        DataSourceRegistry registry = registry(fallbacks);
+        registry.setEjected(2, true);
+        assertEquals(3, registry.failover(2));
+        registry.setEjected(3, true);
+        assertEquals(0, registry.failover(2));
+        registry.setEjected(0, true);
+        assertEquals(2, registry.failover(2));
+        assertEquals(1, registry.failover(0));
+        registry.setEjected(1, true);
+        assertEquals(0, registry.failover(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnknownFallback() {
+        registry(Collections.singletonMap(DS1, "dataSource_DS3"));
+    }
+
+    @Test
+    public void createsIndependentResilienceStatePerMember() {
+        Map<Object, DataSource> primaries = primaries();
+        DataSourceRegistry registry = new DataSourceRegistry(primaries, replicas(), balancers(), Collections.emptyMap(),
+                Collections.singletonMap(DS1, new CircuitBreakerConfig(50, 100, 1000L, 10, 1000L, 1)),
+                Collections.singletonMap(DS1, new BulkheadConfig(1, 0, 0L, true)), target1);
+        assertNotNull(registry.circuitBreakerOf(0));
+        assertNotNull(registry.circuitBreakerOf(2));
+        assertNotNull(registry.bulkheadOf(3));
+        assertNull(registry.circuitBreakerOf(1));
+        assertNull(registry.bulkheadOf(1));
+        assertEquals(DS1 + DataSourceRegistry.REPLICA_SEPARATOR + "1", registry.bulkheadOf(2).getName());
+    }
+
+    @Test
+    public void inheritsStateOfUnchangedMembers() {
+        Map<Object, CircuitBreakerConfig> breakers = Collections.singletonMap(DS1, new CircuitBreakerConfig(50, 100, 1000L, 10, 1000L, 1));
+        DataSourceRegistry previous = new DataSourceRegistry(primaries(), replicas(), balancers(), Collections.emptyMap(), breakers, Collections.emptyMap(), target1);
+        previous.setEjected(2, true);
+        DataSourceRegistry next = new DataSourceRegistry(primaries(), replicas(), balancers(), Collections.emptyMap(), breakers, Collections.emptyMap(), target1);
+        next.inheritStateFrom(previous);
+        assertSame(previous.circuitBreakerOf(0), next.circuitBreakerOf(0));
+        assertFalse(next.isAvailable(2));
+        assertTrue(next.isAvailable(3));
+    }
+
+    private DataSourceRegistry registry(Map<Object, Object> fallbacks) {
+        return new DataSourceRegistry(primaries(), replicas(), balancers(), fallbacks, Collections.emptyMap(), Collections.emptyMap(), target1);
+    }
+
+    private Map<Object, DataSource> primaries() {
+        Map<Object, DataSource> primaries = new LinkedHashMap<>();
+        primaries.put(DS1, proxy1);
+        primaries.put(DS2, dataSource2);
+        return primaries;
+    }
+
+    private Map<Object, List<DataSource>> replicas() {
+        return Collections.singletonMap(DS1, Arrays.asList(replica1, replica2));
+    }
+
+    private Map<Object, DataSourceBalancer> balancers() {
+        return Collections.singletonMap(DS1, BalancerType.ROUND_ROBIN.create(DS1, new DataSource[] {replica1, replica2}, new int[] {1, 1}));
+    }
+
+    private static DataSource proxy(DataSource target) {
+        ProxyFactory proxyFactory = new ProxyFactory(target);
+        proxyFactory.addInterface(DataSource.class);
+        return (DataSource) proxyFactory.getProxy();
+    }
+}
@@ -0,0 +1,112 @@
+package org.maraxma.radial.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * 延迟直方图的测试，覆盖桶的划分以及百分位数的计算。
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+public class LatencyHistogramTest {
+
+    private static final int BUCKETS = 352;
+
+    @Test
+    public void bucketsAreContiguous() {
+        assertEquals(0L, LatencyHistogram.lowerBoundOf(0));
+        for (int bucket = 0; bucket < BUCKETS - 1; bucket++) {
+            long lower = LatencyHistogram.lowerBoundOf(bucket);
+            long upper = LatencyHistogram.upperBoundOf(bucket);
+            assertTrue(lower <= upper);
+            assertEquals(upper + 1, LatencyHistogram.lowerBoundOf(bucket + 1));
+            assertEquals(bucket, LatencyHistogram.bucketOf(lower));
+            assertEquals(bucket, LatencyHistogram.bucketOf(upper));
+        }
+        assertEquals(BUCKETS - 1, LatencyHistogram.bucketOf(LatencyHistogram.upperBoundOf(BUCKETS - 1)));
+    }
+
+    @Test
+    public void bucketWidthIsWithinRelativeError() {
+        for (int bucket = 8; bucket < BUCKETS; bucket++) {
+            long lower = LatencyHistogram.lowerBoundOf(bucket);
+            long width = LatencyHistogram.upperBoundOf(bucket) - lower + 1;
+            // 每个2的幂区间被等分为8个子桶，桶宽不超过下界的1/8
+            assertTrue(width * 8 <= lower);
+        }
+    }
+
+    @Test
+    public void smallValuesHaveExactBuckets() {
+        for (int value = 0; value < 8; value++) {
+            assertEquals(value, LatencyHistogram.bucketOf(value));
+        }
+        assertEquals(8, LatencyHistogram.bucketOf(8));
+        assertEquals(15, LatencyHistogram.bucketOf(15));
+        assertEquals(16, LatencyHistogram.bucketOf(16));
+        assertEquals(16, LatencyHistogram.bucketOf(17));
+    }
+
+    @Test
+    public void emptyHistogramHasZeroStatistics() {
+        LatencyStatistics statistics = new LatencyHistogram().snapshot();
+        assertEquals(0L, statistics.getCount());
+        assertEquals(0.0, statistics.getP99(), 0.0);
+        assertEquals(0.0, statistics.getMax(), 0.0);
+    }
+
+    @Test
+    public void percentilesOfUniformDistribution() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int millis = 1; millis <= 1000; millis++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(millis));
+        }
+        LatencyStatistics statistics = histogram.snapshot();
+        assertEquals(1000L, statistics.getCount());
+        assertEquals(500.5, statistics.getMean(), 0.001);
+        assertEquals(1000.0, statistics.getMax(), 0.001);
+        assertEquals(500.0, statistics.getP50(), 500.0 * 0.125);
+        assertEquals(900.0, statistics.getP90(), 900.0 * 0.125);
+        assertEquals(990.0, statistics.getP99(), 990.0 * 0.125);
+        assertEquals(999.0, statistics.getP999(), 999.0 * 0.125);
+    }
+
+    @Test
+    public void percentileRankRoundsUp() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 99; i++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(1L));
+        }
+        histogram.record(TimeUnit.SECONDS.toNanos(1L));
+        LatencyStatistics statistics = histogram.snapshot();
+        // 第99名仍然是1毫秒，只有99.9%落在唯一的那个慢样本上
+        assertEquals(1.0, statistics.getP99(), 0.125);
+        assertEquals(1000.0, statistics.getP999(), 1000.0 * 0.125);
+    }
+
+    @Test
+    public void outOfRangeValuesAreClamped() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5L);
+        histogram.record(Long.MAX_VALUE);
+        LatencyStatistics statistics = histogram.snapshot();
+        assertEquals(2L, statistics.getCount());
+        assertEquals(0.0, statistics.getP50(), 0.0);
+        assertEquals(TimeUnit.NANOSECONDS.toMillis(LatencyHistogram.upperBoundOf(BUCKETS - 1)), statistics.getMax(), 1.0);
+    }
+
+    @Test
+    public void resetClearsEverything() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(5L));
+        histogram.reset();
+        assertEquals(0L, histogram.snapshot().getCount());
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(2L));
+        assertEquals(2.0, histogram.snapshot().getMax(), 0.001);
+    }
+}
@@ -0,0 +1,67 @@
+package org.maraxma.radial.mybatis;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Date;
+
+import org.junit.Test;
+
+/**
+ * 键集分页令牌编解码的测试。
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+public class KeysetTokenTest {
+
+    @Test
+    public void roundTripsSupportedTypes() {
+        Timestamp timestamp = Timestamp.valueOf(LocalDateTime.of(2020, 6, 1, 12, 30, 45, 123_456_789));
+        Object[] values = {42L, 3.5d, new BigDecimal("12345.6789"), "plain", null, timestamp, new Date(1_591_000_000_000L),
+                LocalDateTime.of(2020, 6, 1, 8, 0), LocalDate.of(2020, 6, 1)};
+        assertArrayEquals(values, KeysetToken.decode(KeysetToken.encode(values), values.length));
+    }
+
+    @Test
+    public void widensIntegralAndFloatingTypes() {
+        Object[] decoded = KeysetToken.decode(KeysetToken.encode(new Object[] {7, (short) 8, (byte) 9, 1.5f}), 4);
+        assertArrayEquals(new Object[] {7L, 8L, 9L, 1.5d}, decoded);
+    }
+
+    @Test
+    public void stringsMayContainSeparatorsAndNonAsciiCharacters() {
+        Object[] values = {"12:34", "", "名称:😀", "S3:abc"};
+        String token = KeysetToken.encode(values);
+        assertTrue(token.matches("[A-Za-z0-9_-]+"));
+        assertArrayEquals(values, KeysetToken.decode(token, values.length));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnsupportedType() {
+        KeysetToken.encode(new Object[] {new Object()});
+    }
+
+    @Test
+    public void rejectsMalformedTokens() {
+        String valid = KeysetToken.encode(new Object[] {1L, "a"});
+        assertInvalid(valid, 1);
+        assertInvalid("not base64!", 1);
+        assertInvalid(valid.substring(0, valid.length() - 2), 2);
+    }
+
+    private static void assertInvalid(String token, int expectedLength) {
+        try {
+            KeysetToken.decode(token, expectedLength);
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().startsWith("Invalid keyset token"));
+            return;
+        }
+        throw new AssertionError("Token must be rejected: " + token);
+    }
+}
@@ -0,0 +1,95 @@
+package org.maraxma.radial.mybatis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.junit.Test;
+
+/**
+ * k路归并迭代器的测试。
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+public class MergingIteratorTest {
+
+    @Test
+    public void mergesSortedSources() {
+        MergingIterator<Integer> iterator = new MergingIterator<>(Arrays.asList(
+                Arrays.asList(1, 4, 7, 10).iterator(),
+                Collections.<Integer>emptyList().iterator(),
+                Arrays.asList(2, 5, 8).iterator(),
+                Arrays.asList(3, 6, 9, 11, 12).iterator()), Comparator.naturalOrder());
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12), drain(iterator));
+    }
+
+    @Test
+    public void equalElementsFollowSourceOrder() {
+        MergingIterator<String> iterator = new MergingIterator<>(Arrays.asList(
+                Arrays.asList("b1", "c1").iterator(),
+                Arrays.asList("a2", "b2", "c2").iterator(),
+                Arrays.asList("b3").iterator()), Comparator.comparing(s -> s.charAt(0)));
+        assertEquals(Arrays.asList("a2", "b1", "b2", "b3", "c1", "c2"), drain(iterator));
+    }
+
+    @Test
+    public void readsOnlyWhatIsConsumed() {
+        CountingIterator first = new CountingIterator(Arrays.asList(1, 3, 5, 7, 9));
+        CountingIterator second = new CountingIterator(Arrays.asList(2, 4, 6, 8, 10));
+        MergingIterator<Integer> iterator = new MergingIterator<>(Arrays.asList(first, second), Comparator.naturalOrder());
+        // 创建时每个来源预读一个元素
+        assertEquals(1, first.reads);
+        assertEquals(1, second.reads);
+        iterator.next();
+        iterator.next();
+        iterator.next();
+        // 取走了1、2、3，两个来源分别只多读了被取走的元素的下一个
+        assertEquals(3, first.reads);
+        assertEquals(2, second.reads);
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void throwsWhenExhausted() {
+        MergingIterator<Integer> iterator = new MergingIterator<>(Collections.singletonList(Collections.singletonList(1).iterator()), Comparator.naturalOrder());
+        iterator.next();
+        assertFalse(iterator.hasNext());
+        iterator.next();
+    }
+
+    private static <T> List<T> drain(Iterator<T> iterator) {
+        List<T> values = new ArrayList<>();
+        while (iterator.hasNext()) {
+            values.add(iterator.next());
+        }
+        return values;
+    }
+
+    private static final class CountingIterator implements Iterator<Integer> {
+
+        private final Iterator<Integer> delegate;
+        private int reads;
+
+        CountingIterator(List<Integer> values) {
+            this.delegate = values.iterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return delegate.hasNext();
+        }
+
+        @Override
+        public Integer next() {
+            reads++;
+            return delegate.next();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package org.maraxma.radial.resilience;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * 隔离舱的测试，覆盖排队超时、快速失败、拒绝计数以及许可持有到连接关闭为止。
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+public class BulkheadTest {
+
+    @Test
+    public void rejectsImmediatelyWhenFailFast() {
+        Bulkhead bulkhead = new Bulkhead("DS1", new BulkheadConfig(1, 10, 1000L, true));
+        assertTrue(bulkhead.tryAcquire());
+        long start = System.nanoTime();
+        assertFalse(bulkhead.tryAcquire());
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(500L));
+        BulkheadInfo info = bulkhead.getInfo();
+        assertEquals(1, info.getConcurrentCalls());
+        assertEquals(1L, info.getPermittedCalls());
+        assertEquals(1L, info.getRejectedCalls());
+        bulkhead.release();
+        assertEquals(0, bulkhead.getInfo().getConcurrentCalls());
+    }
+
+    @Test
+    public void rejectsAfterQueueTimeout() {
+        Bulkhead bulkhead = new Bulkhead("DS1", new BulkheadConfig(1, 10, 50L, false));
+        assertTrue(bulkhead.tryAcquire());
+        long start = System.nanoTime();
+        assertFalse(bulkhead.tryAcquire());
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50L));
+        assertEquals(0, bulkhead.getInfo().getWaitingCalls());
+        assertEquals(1L, bulkhead.getInfo().getRejectedCalls());
+    }
+
+    @Test
+    public void waitingCallIsPermittedWhenPermitIsReleased() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("DS1", new BulkheadConfig(1, 10, 10_000L, false));
+        assertTrue(bulkhead.tryAcquire());
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Boolean> waiting = executor.submit(bulkhead::tryAcquire);
+            awaitWaitingCalls(bulkhead, 1);
+            bulkhead.release();
+            assertTrue(waiting.get(10, TimeUnit.SECONDS));
+            assertEquals(2L, bulkhead.getInfo().getPermittedCalls());
+            assertEquals(0L, bulkhead.getInfo().getRejectedCalls());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void rejectsWhenQueueIsFull() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("DS1", new BulkheadConfig(1, 1, 10_000L, false));
+        assertTrue(bulkhead.tryAcquire());
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Boolean> waiting = executor.submit(bulkhead::tryAcquire);
+            awaitWaitingCalls(bulkhead, 1);
+            // 队列中已经有一个线程，再来的请求不排队，直接拒绝
+            assertFalse(bulkhead.tryAcquire());
+            assertEquals(1L, bulkhead.getInfo().getRejectedCalls());
+            bulkhead.release();
+            assertTrue(waiting.get(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void boundConnectionHoldsPermitUntilClosed() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("DS1", new BulkheadConfig(1, 0, 0L, false));
+        AtomicInteger closed = new AtomicInteger();
+        assertTrue(bulkhead.tryAcquire());
+        Connection connection = bulkhead.bind(connection(closed));
+        assertFalse(bulkhead.tryAcquire());
+        connection.close();
+        assertEquals(1, closed.get());
+        assertEquals(0, bulkhead.getInfo().getConcurrentCalls());
+        // 重复关闭不会多归还许可
+        connection.close();
+        assertEquals(0, bulkhead.getInfo().getConcurrentCalls());
+        assertTrue(bulkhead.tryAcquire());
+        assertFalse(bulkhead.tryAcquire());
+    }
+
+    private static void awaitWaitingCalls(Bulkhead bulkhead, int expected) throws InterruptedException {
+        for (int i = 0; i < 1000 && bulkhead.getInfo().getWaitingCalls() < expected; i++) {
+            Thread.sleep(10L);
+        }
+        assertEquals(expected, bulkhead.getInfo().getWaitingCalls());
+    }
+
+    private static Connection connection(AtomicInteger closed) {
+        return (Connection) Proxy.newProxyInstance(BulkheadTest.class.getClassLoader(), new Class<?>[] {Connection.class}, (proxy, method, args) -> {
+            if ("close".equals(method.getName())) {
+                closed.incrementAndGet();
+            }
+            return null;
+        });
+    }
+}
@@ -0,0 +1,135 @@
+package org.maraxma.radial.resilience;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * 熔断器的测试，覆盖状态转换、半开状态的试探许可以及打包计数的窗口滚动。
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+public class CircuitBreakerTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1L);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(1000L);
+
+    @Test
+    public void opensWhenFailureRateReachesThreshold() {
+        CircuitBreaker breaker = new CircuitBreaker("DS1", new CircuitBreakerConfig(50, 100, 500L, 4, 60_000L, 1));
+        breaker.onError(FAST);
+        breaker.onSuccess(FAST);
+        breaker.onSuccess(FAST);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        breaker.onError(FAST);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertTrue(breaker.isRejecting());
+        assertFalse(breaker.tryAcquirePermission());
+        assertEquals(1L, breaker.getInfo().getRejectedCalls());
+    }
+
+    @Test
+    public void opensWhenSlowCallRateReachesThreshold() {
+        CircuitBreaker breaker = new CircuitBreaker("DS1", new CircuitBreakerConfig(100, 50, 500L, 2, 60_000L, 1));
+        breaker.onSuccess(SLOW);
+        breaker.onSuccess(FAST);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(1L, breaker.getInfo().getSlowCalls());
+    }
+
+    @Test
+    public void startsNewWindowBelowThreshold() {
+        CircuitBreaker breaker = new CircuitBreaker("DS1", new CircuitBreakerConfig(50, 100, 500L, 4, 60_000L, 1));
+        // 第一个窗口只有一次失败，统计后开始新的窗口，上一个窗口的失败不会带入新的窗口
+        breaker.onError(FAST);
+        for (int i = 0; i < 3; i++) {
+            breaker.onSuccess(FAST);
+        }
+        breaker.onError(FAST);
+        for (int i = 0; i < 3; i++) {
+            breaker.onSuccess(FAST);
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        // 新窗口中的失败各自计数，达到阈值时打开
+        breaker.onError(FAST);
+        breaker.onError(FAST);
+        breaker.onSuccess(FAST);
+        breaker.onSuccess(FAST);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    public void windowRollsOverAcrossManyCalls() {
+        int windowSize = 1000;
+        CircuitBreaker breaker = new CircuitBreaker("DS1", new CircuitBreakerConfig(10, 10, 500L, windowSize, 60_000L, 1));
+        // 每个窗口的失败率和慢调用率都略低于阈值，打包的计数在多次滚动之后不能溢出到相邻的字段
+        for (int window = 0; window < 50; window++) {
+            for (int i = 0; i < windowSize; i++) {
+                if (i % 11 == 0) {
+                    breaker.onError(FAST);
+                } else if (i % 11 == 1) {
+                    breaker.onSuccess(SLOW);
+                } else {
+                    breaker.onSuccess(FAST);
+                }
+            }
+            assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        }
+        assertEquals(50L * windowSize, breaker.getInfo().getSuccessfulCalls() + breaker.getInfo().getFailedCalls());
+    }
+
+    @Test
+    public void halfOpenClosesAfterSuccessfulTrialCalls() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker("DS1", new CircuitBreakerConfig(50, 100, 500L, 1, 20L, 2));
+        breaker.onError(FAST);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        Thread.sleep(50L);
+        assertTrue(breaker.tryAcquirePermission());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.tryAcquirePermission());
+        // 试探许可已经用完
+        assertFalse(breaker.tryAcquirePermission());
+        assertTrue(breaker.isRejecting());
+        breaker.onSuccess(FAST);
+        breaker.onSuccess(FAST);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquirePermission());
+    }
+
+    @Test
+    public void halfOpenReopensAfterFailedTrialCall() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker("DS1", new CircuitBreakerConfig(50, 100, 500L, 1, 20L, 1));
+        breaker.onError(FAST);
+        Thread.sleep(50L);
+        assertTrue(breaker.tryAcquirePermission());
+        breaker.onError(FAST);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquirePermission());
+    }
+
+    @Test
+    public void releasedPermissionCanBeReacquiredInHalfOpen() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker("DS1", new CircuitBreakerConfig(50, 100, 500L, 1, 20L, 1));
+        breaker.onError(FAST);
+        Thread.sleep(50L);
+        assertTrue(breaker.tryAcquirePermission());
+        // 调用被隔离舱拒绝，没有真正发生
+        breaker.releasePermission();
+        assertTrue(breaker.tryAcquirePermission());
+        assertFalse(breaker.tryAcquirePermission());
+    }
+
+    @Test
+    public void callsRecordedWhileOpenAreIgnored() {
+        CircuitBreaker breaker = new CircuitBreaker("DS1", new CircuitBreakerConfig(50, 100, 500L, 1, 60_000L, 1));
+        breaker.onError(FAST);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        breaker.onSuccess(FAST);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+}
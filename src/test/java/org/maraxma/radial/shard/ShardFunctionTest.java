@@ -0,0 +1,113 @@
+package org.maraxma.radial.shard;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * 内置分片函数以及分片路由器的测试。
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+public class ShardFunctionTest {
+
+    private static final String[] NAMES = {"dataSource_DS1", "dataSource_DS2", "dataSource_DS3", "dataSource_DS4"};
+
+    @Test
+    public void moduloIsNonNegative() {
+        ShardFunction function = ShardFunctionType.MODULO.create("orders", NAMES, null, 0);
+        assertEquals(1, function.shard(5L));
+        assertEquals(1, function.shard(5));
+        assertEquals(3, function.shard(-1L));
+        assertEquals(Math.floorMod("order-1".hashCode(), 4), function.shard("order-1"));
+    }
+
+    @Test
+    public void rangeAssignsBoundsToTheRightShard() {
+        ShardFunction function = ShardFunctionType.RANGE.create("orders", NAMES, new long[] {100L, 200L, 300L}, 0);
+        assertEquals(0, function.shard(Long.MIN_VALUE));
+        assertEquals(0, function.shard(99L));
+        assertEquals(1, function.shard(100L));
+        assertEquals(1, function.shard(199L));
+        assertEquals(2, function.shard(200L));
+        assertEquals(3, function.shard(300L));
+        assertEquals(3, function.shard(Long.MAX_VALUE));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rangeRejectsWrongNumberOfBounds() {
+        ShardFunctionType.RANGE.create("orders", NAMES, new long[] {100L, 200L}, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rangeRejectsUnorderedBounds() {
+        ShardFunctionType.RANGE.create("orders", NAMES, new long[] {100L, 300L, 200L}, 0);
+    }
+
+    @Test
+    public void consistentHashSpreadsKeysEvenly() {
+        ShardFunction function = ShardFunctionType.CONSISTENT_HASH.create("orders", NAMES, null, 160);
+        int[] counts = new int[NAMES.length];
+        int keys = 100_000;
+        for (long key = 0; key < keys; key++) {
+            counts[function.shard(key)]++;
+        }
+        for (int count : counts) {
+            // 每个分片的键数与平均值的偏差不超过20%
+            assertTrue(Arrays.toString(counts), Math.abs(count - keys / NAMES.length) < keys / NAMES.length / 5);
+        }
+    }
+
+    @Test
+    public void consistentHashMovesOnlyKeysOfTheNewShard() {
+        ShardFunction before = ShardFunctionType.CONSISTENT_HASH.create("orders", Arrays.copyOf(NAMES, 3), null, 160);
+        ShardFunction after = ShardFunctionType.CONSISTENT_HASH.create("orders", NAMES, null, 160);
+        int moved = 0;
+        int keys = 100_000;
+        for (long key = 0; key < keys; key++) {
+            int shard = after.shard(key);
+            if (shard != before.shard(key)) {
+                // 键只会从已有的分片移动到新增的分片上
+                assertEquals(3, shard);
+                moved++;
+            }
+        }
+        assertTrue("moved " + moved, moved > keys / 8 && moved < keys * 3 / 8);
+    }
+
+    @Test
+    public void consistentHashDoesNotDependOnConfigurationOrder() {
+        String[] reversed = {NAMES[3], NAMES[2], NAMES[1], NAMES[0]};
+        ShardFunction function = ShardFunctionType.CONSISTENT_HASH.create("orders", NAMES, null, 160);
+        ShardFunction reversedFunction = ShardFunctionType.CONSISTENT_HASH.create("orders", reversed, null, 160);
+        for (long key = 0; key < 10_000; key++) {
+            assertEquals(NAMES[function.shard(key)], reversed[reversedFunction.shard(key)]);
+        }
+    }
+
+    @Test
+    public void routerMapsShardsToDataSourceNames() {
+        ShardingRouter router = new ShardingRouter();
+        router.register("orders", Arrays.asList(NAMES), ShardFunctionType.MODULO.create("orders", NAMES, null, 0));
+        assertEquals("dataSource_DS3", router.route("orders", 6L));
+        assertEquals(Arrays.asList(NAMES), router.getDataSourceNames("orders"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void routerRejectsInvalidShard() {
+        ShardingRouter router = new ShardingRouter();
+        router.register("orders", Arrays.asList(NAMES), key -> NAMES.length);
+        router.route("orders", 1L);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void routerRejectsNullKey() {
+        ShardingRouter router = new ShardingRouter();
+        router.register("orders", Arrays.asList(NAMES), ShardFunctionType.MODULO.create("orders", NAMES, null, 0));
+        router.route("orders", null);
+    }
+}
@@ -0,0 +1,202 @@
+package org.maraxma.radial.transaction;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.executor.BatchExecutorException;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.After;
+import org.junit.Test;
+import org.maraxma.radial.datasource.DataSourceContextHolder;
+import org.maraxma.radial.datasource.SwitchableDataSource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+/**
+ * 可切换数据源批量模式拦截器在两个HSQLDB内存库上的测试，覆盖按数据源分组、到达阈值时执行、按数据源汇总更新行数以及提交时检查执行失败的语句。
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+public class SwitchableDataSourceBatchInterceptorTest {
+
+    private static final String DS1 = "dataSource_DS1";
+    private static final String DS2 = "dataSource_DS2";
+
+    private DataSource dataSource1;
+    private DataSource dataSource2;
+    private SwitchableDataSource switchableDataSource;
+
+    public interface ItemMapper {
+
+        @Insert("INSERT INTO t_item VALUES (#{id})")
+        int insert(int id);
+
+        @Select("SELECT COUNT(*) FROM t_item")
+        int count();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        switchableDataSource.destroy();
+    }
+
+    @Test
+    public void groupsStatementsByDataSourceAndFlushesAtThreshold() throws Exception {
+        try (SqlSession session = openBatchSession(2, false)) {
+            ItemMapper mapper = session.getMapper(ItemMapper.class);
+            on(DS1, () -> mapper.insert(1));
+            on(DS2, () -> mapper.insert(1));
+            on(DS1, () -> mapper.insert(2));
+            // 第一个数据源的分组达到阈值后被单独执行，第二个数据源的语句仍然在缓冲中
+            assertEquals(2, count(dataSource1));
+            assertEquals(0, count(dataSource2));
+            List<BatchResult> results = session.flushStatements();
+            assertEquals(2, results.size());
+            assertEquals(DS1, ((SwitchableDataSourceBatchResult) results.get(0)).getDataSourceName());
+            assertEquals(DS2, ((SwitchableDataSourceBatchResult) results.get(1)).getDataSourceName());
+            Map<String, Long> counts = SwitchableDataSourceBatchResult.countByDataSource(results);
+            assertEquals(Long.valueOf(2L), counts.get(DS1));
+            assertEquals(Long.valueOf(1L), counts.get(DS2));
+            assertEquals(1, count(dataSource2));
+        }
+    }
+
+    @Test
+    public void queryFlushesPendingStatementsAndKeepsTheirResults() throws Exception {
+        try (SqlSession session = openBatchSession(100, false)) {
+            ItemMapper mapper = session.getMapper(ItemMapper.class);
+            on(DS1, () -> mapper.insert(1));
+            on(DS2, () -> mapper.insert(1));
+            assertEquals(Integer.valueOf(1), on(DS1, mapper::count));
+            Map<String, Long> counts = SwitchableDataSourceBatchResult.countByDataSource(session.flushStatements());
+            assertEquals(Long.valueOf(1L), counts.get(DS1));
+            assertEquals(Long.valueOf(1L), counts.get(DS2));
+        }
+    }
+
+    @Test
+    public void closeDiscardsPendingStatements() throws Exception {
+        try (SqlSession session = openBatchSession(100, false)) {
+            ItemMapper mapper = session.getMapper(ItemMapper.class);
+            on(DS1, () -> mapper.insert(1));
+            on(DS2, () -> mapper.insert(1));
+        }
+        assertEquals(0, count(dataSource1));
+        assertEquals(0, count(dataSource2));
+    }
+
+    @Test
+    public void commitFailsWhenAStatementFailed() throws Exception {
+        try (SqlSession session = openBatchSession(100, true)) {
+            ItemMapper mapper = session.getMapper(ItemMapper.class);
+            on(DS1, () -> mapper.insert(1));
+            on(DS2, () -> mapper.insert(1));
+            try {
+                session.commit(true);
+                fail("Commit must fail when a batched statement failed");
+            } catch (PersistenceException e) {
+                assertTrue(e.getCause() instanceof BatchExecutorException);
+                BatchExecutorException cause = (BatchExecutorException) e.getCause();
+                assertTrue(cause.getMessage().contains(DS2));
+                assertEquals(Statement.EXECUTE_FAILED, cause.getBatchUpdateException().getUpdateCounts()[0]);
+                assertEquals(1, cause.getSuccessfulBatchResults().size());
+            }
+        }
+    }
+
+    /**
+     * 创建两个空的HSQLDB内存库以及基于它们的可切换数据源，并打开一个批量模式的会话。
+     *
+     * @param flushSize          批量模式拦截器的阈值
+     * @param failingDataSource2 第二个数据源的批量执行是否总是返回执行失败（模拟出错后继续执行剩余语句的驱动）
+     */
+    private SqlSession openBatchSession(int flushSize, boolean failingDataSource2) throws SQLException {
+        dataSource1 = hsqldb("radial_batch_ds1");
+        dataSource2 = hsqldb("radial_batch_ds2");
+        Map<Object, Object> targets = new LinkedHashMap<>();
+        targets.put(DS1, dataSource1);
+        targets.put(DS2, failingDataSource2 ? failingBatches(DataSource.class, dataSource2) : dataSource2);
+        switchableDataSource = new SwitchableDataSource();
+        switchableDataSource.setTargetDataSources(targets);
+        switchableDataSource.setDefaultTargetDataSource(dataSource1);
+        switchableDataSource.afterPropertiesSet();
+        Configuration configuration = new Configuration(new Environment("test", new SwitchableDataSourceTransactionFactory(), switchableDataSource));
+        configuration.addMapper(ItemMapper.class);
+        configuration.addInterceptor(new SwitchableDataSourceBatchInterceptor(flushSize));
+        SqlSessionFactory sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+        return sqlSessionFactory.openSession(ExecutorType.BATCH);
+    }
+
+    private static <T> T on(String dataSourceName, Supplier<T> action) {
+        int depth = DataSourceContextHolder.pushDataSourceName(dataSourceName);
+        try {
+            return action.get();
+        } finally {
+            DataSourceContextHolder.popDataSourceName(depth);
+        }
+    }
+
+    private static int count(DataSource dataSource) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM t_item")) {
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+
+    private static DataSource hsqldb(String name) throws SQLException {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:hsqldb:mem:" + name, "SA", "");
+        dataSource.setDriverClassName("org.hsqldb.jdbc.JDBCDriver");
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE t_item IF EXISTS");
+            statement.execute("CREATE TABLE t_item (id INT PRIMARY KEY)");
+        }
+        return dataSource;
+    }
+
+    /**
+     * 包装一个数据源，它的批量执行不会真正执行语句，而是像出错后继续执行剩余语句的驱动一样返回执行失败。
+     */
+    private static <T> T failingBatches(Class<T> type, Object target) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, (proxy, method, args) -> {
+            if ("executeBatch".equals(method.getName())) {
+                return new int[] {Statement.EXECUTE_FAILED};
+            }
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+            if (result instanceof PreparedStatement) {
+                return failingBatches(PreparedStatement.class, result);
+            }
+            return result instanceof Connection ? failingBatches(Connection.class, result) : result;
+        }));
+    }
+}
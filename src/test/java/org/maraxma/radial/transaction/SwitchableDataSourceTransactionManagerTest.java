@@ -0,0 +1,279 @@
+package org.maraxma.radial.transaction;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import javax.sql.DataSource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.maraxma.radial.datasource.DataSourceContextHolder;
+import org.maraxma.radial.datasource.SwitchableDataSource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * 可切换数据源事务管理器在两个HSQLDB内存库上的测试，覆盖嵌套事务（保存点）、挂起和恢复以及跳过只读连接的提交。
+ *
+ * @author mm92
+ * @since 1.4.0 2026-10-18
+ */
+public class SwitchableDataSourceTransactionManagerTest {
+
+    private static final String DS1 = "dataSource_DS1";
+    private static final String DS2 = "dataSource_DS2";
+
+    private DataSource dataSource1;
+    private DataSource dataSource2;
+    private SwitchableDataSource switchableDataSource;
+    private SwitchableDataSourceTransactionManager transactionManager;
+    // 模拟注册了写操作跟踪拦截器的MyBatis会话
+    private boolean trackWrites;
+
+    @Before
+    public void setUp() throws Exception {
+        init(false);
+    }
+
+    /**
+     * 创建两个空的HSQLDB内存库以及基于它们的可切换数据源和事务管理器。
+     *
+     * @param autoCommit 连接默认的自动提交模式（相当于连接池的auto-commit配置）
+     */
+    private void init(boolean autoCommit) throws SQLException {
+        dataSource1 = hsqldb("radial_tx_ds1", autoCommit);
+        dataSource2 = hsqldb("radial_tx_ds2", autoCommit);
+        for (DataSource dataSource : new DataSource[] {dataSource1, dataSource2}) {
+            try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+                statement.execute("DROP TABLE t_item IF EXISTS");
+                statement.execute("CREATE TABLE t_item (id INT PRIMARY KEY)");
+                if (!connection.getAutoCommit()) {
+                    connection.commit();
+                }
+            }
+        }
+        Map<Object, Object> targets = new LinkedHashMap<>();
+        targets.put(DS1, dataSource1);
+        targets.put(DS2, dataSource2);
+        switchableDataSource = new SwitchableDataSource();
+        switchableDataSource.setTargetDataSources(targets);
+        switchableDataSource.setDefaultTargetDataSource(dataSource1);
+        switchableDataSource.afterPropertiesSet();
+        transactionManager = new SwitchableDataSourceTransactionManager(switchableDataSource);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        transactionManager.destroy();
+        switchableDataSource.destroy();
+    }
+
+    @Test
+    public void innerNestedCommitsAndOuterNestedRollsBack() {
+        template(TransactionDefinition.PROPAGATION_REQUIRED).executeWithoutResult(outer -> {
+            insert(DS1, 1);
+            insert(DS2, 1);
+            template(TransactionDefinition.PROPAGATION_NESTED).executeWithoutResult(nested -> {
+                insert(DS1, 2);
+                template(TransactionDefinition.PROPAGATION_NESTED).executeWithoutResult(inner -> {
+                    insert(DS1, 3);
+                    insert(DS2, 3);
+                });
+                // 内层保存点已经被释放，回滚到外层保存点时必须同时撤销内层的修改
+                nested.setRollbackOnly();
+            });
+            insert(DS2, 4);
+        });
+        assertEquals(1, count(dataSource1));
+        assertEquals(2, count(dataSource2));
+    }
+
+    @Test
+    public void innerNestedRollsBackAndOuterNestedCommits() {
+        template(TransactionDefinition.PROPAGATION_REQUIRED).executeWithoutResult(outer -> {
+            insert(DS1, 1);
+            template(TransactionDefinition.PROPAGATION_NESTED).executeWithoutResult(nested -> {
+                insert(DS1, 2);
+                template(TransactionDefinition.PROPAGATION_NESTED).executeWithoutResult(inner -> {
+                    insert(DS1, 3);
+                    inner.setRollbackOnly();
+                });
+            });
+        });
+        assertEquals(2, count(dataSource1));
+    }
+
+    @Test
+    public void connectionJoiningInsideNestedIsRolledBack() {
+        template(TransactionDefinition.PROPAGATION_REQUIRED).executeWithoutResult(outer -> {
+            insert(DS1, 1);
+            template(TransactionDefinition.PROPAGATION_NESTED).executeWithoutResult(nested -> {
+                // 第二个数据源的连接在保存点创建之后才加入事务
+                insert(DS2, 1);
+                nested.setRollbackOnly();
+            });
+        });
+        assertEquals(1, count(dataSource1));
+        assertEquals(0, count(dataSource2));
+    }
+
+    @Test
+    public void requiresNewSuspendsAndResumesOuterTransaction() {
+        template(TransactionDefinition.PROPAGATION_REQUIRED).executeWithoutResult(outer -> {
+            insert(DS1, 1);
+            assertEquals(1, SwitchableDataSourceConnectionContextHolder.getTransactionalConnectionsInternal().size());
+            template(TransactionDefinition.PROPAGATION_REQUIRES_NEW).executeWithoutResult(inner -> {
+                assertEquals(0, SwitchableDataSourceConnectionContextHolder.getTransactionalConnectionsInternal().size());
+                insert(DS1, 2);
+                insert(DS2, 2);
+            });
+            // 外层事务的连接被恢复，之后的操作继续使用它
+            assertEquals(1, SwitchableDataSourceConnectionContextHolder.getTransactionalConnectionsInternal().size());
+            insert(DS2, 3);
+            outer.setRollbackOnly();
+        });
+        assertEquals(1, count(dataSource1));
+        assertEquals(1, count(dataSource2));
+        assertEquals(0, SwitchableDataSourceConnectionContextHolder.getInFlightTracker().getInFlightCount());
+    }
+
+    @Test
+    public void readOnlyParticipantIsReleasedWithoutCommit() throws Exception {
+        tearDown();
+        init(true);
+        transactionManager.setSkipReadOnlyCommit(true);
+        trackWrites = true;
+        List<SwitchableDataSourceConnectionHolder> holders = new ArrayList<>();
+        template(TransactionDefinition.PROPAGATION_REQUIRED).executeWithoutResult(outer -> {
+            insert(DS1, 1);
+            assertEquals(0, select(DS2));
+            holders.addAll(SwitchableDataSourceConnectionContextHolder.getTransactionalConnectionsInternal());
+        });
+        assertEquals(2, holders.size());
+        // 写过的连接在写之前就加入了事务，只读的连接从未被准备过，提交时被直接释放
+        assertTrue(holders.get(0).isWritten() && holders.get(0).isSettingsReady() && !holders.get(0).isReleased());
+        assertTrue(!holders.get(1).isWritten() && !holders.get(1).isSettingsReady() && holders.get(1).isReleased());
+        assertEquals(1, count(dataSource1));
+    }
+
+    @Test
+    public void writeBeforeCommitIsRolledBackWhenSkippingReadOnlyCommit() throws Exception {
+        tearDown();
+        init(true);
+        transactionManager.setSkipReadOnlyCommit(true);
+        trackWrites = true;
+        template(TransactionDefinition.PROPAGATION_REQUIRED).executeWithoutResult(outer -> {
+            select(DS2);
+            insert(DS1, 1);
+            insert(DS2, 1);
+            outer.setRollbackOnly();
+        });
+        assertEquals(0, count(dataSource1));
+        assertEquals(0, count(dataSource2));
+    }
+
+    @Test
+    public void readOnlyParticipantIsCommittedWhenPoolIsNotAutoCommit() {
+        transactionManager.setSkipReadOnlyCommit(true);
+        trackWrites = true;
+        List<SwitchableDataSourceConnectionHolder> holders = new ArrayList<>();
+        template(TransactionDefinition.PROPAGATION_REQUIRED).executeWithoutResult(outer -> {
+            insert(DS1, 1);
+            select(DS2);
+            holders.addAll(SwitchableDataSourceConnectionContextHolder.getTransactionalConnectionsInternal());
+        });
+        assertFalse(holders.get(1).isReleased());
+        assertEquals(1, count(dataSource1));
+    }
+
+    private TransactionTemplate template(int propagation) {
+        return new TransactionTemplate(transactionManager, new DefaultTransactionDefinition(propagation));
+    }
+
+    /**
+     * 像MyBatis的会话一样通过可切换数据源事务执行一条插入语句。
+     */
+    private void insert(String dataSourceName, int id) {
+        int depth = DataSourceContextHolder.pushDataSourceName(dataSourceName);
+        SwitchableDataSourceTransaction transaction = new SwitchableDataSourceTransaction(switchableDataSource);
+        if (trackWrites) {
+            transaction.beginWrite();
+        }
+        try {
+            try (Statement statement = transaction.getConnection().createStatement()) {
+                statement.executeUpdate("INSERT INTO t_item VALUES (" + id + ")");
+            }
+            transaction.commit();
+            transaction.close();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            if (trackWrites) {
+                transaction.endWrite();
+            }
+            DataSourceContextHolder.popDataSourceName(depth);
+        }
+    }
+
+    /**
+     * 像MyBatis的会话一样通过可切换数据源事务查询行数。
+     */
+    private int select(String dataSourceName) {
+        int depth = DataSourceContextHolder.pushDataSourceName(dataSourceName);
+        SwitchableDataSourceTransaction transaction = new SwitchableDataSourceTransaction(switchableDataSource);
+        try {
+            try (Statement statement = transaction.getConnection().createStatement();
+                 ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM t_item")) {
+                resultSet.next();
+                return resultSet.getInt(1);
+            } finally {
+                transaction.close();
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            DataSourceContextHolder.popDataSourceName(depth);
+        }
+    }
+
+    private static int count(DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM t_item")) {
+            resultSet.next();
+            return resultSet.getInt(1);
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 创建一个HSQLDB内存库，每次获取的连接都按照指定的自动提交模式返回。
+     */
+    private static DataSource hsqldb(String name, boolean autoCommit) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:hsqldb:mem:" + name + ";hsqldb.tx=mvcc", "SA", "") {
+            @Override
+            protected Connection getConnectionFromDriver(Properties props) throws SQLException {
+                Connection connection = super.getConnectionFromDriver(props);
+                connection.setAutoCommit(autoCommit);
+                return connection;
+            }
+        };
+        dataSource.setDriverClassName("org.hsqldb.jdbc.JDBCDriver");
+        return dataSource;
+    }
+}